@@ -37,6 +37,8 @@ public class ApplicationConfiguration {
 
     private boolean productionMode;
     private boolean requestTiming;
+    private boolean domMutationBatching;
+    private double clientMetricsSampleRate;
     private String servletVersion;
     private String atmosphereVersion;
     private String atmosphereJSVersion;
@@ -274,6 +276,52 @@ public class ApplicationConfiguration {
         this.requestTiming = requestTiming;
     }
 
+    /**
+     * Checks whether the DOM mutations produced by a server message should be
+     * collected and applied in one pass after the bindings have been updated.
+     *
+     * @return {@code true} if DOM mutations should be batched, {@code false}
+     *         otherwise
+     */
+    public boolean isDomMutationBatching() {
+        return domMutationBatching;
+    }
+
+    /**
+     * Sets whether the DOM mutations produced by a server message should be
+     * collected and applied in one pass after the bindings have been updated.
+     *
+     * @param domMutationBatching
+     *            {@code true} if DOM mutations should be batched, {@code false}
+     *            otherwise
+     */
+    public void setDomMutationBatching(boolean domMutationBatching) {
+        this.domMutationBatching = domMutationBatching;
+    }
+
+    /**
+     * Gets the fraction of page loads for which the client engine should
+     * report performance metrics to the server.
+     *
+     * @return the sample rate between {@code 0} and {@code 1}, {@code 0} if
+     *         metrics should never be reported
+     */
+    public double getClientMetricsSampleRate() {
+        return clientMetricsSampleRate;
+    }
+
+    /**
+     * Sets the fraction of page loads for which the client engine should
+     * report performance metrics to the server.
+     *
+     * @param clientMetricsSampleRate
+     *            the sample rate between {@code 0} and {@code 1}, {@code 0}
+     *            if metrics should never be reported
+     */
+    public void setClientMetricsSampleRate(double clientMetricsSampleRate) {
+        this.clientMetricsSampleRate = clientMetricsSampleRate;
+    }
+
     /**
      * Gets the base URL of the frontend components on the server.
      * 
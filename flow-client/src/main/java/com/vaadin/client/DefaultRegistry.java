@@ -15,6 +15,7 @@
  */
 package com.vaadin.client;
 
+import com.vaadin.client.communication.ClientMetricsCollector;
 import com.vaadin.client.communication.ConnectionStateHandler;
 import com.vaadin.client.communication.DefaultConnectionStateHandler;
 import com.vaadin.client.communication.Heartbeat;
@@ -75,6 +76,8 @@ public class DefaultRegistry extends Registry {
         set(ConstantPool.class, new ConstantPool());
         set(ExistingElementMap.class, new ExistingElementMap());
         set(InitialPropertiesHandler.class, new InitialPropertiesHandler(this));
+        set(ClientMetricsCollector.class, new ClientMetricsCollector(
+                applicationConfiguration.getClientMetricsSampleRate()));
 
         // Classes with dependencies, in correct order
         set(Heartbeat.class, new Heartbeat(this));
@@ -15,6 +15,7 @@
  */
 package com.vaadin.client;
 
+import com.vaadin.client.communication.ClientMetricsCollector;
 import com.vaadin.client.communication.ConnectionStateHandler;
 import com.vaadin.client.communication.Heartbeat;
 import com.vaadin.client.communication.MessageHandler;
@@ -313,4 +314,13 @@ public class Registry {
         return get(Poller.class);
     }
 
+    /**
+     * Gets the {@link ClientMetricsCollector} singleton.
+     *
+     * @return the {@link ClientMetricsCollector} singleton
+     */
+    public ClientMetricsCollector getClientMetricsCollector() {
+        return get(ClientMetricsCollector.class);
+    }
+
 }
@@ -165,6 +165,10 @@ public class Bootstrapper implements EntryPoint {
         conf.setProductionMode(!jsoConfiguration.getConfigBoolean("debug"));
         conf.setRequestTiming(
                 jsoConfiguration.getConfigBoolean("requestTiming"));
+        conf.setDomMutationBatching(
+                jsoConfiguration.getConfigBoolean("batchDomMutations"));
+        conf.setClientMetricsSampleRate(jsoConfiguration.getConfigDouble(
+                ApplicationConstants.CLIENT_METRICS_SAMPLE_RATE));
 
     }
 
@@ -105,6 +105,26 @@ public final class JsoConfiguration extends JavaScriptObject {
         }
     }-*/;
 
+    /**
+     * Reads a configuration parameter as a double. Please note that the
+     * javascript value of the parameter should also be a number, or else an
+     * undefined exception may be thrown.
+     *
+     * @param name
+     *            name of the configuration parameter
+     * @return the double value of the configuration parameter, or
+     *         <code>0</code> if no value is defined
+     */
+    public native double getConfigDouble(String name)
+    /*-{
+        var value = this.getConfig(name);
+        if (value === null || value === undefined) {
+            return 0;
+        } else {
+            return value;
+        }
+    }-*/;
+
     /**
      * Reads a configuration parameter as an {@link ErrorMessage} object. Please
      * note that the javascript value of the parameter should also be an object
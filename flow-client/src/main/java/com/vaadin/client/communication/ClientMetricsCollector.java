@@ -0,0 +1,191 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.client.communication;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import com.google.gwt.core.client.Duration;
+import com.vaadin.client.Console;
+import com.vaadin.client.Profiler;
+import com.vaadin.client.Profiler.Node;
+import com.vaadin.client.Profiler.ProfilerResultConsumer;
+import com.vaadin.flow.shared.JsonConstants;
+
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+
+/**
+ * Collects metrics about the performance of the client engine and hands them
+ * out to be sent to the server along with the next request.
+ * <p>
+ * Whether metrics are collected is decided once per page load based on
+ * {@link com.vaadin.client.ApplicationConfiguration#getClientMetricsSampleRate()}.
+ * No extra requests are made for the metrics. The metrics are handed out at
+ * most once per {@link JsonConstants#METRICS_MIN_SEND_INTERVAL} milliseconds,
+ * and collected for the next request in between. At most
+ * {@link #MAX_PENDING_PROCESSING_TIMES} processing times are kept until they
+ * are handed out. Any further processing times are only counted.
+ * <p>
+ * Profiler totals are only collected if the client engine has been compiled
+ * with the profiler enabled.
+ *
+ * @author Vaadin Ltd
+ * @since
+ */
+public class ClientMetricsCollector implements ProfilerResultConsumer {
+
+    /**
+     * The maximum number of message processing times to keep until the next
+     * request.
+     */
+    public static final int MAX_PENDING_PROCESSING_TIMES = JsonConstants.METRICS_MAX_PROCESSING_TIMES;
+
+    private final boolean sampled;
+
+    private JsonArray processingTimes = Json.createArray();
+    private int bootstrapTime = -1;
+    private JsonObject profilerTotals = Json.createObject();
+    private int droppedCount;
+    private double lastTakenTime = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Creates a new instance which collects metrics for the given fraction of
+     * page loads.
+     *
+     * @param sampleRate
+     *            the fraction of page loads for which to collect metrics,
+     *            between {@code 0} and {@code 1}
+     */
+    public ClientMetricsCollector(double sampleRate) {
+        sampled = sampleRate > 0 && Math.random() < sampleRate;
+        if (sampled && Profiler.isEnabled()) {
+            try {
+                Profiler.setProfilerResultConsumer(this);
+            } catch (IllegalStateException e) {
+                Console.log(
+                        "Profiler data already consumed, not collecting profiler totals");
+            }
+        }
+    }
+
+    /**
+     * Checks whether metrics are collected for this page load.
+     *
+     * @return {@code true} if metrics are collected, {@code false} otherwise
+     */
+    public boolean isSampled() {
+        return sampled;
+    }
+
+    /**
+     * Records the time it took to process a server message.
+     *
+     * @param processingTime
+     *            the processing time in milliseconds
+     */
+    public void messageProcessed(int processingTime) {
+        if (!sampled) {
+            return;
+        }
+        if (processingTimes.length() < MAX_PENDING_PROCESSING_TIMES) {
+            processingTimes.set(processingTimes.length(), processingTime);
+        } else {
+            droppedCount++;
+        }
+    }
+
+    /**
+     * Records the time it took until the initial server message had been
+     * processed.
+     *
+     * @param time
+     *            the time in milliseconds since the browser started receiving
+     *            the bootstrap page, or {@code -1} if not supported by the
+     *            browser
+     */
+    public void bootstrapCompleted(int time) {
+        if (sampled && time >= 0) {
+            bootstrapTime = time;
+        }
+    }
+
+    @Override
+    public void addProfilerData(Node rootNode, List<Node> totals) {
+        for (Node node : totals) {
+            String name = node.getName();
+            double total = node.getTimeSpent();
+            if (profilerTotals.hasKey(name)) {
+                total += profilerTotals.getNumber(name);
+            }
+            profilerTotals.put(name, total);
+        }
+    }
+
+    @Override
+    public void addBootstrapData(LinkedHashMap<String, Double> timings) {
+        // The bootstrap time is recorded separately
+    }
+
+    /**
+     * Gets the metrics collected since the metrics were previously taken and
+     * starts collecting anew. If the metrics have been taken less than
+     * {@link JsonConstants#METRICS_MIN_SEND_INTERVAL} milliseconds ago, nothing
+     * is returned and the metrics are kept for a later call.
+     *
+     * @return the collected metrics, or <code>null</code> if there are none or
+     *         it is too early to send them
+     */
+    public JsonObject takePendingMetrics() {
+        if (!sampled || (processingTimes.length() == 0 && bootstrapTime < 0
+                && profilerTotals.keys().length == 0 && droppedCount == 0)) {
+            return null;
+        }
+        double now = getCurrentTime();
+        if (now - lastTakenTime < JsonConstants.METRICS_MIN_SEND_INTERVAL) {
+            return null;
+        }
+        lastTakenTime = now;
+
+        JsonObject metrics = Json.createObject();
+        metrics.put(JsonConstants.METRICS_PROCESSING_TIMES, processingTimes);
+        if (bootstrapTime >= 0) {
+            metrics.put(JsonConstants.METRICS_BOOTSTRAP_TIME, bootstrapTime);
+        }
+        if (profilerTotals.keys().length != 0) {
+            metrics.put(JsonConstants.METRICS_PROFILER_TOTALS, profilerTotals);
+        }
+        if (droppedCount != 0) {
+            metrics.put(JsonConstants.METRICS_DROPPED_COUNT, droppedCount);
+        }
+
+        processingTimes = Json.createArray();
+        bootstrapTime = -1;
+        profilerTotals = Json.createObject();
+        droppedCount = 0;
+        return metrics;
+    }
+
+    /**
+     * Gets the current time in milliseconds. Overridden in tests.
+     *
+     * @return the current time in milliseconds
+     */
+    protected double getCurrentTime() {
+        return Duration.currentTimeMillis();
+    }
+}
@@ -35,6 +35,7 @@ import com.vaadin.client.flow.collection.JsCollections;
 import com.vaadin.client.flow.collection.JsMap;
 import com.vaadin.client.flow.collection.JsSet;
 import com.vaadin.client.flow.dom.DomApi;
+import com.vaadin.client.flow.dom.DomMutationQueue;
 import com.vaadin.client.flow.reactive.Reactive;
 import com.vaadin.flow.shared.ApplicationConstants;
 import com.vaadin.flow.shared.JsonConstants;
@@ -373,6 +374,12 @@ public class MessageHandler {
             }
 
             if (json.hasKey("changes")) {
+                if (registry.getApplicationConfiguration()
+                        .isDomMutationBatching()) {
+                    // Write the DOM changes once all bindings have been
+                    // updated, before anything else gets to run
+                    DomMutationQueue.begin();
+                }
                 processChanges(json);
             }
 
@@ -421,6 +428,8 @@ public class MessageHandler {
 
             lastProcessingTime = (int) (Duration.currentTimeMillis() - start);
             totalProcessingTime += lastProcessingTime;
+            registry.getClientMetricsCollector()
+                    .messageProcessed(lastProcessingTime);
             if (!initialMessageHandled) {
                 initialMessageHandled = true;
 
@@ -433,6 +442,8 @@ public class MessageHandler {
                 }
 
                 bootstrapTime = calculateBootstrapTime();
+                registry.getClientMetricsCollector()
+                        .bootstrapCompleted(bootstrapTime);
                 if (Profiler.isEnabled() && bootstrapTime != -1) {
                     Profiler.logBootstrapTimings();
                 }
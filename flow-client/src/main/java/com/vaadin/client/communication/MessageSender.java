@@ -104,6 +104,11 @@ public class MessageSender {
         }
 
         JsonObject extraJson = Json.createObject();
+        JsonObject metrics = registry.getClientMetricsCollector()
+                .takePendingMetrics();
+        if (metrics != null) {
+            extraJson.put(ApplicationConstants.CLIENT_METRICS, metrics);
+        }
         if (showLoadingIndicator) {
             registry.getLoadingIndicator().trigger();
         }
@@ -127,11 +132,13 @@ public class MessageSender {
         if (!csrfToken.equals(ApplicationConstants.CSRF_TOKEN_DEFAULT_VALUE)) {
             payload.put(ApplicationConstants.CSRF_TOKEN, csrfToken);
         }
-        payload.put(ApplicationConstants.RPC_INVOCATIONS, reqInvocations);
         payload.put(ApplicationConstants.SERVER_SYNC_ID,
                 registry.getMessageHandler().getLastSeenServerSyncId());
         payload.put(ApplicationConstants.CLIENT_TO_SERVER_ID,
                 clientToServerMessageId++);
+        // The invocations are last so that the server can validate the
+        // message before reading them
+        payload.put(ApplicationConstants.RPC_INVOCATIONS, reqInvocations);
 
         if (extraJson != null) {
             for (String key : extraJson.keys()) {
@@ -18,9 +18,14 @@ package com.vaadin.client.communication;
 import com.google.gwt.core.client.Scheduler;
 import com.vaadin.client.Console;
 import com.vaadin.client.Registry;
+import com.vaadin.client.flow.collection.JsCollections;
+import com.vaadin.client.flow.collection.JsMap;
+import com.vaadin.flow.shared.JsonConstants;
 
 import elemental.json.Json;
 import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+import elemental.json.JsonType;
 import elemental.json.JsonValue;
 
 /**
@@ -38,6 +43,15 @@ public class ServerRpcQueue {
 
     private JsonArray pendingInvocations = Json.createArray();
 
+    /*
+     * Index in pendingInvocations of the property sync invocation for each
+     * node property, for the property syncs added after the latest other
+     * invocation.
+     */
+    private JsMap<String, Integer> pendingSyncIndexes = JsCollections.map();
+
+    private int droppedInvocationCount = 0;
+
     private boolean flushPending = false;
 
     private final Registry registry;
@@ -56,6 +70,11 @@ public class ServerRpcQueue {
 
     /**
      * Adds an explicit RPC method invocation to the send queue.
+     * <p>
+     * A property sync invocation replaces a pending sync invocation of the
+     * same node property, unless some other invocation has been added after
+     * the pending one. Only the latest value is then sent to the server, and
+     * the order of property syncs relative to other invocations is kept.
      *
      * @param invocation
      *            RPC method invocation
@@ -66,14 +85,60 @@ public class ServerRpcQueue {
                     "Trying to invoke method on not yet started or stopped application");
             return;
         }
+        String syncKey = getSyncKey(invocation);
+        if (syncKey == null) {
+            pendingSyncIndexes.clear();
+        } else if (pendingSyncIndexes.has(syncKey)) {
+            pendingInvocations.set(pendingSyncIndexes.get(syncKey).intValue(),
+                    invocation);
+            droppedInvocationCount++;
+            return;
+        } else {
+            pendingSyncIndexes.set(syncKey,
+                    Integer.valueOf(pendingInvocations.length()));
+        }
         pendingInvocations.set(pendingInvocations.length(), invocation);
     }
 
+    /**
+     * Gets a key identifying the node property of a property sync invocation.
+     *
+     * @param invocation
+     *            the invocation to check
+     * @return the node property key, or <code>null</code> if the invocation
+     *         is not a property sync
+     */
+    private static String getSyncKey(JsonValue invocation) {
+        if (invocation.getType() != JsonType.OBJECT) {
+            return null;
+        }
+        JsonObject object = (JsonObject) invocation;
+        if (!object.hasKey(JsonConstants.RPC_TYPE)
+                || !JsonConstants.RPC_TYPE_MAP_SYNC
+                        .equals(object.getString(JsonConstants.RPC_TYPE))) {
+            return null;
+        }
+        return (int) object.getNumber(JsonConstants.RPC_NODE) + ","
+                + (int) object.getNumber(JsonConstants.RPC_FEATURE) + ","
+                + object.getString(JsonConstants.RPC_PROPERTY);
+    }
+
+    /**
+     * Gets the number of property sync invocations that have been replaced by
+     * a later sync of the same property before being sent to the server.
+     *
+     * @return the number of dropped invocations
+     */
+    public int getDroppedInvocationCount() {
+        return droppedInvocationCount;
+    }
+
     /**
      * Clears the queue.
      */
     public void clear() {
         pendingInvocations = Json.createArray();
+        pendingSyncIndexes.clear();
         flushPending = false;
         doFlushStrategy = NO_OP;
     }
@@ -37,6 +37,7 @@ import com.vaadin.client.flow.collection.JsMap.ForEachCallback;
 import com.vaadin.client.flow.collection.JsSet;
 import com.vaadin.client.flow.collection.JsWeakMap;
 import com.vaadin.client.flow.dom.DomApi;
+import com.vaadin.client.flow.dom.DomMutationQueue;
 import com.vaadin.client.flow.dom.DomElement;
 import com.vaadin.client.flow.dom.DomElement.DomTokenList;
 import com.vaadin.client.flow.model.UpdatableModelProperties;
@@ -52,7 +53,7 @@ import com.vaadin.flow.internal.nodefeature.NodeProperties;
 import com.vaadin.flow.shared.JsonConstants;
 
 import elemental.client.Browser;
-import elemental.css.CSSStyleDeclaration;
+import elemental.dom.DocumentFragment;
 import elemental.dom.Element;
 import elemental.dom.Node;
 import elemental.events.Event;
@@ -711,17 +712,26 @@ public class SimpleElementBindingStrategy implements BindingStrategy<Element> {
 
     private void updateStyleProperty(MapProperty mapProperty, Element element) {
         String name = mapProperty.getName();
-        CSSStyleDeclaration styleElement = element.getStyle();
         if (mapProperty.hasValue()) {
-            styleElement.setProperty(name, (String) mapProperty.getValue());
+            String value = (String) mapProperty.getValue();
+            DomMutationQueue.enqueue(element,
+                    () -> element.getStyle().setProperty(name, value));
         } else {
-            styleElement.removeProperty(name);
+            DomMutationQueue.enqueue(element,
+                    () -> element.getStyle().removeProperty(name));
         }
     }
 
     private void updateAttribute(MapProperty mapProperty, Element element) {
         String name = mapProperty.getName();
-        WidgetUtil.updateAttribute(element, name, mapProperty.getValue());
+        Object value = mapProperty.getValue();
+        if (HIDDEN_ATTRIBUTE.equals(name)) {
+            // The visibility binding reads the hidden attribute
+            WidgetUtil.updateAttribute(element, name, value);
+        } else {
+            DomMutationQueue.enqueue(element,
+                    () -> WidgetUtil.updateAttribute(element, name, value));
+        }
     }
 
     private EventRemover bindSynchronizedPropertyEvents(
@@ -1073,6 +1083,8 @@ public class SimpleElementBindingStrategy implements BindingStrategy<Element> {
             beforeRef = null;
         }
 
+        // Consecutive new children are inserted into the DOM together
+        DocumentFragment pendingChildren = null;
         for (int i = 0; i < add.length(); i++) {
             Object newChildObject = add.get(i);
             StateNode newChild = (StateNode) newChildObject;
@@ -1081,31 +1093,53 @@ public class SimpleElementBindingStrategy implements BindingStrategy<Element> {
                     .getRegistry().getExistingElementMap();
             Node childNode = existingElementMap.getElement(newChild.getId());
             if (childNode != null) {
+                insertChildren(context.htmlNode, pendingChildren, beforeRef);
+                pendingChildren = null;
+
                 existingElementMap.remove(newChild.getId());
                 newChild.setDomNode(childNode);
                 context.binderContext.createAndBind(newChild);
+
+                beforeRef = DomApi.wrap(childNode).getNextSibling();
             } else {
                 childNode = context.binderContext.createAndBind(newChild);
 
-                DomApi.wrap(context.htmlNode).insertBefore(childNode,
-                        beforeRef);
+                if (pendingChildren == null) {
+                    pendingChildren = Browser.getDocument()
+                            .createDocumentFragment();
+                }
+                DomApi.wrap(pendingChildren).appendChild(childNode);
             }
+        }
+        insertChildren(context.htmlNode, pendingChildren, beforeRef);
+    }
 
-            beforeRef = DomApi.wrap(childNode).getNextSibling();
+    private static void insertChildren(Node htmlNode,
+            DocumentFragment children, Node beforeRef) {
+        if (children != null) {
+            DomApi.wrap(htmlNode).insertBefore(children, beforeRef);
         }
     }
 
     private static Node getFirstNodeMappedAsStateNode(
             NodeList mappedNodeChildren, Node htmlNode) {
+        JsSet<Node> mappedNodes = JsCollections.set();
+        for (int i = 0; i < mappedNodeChildren.length(); i++) {
+            Node domNode = ((StateNode) mappedNodeChildren.get(i))
+                    .getDomNode();
+            if (domNode != null) {
+                mappedNodes.add(domNode);
+            }
+        }
+        if (mappedNodes.isEmpty()) {
+            return null;
+        }
 
         JsArray<Node> clientList = DomApi.wrap(htmlNode).getChildNodes();
         for (int i = 0; i < clientList.length(); i++) {
             Node clientNode = clientList.get(i);
-            for (int j = 0; j < mappedNodeChildren.length(); j++) {
-                StateNode stateNode = (StateNode) mappedNodeChildren.get(j);
-                if (clientNode.equals(stateNode.getDomNode())) {
-                    return clientNode;
-                }
+            if (mappedNodes.has(clientNode)) {
+                return clientNode;
             }
         }
         return null;
@@ -1350,22 +1384,23 @@ public class SimpleElementBindingStrategy implements BindingStrategy<Element> {
         NodeList classNodeList = node.getList(NodeFeatures.CLASS_LIST);
 
         for (int i = 0; i < classNodeList.length(); i++) {
-            DomApi.wrap(element).getClassList()
-                    .add((String) classNodeList.get(i));
+            String className = (String) classNodeList.get(i);
+            DomMutationQueue.enqueue(element,
+                    () -> DomApi.wrap(element).getClassList().add(className));
         }
 
         return classNodeList.addSpliceListener(e -> {
-            DomTokenList classList = DomApi.wrap(element).getClassList();
-
             JsArray<?> remove = e.getRemove();
-            for (int i = 0; i < remove.length(); i++) {
-                classList.remove((String) remove.get(i));
-            }
-
             JsArray<?> add = e.getAdd();
-            for (int i = 0; i < add.length(); i++) {
-                classList.add((String) add.get(i));
-            }
+            DomMutationQueue.enqueue(element, () -> {
+                DomTokenList classList = DomApi.wrap(element).getClassList();
+                for (int i = 0; i < remove.length(); i++) {
+                    classList.remove((String) remove.get(i));
+                }
+                for (int i = 0; i < add.length(); i++) {
+                    classList.add((String) add.get(i));
+                }
+            });
         });
     }
 
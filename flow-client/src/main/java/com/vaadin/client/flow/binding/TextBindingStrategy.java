@@ -18,6 +18,7 @@ package com.vaadin.client.flow.binding;
 import com.vaadin.client.flow.StateNode;
 import com.vaadin.client.flow.collection.JsCollections;
 import com.vaadin.client.flow.collection.JsWeakMap;
+import com.vaadin.client.flow.dom.DomMutationQueue;
 import com.vaadin.client.flow.nodefeature.MapProperty;
 import com.vaadin.client.flow.nodefeature.NodeMap;
 import com.vaadin.client.flow.reactive.Computation;
@@ -68,8 +69,10 @@ public class TextBindingStrategy implements BindingStrategy<Text> {
         NodeMap textMap = stateNode.getMap(NodeFeatures.TEXT_NODE);
         MapProperty textProperty = textMap.getProperty(NodeProperties.TEXT);
 
-        Computation computation = Reactive.runWhenDependenciesChange(
-                () -> htmlNode.setData((String) textProperty.getValue()));
+        Computation computation = Reactive.runWhenDependenciesChange(() -> {
+            String text = (String) textProperty.getValue();
+            DomMutationQueue.enqueue(htmlNode, () -> htmlNode.setData(text));
+        });
 
         stateNode.addUnregisterListener(e -> unbind(stateNode, computation));
 
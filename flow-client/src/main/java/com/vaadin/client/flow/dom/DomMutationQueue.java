@@ -0,0 +1,149 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.client.flow.dom;
+
+import com.vaadin.client.Command;
+import com.vaadin.client.Profiler;
+import com.vaadin.client.flow.collection.JsArray;
+import com.vaadin.client.flow.collection.JsCollections;
+import com.vaadin.client.flow.reactive.Reactive;
+
+import elemental.dom.Node;
+
+/**
+ * Collects DOM mutations so that they can be applied in one write-only pass.
+ * <p>
+ * While a batch is open, mutations passed to {@link #enqueue(Command)} are
+ * collected instead of being run. The batch is committed as the first post
+ * flush listener of the next {@link Reactive#flush()}, i.e. after all bindings
+ * have reacted to the changes but before any post flush listener (such as
+ * JavaScript execution from the server) can observe the DOM. When no batch is
+ * open, mutations are run immediately.
+ * <p>
+ * Only pure writes should be enqueued. A mutation must not depend on DOM state
+ * written by another queued mutation, except through the order in which the
+ * mutations are run. Mutations of nodes that are not connected to the document
+ * are run immediately, since writing to them cannot cause layout.
+ * <p>
+ * For internal use only. May be renamed or removed in a future release.
+ *
+ * @author Vaadin Ltd
+ * @since
+ */
+public class DomMutationQueue {
+
+    // Initializing static fields would cause nasty $clinit in the generated JS
+    private static JsArray<Command> mutations;
+
+    private static boolean open;
+
+    private DomMutationQueue() {
+        // Only static stuff in this class
+    }
+
+    /**
+     * Opens a batch, unless one is already open. The batch is committed during
+     * the next {@link Reactive#flush()}.
+     */
+    public static void begin() {
+        if (open) {
+            return;
+        }
+        open = true;
+        if (mutations == null) {
+            mutations = JsCollections.array();
+        }
+        Reactive.addPostFlushListener(DomMutationQueue::commit);
+    }
+
+    /**
+     * Runs the given DOM mutation, or collects it if a batch is open.
+     *
+     * @param mutation
+     *            the mutation to run, not <code>null</code>
+     */
+    public static void enqueue(Command mutation) {
+        if (open) {
+            mutations.push(mutation);
+        } else {
+            mutation.execute();
+        }
+    }
+
+    /**
+     * Runs the given mutation of a DOM node, or collects it if a batch is open
+     * and the node is connected to the document.
+     *
+     * @param node
+     *            the node that is mutated, not <code>null</code>
+     * @param mutation
+     *            the mutation to run, not <code>null</code>
+     */
+    public static void enqueue(Node node, Command mutation) {
+        if (open && isConnected(node)) {
+            mutations.push(mutation);
+        } else {
+            mutation.execute();
+        }
+    }
+
+    /**
+     * Checks whether a batch is open.
+     *
+     * @return <code>true</code> if mutations are currently collected,
+     *         <code>false</code> if they are run immediately
+     */
+    public static boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Closes the open batch and runs all collected mutations in the order they
+     * were enqueued. Does nothing if no batch is open.
+     */
+    public static void commit() {
+        if (!open) {
+            return;
+        }
+        open = false;
+        int count = mutations.length();
+        if (count == 0) {
+            return;
+        }
+
+        Profiler.enter("DomMutationQueue.commit");
+        // Mutations enqueued while committing are run immediately
+        JsArray<Command> pending = mutations;
+        mutations = JsCollections.array();
+        for (int i = 0; i < count; i++) {
+            pending.get(i).execute();
+        }
+        Profiler.leave("DomMutationQueue.commit");
+    }
+
+    private static native boolean isConnected(Node node)
+    /*-{
+        if (node.isConnected !== undefined) {
+            return node.isConnected;
+        }
+        // Node.isConnected is not supported by all browsers
+        var root = node;
+        while (root.parentNode) {
+            root = root.parentNode;
+        }
+        return root === node.ownerDocument;
+    }-*/;
+}
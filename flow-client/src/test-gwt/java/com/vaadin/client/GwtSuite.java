@@ -1,6 +1,7 @@
 package com.vaadin.client;
 
 import com.google.gwt.junit.tools.GWTTestSuite;
+import com.vaadin.client.communication.GwtClientMetricsCollectorTest;
 import com.vaadin.client.communication.GwtDefaultReconnectDialogTest;
 import com.vaadin.client.flow.GwtBasicElementBinderTest;
 import com.vaadin.client.flow.GwtEventHandlerTest;
@@ -15,6 +16,7 @@ import com.vaadin.client.flow.collection.GwtJsMapTest;
 import com.vaadin.client.flow.collection.GwtJsSetTest;
 import com.vaadin.client.flow.collection.GwtJsWeakMapTest;
 import com.vaadin.client.flow.dom.GwtDomApiTest;
+import com.vaadin.client.flow.dom.GwtDomMutationQueueTest;
 import com.vaadin.client.flow.dom.GwtPolymerApiImplTest;
 import com.vaadin.client.flow.util.GwtNativeFunctionTest;
 
@@ -43,6 +45,8 @@ public class GwtSuite extends GWTTestSuite {
         suite.addTestSuite(GwtStateNodeTest.class);
         suite.addTestSuite(GwtStateTreeTest.class);
         suite.addTestSuite(GwtDomApiTest.class);
+        suite.addTestSuite(GwtDomMutationQueueTest.class);
+        suite.addTestSuite(GwtClientMetricsCollectorTest.class);
         suite.addTestSuite(GwtPolymerApiImplTest.class);
         suite.addTestSuite(GwtWidgetUtilTest.class);
         suite.addTestSuite(GwtExecuteJavaScriptElementUtilsTest.class);
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.client.communication;
+
+import com.vaadin.client.ClientEngineTestBase;
+import com.vaadin.flow.shared.JsonConstants;
+
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+
+public class GwtClientMetricsCollectorTest extends ClientEngineTestBase {
+
+    public void testNotSampled_nothingCollected() {
+        ClientMetricsCollector collector = new ClientMetricsCollector(0);
+
+        collector.messageProcessed(10);
+        collector.bootstrapCompleted(100);
+
+        assertFalse(collector.isSampled());
+        assertNull(collector.takePendingMetrics());
+    }
+
+    public void testSampled_metricsTakenOnce() {
+        ClientMetricsCollector collector = new ClientMetricsCollector(1);
+        assertTrue(collector.isSampled());
+        assertNull(collector.takePendingMetrics());
+
+        collector.messageProcessed(10);
+        collector.messageProcessed(20);
+        collector.bootstrapCompleted(100);
+
+        JsonObject metrics = collector.takePendingMetrics();
+        JsonArray times = metrics
+                .getArray(JsonConstants.METRICS_PROCESSING_TIMES);
+        assertEquals(2, times.length());
+        assertEquals(10.0, times.getNumber(0));
+        assertEquals(20.0, times.getNumber(1));
+        assertEquals(100.0,
+                metrics.getNumber(JsonConstants.METRICS_BOOTSTRAP_TIME));
+        assertFalse(metrics.hasKey(JsonConstants.METRICS_DROPPED_COUNT));
+
+        assertNull(collector.takePendingMetrics());
+    }
+
+    public void testUnsupportedBootstrapTime_notSent() {
+        ClientMetricsCollector collector = new ClientMetricsCollector(1);
+
+        collector.bootstrapCompleted(-1);
+
+        assertNull(collector.takePendingMetrics());
+    }
+
+    public void testTooManyMessages_extraProcessingTimesCounted() {
+        ClientMetricsCollector collector = new ClientMetricsCollector(1);
+
+        for (int i = 0; i < ClientMetricsCollector.MAX_PENDING_PROCESSING_TIMES
+                + 3; i++) {
+            collector.messageProcessed(i);
+        }
+
+        JsonObject metrics = collector.takePendingMetrics();
+        assertEquals(ClientMetricsCollector.MAX_PENDING_PROCESSING_TIMES,
+                metrics.getArray(JsonConstants.METRICS_PROCESSING_TIMES)
+                        .length());
+        assertEquals(3.0,
+                metrics.getNumber(JsonConstants.METRICS_DROPPED_COUNT));
+    }
+
+    public void testTakenTooSoon_keptUntilInterval() {
+        double[] time = { 5000 };
+        ClientMetricsCollector collector = new ClientMetricsCollector(1) {
+            @Override
+            protected double getCurrentTime() {
+                return time[0];
+            }
+        };
+
+        collector.messageProcessed(10);
+        assertNotNull(collector.takePendingMetrics());
+
+        collector.messageProcessed(20);
+        time[0] += JsonConstants.METRICS_MIN_SEND_INTERVAL - 1;
+        assertNull(collector.takePendingMetrics());
+
+        collector.messageProcessed(30);
+        time[0] += 1;
+        JsonArray times = collector.takePendingMetrics()
+                .getArray(JsonConstants.METRICS_PROCESSING_TIMES);
+        assertEquals(2, times.length());
+        assertEquals(20.0, times.getNumber(0));
+        assertEquals(30.0, times.getNumber(1));
+    }
+}
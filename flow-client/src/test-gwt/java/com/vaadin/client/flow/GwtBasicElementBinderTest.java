@@ -19,12 +19,16 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
 
+import com.google.gwt.core.client.Duration;
+import com.vaadin.client.Console;
 import com.vaadin.client.ExistingElementMap;
 import com.vaadin.client.PolymerUtils;
 import com.vaadin.client.WidgetUtil;
 import com.vaadin.client.flow.binding.Binder;
 import com.vaadin.client.flow.binding.SimpleElementBindingStrategy;
+import com.vaadin.client.flow.collection.JsArray;
 import com.vaadin.client.flow.collection.JsCollections;
+import com.vaadin.client.flow.dom.DomMutationQueue;
 import com.vaadin.client.flow.nodefeature.MapProperty;
 import com.vaadin.client.flow.nodefeature.NodeList;
 import com.vaadin.client.flow.nodefeature.NodeMap;
@@ -445,6 +449,76 @@ public class GwtBasicElementBinderTest extends GwtPropertyElementBinderTest {
         assertEquals("second", childElement.getId());
     }
 
+    public void testInsertChildren_fragmentKeepsOrderAroundExistingElement() {
+        Binder.bind(node, element);
+
+        createAndAppendElementToShadowRoot(element, null, "div");
+        children.add(0, createChildNode("last"));
+        Reactive.flush();
+
+        StateNode existingNode = createChildNode(null, "p");
+        Element existingElement = Browser.getDocument().createElement("p");
+        element.appendChild(existingElement);
+        node.getTree().getRegistry().getExistingElementMap()
+                .add(existingNode.getId(), existingElement);
+
+        children.splice(0, 0,
+                JsCollections.array(createChildNode("first"),
+                        createChildNode("second"), existingNode,
+                        createChildNode("third")));
+        Reactive.flush();
+
+        // The children before the existing element are inserted at the
+        // first position and the children after it right after it:
+        // <div/><span>first</span><span>second</span><span>last</span><p/>
+        // <span>third</span>
+        HTMLCollection elements = element.getChildren();
+        assertEquals(6, elements.length());
+        assertEquals("DIV", ((Element) elements.at(0)).getTagName());
+        assertEquals("first", ((Element) elements.at(1)).getId());
+        assertEquals("second", ((Element) elements.at(2)).getId());
+        assertEquals("last", ((Element) elements.at(3)).getId());
+        assertSame(existingElement, elements.at(4));
+        assertEquals("third", ((Element) elements.at(5)).getId());
+    }
+
+    /**
+     * Measures prepending children to an element with 10k bound children. The
+     * insertion position is found with a single pass over the DOM children,
+     * so the time grows linearly with the number of children instead of
+     * quadratically.
+     */
+    public void testPrependToLargeChildList() {
+        Binder.bind(node, element);
+
+        createAndAppendElementToShadowRoot(element, null, "div");
+        int size = 10000;
+        JsArray<StateNode> initial = JsCollections.array();
+        for (int i = 0; i < size; i++) {
+            initial.push(createChildNode("child" + i));
+        }
+        children.splice(0, 0, initial);
+        Reactive.flush();
+
+        JsArray<StateNode> prepended = JsCollections.array();
+        for (int i = 0; i < 100; i++) {
+            prepended.push(createChildNode("new" + i));
+        }
+        double start = Duration.currentTimeMillis();
+        children.splice(0, 0, prepended);
+        Reactive.flush();
+        double elapsed = Duration.currentTimeMillis() - start;
+        Console.log("Prepending 100 children to " + size + " children took "
+                + elapsed + " ms");
+
+        HTMLCollection elements = element.getChildren();
+        assertEquals(size + 101, elements.length());
+        assertEquals("DIV", ((Element) elements.at(0)).getTagName());
+        assertEquals("new0", ((Element) elements.at(1)).getId());
+        assertEquals("new99", ((Element) elements.at(100)).getId());
+        assertEquals("child0", ((Element) elements.at(101)).getId());
+    }
+
     public void testRemoveChild() {
         Binder.bind(node, element);
 
@@ -798,6 +872,52 @@ public class GwtBasicElementBinderTest extends GwtPropertyElementBinderTest {
         assertEquals("foo", element.getClassName());
     }
 
+    public void testBatchedDomMutations_writtenBeforePostFlushListeners() {
+        polyfillStyleSetProperty(element);
+        Binder.bind(node, element);
+        Reactive.flush();
+        // Only mutations of connected elements are batched
+        Browser.getDocument().getBody().appendChild(element);
+
+        DomMutationQueue.begin();
+        idAttribute.setValue("foo");
+        node.getList(NodeFeatures.CLASS_LIST).add(0, "bar");
+        node.getMap(NodeFeatures.ELEMENT_STYLE_PROPERTIES).getProperty("color")
+                .setValue("green");
+
+        // The class list binding reacts immediately, but only queues the write
+        assertEquals("", element.getClassName());
+
+        JsArray<String> seenInPostFlush = JsCollections.array();
+        Reactive.addPostFlushListener(() -> seenInPostFlush.push(
+                element.getId(), element.getClassName(),
+                element.getStyle().getColor()));
+        Reactive.flush();
+
+        assertFalse(DomMutationQueue.isOpen());
+        assertEquals(3, seenInPostFlush.length());
+        assertEquals("foo", seenInPostFlush.get(0));
+        assertEquals("bar", seenInPostFlush.get(1));
+        assertEquals("green", seenInPostFlush.get(2));
+
+        Browser.getDocument().getBody().removeChild(element);
+    }
+
+    public void testBatchedDomMutations_elementNotConnected_writtenImmediately() {
+        Binder.bind(node, element);
+        Reactive.flush();
+
+        DomMutationQueue.begin();
+        idAttribute.setValue("foo");
+        node.getList(NodeFeatures.CLASS_LIST).add(0, "bar");
+
+        assertEquals("bar", element.getClassName());
+
+        Reactive.flush();
+        assertEquals("foo", element.getId());
+        assertEquals("bar", element.getClassName());
+    }
+
     public void testAddStylesBeforeBind() {
         polyfillStyleSetProperty(element);
         node.getMap(NodeFeatures.ELEMENT_STYLE_PROPERTIES).getProperty("color")
@@ -9,6 +9,7 @@ import com.vaadin.client.ResourceLoader;
 import com.vaadin.client.UILifecycle;
 import com.vaadin.client.UILifecycle.UIState;
 import com.vaadin.client.ValueMap;
+import com.vaadin.client.communication.ClientMetricsCollector;
 import com.vaadin.client.communication.MessageHandler;
 import com.vaadin.client.communication.RequestResponseTracker;
 import com.vaadin.client.communication.ServerRpcQueue;
@@ -32,6 +33,8 @@ public class GwtDomApiTest extends ClientEngineTestBase {
                 set(ServerRpcQueue.class, new ServerRpcQueue(this));
                 set(DependencyLoader.class, new DependencyLoader(this));
                 set(ResourceLoader.class, new ResourceLoader(this, false));
+                set(ClientMetricsCollector.class,
+                        new ClientMetricsCollector(0));
             }
 
         };
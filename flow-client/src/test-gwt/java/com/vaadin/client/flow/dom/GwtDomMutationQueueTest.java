@@ -0,0 +1,107 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.client.flow.dom;
+
+import com.vaadin.client.ClientEngineTestBase;
+import com.vaadin.client.flow.collection.JsArray;
+import com.vaadin.client.flow.collection.JsCollections;
+import com.vaadin.client.flow.reactive.Reactive;
+
+import elemental.client.Browser;
+import elemental.dom.Element;
+
+public class GwtDomMutationQueueTest extends ClientEngineTestBase {
+
+    private JsArray<String> log;
+
+    @Override
+    protected void gwtSetUp() throws Exception {
+        super.gwtSetUp();
+        log = JsCollections.array();
+    }
+
+    public void testNoBatch_mutationRunImmediately() {
+        DomMutationQueue.enqueue(() -> log.push("mutation"));
+
+        assertEquals(1, log.length());
+        assertFalse(DomMutationQueue.isOpen());
+    }
+
+    public void testBatch_mutationsRunInOrderBeforePostFlushListeners() {
+        DomMutationQueue.begin();
+        Reactive.addPostFlushListener(() -> log.push("postFlush"));
+        Reactive.addFlushListener(
+                () -> DomMutationQueue.enqueue(() -> log.push("second")));
+        DomMutationQueue.enqueue(() -> log.push("first"));
+
+        assertEquals(0, log.length());
+        assertTrue(DomMutationQueue.isOpen());
+
+        Reactive.flush();
+
+        assertEquals(3, log.length());
+        assertEquals("first", log.get(0));
+        assertEquals("second", log.get(1));
+        assertEquals("postFlush", log.get(2));
+        assertFalse(DomMutationQueue.isOpen());
+    }
+
+    public void testBatch_nodeNotConnected_mutationRunImmediately() {
+        Element connected = Browser.getDocument().createDivElement();
+        Element detached = Browser.getDocument().createDivElement();
+        Browser.getDocument().getBody().appendChild(connected);
+
+        DomMutationQueue.begin();
+        DomMutationQueue.enqueue(connected, () -> log.push("connected"));
+        DomMutationQueue.enqueue(detached, () -> log.push("detached"));
+
+        assertEquals(1, log.length());
+        assertEquals("detached", log.get(0));
+
+        Reactive.flush();
+
+        assertEquals(2, log.length());
+        assertEquals("connected", log.get(1));
+        Browser.getDocument().getBody().removeChild(connected);
+    }
+
+    public void testBatch_beginTwice_committedOnce() {
+        DomMutationQueue.begin();
+        DomMutationQueue.begin();
+        DomMutationQueue.enqueue(() -> log.push("mutation"));
+
+        Reactive.flush();
+
+        assertEquals(1, log.length());
+    }
+
+    public void testCommit_mutationEnqueuedWhileCommitting_runImmediately() {
+        DomMutationQueue.begin();
+        DomMutationQueue.enqueue(() -> {
+            log.push("outer");
+            DomMutationQueue.enqueue(() -> log.push("inner"));
+            log.push("afterInner");
+        });
+
+        DomMutationQueue.commit();
+
+        assertEquals(3, log.length());
+        assertEquals("inner", log.get(1));
+        // The post flush listener registered by begin finds no open batch
+        Reactive.flush();
+        assertEquals(3, log.length());
+    }
+}
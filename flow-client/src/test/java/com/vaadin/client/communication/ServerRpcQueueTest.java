@@ -0,0 +1,149 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.client.communication;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.client.Registry;
+import com.vaadin.client.UILifecycle;
+import com.vaadin.client.UILifecycle.UIState;
+import com.vaadin.flow.shared.JsonConstants;
+
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+
+public class ServerRpcQueueTest {
+
+    private final UILifecycle uiLifecycle = new UILifecycle();
+
+    private final Registry registry = new Registry() {
+        {
+            set(UILifecycle.class, uiLifecycle);
+        }
+    };
+
+    private final ServerRpcQueue queue = new ServerRpcQueue(registry);
+
+    @Before
+    public void setUp() {
+        uiLifecycle.setState(UIState.RUNNING);
+    }
+
+    @Test
+    public void syncSameProperty_onlyLatestValueQueued() {
+        queue.add(sync(1, "value", "a"));
+        queue.add(sync(1, "value", "ab"));
+        queue.add(sync(1, "value", "abc"));
+
+        JsonArray invocations = queue.toJson();
+        Assert.assertEquals(1, invocations.length());
+        Assert.assertEquals("abc", invocations.getObject(0)
+                .getString(JsonConstants.RPC_PROPERTY_VALUE));
+        Assert.assertEquals(2, queue.getDroppedInvocationCount());
+    }
+
+    @Test
+    public void syncDifferentProperties_allQueued() {
+        queue.add(sync(1, "value", "a"));
+        queue.add(sync(1, "checked", true));
+        queue.add(sync(2, "value", "b"));
+        queue.add(sync(1, "value", "c"));
+
+        JsonArray invocations = queue.toJson();
+        Assert.assertEquals(3, invocations.length());
+        assertSync(invocations.getObject(0), 1, "value", "c");
+        assertSync(invocations.getObject(1), 1, "checked", "true");
+        assertSync(invocations.getObject(2), 2, "value", "b");
+        Assert.assertEquals(1, queue.getDroppedInvocationCount());
+    }
+
+    @Test
+    public void syncsSeparatedByEvent_notCoalesced() {
+        queue.add(sync(1, "value", "a"));
+        queue.add(event(1, "change"));
+        queue.add(sync(1, "value", "b"));
+        queue.add(sync(1, "value", "c"));
+
+        JsonArray invocations = queue.toJson();
+        Assert.assertEquals(3, invocations.length());
+        assertSync(invocations.getObject(0), 1, "value", "a");
+        Assert.assertEquals(JsonConstants.RPC_TYPE_EVENT, invocations
+                .getObject(1).getString(JsonConstants.RPC_TYPE));
+        assertSync(invocations.getObject(2), 1, "value", "c");
+        Assert.assertEquals(1, queue.getDroppedInvocationCount());
+    }
+
+    @Test
+    public void clear_syncAfterClearQueued() {
+        queue.add(sync(1, "value", "a"));
+        queue.clear();
+        queue.add(sync(1, "value", "b"));
+
+        JsonArray invocations = queue.toJson();
+        Assert.assertEquals(1, invocations.length());
+        assertSync(invocations.getObject(0), 1, "value", "b");
+        Assert.assertEquals(0, queue.getDroppedInvocationCount());
+    }
+
+    @Test
+    public void syncSameKeyDifferentFeature_allQueued() {
+        JsonObject other = sync(1, "value", "b");
+        other.put(JsonConstants.RPC_FEATURE, 2);
+
+        queue.add(sync(1, "value", "a"));
+        queue.add(other);
+
+        Assert.assertEquals(2, queue.size());
+        Assert.assertEquals(0, queue.getDroppedInvocationCount());
+    }
+
+    private static JsonObject sync(int node, String property, Object value) {
+        JsonObject message = Json.createObject();
+        message.put(JsonConstants.RPC_TYPE, JsonConstants.RPC_TYPE_MAP_SYNC);
+        message.put(JsonConstants.RPC_NODE, node);
+        message.put(JsonConstants.RPC_FEATURE, 1);
+        message.put(JsonConstants.RPC_PROPERTY, property);
+        if (value instanceof Boolean) {
+            message.put(JsonConstants.RPC_PROPERTY_VALUE, (Boolean) value);
+        } else {
+            message.put(JsonConstants.RPC_PROPERTY_VALUE, (String) value);
+        }
+        return message;
+    }
+
+    private static JsonObject event(int node, String eventType) {
+        JsonObject message = Json.createObject();
+        message.put(JsonConstants.RPC_TYPE, JsonConstants.RPC_TYPE_EVENT);
+        message.put(JsonConstants.RPC_NODE, node);
+        message.put(JsonConstants.RPC_EVENT_TYPE, eventType);
+        return message;
+    }
+
+    private static void assertSync(JsonObject invocation, int node,
+            String property, String value) {
+        Assert.assertEquals(JsonConstants.RPC_TYPE_MAP_SYNC,
+                invocation.getString(JsonConstants.RPC_TYPE));
+        Assert.assertEquals(node,
+                (int) invocation.getNumber(JsonConstants.RPC_NODE));
+        Assert.assertEquals(property,
+                invocation.getString(JsonConstants.RPC_PROPERTY));
+        Assert.assertEquals(value, invocation
+                .get(JsonConstants.RPC_PROPERTY_VALUE).asString());
+    }
+}
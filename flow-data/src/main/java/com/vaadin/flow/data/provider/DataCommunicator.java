@@ -17,6 +17,7 @@ package com.vaadin.flow.data.provider;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -24,6 +25,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
@@ -57,6 +59,29 @@ import elemental.json.JsonValue;
  *
  */
 public class DataCommunicator<T> implements Serializable {
+    /**
+     * The default number of items assumed to exist when the size is not
+     * defined and the data provider gives no estimate.
+     */
+    public static final int DEFAULT_ITEM_COUNT_ESTIMATE = 200;
+
+    /**
+     * The default number of items by which the assumed size grows when the
+     * size is not defined and the client scrolls close to the assumed end.
+     */
+    public static final int DEFAULT_ITEM_COUNT_ESTIMATE_INCREASE = 200;
+
+    /**
+     * The maximum number of queries used for finding the end of the data when
+     * the size is not defined and an empty page is fetched.
+     */
+    private static final int MAX_SIZE_SEARCH_QUERIES = 8;
+
+    /**
+     * The maximum number of pages kept by the prefetch cache.
+     */
+    static final int MAX_PREFETCHED_PAGES = 3;
+
     private final DataGenerator<T> dataGenerator;
     private final ArrayUpdater arrayUpdater;
     private final SerializableConsumer<JsonArray> dataUpdater;
@@ -76,6 +101,17 @@ public class DataCommunicator<T> implements Serializable {
     // Last total size value sent to the client
     private int assumedSize;
 
+    // Whether the exact size is queried from the data provider
+    private boolean definedSize = true;
+    private int itemCountEstimate = DEFAULT_ITEM_COUNT_ESTIMATE;
+    private int itemCountEstimateIncrease = DEFAULT_ITEM_COUNT_ESTIMATE_INCREASE;
+
+    // Whether a short page has been fetched while the size is not defined
+    private boolean endOfDataReached;
+
+    // The end of the last non-empty page fetched since the last reset
+    private int knownItemCount;
+
     private boolean resendEntireRange = true;
     private boolean assumeEmptyClient = true;
 
@@ -84,6 +120,9 @@ public class DataCommunicator<T> implements Serializable {
     // Keys that can be discarded once some specific update id gets confirmed
     private final HashMap<Integer, Set<String>> passivatedByUpdate = new HashMap<>();
 
+    // The update id in passivatedByUpdate for each passivated key
+    private final HashMap<String, Integer> passivatingUpdateByKey = new HashMap<>();
+
     // Update ids that have been confirmed since the last flush
     private final HashSet<Integer> confirmedUpdates = new HashSet<>();
 
@@ -98,6 +137,10 @@ public class DataCommunicator<T> implements Serializable {
     private Registration dataProviderUpdateRegistration;
     private HashSet<T> updatedData = new HashSet<>();
 
+    // Not serializable, prefetching is disabled after deserialization
+    private transient Executor prefetchExecutor;
+    private transient PrefetchCache<T> prefetchCache;
+
     private SerializableConsumer<ExecutionContext> flushRequest;
     private SerializableConsumer<ExecutionContext> flushUpdatedDataRequest;
 
@@ -159,11 +202,58 @@ public class DataCommunicator<T> implements Serializable {
      *            the end of the requested range
      */
     public void setRequestedRange(int start, int length) {
+        Range previousRange = requestedRange;
         requestedRange = Range.withLength(start, length);
 
+        if (prefetchCache != null) {
+            prefetch(predictNextRange(previousRange, requestedRange));
+        }
+
         requestFlush();
     }
 
+    /**
+     * Sets the executor used for fetching the items that the client is
+     * predicted to request next, based on the direction it is scrolling in.
+     * The prefetched items are kept in a small cache and used instead of
+     * fetching the items while holding the session lock when the client
+     * requests them. The cache is invalidated whenever the data is reset, e.g.
+     * by {@link DataProvider#refreshAll()}, and pages containing an item are
+     * invalidated by {@link DataProvider#refreshItem(Object)}.
+     * <p>
+     * The data provider is called from a thread of the executor without
+     * holding the session lock, so it must not access the session or the UI.
+     * The query passed to it is created before the fetch is started, and
+     * items fetched with a query that no longer matches the current data
+     * provider, filter or sorting are discarded. Since
+     * {@link #fetchFromProvider(int, int)} is called with the session lock
+     * held, it is not used for prefetching. Prefetching is disabled by default, and after the communicator has been
+     * deserialized.
+     *
+     * @param prefetchExecutor
+     *            the executor to prefetch items with, or <code>null</code> to
+     *            disable prefetching
+     */
+    public void setPrefetchExecutor(Executor prefetchExecutor) {
+        if (prefetchCache != null) {
+            prefetchCache.invalidate();
+        }
+        this.prefetchExecutor = prefetchExecutor;
+        prefetchCache = prefetchExecutor == null ? null
+                : new PrefetchCache<>(MAX_PREFETCHED_PAGES);
+    }
+
+    /**
+     * Gets the executor used for prefetching items.
+     *
+     * @return the executor to prefetch items with, or <code>null</code> if
+     *         prefetching is disabled
+     * @see #setPrefetchExecutor(Executor)
+     */
+    public Executor getPrefetchExecutor() {
+        return prefetchExecutor;
+    }
+
     /**
      * Resets all the data.
      * <p>
@@ -171,6 +261,11 @@ public class DataCommunicator<T> implements Serializable {
      */
     public void reset() {
         resendEntireRange = true;
+        endOfDataReached = false;
+        knownItemCount = 0;
+        if (prefetchCache != null) {
+            prefetchCache.invalidate();
+        }
         dataGenerator.destroyAllData();
         updatedData.clear();
         requestFlush();
@@ -186,6 +281,11 @@ public class DataCommunicator<T> implements Serializable {
         Objects.requireNonNull(data,
                 "DataCommunicator can not refresh null object");
         getKeyMapper().refresh(data);
+        if (prefetchCache != null) {
+            Object id = getDataProvider().getId(data);
+            prefetchCache.invalidate(
+                    item -> id.equals(getDataProvider().getId(item)));
+        }
         dataGenerator.refreshData(data);
         updatedData.add(data);
         requestFlushUpdatedData();
@@ -336,6 +436,115 @@ public class DataCommunicator<T> implements Serializable {
         return getDataProvider().size(new Query(getFilter()));
     }
 
+    /**
+     * Getter method for finding an estimate of the size of the DataProvider,
+     * used instead of {@link #getDataProviderSize()} when the size is not
+     * defined. Can be overridden by a subclass that uses a specific type of
+     * DataProvider and/or query.
+     *
+     * @return the estimated size of data provider with current filter
+     * @see DataProvider#estimateSize(Query)
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    protected int getDataProviderSizeEstimate() {
+        int estimate = getDataProvider().estimateSize(new Query(getFilter()));
+        return estimate < 0 ? itemCountEstimate : estimate;
+    }
+
+    /**
+     * Sets whether the size of the data is defined, i.e. whether the data
+     * provider should be asked for the exact number of items.
+     * <p>
+     * When the size is not defined, {@link DataProvider#size(Query)} is never
+     * called. The communicator instead assumes the size estimated by the data
+     * provider or {@link #getItemCountEstimate()}, grows the assumed size by
+     * {@link #getItemCountEstimateIncrease()} whenever the client scrolls
+     * close to the assumed end, and treats a page with fewer items than
+     * requested as the end of the data. If an empty page is returned, the end
+     * is searched for between the last non-empty page and the requested range
+     * with a few single item queries. This avoids potentially expensive count
+     * queries to a backend at the cost of a less accurate scroll bar.
+     * <p>
+     * The size is defined by default.
+     *
+     * @param definedSize
+     *            {@code true} to query the exact size from the data provider,
+     *            {@code false} to use an estimated size
+     */
+    public void setDefinedSize(boolean definedSize) {
+        if (this.definedSize != definedSize) {
+            this.definedSize = definedSize;
+            reset();
+        }
+    }
+
+    /**
+     * Gets whether the size of the data is defined, i.e. whether the data
+     * provider is asked for the exact number of items.
+     *
+     * @return {@code true} if the exact size is queried from the data
+     *         provider, {@code false} if an estimated size is used
+     * @see #setDefinedSize(boolean)
+     */
+    public boolean isDefinedSize() {
+        return definedSize;
+    }
+
+    /**
+     * Sets the number of items initially assumed to exist when the size is not
+     * defined and the data provider gives no estimate of its own.
+     *
+     * @param itemCountEstimate
+     *            the initial item count estimate, not negative
+     * @see #setDefinedSize(boolean)
+     */
+    public void setItemCountEstimate(int itemCountEstimate) {
+        if (itemCountEstimate < 0) {
+            throw new IllegalArgumentException(
+                    "The item count estimate cannot be negative");
+        }
+        this.itemCountEstimate = itemCountEstimate;
+        if (!definedSize) {
+            reset();
+        }
+    }
+
+    /**
+     * Gets the number of items initially assumed to exist when the size is not
+     * defined and the data provider gives no estimate of its own.
+     *
+     * @return the initial item count estimate
+     */
+    public int getItemCountEstimate() {
+        return itemCountEstimate;
+    }
+
+    /**
+     * Sets the number of items by which the assumed size grows when the size
+     * is not defined and the client scrolls close to the assumed end.
+     *
+     * @param itemCountEstimateIncrease
+     *            the increase of the item count estimate, greater than zero
+     * @see #setDefinedSize(boolean)
+     */
+    public void setItemCountEstimateIncrease(int itemCountEstimateIncrease) {
+        if (itemCountEstimateIncrease <= 0) {
+            throw new IllegalArgumentException(
+                    "The item count estimate increase must be greater than zero");
+        }
+        this.itemCountEstimateIncrease = itemCountEstimateIncrease;
+    }
+
+    /**
+     * Gets the number of items by which the assumed size grows when the size
+     * is not defined and the client scrolls close to the assumed end.
+     *
+     * @return the increase of the item count estimate
+     */
+    public int getItemCountEstimateIncrease() {
+        return itemCountEstimateIncrease;
+    }
+
     /**
      * Get the object used for filtering in this data communicator.
      *
@@ -355,16 +564,25 @@ public class DataCommunicator<T> implements Serializable {
      * @return the list of items in given range
      *
      */
-    @SuppressWarnings({ "rawtypes", "unchecked" })
     protected Stream<T> fetchFromProvider(int offset, int limit) {
-        QueryTrace query = new QueryTrace(offset, limit, backEndSorting,
+        return fetch(getDataProvider(), createQuery(offset, limit), limit);
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private QueryTrace createQuery(int offset, int limit) {
+        return new QueryTrace(offset, limit, new ArrayList<>(backEndSorting),
                 inMemorySorting, filter);
-        Stream<T> stream = getDataProvider().fetch(query);
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private static <T> Stream<T> fetch(DataProvider<T, ?> dataProvider,
+            QueryTrace query, int limit) {
+        Stream<T> stream = dataProvider.fetch(query);
         if (stream.isParallel()) {
             LoggerFactory.getLogger(DataCommunicator.class)
                     .debug("Data provider {} has returned "
                             + "parallel stream on 'fetch' call",
-                            getDataProvider().getClass());
+                            dataProvider.getClass());
             stream = stream.collect(Collectors.toList()).stream();
             assert !stream.isParallel();
         }
@@ -382,7 +600,7 @@ public class DataCommunicator<T> implements Serializable {
         return stream;
     }
 
-    private String getInvalidContractMessage(String method) {
+    private static String getInvalidContractMessage(String method) {
         return String.format("The data provider hasn't ever called %s() "
                 + "method on the provided query. "
                 + "It means that the the data provider breaks the contract "
@@ -446,7 +664,11 @@ public class DataCommunicator<T> implements Serializable {
 
         // Phase 1: Find all items that the client should have
         if (resendEntireRange) {
-            assumedSize = getDataProviderSize();
+            assumedSize = definedSize ? getDataProviderSize()
+                    : getDataProviderSizeEstimate();
+        }
+        if (!definedSize) {
+            growAssumedSize();
         }
         effectiveRequested = requestedRange
                 .restrictTo(Range.withLength(0, assumedSize));
@@ -456,11 +678,31 @@ public class DataCommunicator<T> implements Serializable {
 
         Activation activation = collectKeysToFlush(previousActive,
                 effectiveRequested);
+        if (!activation.getActiveKeys().isEmpty()) {
+            knownItemCount = Math.max(knownItemCount,
+                    effectiveRequested.getStart()
+                            + activation.getActiveKeys().size());
+        }
 
         // If the returned stream from the DataProvider is smaller than it
         // should, a new query for the actual size needs to be done
         if (activation.isSizeRecheckNeeded()) {
-            assumedSize = getDataProviderSize();
+            if (definedSize) {
+                assumedSize = getDataProviderSize();
+            } else if (activation.getActiveKeys().isEmpty()) {
+                // An empty page only tells that the data ends somewhere
+                // before the requested range
+                Range possibleSizes = searchSize(
+                        Math.min(knownItemCount, effectiveRequested.getStart()),
+                        effectiveRequested.getStart());
+                assumedSize = possibleSizes.getStart();
+                endOfDataReached = possibleSizes.isEmpty();
+            } else {
+                // Without a defined size, a short page marks the end of data
+                assumedSize = effectiveRequested.getStart()
+                        + activation.getActiveKeys().size();
+                endOfDataReached = true;
+            }
             effectiveRequested = requestedRange
                     .restrictTo(Range.withLength(0, assumedSize));
         }
@@ -483,6 +725,86 @@ public class DataCommunicator<T> implements Serializable {
         unregisterPassivatedKeys();
     }
 
+    /**
+     * Grows the assumed size in steps of the estimate increase so that there
+     * is at least one requested range worth of items after the requested
+     * range, unless the end of the data has already been found.
+     */
+    private void growAssumedSize() {
+        int needed = requestedRange.getEnd() + requestedRange.length();
+        if (!endOfDataReached && needed > assumedSize) {
+            int steps = (needed - assumedSize + itemCountEstimateIncrease - 1)
+                    / itemCountEstimateIncrease;
+            assumedSize += steps * itemCountEstimateIncrease;
+        }
+    }
+
+    /**
+     * Narrows down the number of items by binary searching for the last item
+     * with at most {@value #MAX_SIZE_SEARCH_QUERIES} single item queries. If
+     * the search is not conclusive, the returned range is not empty and its
+     * start is assumed as the size, which then grows again as the client
+     * scrolls towards it.
+     *
+     * @param low
+     *            the known lower bound of the size
+     * @param high
+     *            the known upper bound of the size
+     * @return the range of possible sizes, from the lowest to the highest; an
+     *         empty range if the size was found
+     */
+    private Range searchSize(int low, int high) {
+        for (int i = 0; i < MAX_SIZE_SEARCH_QUERIES && low < high; i++) {
+            int middle = low + (high - low) / 2;
+            if (fetchFromProvider(middle, 1).findAny().isPresent()) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return Range.between(low, high);
+    }
+
+    /**
+     * Predicts the range that the client requests next: the range of the same
+     * length after the requested range when scrolling forward, or before it
+     * when scrolling backward.
+     */
+    private Range predictNextRange(Range previousRange, Range range) {
+        Range next;
+        if (range.getStart() > previousRange.getStart()) {
+            next = Range.withLength(range.getEnd(), range.length());
+        } else if (range.getStart() < previousRange.getStart()) {
+            next = Range.between(Math.max(0, range.getStart() - range.length()),
+                    range.getStart());
+        } else {
+            return Range.withLength(0, 0);
+        }
+        if (definedSize || endOfDataReached) {
+            next = next.restrictTo(Range.withLength(0, assumedSize));
+        }
+        return next;
+    }
+
+    private void prefetch(Range range) {
+        // The query is created while holding the session lock, since the
+        // fields it is created from may change while the items are fetched
+        DataProvider<T, ?> provider = getDataProvider();
+        QueryTrace query = createQuery(range.getStart(), range.length());
+        prefetchCache.prefetch(range, getPrefetchKey(), prefetchExecutor,
+                () -> fetch(provider, query, range.length())
+                        .collect(Collectors.toList()));
+    }
+
+    /**
+     * Gets a key that is equal for all queries that return the same items,
+     * for discarding prefetched pages fetched with a different query.
+     */
+    private List<Object> getPrefetchKey() {
+        return Arrays.asList(getDataProvider(), filter,
+                new ArrayList<>(backEndSorting), inMemorySorting);
+    }
+
     private void flushUpdatedData() {
         if (updatedData.isEmpty()) {
             return;
@@ -507,6 +829,7 @@ public class DataCommunicator<T> implements Serializable {
         Set<String> passivated = passivatedByUpdate.remove(updateId);
         if (passivated != null) {
             passivated.forEach(key -> {
+                passivatingUpdateByKey.remove(key);
                 T item = keyMapper.get(key);
                 if (item != null) {
                     dataGenerator.destroyData(item);
@@ -529,9 +852,16 @@ public class DataCommunicator<T> implements Serializable {
             update.commit(updateId);
 
             // Finally clear any passivated items that have now been confirmed
-            oldActive.removeAll(activeKeyOrder);
+            activeKeyOrder.forEach(oldActive::remove);
             if (!oldActive.isEmpty()) {
-                passivatedByUpdate.put(Integer.valueOf(updateId), oldActive);
+                Integer id = Integer.valueOf(updateId);
+                passivatedByUpdate.put(id, oldActive);
+                oldActive.forEach(key -> {
+                    Integer previousId = passivatingUpdateByKey.put(key, id);
+                    if (previousId != null) {
+                        removePassivatedKey(previousId, key);
+                    }
+                });
             }
         }
     }
@@ -635,14 +965,22 @@ public class DataCommunicator<T> implements Serializable {
 
         // XXX Explicitly refresh anything that is updated
         List<String> activeKeys = new ArrayList<>(range.length());
-        fetchFromProvider(range.getStart(), range.length()).forEach(bean -> {
+        Stream<T> items = prefetchCache == null ? null
+                : prefetchCache.get(range, getPrefetchKey())
+                        .map(List::stream).orElse(null);
+        if (items == null) {
+            items = fetchFromProvider(range.getStart(), range.length());
+        }
+        items.forEach(bean -> {
             boolean mapperHasKey = keyMapper.has(bean);
             String key = keyMapper.key(bean);
             if (mapperHasKey) {
                 // Ensure latest instance from provider is used
                 keyMapper.refresh(bean);
-                passivatedByUpdate.values().stream()
-                        .forEach(set -> set.remove(key));
+                Integer updateId = passivatingUpdateByKey.remove(key);
+                if (updateId != null) {
+                    removePassivatedKey(updateId, key);
+                }
             }
             activeKeys.add(key);
         });
@@ -650,6 +988,16 @@ public class DataCommunicator<T> implements Serializable {
         return new Activation(activeKeys, needsSizeRecheck);
     }
 
+    private void removePassivatedKey(Integer updateId, String key) {
+        Set<String> passivated = passivatedByUpdate.get(updateId);
+        if (passivated != null) {
+            passivated.remove(key);
+            if (passivated.isEmpty()) {
+                passivatedByUpdate.remove(updateId);
+            }
+        }
+    }
+
     private JsonValue generateJson(T item) {
         JsonObject json = Json.createObject();
         json.put("key", getKeyMapper().key(item));
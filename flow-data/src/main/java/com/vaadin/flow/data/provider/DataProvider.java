@@ -79,6 +79,26 @@ public interface DataProvider<T, F> extends Serializable {
      */
     int size(Query<T, F> query);
 
+    /**
+     * Gets an estimate of the amount of data in this DataProvider. The
+     * estimate is used instead of {@link #size(Query)} by listings that have
+     * been configured not to query the exact size, e.g. because counting the
+     * items in the backend is expensive. The estimate only affects the
+     * initially assumed size; the actual end of the data is found by fetching
+     * items.
+     * <p>
+     * The default implementation returns {@code -1}, i.e. no estimate.
+     *
+     * @param query
+     *            query with sorting and filtering
+     * @return the estimated size of the data provider, or a negative value if
+     *         there is no estimate
+     * @see DataCommunicator#setDefinedSize(boolean)
+     */
+    default int estimateSize(Query<T, F> query) {
+        return -1;
+    }
+
     /**
      * Fetches data from this DataProvider using given {@code query}.
      *
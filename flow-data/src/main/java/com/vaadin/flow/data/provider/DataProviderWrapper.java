@@ -86,6 +86,13 @@ public abstract class DataProviderWrapper<T, F, M>
                 t.getSortOrders(), t.getInMemorySorting(), getFilter(t)));
     }
 
+    @Override
+    public int estimateSize(Query<T, F> t) {
+        return dataProvider.estimateSize(new Query<>(t.getOffset(),
+                t.getLimit(), t.getSortOrders(), t.getInMemorySorting(),
+                getFilter(t)));
+    }
+
     @Override
     public Stream<T> fetch(Query<T, F> t) {
         return dataProvider.fetch(new Query<>(t.getOffset(), t.getLimit(),
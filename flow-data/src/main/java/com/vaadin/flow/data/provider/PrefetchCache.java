@@ -0,0 +1,197 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.data.provider;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vaadin.flow.internal.Range;
+
+/**
+ * A small cache of pages of items that are fetched ahead of time using an
+ * executor, so that a {@link DataCommunicator} does not need to wait for the
+ * data provider while holding the session lock.
+ * <p>
+ * The cache itself is only accessed while holding the session lock; only the
+ * fetching of the items is run by the executor. Pages that are still being
+ * fetched are never waited for, and the results of pages that have been
+ * invalidated meanwhile are discarded.
+ * <p>
+ * Each page is fetched with a query that is created in advance, so pages are
+ * associated with a key identifying that query. Pages fetched with another key
+ * than the one currently used are never returned.
+ * <p>
+ * For internal use only. May be renamed or removed in a future release.
+ *
+ * @param <T>
+ *            the item type
+ * @author Vaadin Ltd
+ * @since
+ */
+final class PrefetchCache<T> {
+
+    private final int maxPages;
+
+    private final LinkedHashMap<Range, CompletableFuture<List<T>>> pages = new LinkedHashMap<>();
+
+    private Object queryKey;
+
+    /**
+     * Creates a new cache.
+     *
+     * @param maxPages
+     *            the maximum number of pages to keep, including pages that
+     *            are being fetched
+     */
+    PrefetchCache(int maxPages) {
+        this.maxPages = maxPages;
+    }
+
+    /**
+     * Starts fetching the items of the given range unless the range is
+     * already covered by a cached page. The oldest pages are evicted if there
+     * are too many.
+     *
+     * @param range
+     *            the range to fetch
+     * @param queryKey
+     *            the key identifying the query the items are fetched with,
+     *            all pages fetched with another key are discarded
+     * @param executor
+     *            the executor to fetch the items with
+     * @param fetch
+     *            the function that fetches the items of the range, run by the
+     *            executor
+     */
+    void prefetch(Range range, Object queryKey, Executor executor,
+            Supplier<List<T>> fetch) {
+        checkQueryKey(queryKey);
+        if (range.isEmpty() || pages.keySet().stream()
+                .anyMatch(range::isSubsetOf)) {
+            return;
+        }
+
+        CompletableFuture<List<T>> page;
+        try {
+            page = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return fetch.get();
+                } catch (RuntimeException e) {
+                    getLogger().debug("Prefetching items {} failed", range,
+                            e);
+                    throw e;
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            getLogger().debug("Prefetching items {} was rejected", range, e);
+            return;
+        }
+        pages.put(range, page);
+
+        Iterator<CompletableFuture<List<T>>> iterator = pages.values()
+                .iterator();
+        while (pages.size() > maxPages) {
+            iterator.next().cancel(false);
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Gets the items of the given range if they are covered by a page that has
+     * already been fetched. If the data ended before the end of the page, only
+     * the available items are returned.
+     *
+     * @param range
+     *            the range to get the items for
+     * @param queryKey
+     *            the key identifying the current query, pages fetched with
+     *            another key are discarded
+     * @return the items of the range, or an empty optional if they are not
+     *         available
+     */
+    Optional<List<T>> get(Range range, Object queryKey) {
+        checkQueryKey(queryKey);
+        for (Entry<Range, CompletableFuture<List<T>>> entry : pages
+                .entrySet()) {
+            Range pageRange = entry.getKey();
+            CompletableFuture<List<T>> page = entry.getValue();
+            if (range.isSubsetOf(pageRange) && page.isDone()
+                    && !page.isCompletedExceptionally()) {
+                List<T> items = page.join();
+                int end = Math.min(range.getEnd() - pageRange.getStart(),
+                        items.size());
+                int start = Math.min(range.getStart() - pageRange.getStart(),
+                        end);
+                return Optional.of(Collections
+                        .unmodifiableList(items.subList(start, end)));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Discards all pages.
+     */
+    void invalidate() {
+        pages.values().forEach(page -> page.cancel(false));
+        pages.clear();
+    }
+
+    /**
+     * Discards the pages that contain an item matching the given predicate, as
+     * well as any pages that are still being fetched since they may contain a
+     * matching item.
+     *
+     * @param affected
+     *            the predicate for items whose pages should be discarded
+     */
+    void invalidate(Predicate<T> affected) {
+        Iterator<CompletableFuture<List<T>>> iterator = pages.values()
+                .iterator();
+        while (iterator.hasNext()) {
+            CompletableFuture<List<T>> page = iterator.next();
+            if (!page.isDone() || page.isCompletedExceptionally()
+                    || page.join().stream().anyMatch(affected)) {
+                page.cancel(false);
+                iterator.remove();
+            }
+        }
+    }
+
+    private void checkQueryKey(Object queryKey) {
+        if (!Objects.equals(this.queryKey, queryKey)) {
+            invalidate();
+            this.queryKey = queryKey;
+        }
+    }
+
+    private static Logger getLogger() {
+        return LoggerFactory.getLogger(PrefetchCache.class);
+    }
+}
@@ -22,6 +22,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 import java.util.stream.Stream;
 
 import com.vaadin.flow.data.provider.CompositeDataGenerator;
@@ -153,6 +154,8 @@ public class HierarchicalDataCommunicator<T> extends DataCommunicator<T> {
         }
 
         if (getHierarchyMapper() != null) {
+            getHierarchyMapper().invalidateIndex();
+
             HierarchicalUpdate update = arrayUpdater
                     .startUpdate(getHierarchyMapper().getRootSize());
             update.enqueue("$connector.ensureHierarchy");
@@ -477,6 +480,42 @@ public class HierarchicalDataCommunicator<T> extends DataCommunicator<T> {
         return mapper.getRootSize();
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Hierarchical data always has a defined size, since the visible items are
+     * indexed through the sizes of the expanded subtrees.
+     *
+     * @throws UnsupportedOperationException
+     *             if trying to use an undefined size
+     */
+    @Override
+    public void setDefinedSize(boolean definedSize) {
+        if (!definedSize) {
+            throw new UnsupportedOperationException(
+                    "Hierarchical data does not support an undefined size");
+        }
+        super.setDefinedSize(definedSize);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Hierarchical data cannot be prefetched, since the items are fetched
+     * through the hierarchy mapper, which is not thread safe.
+     *
+     * @throws UnsupportedOperationException
+     *             if trying to set an executor
+     */
+    @Override
+    public void setPrefetchExecutor(Executor prefetchExecutor) {
+        if (prefetchExecutor != null) {
+            throw new UnsupportedOperationException(
+                    "Hierarchical data does not support prefetching");
+        }
+        super.setPrefetchExecutor(prefetchExecutor);
+    }
+
     @Override
     public void setBackEndSorting(List<QuerySortOrder> sortOrder) {
         if (mapper != null) {
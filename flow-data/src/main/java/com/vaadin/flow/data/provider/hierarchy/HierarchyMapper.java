@@ -16,6 +16,7 @@
 package com.vaadin.flow.data.provider.hierarchy;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -39,6 +40,14 @@ import com.vaadin.flow.internal.Range;
  * Keeps track of the expanded nodes, and size of of the subtrees for each
  * expanded node.
  * <p>
+ * The position of each item in the flattened hierarchy is indexed by keeping
+ * the children of every expanded item together with the sizes of their
+ * subtrees in a Fenwick tree. The index is built when it's first needed and
+ * updated only for the affected branch when items are expanded or collapsed,
+ * so that finding the index of an item doesn't need to fetch the hierarchy
+ * from the data provider again. The index is discarded when the filter or
+ * sorting changes or when {@link #invalidateIndex()} is called.
+ * <p>
  * This class is framework internal implementation details, and can be changed /
  * moved at any point. This means that you should not directly use this for
  * anything.
@@ -64,6 +73,69 @@ public class HierarchyMapper<T, F> implements Serializable {
 
     private Set<Object> expandedItemIds = new HashSet<>();
 
+    // The children of all indexed expanded items, null if not yet built
+    private Branch rootBranch;
+    private Map<Object, Branch> branchById = new HashMap<>();
+
+    // The location of each indexed item in the children of its parent
+    private Map<Object, IndexEntry> indexEntryById = new HashMap<>();
+
+    /**
+     * The location of an item in the children of its parent.
+     */
+    private static class IndexEntry implements Serializable {
+        private final Branch branch;
+        private final int position;
+
+        private IndexEntry(Branch branch, int position) {
+            this.branch = branch;
+            this.position = position;
+        }
+    }
+
+    /**
+     * The children of an expanded item. The subtree size of each child,
+     * including the child itself, is kept in a Fenwick tree so that the number
+     * of rows before a child can be computed and updated in logarithmic time.
+     */
+    private static class Branch implements Serializable {
+        // The entry of the expanded item, null for the root items
+        private final IndexEntry owner;
+        private final Object[] childIds;
+        private final int[] tree;
+        private int size;
+
+        private Branch(IndexEntry owner, Object[] childIds) {
+            this.owner = owner;
+            this.childIds = childIds;
+            int childCount = childIds.length;
+            tree = new int[childCount + 1];
+            for (int i = 1; i <= childCount; i++) {
+                tree[i]++;
+                int parent = i + (i & -i);
+                if (parent <= childCount) {
+                    tree[parent] += tree[i];
+                }
+            }
+            size = childCount;
+        }
+
+        private void add(int position, int delta) {
+            for (int i = position + 1; i < tree.length; i += i & -i) {
+                tree[i] += delta;
+            }
+            size += delta;
+        }
+
+        private int rowsBefore(int position) {
+            int rows = 0;
+            for (int i = position; i > 0; i -= i & -i) {
+                rows += tree[i];
+            }
+            return rows;
+        }
+    }
+
     /**
      * Constructs a new HierarchyMapper.
      *
@@ -80,7 +152,7 @@ public class HierarchyMapper<T, F> implements Serializable {
      * @return the amount of available data
      */
     public int getTreeSize() {
-        return (int) getHierarchy(null).count();
+        return getIndexRoot().size;
     }
 
     /**
@@ -102,8 +174,10 @@ public class HierarchyMapper<T, F> implements Serializable {
      *
      */
     public Integer getParentIndex(T item) {
-        List<T> flatHierarchy = getHierarchy(null).collect(Collectors.toList());
-        return flatHierarchy.indexOf(getParentOfItem(item));
+        getIndexRoot();
+        T parent = getParentOfItem(item);
+        return parent == null ? -1
+                : getIndexById(getDataProvider().getId(parent));
     }
 
     /**
@@ -115,8 +189,11 @@ public class HierarchyMapper<T, F> implements Serializable {
      *
      */
     public Integer getIndex(T item) {
-        List<T> flatHierarchy = getHierarchy(null).collect(Collectors.toList());
-        return flatHierarchy.indexOf(item);
+        if (item == null) {
+            return -1;
+        }
+        getIndexRoot();
+        return getIndexById(getDataProvider().getId(item));
     }
 
     /**
@@ -157,8 +234,7 @@ public class HierarchyMapper<T, F> implements Serializable {
      */
     public Range expand(T item, Integer position) {
         if (doExpand(item) && position != null) {
-            return Range.withLength(position + 1,
-                    (int) getHierarchy(item, false).count());
+            return Range.withLength(position + 1, getExpandedSize(item));
         }
 
         return Range.withLength(0, 0);
@@ -176,8 +252,18 @@ public class HierarchyMapper<T, F> implements Serializable {
     private boolean doExpand(T item) {
         boolean expanded = false;
         if (!isExpanded(item) && hasChildren(item)) {
-            expandedItemIds.add(getDataProvider().getId(item));
+            Object id = getDataProvider().getId(item);
+            expandedItemIds.add(id);
             expanded = true;
+
+            IndexEntry entry = indexEntryById.get(id);
+            if (rootBranch != null && entry != null) {
+                Branch branch = loadBranch(item, entry);
+                // The index is discarded if the load finds stale data
+                if (branch != null && rootBranch != null) {
+                    propagateSizeChange(entry, branch.size);
+                }
+            }
         }
         return expanded;
     }
@@ -193,7 +279,9 @@ public class HierarchyMapper<T, F> implements Serializable {
             return false;
         }
         if (isExpanded(item)) {
-            expandedItemIds.remove(getDataProvider().getId(item));
+            Object id = getDataProvider().getId(item);
+            expandedItemIds.remove(id);
+            unloadBranch(id);
             return true;
         }
         return false;
@@ -214,9 +302,11 @@ public class HierarchyMapper<T, F> implements Serializable {
         if (isExpanded(item)) {
             if (position != null) {
                 removedRows = Range.withLength(position + 1,
-                        (int) getHierarchy(item, false).count());
+                        getExpandedSize(item));
             }
-            expandedItemIds.remove(getDataProvider().getId(item));
+            Object id = getDataProvider().getId(item);
+            expandedItemIds.remove(id);
+            unloadBranch(id);
         }
         return removedRows;
     }
@@ -240,6 +330,7 @@ public class HierarchyMapper<T, F> implements Serializable {
      */
     public void setInMemorySorting(Comparator<T> inMemorySorting) {
         this.inMemorySorting = inMemorySorting;
+        invalidateIndex();
     }
 
     /**
@@ -260,6 +351,7 @@ public class HierarchyMapper<T, F> implements Serializable {
      */
     public void setBackEndSorting(List<QuerySortOrder> backEndSorting) {
         this.backEndSorting = backEndSorting;
+        invalidateIndex();
     }
 
     /**
@@ -280,6 +372,7 @@ public class HierarchyMapper<T, F> implements Serializable {
      */
     public void setFilter(Object filter) {
         this.filter = (F) filter;
+        invalidateIndex();
     }
 
     /**
@@ -427,6 +520,12 @@ public class HierarchyMapper<T, F> implements Serializable {
      *            the item id
      */
     protected void removeChildren(Object id) {
+        if (rootBranch != null
+                && (id == null || branchById.containsKey(id))) {
+            // The indexed children are no longer valid
+            invalidateIndex();
+        }
+
         // Clean up removed nodes from child map
         Iterator<Entry<T, Set<T>>> iterator = childMap.entrySet().iterator();
         Set<T> invalidatedChildren = new HashSet<>();
@@ -459,12 +558,162 @@ public class HierarchyMapper<T, F> implements Serializable {
             return Optional.empty();
         }
 
-        final List<Object> collect = getHierarchy(null).map(provider::getId)
-                .collect(Collectors.toList());
-        int index = collect.indexOf(getDataProvider().getId(target));
+        getIndexRoot();
+        int index = getIndexById(getDataProvider().getId(target));
         return Optional.ofNullable(index < 0 ? null : index);
     }
 
+    /**
+     * Discards the index of the item positions in the flattened hierarchy. The
+     * index is built again from the data provider when it's needed next time.
+     * This should be called whenever the hierarchy in the data provider has
+     * changed.
+     */
+    public void invalidateIndex() {
+        rootBranch = null;
+        branchById.clear();
+        indexEntryById.clear();
+    }
+
+    /**
+     * Gets the branch of the root items, building the index if necessary.
+     *
+     * @return the root branch, not {@code null}
+     */
+    private Branch getIndexRoot() {
+        if (rootBranch == null) {
+            // Clear anything left from a load that was interrupted
+            invalidateIndex();
+            Branch root = loadBranch(null, null);
+            rootBranch = root == null ? new Branch(null, new Object[0])
+                    : root;
+        }
+        return rootBranch;
+    }
+
+    /**
+     * Gets the position of the item with the given id in the flattened
+     * hierarchy.
+     *
+     * @param id
+     *            the item id
+     * @return the index of the item or -1 if it isn't visible
+     */
+    private int getIndexById(Object id) {
+        IndexEntry entry = indexEntryById.get(id);
+        if (entry == null) {
+            return -1;
+        }
+        int index = entry.branch.rowsBefore(entry.position);
+        IndexEntry owner = entry.branch.owner;
+        while (owner != null) {
+            index += owner.branch.rowsBefore(owner.position) + 1;
+            owner = owner.branch.owner;
+        }
+        return index;
+    }
+
+    /**
+     * Gets the number of visible descendants of an expanded item.
+     *
+     * @param item
+     *            the expanded item
+     * @return the number of visible descendants
+     */
+    private int getExpandedSize(T item) {
+        Branch branch = branchById.get(getDataProvider().getId(item));
+        if (branch != null) {
+            return branch.size;
+        }
+        return (int) getHierarchy(item, false).count();
+    }
+
+    /**
+     * Fetches the children of the given expanded item and indexes them,
+     * recursively loading the children of any expanded children.
+     *
+     * @param parent
+     *            the expanded item, or {@code null} for the root items
+     * @param entry
+     *            the index entry of the item, or {@code null} for the root
+     *            items
+     * @return the loaded branch, or {@code null} if the item has no children
+     */
+    private Branch loadBranch(T parent, IndexEntry entry) {
+        List<T> childList = doFetchDirectChildren(parent)
+                .collect(Collectors.toList());
+        if (childList.isEmpty()) {
+            removeChildren(
+                    parent == null ? null : getDataProvider().getId(parent));
+            return null;
+        }
+        registerChildren(parent, childList);
+
+        Object[] childIds = childList.stream().map(getDataProvider()::getId)
+                .toArray();
+        Branch branch = new Branch(entry, childIds);
+        if (parent != null) {
+            branchById.put(getDataProvider().getId(parent), branch);
+        }
+
+        List<IndexEntry> expandedEntries = new ArrayList<>();
+        for (int i = 0; i < childIds.length; i++) {
+            IndexEntry childEntry = new IndexEntry(branch, i);
+            indexEntryById.put(childIds[i], childEntry);
+            if (expandedItemIds.contains(childIds[i])) {
+                expandedEntries.add(childEntry);
+            }
+        }
+        for (IndexEntry childEntry : expandedEntries) {
+            Branch childBranch = loadBranch(
+                    childList.get(childEntry.position), childEntry);
+            if (childBranch != null) {
+                branch.add(childEntry.position, childBranch.size);
+            }
+        }
+        return branch;
+    }
+
+    /**
+     * Removes the indexed children of a collapsed item, and their descendants,
+     * from the index.
+     *
+     * @param id
+     *            the id of the collapsed item
+     */
+    private void unloadBranch(Object id) {
+        Branch branch = branchById.remove(id);
+        if (branch != null) {
+            propagateSizeChange(branch.owner, -branch.size);
+            removeIndexedChildren(branch);
+        }
+    }
+
+    private void removeIndexedChildren(Branch branch) {
+        for (Object childId : branch.childIds) {
+            indexEntryById.remove(childId);
+            Branch childBranch = branchById.remove(childId);
+            if (childBranch != null) {
+                removeIndexedChildren(childBranch);
+            }
+        }
+    }
+
+    /**
+     * Updates the subtree sizes of an item and all of its ancestors.
+     *
+     * @param entry
+     *            the index entry of the item whose subtree size changed
+     * @param delta
+     *            the change in the number of visible descendants
+     */
+    private void propagateSizeChange(IndexEntry entry, int delta) {
+        while (entry != null) {
+            entry.branch.add(entry.position, delta);
+            entry = entry.branch.owner;
+        }
+    }
+
     /**
      * Gets the full hierarchy tree starting from given node.
      *
@@ -616,6 +865,7 @@ public class HierarchyMapper<T, F> implements Serializable {
         childMap.clear();
         parentIdMap.clear();
         expandedItemIds.clear();
+        invalidateIndex();
     }
 
     /**
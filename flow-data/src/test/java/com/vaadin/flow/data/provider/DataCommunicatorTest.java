@@ -15,10 +15,17 @@
  */
 package com.vaadin.flow.data.provider;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
@@ -342,6 +349,357 @@ public class DataCommunicatorTest {
         Mockito.verify(dataProvider, Mockito.times(1)).fetch(Mockito.any());
     }
 
+    @Test
+    public void reactivatedItem_passivatingUpdateConfirmed_itemNotUnregistered() {
+        dataCommunicator.setDataProvider(createDataProvider(), null);
+
+        dataCommunicator.setRequestedRange(0, 10);
+        fakeClientCommunication();
+
+        // Items 0-9 are passivated by this update
+        dataCommunicator.setRequestedRange(20, 10);
+        fakeClientCommunication();
+        int firstUpdateId = lastUpdateId;
+
+        // Items 0-9 are reactivated and items 20-29 are passivated
+        dataCommunicator.setRequestedRange(0, 10);
+        fakeClientCommunication();
+        int secondUpdateId = lastUpdateId;
+
+        dataCommunicator.confirmUpdate(firstUpdateId);
+        fakeClientCommunication();
+
+        Assert.assertTrue(dataCommunicator.getKeyMapper().has(new Item(0)));
+        Assert.assertTrue(dataCommunicator.getKeyMapper().has(new Item(20)));
+
+        dataCommunicator.confirmUpdate(secondUpdateId);
+        fakeClientCommunication();
+
+        Assert.assertTrue(dataCommunicator.getKeyMapper().has(new Item(0)));
+        Assert.assertFalse(dataCommunicator.getKeyMapper().has(new Item(20)));
+    }
+
+    @Test
+    public void scrollBackAndForth_confirmationsDelayed_onlyVisibleItemsRemain() {
+        dataCommunicator.setDataProvider(createDataProvider(), null);
+
+        Deque<Integer> pendingUpdates = new ArrayDeque<>();
+        for (int i = 0; i < 20; i++) {
+            // Scroll a bit too far and then back to reactivate some of the
+            // items that were just passivated
+            requestRangeWithDelayedConfirmation((i + 1) * 4, pendingUpdates);
+            requestRangeWithDelayedConfirmation(i * 4, pendingUpdates);
+        }
+        requestRangeWithDelayedConfirmation(0, pendingUpdates);
+
+        // The client finally catches up
+        pendingUpdates.forEach(dataCommunicator::confirmUpdate);
+        fakeClientCommunication();
+
+        Assert.assertTrue(dataCommunicator.getKeyMapper().has(new Item(0)));
+        Assert.assertTrue(dataCommunicator.getKeyMapper().has(new Item(9)));
+        Assert.assertFalse(dataCommunicator.getKeyMapper().has(new Item(10)));
+        Assert.assertFalse(dataCommunicator.getKeyMapper().has(new Item(80)));
+    }
+
+    @Test
+    public void undefinedSize_estimateAssumed_noSizeQuery() {
+        AbstractDataProvider<Item, Object> dataProvider = Mockito
+                .spy(createUndefinedSizeDataProvider(1000, -1));
+        dataCommunicator.setDefinedSize(false);
+        dataCommunicator.setDataProvider(dataProvider, null);
+
+        dataCommunicator.setRequestedRange(0, 50);
+        fakeClientCommunication();
+
+        Assert.assertEquals(Range.withLength(0, 50), lastSet);
+        Mockito.verify(arrayUpdater).startUpdate(
+                DataCommunicator.DEFAULT_ITEM_COUNT_ESTIMATE);
+        Mockito.verify(dataProvider, Mockito.never()).size(Mockito.any());
+    }
+
+    @Test
+    public void undefinedSize_scrollTowardsEnd_assumedSizeGrows() {
+        dataCommunicator.setDefinedSize(false);
+        dataCommunicator.setItemCountEstimate(100);
+        dataCommunicator.setItemCountEstimateIncrease(30);
+        dataCommunicator.setDataProvider(
+                createUndefinedSizeDataProvider(1000, -1), null);
+
+        dataCommunicator.setRequestedRange(0, 50);
+        fakeClientCommunication();
+        Mockito.verify(arrayUpdater).startUpdate(100);
+
+        // One more page after the requested range should be assumed to exist
+        dataCommunicator.setRequestedRange(40, 50);
+        fakeClientCommunication();
+
+        Assert.assertEquals(Range.withLength(50, 40), lastSet);
+        Mockito.verify(arrayUpdater).startUpdate(160);
+    }
+
+    @Test
+    public void undefinedSize_shortPage_endOfDataFound() {
+        dataCommunicator.setDefinedSize(false);
+        dataCommunicator.setDataProvider(
+                createUndefinedSizeDataProvider(170, -1), null);
+
+        dataCommunicator.setRequestedRange(150, 50);
+        fakeClientCommunication();
+
+        Assert.assertEquals(Range.withLength(150, 20), lastSet);
+        Mockito.verify(arrayUpdater).startUpdate(170);
+
+        // The assumed size doesn't grow past the end of the data
+        dataCommunicator.setRequestedRange(140, 50);
+        fakeClientCommunication();
+
+        Assert.assertEquals(Range.withLength(140, 10), lastSet);
+        Mockito.verify(arrayUpdater, Mockito.times(2)).startUpdate(170);
+    }
+
+    @Test
+    public void undefinedSize_emptyPagePastEnd_endOfDataFound() {
+        dataCommunicator.setDefinedSize(false);
+        dataCommunicator.setDataProvider(
+                createUndefinedSizeDataProvider(170, -1), null);
+
+        // Jump far past the end, e.g. by dragging the scroll bar
+        dataCommunicator.setRequestedRange(900, 50);
+        fakeClientCommunication();
+
+        Mockito.verify(arrayUpdater).startUpdate(170);
+
+        // The client requests the range at the actual end
+        dataCommunicator.setRequestedRange(130, 50);
+        fakeClientCommunication();
+
+        Assert.assertEquals(Range.withLength(130, 40), lastSet);
+        Mockito.verify(arrayUpdater, Mockito.times(2)).startUpdate(170);
+    }
+
+    @Test
+    public void undefinedSize_emptyPagePastEnd_searchBoundedByFetchedPage() {
+        List<Integer> probes = new ArrayList<>();
+        AbstractDataProvider<Item, Object> dataProvider = Mockito
+                .spy(createUndefinedSizeDataProvider(170, -1));
+        Mockito.doAnswer(invocation -> {
+            Query<?, ?> query = (Query<?, ?>) invocation.getArguments()[0];
+            if (query.getLimit() == 1) {
+                probes.add(query.getOffset());
+            }
+            return invocation.callRealMethod();
+        }).when(dataProvider).fetch(Mockito.any());
+        dataCommunicator.setDefinedSize(false);
+        dataCommunicator.setDataProvider(dataProvider, null);
+
+        dataCommunicator.setRequestedRange(100, 50);
+        fakeClientCommunication();
+        dataCommunicator.setRequestedRange(300, 50);
+        fakeClientCommunication();
+
+        Mockito.verify(arrayUpdater).startUpdate(170);
+        Assert.assertFalse(probes.isEmpty());
+        Assert.assertTrue(probes.size() <= 8);
+        Assert.assertTrue(probes.stream().allMatch(offset -> offset >= 150));
+    }
+
+    @Test
+    public void undefinedSize_dataProviderEstimateUsed() {
+        dataCommunicator.setDefinedSize(false);
+        dataCommunicator.setDataProvider(
+                createUndefinedSizeDataProvider(1000, 500), null);
+
+        dataCommunicator.setRequestedRange(0, 50);
+        fakeClientCommunication();
+
+        Mockito.verify(arrayUpdater).startUpdate(500);
+    }
+
+    @Test
+    public void undefinedSize_refreshAll_endOfDataSearchedAgain() {
+        List<Item> items = new ArrayList<>();
+        IntStream.range(0, 20).mapToObj(Item::new).forEach(items::add);
+        ListDataProvider<Item> dataProvider = new ListDataProvider<>(items);
+        dataCommunicator.setDefinedSize(false);
+        dataCommunicator.setDataProvider(dataProvider, null);
+
+        dataCommunicator.setRequestedRange(0, 50);
+        fakeClientCommunication();
+        Mockito.verify(arrayUpdater).startUpdate(20);
+
+        IntStream.range(20, 100).mapToObj(Item::new).forEach(items::add);
+        dataProvider.refreshAll();
+        fakeClientCommunication();
+
+        Assert.assertEquals(Range.withLength(0, 50), lastSet);
+        Mockito.verify(arrayUpdater).startUpdate(
+                DataCommunicator.DEFAULT_ITEM_COUNT_ESTIMATE);
+    }
+
+    @Test
+    public void prefetch_slowBackend_nextPageFetchedInBackground()
+            throws Exception {
+        Thread testThread = Thread.currentThread();
+        List<Integer> syncFetches = new ArrayList<>();
+        List<Integer> backgroundFetches = Collections
+                .synchronizedList(new ArrayList<>());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            dataCommunicator.setPrefetchExecutor(executor);
+            dataCommunicator.setDataProvider(
+                    createSlowDataProvider(100, offset -> {
+                        if (Thread.currentThread() == testThread) {
+                            syncFetches.add(offset);
+                        } else {
+                            backgroundFetches.add(offset);
+                        }
+                    }), null);
+
+            dataCommunicator.setRequestedRange(0, 50);
+            fakeClientCommunication();
+
+            // Scrolling forward starts prefetching 100-149
+            dataCommunicator.setRequestedRange(50, 50);
+            fakeClientCommunication();
+            // Wait for the prefetch to complete
+            executor.submit(() -> {
+            }).get();
+
+            dataCommunicator.setRequestedRange(100, 50);
+            fakeClientCommunication();
+
+            Assert.assertEquals(Range.withLength(100, 50), lastSet);
+            Assert.assertEquals(Arrays.asList(0, 50), syncFetches);
+            Assert.assertTrue(backgroundFetches.contains(100));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void prefetch_refreshAll_prefetchedPageDiscarded() {
+        List<Integer> fetches = new ArrayList<>();
+        AbstractDataProvider<Item, Object> dataProvider = createSlowDataProvider(
+                0, fetches::add);
+        dataCommunicator.setDataProvider(dataProvider, null);
+        prefetchPage();
+
+        dataProvider.refreshAll();
+        fakeClientCommunication();
+        fetches.clear();
+
+        dataCommunicator.setRequestedRange(100, 50);
+        fakeClientCommunication();
+
+        Assert.assertEquals(Collections.singletonList(100), fetches);
+    }
+
+    @Test
+    public void prefetch_refreshItem_pageWithItemDiscarded() {
+        List<Integer> fetches = new ArrayList<>();
+        AbstractDataProvider<Item, Object> dataProvider = createSlowDataProvider(
+                0, fetches::add);
+        dataCommunicator.setDataProvider(dataProvider, null);
+        prefetchPage();
+
+        dataProvider.refreshItem(new Item(120));
+        fakeClientCommunication();
+        fetches.clear();
+
+        dataCommunicator.setRequestedRange(100, 50);
+        fakeClientCommunication();
+
+        Assert.assertEquals(Collections.singletonList(100), fetches);
+    }
+
+    @Test
+    public void prefetch_pageNotFetchedYet_fetchedSynchronously() {
+        List<Runnable> tasks = new ArrayList<>();
+        List<Integer> fetches = new ArrayList<>();
+        dataCommunicator.setPrefetchExecutor(tasks::add);
+        dataCommunicator.setDataProvider(
+                createSlowDataProvider(0, fetches::add), null);
+
+        dataCommunicator.setRequestedRange(0, 50);
+        fakeClientCommunication();
+        dataCommunicator.setRequestedRange(50, 50);
+        fakeClientCommunication();
+        Assert.assertEquals(1, tasks.size());
+
+        dataCommunicator.setRequestedRange(100, 50);
+        fakeClientCommunication();
+
+        Assert.assertEquals(Arrays.asList(0, 50, 100), fetches);
+        Assert.assertEquals(Range.withLength(100, 50), lastSet);
+    }
+
+    @Test
+    public void prefetch_sortingChangedWhilePrefetching_pageFetchedWithOldQueryDiscarded() {
+        List<Runnable> tasks = new ArrayList<>();
+        List<String> fetches = new ArrayList<>();
+        AbstractDataProvider<Item, Object> dataProvider = Mockito
+                .spy(createSlowDataProvider(0, offset -> {
+                }));
+        Mockito.doAnswer(invocation -> {
+            Query<?, ?> query = (Query<?, ?>) invocation.getArguments()[0];
+            if (!tasks.isEmpty() && fetches.isEmpty()) {
+                // The sorting is changed while the prefetch is running
+                dataCommunicator.setBackEndSorting(
+                        Collections.singletonList(new QuerySortOrder("id",
+                                SortDirection.ASCENDING)));
+            }
+            fetches.add(query.getOffset() + " " + query.getSortOrders().size());
+            return invocation.callRealMethod();
+        }).when(dataProvider).fetch(Mockito.any());
+        dataCommunicator.setPrefetchExecutor(tasks::add);
+        dataCommunicator.setDataProvider(dataProvider, null);
+
+        dataCommunicator.setRequestedRange(0, 50);
+        fakeClientCommunication();
+        dataCommunicator.setRequestedRange(50, 50);
+        fakeClientCommunication();
+        Assert.assertEquals(1, tasks.size());
+        fetches.clear();
+
+        tasks.get(0).run();
+        dataCommunicator.setRequestedRange(100, 50);
+        fakeClientCommunication();
+
+        // The prefetch uses the sorting of the time it was started, and its
+        // result is not used with the new sorting
+        Assert.assertEquals(Arrays.asList("100 0", "100 1"), fetches);
+        Assert.assertEquals(Range.withLength(100, 50), lastSet);
+    }
+
+    /**
+     * Scrolls from the first page to the second one and runs the prefetching
+     * of the third page, 100-149.
+     */
+    private void prefetchPage() {
+        List<Runnable> tasks = new ArrayList<>();
+        dataCommunicator.setPrefetchExecutor(tasks::add);
+
+        dataCommunicator.setRequestedRange(0, 50);
+        fakeClientCommunication();
+        dataCommunicator.setRequestedRange(50, 50);
+        fakeClientCommunication();
+
+        Assert.assertEquals(1, tasks.size());
+        tasks.forEach(Runnable::run);
+    }
+
+    private void requestRangeWithDelayedConfirmation(int start,
+            Deque<Integer> pendingUpdates) {
+        dataCommunicator.setRequestedRange(start, 10);
+        fakeClientCommunication();
+
+        pendingUpdates.add(Integer.valueOf(lastUpdateId));
+        if (pendingUpdates.size() > 3) {
+            dataCommunicator.confirmUpdate(pendingUpdates.poll().intValue());
+        }
+    }
+
     private void fakeClientCommunication() {
         ui.getInternals().getStateTree().runExecutionsBeforeClientResponse();
         ui.getInternals().getStateTree().collectChanges(ignore -> {
@@ -379,6 +737,66 @@ public class DataCommunicatorTest {
         };
     }
 
+    private AbstractDataProvider<Item, Object> createSlowDataProvider(
+            long latencyMillis, Consumer<Integer> fetchListener) {
+        return new AbstractDataProvider<Item, Object>() {
+            @Override
+            public boolean isInMemory() {
+                return false;
+            }
+
+            @Override
+            public int size(Query<Item, Object> query) {
+                return 1000;
+            }
+
+            @Override
+            public Stream<Item> fetch(Query<Item, Object> query) {
+                fetchListener.accept(query.getOffset());
+                try {
+                    // Simulates the latency of a backend round trip
+                    Thread.sleep(latencyMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return IntStream
+                        .range(query.getOffset(),
+                                query.getLimit() + query.getOffset())
+                        .mapToObj(Item::new);
+            }
+        };
+    }
+
+    private AbstractDataProvider<Item, Object> createUndefinedSizeDataProvider(
+            int size, int estimate) {
+        return new AbstractDataProvider<Item, Object>() {
+            @Override
+            public boolean isInMemory() {
+                return false;
+            }
+
+            @Override
+            public int estimateSize(Query<Item, Object> query) {
+                return estimate;
+            }
+
+            @Override
+            public int size(Query<Item, Object> query) {
+                throw new UnsupportedOperationException(
+                        "The size should not be queried");
+            }
+
+            @Override
+            public Stream<Item> fetch(Query<Item, Object> query) {
+                return IntStream
+                        .range(query.getOffset(),
+                                Math.min(size,
+                                        query.getLimit() + query.getOffset()))
+                        .mapToObj(Item::new);
+            }
+        };
+    }
+
     private AbstractDataProvider<Item, Object> createDataProvider() {
         return new AbstractDataProvider<Item, Object>() {
             @Override
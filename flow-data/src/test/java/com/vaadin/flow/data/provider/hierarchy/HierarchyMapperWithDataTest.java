@@ -19,6 +19,7 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -225,6 +226,58 @@ public class HierarchyMapperWithDataTest {
         verifyFetchIsCorrect(expectedResult, range);
     }
 
+    @Test
+    public void indexOfNestedItems_matchesFlattenedHierarchy() {
+        expand(testData.get(0));
+        expand(testData.get(1));
+        Node lastRoot = roots.get(roots.size() - 1);
+        expand(lastRoot);
+        expand(testData.get(testData.indexOf(lastRoot) + 1));
+        collapse(testData.get(1));
+
+        verifyIndexes();
+
+        expand(testData.get(1));
+        collapse(testData.get(0));
+
+        verifyIndexes();
+    }
+
+    @Test
+    public void expandAndCollapse_onlyAffectedBranchFetched() {
+        AtomicInteger fetchCount = new AtomicInteger();
+        provider = new TreeDataProvider<Node>(data) {
+            @Override
+            public Stream<Node> fetchChildren(
+                    HierarchicalQuery<Node, SerializablePredicate<Node>> query) {
+                fetchCount.incrementAndGet();
+                return super.fetchChildren(query);
+            }
+        };
+        mapper = new HierarchyMapper<>(provider);
+
+        expand(testData.get(0));
+        expand(testData.get(1));
+        int fetchesAfterExpand = fetchCount.get();
+
+        // Root items, the first root and its first child
+        assertEquals(3, fetchesAfterExpand);
+
+        collapse(testData.get(1));
+        mapper.getIndexOf(roots.get(roots.size() - 1));
+        mapper.getParentIndex(testData.get(2 + LEAF_COUNT));
+        mapper.getTreeSize();
+
+        assertEquals("Index lookups should not fetch any items",
+                fetchesAfterExpand, fetchCount.get());
+
+        mapper.setFilter(null);
+        mapper.getTreeSize();
+
+        assertEquals("The index should be built again after filtering",
+                fetchesAfterExpand + 2, fetchCount.get());
+    }
+
     private void expand(Node node) {
         insertRows(mapper.expand(node, mapper.getIndexOf(node).orElse(null)));
     }
@@ -242,6 +295,17 @@ public class HierarchyMapperWithDataTest {
         }
     }
 
+    private void verifyIndexes() {
+        List<Node> flattened = mapper
+                .fetchHierarchyItems(Range.withLength(0, mapper.getTreeSize()))
+                .collect(Collectors.toList());
+        for (Node node : testData) {
+            assertEquals("Unexpected index for " + node,
+                    Integer.valueOf(flattened.indexOf(node)),
+                    mapper.getIndex(node));
+        }
+    }
+
     static List<Node> generateTestData(int rootCount, int parentCount,
             int leafCount) {
         int counter = 0;
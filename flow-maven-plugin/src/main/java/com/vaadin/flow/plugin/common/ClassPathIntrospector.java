@@ -84,6 +84,21 @@ public abstract class ClassPathIntrospector {
                 annotatedByRepeatedAnnotation.stream());
     }
 
+    /**
+     * Gets the classes extending or implementing the given
+     * {@code typeInProjectContext} type.
+     *
+     * @param typeInProjectContext
+     *            class or interface loaded by the project class loader
+     * @param <T>
+     *            the super type
+     * @return all sub types of the given type
+     */
+    protected <T> Stream<Class<? extends T>> getSubtypes(
+            Class<T> typeInProjectContext) {
+        return reflections.getSubTypesOf(typeInProjectContext).stream();
+    }
+
     /**
      * Returns the annotation class by its FQN.
      * <p>
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.plugin.common;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.annotation.Annotation;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.FileUtils;
+
+import com.vaadin.flow.server.startup.StartupIndex;
+
+/**
+ * Collects the classes handled by the Flow servlet container initializers from
+ * the project classes and writes them as a {@link StartupIndex}.
+ *
+ * @author Vaadin Ltd
+ * @since
+ */
+public class StartupIndexGenerator extends ClassPathIntrospector {
+
+    /**
+     * Prepares the class to index the project classes specified.
+     *
+     * @param projectClassesLocations
+     *            urls to project class locations (directories, jars etc.)
+     */
+    public StartupIndexGenerator(URL... projectClassesLocations) {
+        super(projectClassesLocations);
+    }
+
+    /**
+     * Collects the names of the project classes for each of the types listed
+     * in {@link StartupIndex#getIndexedTypeNames()}. Annotation types are
+     * matched by the classes annotated with them, other types by their sub
+     * types.
+     *
+     * @return the names of the classes matching each indexed type, with the
+     *         type names as keys
+     * @throws IllegalStateException
+     *             if an indexed type cannot be loaded for the project classes
+     */
+    public Map<String, Set<String>> collectIndex() {
+        Map<String, Set<String>> index = new HashMap<>();
+        for (String typeName : StartupIndex.getIndexedTypeNames()) {
+            Class<?> type = loadClassInProjectClassLoader(typeName);
+            Stream<? extends Class<?>> classes = type.isAnnotation()
+                    ? getAnnotatedClasses(type.asSubclass(Annotation.class))
+                    : getSubtypes(type);
+            index.put(typeName, classes.map(Class::getName)
+                    .collect(Collectors.toCollection(TreeSet::new)));
+        }
+        return index;
+    }
+
+    /**
+     * Collects the index and writes it into the
+     * {@link StartupIndex#RESOURCE_NAME} file in the given directory.
+     *
+     * @param outputDirectory
+     *            the directory to write the index to, usually the project
+     *            output directory
+     * @return the written index file
+     * @throws UncheckedIOException
+     *             if writing the index fails
+     */
+    public File writeIndex(File outputDirectory) {
+        File indexFile = new File(outputDirectory, StartupIndex.RESOURCE_NAME);
+        try {
+            FileUtils.writeStringToFile(indexFile,
+                    StartupIndex.toJson(collectIndex()),
+                    StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format(
+                    "Failed to write the startup index to '%s'", indexFile), e);
+        }
+        return indexFile;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.plugin.maven;
+
+import java.io.File;
+import java.net.URL;
+import java.util.List;
+
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+
+import com.vaadin.flow.plugin.common.FlowPluginFileUtils;
+import com.vaadin.flow.plugin.common.StartupIndexGenerator;
+import com.vaadin.flow.server.startup.StartupIndex;
+
+/**
+ * Goal that generates the {@link StartupIndex} of the project: the routes,
+ * route aliases, error navigation targets, web components and other classes
+ * handled by the Flow servlet container initializers. When the index is
+ * packaged with the application, the initializers use it instead of the
+ * classes found by the servlet container on startup.
+ * <p>
+ * The index lists the classes of the whole runtime class path of the project,
+ * so the goal should only be used in the project packaging the application,
+ * not in its libraries.
+ */
+@Mojo(name = "generate-startup-index", requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME, defaultPhase = LifecyclePhase.PROCESS_CLASSES)
+public class GenerateStartupIndexMojo extends AbstractMojo {
+
+    /**
+     * Directory where the index resource is written to.
+     */
+    @Parameter(name = "indexOutputDirectory", defaultValue = "${project.build.outputDirectory}", required = true)
+    private File indexOutputDirectory;
+
+    @Parameter(defaultValue = "${project}", readonly = true, required = true)
+    private MavenProject project;
+
+    @Override
+    public void execute() {
+        File indexFile = new StartupIndexGenerator(getProjectClassPathUrls())
+                .writeIndex(indexOutputDirectory);
+        getLog().info(String.format("Wrote startup index to '%s'", indexFile));
+    }
+
+    private URL[] getProjectClassPathUrls() {
+        final List<String> runtimeClasspathElements;
+        try {
+            runtimeClasspathElements = project.getRuntimeClasspathElements();
+        } catch (DependencyResolutionRequiredException e) {
+            throw new IllegalStateException(String.format(
+                    "Failed to retrieve runtime classpath elements from project '%s'",
+                    project), e);
+        }
+        return runtimeClasspathElements.stream().map(File::new)
+                .map(FlowPluginFileUtils::convertToUrl).toArray(URL[]::new);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.plugin.common;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.vaadin.flow.component.Component;
+import com.vaadin.flow.component.Tag;
+import com.vaadin.flow.router.HasErrorParameter;
+import com.vaadin.flow.router.Route;
+import com.vaadin.flow.router.RouteAlias;
+import com.vaadin.flow.router.RouteNotFoundError;
+import com.vaadin.flow.server.startup.StartupIndex;
+
+/**
+ * @author Vaadin Ltd
+ * @since
+ */
+public class StartupIndexGeneratorTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Route("indexed")
+    @RouteAlias("alias")
+    @Tag(Tag.DIV)
+    public static class IndexedView extends Component {
+    }
+
+    static URL[] getProjectClassesLocations() {
+        return new URL[] {
+                Route.class.getProtectionDomain().getCodeSource()
+                        .getLocation(),
+                StartupIndexGeneratorTest.class.getProtectionDomain()
+                        .getCodeSource().getLocation() };
+    }
+
+    @Test
+    public void collectIndex_containsAllIndexedTypes() {
+        Map<String, Set<String>> index = new StartupIndexGenerator(
+                getProjectClassesLocations()).collectIndex();
+
+        Assert.assertEquals(StartupIndex.getIndexedTypeNames(),
+                index.keySet());
+    }
+
+    @Test
+    public void collectIndex_routesAndErrorTargetsCollected() {
+        Map<String, Set<String>> index = new StartupIndexGenerator(
+                getProjectClassesLocations()).collectIndex();
+
+        Assert.assertTrue(index.get(Route.class.getName())
+                .contains(IndexedView.class.getName()));
+        Assert.assertTrue(index.get(RouteAlias.class.getName())
+                .contains(IndexedView.class.getName()));
+        Assert.assertTrue(index.get(HasErrorParameter.class.getName())
+                .contains(RouteNotFoundError.class.getName()));
+    }
+
+    @Test
+    public void writeIndex_indexReadableFromOutputDirectory()
+            throws IOException {
+        File outputDirectory = temporaryFolder.newFolder();
+
+        File indexFile = new StartupIndexGenerator(
+                getProjectClassesLocations()).writeIndex(outputDirectory);
+
+        Assert.assertEquals(
+                new File(outputDirectory, StartupIndex.RESOURCE_NAME),
+                indexFile);
+        try (URLClassLoader classLoader = new URLClassLoader(
+                getProjectClassesLocations(), null);
+                InputStream inputStream = new FileInputStream(indexFile)) {
+            Set<Class<?>> routes = StartupIndex
+                    .read(inputStream, classLoader).getClasses(Route.class);
+            Assert.assertTrue(routes.stream().anyMatch(route -> route
+                    .getName().equals(IndexedView.class.getName())));
+        }
+    }
+
+    @Test
+    public void readIndex_sameClassesAsScanning()
+            throws IOException, ClassNotFoundException {
+        URL[] locations = getProjectClassesLocations();
+        Map<String, Set<String>> scanned = new StartupIndexGenerator(
+                locations).collectIndex();
+        byte[] index = StartupIndex.toJson(scanned)
+                .getBytes(StandardCharsets.UTF_8);
+
+        try (URLClassLoader classLoader = new URLClassLoader(locations,
+                null)) {
+            StartupIndex startupIndex = StartupIndex.read(
+                    new ByteArrayInputStream(index), classLoader);
+            for (String typeName : StartupIndex.getIndexedTypeNames()) {
+                Set<String> indexed = startupIndex
+                        .getClasses(classLoader.loadClass(typeName)).stream()
+                        .map(Class::getName).collect(Collectors.toSet());
+                Assert.assertEquals(typeName, scanned.get(typeName),
+                        indexed);
+            }
+        }
+    }
+}
@@ -167,6 +167,36 @@ public interface PushConfiguration extends Serializable {
      */
     void setPushConnectionFactory(PushConnectionFactory factory);
 
+    /**
+     * Sets the minimum interval between automatic pushes of the UI. Changes
+     * made within the interval after a push are merged into a single push
+     * that is sent when the interval has passed, so that frequent updates from
+     * a background thread don't each cause a separate message to the client.
+     * <p>
+     * The first change after the interval has passed is pushed immediately,
+     * and no change waits longer than the interval. The interval is only used
+     * with {@link PushMode#AUTOMATIC}; {@link UI#push()} always pushes
+     * immediately.
+     *
+     * @param coalescingInterval
+     *            the minimum interval between automatic pushes in
+     *            milliseconds, or <code>0</code> to push after every
+     *            {@link UI#access(com.vaadin.flow.server.Command)} (the
+     *            default)
+     * @throws IllegalArgumentException
+     *             if the interval is negative
+     */
+    void setCoalescingInterval(int coalescingInterval);
+
+    /**
+     * Gets the minimum interval between automatic pushes of the UI.
+     *
+     * @return the minimum interval between automatic pushes in milliseconds,
+     *         or <code>0</code> if changes are pushed after every access
+     * @see #setCoalescingInterval(int)
+     */
+    int getCoalescingInterval();
+
 }
 
 /**
@@ -178,6 +208,7 @@ public interface PushConfiguration extends Serializable {
 class PushConfigurationImpl implements PushConfiguration {
     private UI ui;
     private PushConnectionFactory pushConnectionFactory;
+    private int coalescingInterval;
 
     PushConfigurationImpl(UI ui) {
         this.ui = ui;
@@ -285,4 +316,18 @@ class PushConfigurationImpl implements PushConfiguration {
             pushConnectionFactory, "Push connection factory must not be null"
         );
     }
+
+    @Override
+    public void setCoalescingInterval(int coalescingInterval) {
+        if (coalescingInterval < 0) {
+            throw new IllegalArgumentException(
+                    "Coalescing interval cannot be negative");
+        }
+        this.coalescingInterval = coalescingInterval;
+    }
+
+    @Override
+    public int getCoalescingInterval() {
+        return coalescingInterval;
+    }
 }
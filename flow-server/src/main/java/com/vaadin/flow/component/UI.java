@@ -55,6 +55,7 @@ import com.vaadin.flow.router.RouterLayout;
 import com.vaadin.flow.server.Command;
 import com.vaadin.flow.server.ErrorEvent;
 import com.vaadin.flow.server.ErrorHandlingCommand;
+import com.vaadin.flow.server.SessionLockEvent.LockType;
 import com.vaadin.flow.server.VaadinRequest;
 import com.vaadin.flow.server.VaadinService;
 import com.vaadin.flow.server.VaadinServlet;
@@ -404,7 +405,7 @@ public class UI extends Component
 
         VaadinService.verifyNoOtherSessionLocked(session);
 
-        session.lock();
+        session.lock(LockType.ACCESS_TASK);
         try {
             if (getSession() == null) {
                 // UI was detached after fetching the session but before we
@@ -505,6 +506,15 @@ public class UI extends Component
                     getLogger().error(e.getMessage(), e);
                 }
             }
+
+            @Override
+            public Class<?> getOriginatingClass() {
+                if (command instanceof ErrorHandlingCommand) {
+                    return ((ErrorHandlingCommand) command)
+                            .getOriginatingClass();
+                }
+                return command.getClass();
+            }
         });
     }
 
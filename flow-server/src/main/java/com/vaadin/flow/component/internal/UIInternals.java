@@ -23,6 +23,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -135,6 +136,23 @@ public class UIInternals implements Serializable {
 
     private PushConnection pushConnection = null;
 
+    /**
+     * The time of the latest automatic push, used for coalescing pushes.
+     */
+    private long lastPushNanos = System.nanoTime()
+            - TimeUnit.DAYS.toNanos(1);
+
+    private transient boolean coalescedPushScheduled = false;
+
+    private long mergedPushCount = 0;
+
+    /**
+     * The time when client metrics were last accepted, used for limiting how
+     * often they are handled.
+     */
+    private long lastClientMetricsNanos = System.nanoTime()
+            - TimeUnit.DAYS.toNanos(1);
+
     /**
      * Timestamp for keeping track of the last heartbeat of the related UI.
      * Updated to the current time whenever the application receives a heartbeat
@@ -246,6 +264,31 @@ public class UIInternals implements Serializable {
         this.lastProcessedMessageHash = lastProcessedMessageHash;
     }
 
+    /**
+     * Checks whether client metrics received now should be handled, when
+     * metrics are handled at most once per the given interval for a UI. The
+     * current time is recorded if the metrics should be handled.
+     * <p>
+     * For internal use only. May be renamed or removed in a future release.
+     *
+     * @param minIntervalMillis
+     *            the minimum time between handling metrics, in milliseconds
+     * @return <code>true</code> if the metrics should be handled,
+     *         <code>false</code> if they should be ignored
+     */
+    public boolean acceptClientMetrics(long minIntervalMillis) {
+        long now = System.nanoTime();
+        long elapsed = now - lastClientMetricsNanos;
+        // The elapsed time is negative if the UI has been deserialized in
+        // another JVM
+        if (elapsed >= TimeUnit.MILLISECONDS.toNanos(minIntervalMillis)
+                || elapsed < 0) {
+            lastClientMetricsNanos = now;
+            return true;
+        }
+        return false;
+    }
+
     /**
      * Gets the server sync id.
      * <p>
@@ -428,6 +471,70 @@ public class UIInternals implements Serializable {
         this.pushConnection = pushConnection;
     }
 
+    /**
+     * Pushes the pending changes of the UI when the session lock is released
+     * in {@link PushMode#AUTOMATIC} mode. This method should only be called by
+     * the framework.
+     * <p>
+     * If the UI has a
+     * {@link com.vaadin.flow.component.PushConfiguration#getCoalescingInterval()
+     * coalescing interval} and the previous push was made within it, the
+     * changes are not pushed right away. Instead a push is scheduled for the
+     * end of the interval, and all changes made until then are sent in the
+     * same push.
+     */
+    public void pushCoalesced() {
+        int interval = ui.getPushConfiguration().getCoalescingInterval();
+        if (interval <= 0) {
+            ui.push();
+            return;
+        }
+        if (!isDirty()) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(interval);
+        long elapsed = now - lastPushNanos;
+        // The elapsed time is negative if the UI has been deserialized in
+        // another JVM
+        if (!coalescedPushScheduled
+                && (elapsed >= intervalNanos || elapsed < 0)) {
+            lastPushNanos = now;
+            ui.push();
+            return;
+        }
+
+        mergedPushCount++;
+        if (!coalescedPushScheduled) {
+            coalescedPushScheduled = true;
+            VaadinSession uiSession = getSession();
+            VaadinService service = uiSession.getService();
+            // The shared scheduler thread only hands the push over, since
+            // access runs all pending tasks of the session if it isn't locked
+            service.getPushScheduler().schedule(
+                    () -> service.getPushExecutor()
+                            .execute(() -> uiSession.access(() -> {
+                                // The changes are pushed when the session is
+                                // unlocked
+                                coalescedPushScheduled = false;
+                            })),
+                    intervalNanos - elapsed, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Gets the number of automatic pushes that have been merged into a later
+     * push because of the
+     * {@link com.vaadin.flow.component.PushConfiguration#getCoalescingInterval()
+     * coalescing interval} of the UI.
+     *
+     * @return the number of merged pushes
+     */
+    public long getMergedPushCount() {
+        return mergedPushCount;
+    }
+
     /**
      * Add a listener that will be informed when a new set of components are
      * going to be attached.
@@ -17,11 +17,13 @@
 package com.vaadin.flow.function;
 
 import java.io.Serializable;
+import java.util.Locale;
 import java.util.Properties;
 import java.util.function.Function;
 
 import com.vaadin.flow.server.Constants;
 import com.vaadin.flow.server.WrappedSession;
+import com.vaadin.flow.server.communication.MessageFingerprint;
 import com.vaadin.flow.shared.ApplicationConstants;
 import com.vaadin.flow.shared.communication.PushMode;
 
@@ -324,4 +326,179 @@ public interface DeploymentConfiguration extends Serializable {
     default boolean isBrotli() {
         return getBooleanProperty(Constants.SERVLET_PARAMETER_BROTLI, false);
     }
+
+    /**
+     * Checks whether UIDL responses and push messages should be streamed to
+     * the client while the state tree changes are being encoded, instead of
+     * first building the full response in memory.
+     * <p>
+     * A streamed UIDL response is committed while it is being written, which
+     * means that an error that occurs while encoding the changes can no longer
+     * be reported to the client as a critical notification.
+     * <p>
+     * The changes are encoded while holding the session lock, so a streamed
+     * response is also written to the network while the lock is held. A slow
+     * client can thus keep the session locked, and block all other requests
+     * and background access to it, until the whole response has been
+     * transferred. Streaming is therefore disabled by default and should only
+     * be enabled when the memory saved on large responses is worth more than
+     * the longer lock hold times.
+     *
+     * @return <code>true</code> to stream UIDL responses, <code>false</code>
+     *         to build the full response before writing it
+     */
+    default boolean isStreamingUidl() {
+        return getBooleanProperty(Constants.SERVLET_PARAMETER_STREAMING_UIDL,
+                false);
+    }
+
+    /**
+     * Gets the maximum size of the in-memory cache for static resources served
+     * by the servlet, in megabytes. The cache keeps the contents, ETags and
+     * compressed variants of the resources so that they don't need to be read
+     * for every request.
+     * <p>
+     * The cache is only used in production mode, since resources are expected
+     * to change during development.
+     *
+     * @return the maximum cache size in megabytes, or <code>0</code> to not
+     *         cache static resources
+     */
+    default int getStaticResourceCacheSize() {
+        return getApplicationOrSystemProperty(
+                Constants.SERVLET_PARAMETER_STATIC_RESOURCE_CACHE_SIZE, 0,
+                Integer::parseInt);
+    }
+
+    /**
+     * Checks whether stream resources should be written asynchronously. In
+     * asynchronous mode the data of a resource is written to the client
+     * whenever the servlet container can accept more of it, so that a slow
+     * client doesn't keep a request thread reserved for the whole download.
+     * <p>
+     * Asynchronous writing requires a servlet with async support and is only
+     * used for resources that provide their data through a
+     * {@link com.vaadin.flow.server.RangeStreamResourceWriter}, such as
+     * resources created from an
+     * {@link com.vaadin.flow.server.InputStreamFactory}. Data that is not
+     * read from memory or from a file is read ahead in threads started
+     * through the async context, never in the write callbacks of the
+     * container.
+     *
+     * @return <code>true</code> to write stream resources asynchronously,
+     *         <code>false</code> to write them in the request thread
+     */
+    default boolean isAsyncStreamResources() {
+        return getBooleanProperty(
+                Constants.SERVLET_PARAMETER_ASYNC_STREAM_RESOURCES, false);
+    }
+
+    /**
+     * Checks whether UIDL responses and push messages should be encoded to
+     * text and written to the client after the session lock has been released.
+     * The changes are still collected while holding the lock, and a snapshot
+     * of them that doesn't share any values with the state tree is taken, but
+     * other threads can access the session while the snapshot is being
+     * encoded and written.
+     * <p>
+     * The responses to client requests and the push messages of a session are
+     * written through the same queue, one thread at a time, so the client
+     * receives them in the order of their server sync ids.
+     * <p>
+     * Streaming UIDL responses, see {@link #isStreamingUidl()}, are always
+     * written while holding the lock.
+     *
+     * @return <code>true</code> to encode and write UIDL messages outside the
+     *         session lock, <code>false</code> to do it while holding the lock
+     */
+    default boolean isSerializeUidlOutsideLock() {
+        return getBooleanProperty(
+                Constants.SERVLET_PARAMETER_SERIALIZE_UIDL_OUTSIDE_LOCK, false);
+    }
+
+    /**
+     * Checks whether RPC messages from the client should be parsed
+     * incrementally while reading the request. When enabled, the message is
+     * never held in memory as a whole and property changes are applied while
+     * the rest of the message is still being read.
+     *
+     * @return <code>true</code> to parse RPC messages incrementally,
+     *         <code>false</code> to read the whole message before parsing it
+     */
+    default boolean isStreamingRpcParsing() {
+        return getBooleanProperty(
+                Constants.SERVLET_PARAMETER_STREAMING_RPC_PARSING, false);
+    }
+
+    /**
+     * Gets the fingerprint that is used for recognizing a client-to-server
+     * message that the client has sent again. The default is
+     * {@link MessageFingerprint.Standard#MURMUR3_128}.
+     *
+     * @return the message fingerprint, not <code>null</code>
+     * @throws IllegalArgumentException
+     *             if the configured value is not the name of a
+     *             {@link MessageFingerprint.Standard} constant
+     */
+    default MessageFingerprint.Standard getMessageFingerprint() {
+        String name = getStringProperty(
+                Constants.SERVLET_PARAMETER_MESSAGE_FINGERPRINT,
+                MessageFingerprint.Standard.MURMUR3_128.name());
+        return MessageFingerprint.Standard
+                .valueOf(name.toUpperCase(Locale.ENGLISH));
+    }
+
+    /**
+     * Checks whether the bootstrap page should be rendered from a cached
+     * template in production mode. The parts of the page that are the same
+     * for a given UI class, navigation target, browser capability class and
+     * locale are then rendered only once, and only the initial UIDL and the
+     * page title are written separately for each request.
+     *
+     * @return <code>true</code> to cache the bootstrap page in production
+     *         mode, <code>false</code> to render the whole page for each
+     *         request
+     */
+    default boolean isBootstrapPageCacheEnabled() {
+        return getBooleanProperty(
+                Constants.SERVLET_PARAMETER_BOOTSTRAP_PAGE_CACHE, false);
+    }
+
+    /**
+     * Checks whether the client engine should batch the DOM mutations produced
+     * by a server message. The attribute, style, class name and text changes
+     * are then collected while the state tree changes are applied and the
+     * bindings updated, and written to the DOM in a single pass afterwards.
+     *
+     * @return <code>true</code> to batch the DOM mutations on the client,
+     *         <code>false</code> to apply each change immediately
+     */
+    default boolean isDomMutationBatchingEnabled() {
+        return getBooleanProperty(
+                Constants.SERVLET_PARAMETER_BATCH_DOM_MUTATIONS, false);
+    }
+
+    /**
+     * Gets the fraction of page loads for which the client engine collects
+     * performance metrics, such as the time spent processing each server
+     * message. The metrics are sent along with regular requests and passed to
+     * the {@link com.vaadin.flow.server.ClientMetricsListener}s of the
+     * service. The default is <code>0</code>, i.e. no metrics are collected.
+     *
+     * @return the sample rate, between <code>0</code> and <code>1</code>
+     * @throws IllegalArgumentException
+     *             if the configured value is not a number between
+     *             <code>0</code> and <code>1</code>
+     */
+    default double getClientMetricsSampleRate() {
+        double sampleRate = getApplicationOrSystemProperty(
+                Constants.SERVLET_PARAMETER_CLIENT_METRICS_SAMPLE_RATE, 0.0,
+                Double::parseDouble);
+        if (!(sampleRate >= 0 && sampleRate <= 1)) {
+            throw new IllegalArgumentException(
+                    "The client metrics sample rate must be between 0 and 1, but was "
+                            + sampleRate);
+        }
+        return sampleRate;
+    }
 }
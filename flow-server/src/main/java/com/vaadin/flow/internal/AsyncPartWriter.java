@@ -0,0 +1,233 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.internal;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vaadin.flow.internal.ByteRangeWriter.Part;
+
+/**
+ * Writes the parts of a byte range response in chunks whenever the servlet
+ * output stream is ready to accept more data, and completes the asynchronous
+ * request when all parts have been written.
+ * <p>
+ * Each chunk is read to a buffer first, since the servlet output stream only
+ * accepts a single write each time it has reported being ready. Chunks of a
+ * {@link ByteRangeSource#isBlocking() blocking} source are read ahead in a
+ * thread started through the async context instead of the write callbacks,
+ * which may be run by the I/O threads of the servlet container.
+ *
+ * @author Vaadin Ltd
+ * @since
+ */
+class AsyncPartWriter implements WriteListener {
+
+    static final int CHUNK_SIZE = 32 * 1024;
+
+    private final AsyncContext asyncContext;
+    private final ServletOutputStream out;
+    private final ByteRangeSource source;
+    private final Iterator<Part> parts;
+    private final ChunkBuffer chunk = new ChunkBuffer();
+    private final boolean readAhead;
+
+    // Only used by the thread reading the chunks
+    private Part current;
+    private boolean headerRead;
+    private long position;
+    private long remaining;
+    private byte[] readData;
+    private int readLength;
+
+    // Guarded by this when reading ahead
+    private boolean reading;
+    private byte[] nextData;
+    private int nextLength;
+    private boolean ended;
+    private boolean completed;
+
+    AsyncPartWriter(AsyncContext asyncContext, ServletOutputStream out,
+            ByteRangeSource source, List<Part> parts) {
+        this.asyncContext = asyncContext;
+        this.out = out;
+        this.source = source;
+        this.parts = parts.iterator();
+        readAhead = source.isBlocking();
+    }
+
+    @Override
+    public void onWritePossible() throws IOException {
+        try {
+            if (readAhead) {
+                synchronized (this) {
+                    writeReadChunks();
+                }
+                return;
+            }
+            while (out.isReady()) {
+                if (!readNextChunk()) {
+                    complete();
+                    return;
+                }
+                out.write(readData, 0, readLength);
+            }
+        } catch (IOException | RuntimeException e) {
+            complete();
+            throw e;
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        getLogger().debug("Error writing stream resource to user", throwable);
+        complete();
+    }
+
+    /**
+     * Writes the chunk that has been read ahead, if any, and starts reading
+     * the next one. Must be called while holding the lock of this writer.
+     */
+    private void writeReadChunks() throws IOException {
+        while (!completed && !reading && out.isReady()) {
+            if (nextData != null) {
+                out.write(nextData, 0, nextLength);
+                nextData = null;
+            } else if (ended) {
+                complete();
+                return;
+            }
+            reading = true;
+            asyncContext.start(this::readAhead);
+        }
+    }
+
+    private void readAhead() {
+        boolean read;
+        try {
+            read = readNextChunk();
+        } catch (IOException | RuntimeException e) {
+            getLogger().debug("Error reading stream resource", e);
+            complete();
+            return;
+        }
+        synchronized (this) {
+            reading = false;
+            if (read) {
+                nextData = readData;
+                nextLength = readLength;
+            } else {
+                ended = true;
+            }
+            try {
+                writeReadChunks();
+            } catch (IOException | RuntimeException e) {
+                getLogger().debug("Error writing stream resource to user", e);
+                complete();
+            }
+        }
+    }
+
+    /**
+     * Reads the next chunk of the response to {@link #readData}.
+     *
+     * @return <code>true</code> if something was read, <code>false</code> if
+     *         all parts have already been read
+     */
+    private boolean readNextChunk() throws IOException {
+        while (current == null || (headerRead && remaining == 0)) {
+            if (!parts.hasNext()) {
+                return false;
+            }
+            current = parts.next();
+            headerRead = current.getHeader() == null;
+            position = current.getPosition();
+            remaining = current.getCount();
+        }
+
+        if (!headerRead) {
+            headerRead = true;
+            readData = current.getHeader();
+            readLength = readData.length;
+            return true;
+        }
+
+        int count = (int) Math.min(CHUNK_SIZE, remaining);
+        chunk.size = 0;
+        source.transferTo(position, count, chunk);
+        readData = chunk.buffer;
+        readLength = chunk.size;
+        if (chunk.size < count) {
+            // The data ended before the requested count
+            remaining = 0;
+        } else {
+            position += count;
+            remaining -= count;
+        }
+        return true;
+    }
+
+    private synchronized void complete() {
+        if (completed) {
+            return;
+        }
+        completed = true;
+        try {
+            source.close();
+        } catch (IOException e) {
+            getLogger().debug("Error closing stream resource", e);
+        }
+        asyncContext.complete();
+    }
+
+    private static Logger getLogger() {
+        return LoggerFactory.getLogger(AsyncPartWriter.class.getName());
+    }
+
+    private static class ChunkBuffer extends OutputStream {
+        private final byte[] buffer = new byte[CHUNK_SIZE];
+        private int size;
+
+        @Override
+        public void write(int b) throws IOException {
+            ensureCapacity(1);
+            buffer[size++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            ensureCapacity(len);
+            System.arraycopy(b, off, buffer, size, len);
+            size += len;
+        }
+
+        private void ensureCapacity(int length) throws IOException {
+            if (size + length > buffer.length) {
+                throw new IOException(
+                        "The source wrote more data than requested");
+            }
+        }
+    }
+}
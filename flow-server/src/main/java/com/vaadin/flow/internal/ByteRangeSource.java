@@ -0,0 +1,244 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.internal;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * The data of a resource from which any byte range can be written to an output
+ * stream.
+ * <p>
+ * For internal use only. May be renamed or removed in a future release.
+ *
+ * @author Vaadin Ltd
+ * @since
+ */
+public interface ByteRangeSource extends Closeable {
+
+    /**
+     * Opens a new input stream for reading the data from the beginning.
+     */
+    @FunctionalInterface
+    interface StreamOpener {
+        /**
+         * Opens a new input stream.
+         *
+         * @return the opened input stream, not <code>null</code>
+         * @throws IOException
+         *             if the stream cannot be opened
+         */
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * Gets the length of the data.
+     *
+     * @return the length of the data in bytes, or <code>-1</code> if the
+     *         length is not known, in which case only the full data can be
+     *         written
+     */
+    long getLength();
+
+    /**
+     * Writes a range of the data to the given output stream.
+     *
+     * @param position
+     *            the position of the first byte to write
+     * @param count
+     *            the maximum number of bytes to write, fewer bytes are written
+     *            if the data ends before that
+     * @param out
+     *            the stream to write to, not <code>null</code>
+     * @throws IOException
+     *             if reading the data or writing to the stream fails
+     */
+    void transferTo(long position, long count, OutputStream out)
+            throws IOException;
+
+    /**
+     * Checks whether reading the data may block for an unknown time, e.g.
+     * while waiting for the network or for the session lock. Data of a
+     * blocking source is never read in the callbacks of the servlet
+     * container when writing asynchronously.
+     *
+     * @return <code>true</code> if reading the data may block,
+     *         <code>false</code> if the data is in memory or in a file
+     */
+    default boolean isBlocking() {
+        return true;
+    }
+
+    @Override
+    default void close() throws IOException {
+        // Nothing to close by default
+    }
+
+    /**
+     * Creates a source for data in a byte array.
+     *
+     * @param data
+     *            the data, not <code>null</code>
+     * @return a byte range source for the data, not <code>null</code>
+     */
+    static ByteRangeSource of(byte[] data) {
+        return new ByteRangeSource() {
+            @Override
+            public long getLength() {
+                return data.length;
+            }
+
+            @Override
+            public void transferTo(long position, long count,
+                    OutputStream out) throws IOException {
+                if (position < data.length) {
+                    out.write(data, (int) position,
+                            (int) Math.min(count, data.length - position));
+                }
+            }
+
+            @Override
+            public boolean isBlocking() {
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Creates a source for the contents of a file. The data is written using
+     * {@link FileChannel#transferTo(long, long, WritableByteChannel)} so that
+     * the bytes don't have to be copied through the Java heap if the output
+     * stream supports it. The channel is closed when the source is closed.
+     *
+     * @param channel
+     *            the channel of the file, not <code>null</code>
+     * @return a byte range source for the file, not <code>null</code>
+     * @throws IOException
+     *             if the size of the file cannot be read
+     */
+    static ByteRangeSource of(FileChannel channel) throws IOException {
+        long size = channel.size();
+        return new ByteRangeSource() {
+            @Override
+            public long getLength() {
+                return size;
+            }
+
+            @Override
+            public void transferTo(long position, long count,
+                    OutputStream out) throws IOException {
+                WritableByteChannel target = Channels.newChannel(out);
+                long remaining = Math.min(count, size - position);
+                while (remaining > 0) {
+                    long transferred = channel.transferTo(position, remaining,
+                            target);
+                    if (transferred <= 0) {
+                        throw new EOFException(
+                                "The file ended before the requested range");
+                    }
+                    position += transferred;
+                    remaining -= transferred;
+                }
+            }
+
+            @Override
+            public boolean isBlocking() {
+                return false;
+            }
+
+            @Override
+            public void close() throws IOException {
+                channel.close();
+            }
+        };
+    }
+
+    /**
+     * Creates a source for data that can only be read sequentially from a
+     * stream. A new stream is opened if a range before the current position is
+     * requested.
+     *
+     * @param length
+     *            the length of the data, or <code>-1</code> if not known
+     * @param stream
+     *            the already opened stream to read first, or <code>null</code>
+     *            to open a new stream for the first range
+     * @param opener
+     *            opens new streams for reading the data from the beginning,
+     *            not <code>null</code>
+     * @return a byte range source for the stream, not <code>null</code>
+     */
+    static ByteRangeSource of(long length, InputStream stream,
+            StreamOpener opener) {
+        return new ByteRangeSource() {
+            private InputStream current = stream;
+            private long currentPosition;
+
+            @Override
+            public long getLength() {
+                return length;
+            }
+
+            @Override
+            public void transferTo(long position, long count,
+                    OutputStream out) throws IOException {
+                if (current == null || position < currentPosition) {
+                    close();
+                    current = opener.open();
+                    currentPosition = 0;
+                }
+                while (currentPosition < position) {
+                    long skipped = current.skip(position - currentPosition);
+                    if (skipped <= 0) {
+                        if (current.read() < 0) {
+                            return;
+                        }
+                        skipped = 1;
+                    }
+                    currentPosition += skipped;
+                }
+                byte[] buffer = new byte[(int) Math.min(32 * 1024,
+                        Math.max(count, 1))];
+                long remaining = count;
+                while (remaining > 0) {
+                    int read = current.read(buffer, 0,
+                            (int) Math.min(buffer.length, remaining));
+                    if (read < 0) {
+                        return;
+                    }
+                    out.write(buffer, 0, read);
+                    currentPosition += read;
+                    remaining -= read;
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (current != null) {
+                    InputStream toClose = current;
+                    current = null;
+                    toClose.close();
+                }
+            }
+        };
+    }
+}
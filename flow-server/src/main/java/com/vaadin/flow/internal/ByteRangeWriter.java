@@ -0,0 +1,422 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.internal;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Writes the data of a {@link ByteRangeSource} to a response, taking the
+ * <code>Range</code> header of the request into account. A single requested
+ * range is written as a <code>206 Partial Content</code> response and several
+ * ranges as a <code>multipart/byteranges</code> response. The data can be
+ * written either in the calling thread or asynchronously using a
+ * {@link javax.servlet.WriteListener}.
+ * <p>
+ * For internal use only. May be renamed or removed in a future release.
+ *
+ * @author Vaadin Ltd
+ * @since
+ */
+public final class ByteRangeWriter {
+
+    /**
+     * The maximum number of ranges served as requested. Requests with more
+     * ranges or with overlapping ranges get the ranges merged.
+     */
+    static final int MAX_RANGES = 16;
+
+    private static final String BYTES_UNIT = "bytes";
+
+    private ByteRangeWriter() {
+        // Static helpers only
+    }
+
+    /**
+     * An inclusive range of bytes.
+     */
+    static final class ByteRange {
+        private final long first;
+        private final long last;
+
+        ByteRange(long first, long last) {
+            this.first = first;
+            this.last = last;
+        }
+
+        long getFirst() {
+            return first;
+        }
+
+        long getLast() {
+            return last;
+        }
+
+        private long getLength() {
+            return last - first + 1;
+        }
+
+        private String toContentRange(long totalLength) {
+            return BYTES_UNIT + " " + first + "-" + last + "/" + totalLength;
+        }
+    }
+
+    /**
+     * A part of the response: an optional header followed by a range of the
+     * data.
+     */
+    static final class Part {
+        private final byte[] header;
+        private final long position;
+        private final long count;
+
+        private Part(byte[] header, long position, long count) {
+            this.header = header;
+            this.position = position;
+            this.count = count;
+        }
+
+        byte[] getHeader() {
+            return header;
+        }
+
+        long getPosition() {
+            return position;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+
+    /**
+     * Writes the data of the source to the response. The requested ranges are
+     * written if the request has a valid <code>Range</code> header and the
+     * length of the data is known, otherwise all of the data is written. A
+     * request with an <code>If-Range</code> header only gets the ranges if
+     * the header matches the <code>ETag</code> or <code>Last-Modified</code>
+     * header of the response.
+     * <p>
+     * The content type and the validators of the data should be set to the
+     * response before calling this method.
+     *
+     * @param request
+     *            the request to read the <code>Range</code> header from, not
+     *            <code>null</code>
+     * @param response
+     *            the response to write to, not <code>null</code>
+     * @param source
+     *            the data to write, not <code>null</code>
+     * @throws IOException
+     *             if reading the data or writing the response fails
+     */
+    public static void write(HttpServletRequest request,
+            HttpServletResponse response, ByteRangeSource source)
+            throws IOException {
+        List<Part> parts = prepareResponse(request, response, source);
+        if (parts.isEmpty()) {
+            return;
+        }
+        OutputStream out = response.getOutputStream();
+        for (Part part : parts) {
+            if (part.getHeader() != null) {
+                out.write(part.getHeader());
+            }
+            if (part.getCount() > 0) {
+                source.transferTo(part.getPosition(), part.getCount(), out);
+            }
+        }
+    }
+
+    /**
+     * Writes the data of the source to the response asynchronously, in the
+     * same way as {@link #write(HttpServletRequest, HttpServletResponse,
+     * ByteRangeSource)}. The status and headers of the response are set
+     * before this method returns, while the data is written in chunks by the
+     * servlet container whenever the client can receive more of it. No thread
+     * is kept waiting for a slow client.
+     * <p>
+     * The source is closed and the asynchronous request completed once all
+     * data has been written or writing fails.
+     *
+     * @param request
+     *            the request to read the <code>Range</code> header from, must
+     *            support asynchronous processing, not <code>null</code>
+     * @param response
+     *            the response to write to, not <code>null</code>
+     * @param source
+     *            the data to write, not <code>null</code>
+     * @throws IOException
+     *             if preparing the response fails
+     */
+    public static void writeAsync(HttpServletRequest request,
+            HttpServletResponse response, ByteRangeSource source)
+            throws IOException {
+        List<Part> parts = prepareResponse(request, response, source);
+        AsyncContext asyncContext = request.startAsync();
+        // The data is written as fast as the client receives it
+        asyncContext.setTimeout(0);
+        ServletOutputStream out = response.getOutputStream();
+        out.setWriteListener(
+                new AsyncPartWriter(asyncContext, out, source, parts));
+    }
+
+    /**
+     * Sets the status and headers of the response for the request and returns
+     * the parts of the data to write.
+     */
+    private static List<Part> prepareResponse(HttpServletRequest request,
+            HttpServletResponse response, ByteRangeSource source) {
+        long length = source.getLength();
+        if (length < 0) {
+            return Collections
+                    .singletonList(new Part(null, 0, Long.MAX_VALUE));
+        }
+
+        response.setHeader("Accept-Ranges", BYTES_UNIT);
+
+        List<ByteRange> ranges = null;
+        if ("GET".equalsIgnoreCase(request.getMethod())
+                && isIfRangeMatching(request.getHeader("If-Range"),
+                        response.getHeader("ETag"),
+                        response.getHeader("Last-Modified"))) {
+            ranges = parseRanges(request.getHeader("Range"), length);
+        }
+
+        if (ranges == null) {
+            response.setContentLengthLong(length);
+            return Collections.singletonList(new Part(null, 0, length));
+        } else if (ranges.isEmpty()) {
+            response.setHeader("Content-Range", BYTES_UNIT + " */" + length);
+            response.setStatus(
+                    HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return Collections.emptyList();
+        } else if (ranges.size() == 1) {
+            ByteRange range = ranges.get(0);
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader("Content-Range", range.toContentRange(length));
+            response.setContentLengthLong(range.getLength());
+            return Collections.singletonList(
+                    new Part(null, range.getFirst(), range.getLength()));
+        } else {
+            return prepareMultipart(response, ranges, length);
+        }
+    }
+
+    /**
+     * Checks whether the validator of an <code>If-Range</code> header matches
+     * the validators of the response, using the strong comparison required
+     * for ranges. A weak entity tag never matches, and a date only matches
+     * the exact modification time of the data.
+     *
+     * @param ifRange
+     *            the value of the <code>If-Range</code> header, or
+     *            <code>null</code> if there is no header
+     * @param eTag
+     *            the <code>ETag</code> header of the response, or
+     *            <code>null</code> if there is none
+     * @param lastModified
+     *            the <code>Last-Modified</code> header of the response, or
+     *            <code>null</code> if there is none
+     * @return <code>true</code> if the requested ranges should be served,
+     *         <code>false</code> if the full data should be written
+     */
+    static boolean isIfRangeMatching(String ifRange, String eTag,
+            String lastModified) {
+        if (ifRange == null) {
+            return true;
+        }
+        String validator = ifRange.trim();
+        if (validator.startsWith("W/")) {
+            return false;
+        } else if (validator.startsWith("\"")) {
+            return eTag != null && !eTag.startsWith("W/")
+                    && validator.equals(eTag.trim());
+        }
+        long date = parseHttpDate(validator);
+        return date != -1 && date == parseHttpDate(lastModified);
+    }
+
+    private static long parseHttpDate(String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return ZonedDateTime
+                    .parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME)
+                    .toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    private static List<Part> prepareMultipart(HttpServletResponse response,
+            List<ByteRange> ranges, long length) {
+        String boundary = Long.toHexString(
+                ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE);
+        String contentType = response.getContentType();
+
+        List<Part> parts = new ArrayList<>(ranges.size() + 1);
+        long contentLength = 0;
+        for (ByteRange range : ranges) {
+            StringBuilder header = new StringBuilder();
+            header.append("\r\n--").append(boundary).append("\r\n");
+            if (contentType != null) {
+                header.append("Content-Type: ").append(contentType)
+                        .append("\r\n");
+            }
+            header.append("Content-Range: ")
+                    .append(range.toContentRange(length)).append("\r\n\r\n");
+            byte[] headerBytes = header.toString()
+                    .getBytes(StandardCharsets.ISO_8859_1);
+            parts.add(new Part(headerBytes, range.getFirst(),
+                    range.getLength()));
+            contentLength += headerBytes.length + range.getLength();
+        }
+        byte[] end = ("\r\n--" + boundary + "--\r\n")
+                .getBytes(StandardCharsets.ISO_8859_1);
+        parts.add(new Part(end, 0, 0));
+        contentLength += end.length;
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(contentLength);
+        return parts;
+    }
+
+    /**
+     * Parses the value of a <code>Range</code> header.
+     *
+     * @param header
+     *            the header value, or <code>null</code> if there is no header
+     * @param length
+     *            the length of the data
+     * @return the satisfiable ranges in the order they should be written, an
+     *         empty list if none of the ranges can be satisfied, or
+     *         <code>null</code> if the header is missing or invalid and should
+     *         be ignored
+     */
+    static List<ByteRange> parseRanges(String header, long length) {
+        if (header == null) {
+            return null;
+        }
+        String value = header.trim();
+        String prefix = BYTES_UNIT + "=";
+        if (!value.toLowerCase(Locale.ENGLISH).startsWith(prefix)) {
+            return null;
+        }
+
+        List<ByteRange> ranges = new ArrayList<>();
+        for (String spec : value.substring(prefix.length()).split(",")) {
+            spec = spec.trim();
+            if (spec.isEmpty()) {
+                continue;
+            }
+            int dash = spec.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+            try {
+                String firstValue = spec.substring(0, dash).trim();
+                String lastValue = spec.substring(dash + 1).trim();
+                if (firstValue.isEmpty()) {
+                    // Suffix range: the last N bytes
+                    long suffixLength = Long.parseLong(lastValue);
+                    if (suffixLength < 0) {
+                        return null;
+                    }
+                    if (suffixLength > 0 && length > 0) {
+                        ranges.add(new ByteRange(
+                                Math.max(0, length - suffixLength),
+                                length - 1));
+                    }
+                } else {
+                    long first = Long.parseLong(firstValue);
+                    long last = lastValue.isEmpty() ? Long.MAX_VALUE
+                            : Long.parseLong(lastValue);
+                    if (first < 0 || last < first) {
+                        return null;
+                    }
+                    if (first < length) {
+                        ranges.add(new ByteRange(first,
+                                Math.min(last, length - 1)));
+                    }
+                }
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        if (ranges.size() > 1 && (ranges.size() > MAX_RANGES
+                || hasOverlappingRanges(ranges))) {
+            return mergeRanges(ranges);
+        }
+        return ranges;
+    }
+
+    private static boolean hasOverlappingRanges(List<ByteRange> ranges) {
+        List<ByteRange> sorted = new ArrayList<>(ranges);
+        sorted.sort(Comparator.comparingLong(ByteRange::getFirst));
+        for (int i = 1; i < sorted.size(); i++) {
+            if (sorted.get(i).getFirst() <= sorted.get(i - 1).getLast()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<ByteRange> mergeRanges(List<ByteRange> ranges) {
+        List<ByteRange> sorted = new ArrayList<>(ranges);
+        sorted.sort(Comparator.comparingLong(ByteRange::getFirst));
+
+        List<ByteRange> merged = new ArrayList<>();
+        ByteRange current = sorted.get(0);
+        for (int i = 1; i < sorted.size(); i++) {
+            ByteRange next = sorted.get(i);
+            if (next.getFirst() <= current.getLast() + 1) {
+                current = new ByteRange(current.getFirst(),
+                        Math.max(current.getLast(), next.getLast()));
+            } else {
+                merged.add(current);
+                current = next;
+            }
+        }
+        merged.add(current);
+
+        if (merged.size() > MAX_RANGES) {
+            // Too fragmented to be worth serving as separate parts
+            return Collections.singletonList(new ByteRange(
+                    merged.get(0).getFirst(),
+                    merged.get(merged.size() - 1).getLast()));
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,359 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.internal;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import elemental.json.JsonException;
+import elemental.json.JsonString;
+import elemental.json.JsonValue;
+import elemental.json.impl.JsonUtil;
+
+/**
+ * Reads JSON incrementally from a {@link Reader}. The structure of objects and
+ * arrays can be traversed one member at a time, while each member value is
+ * parsed to an <code>elemental.json</code> value of its own. This makes it
+ * possible to process a large message without having the whole message in
+ * memory, either as text or as parsed values.
+ * <p>
+ * Values read with {@link #nextValue()} are validated by the
+ * <code>elemental.json</code> parser. The structure traversed using
+ * {@link #beginObject()}, {@link #beginArray()} and {@link #nextName()} is
+ * validated by this class.
+ * <p>
+ * For internal use only. May be renamed or removed in a future release.
+ *
+ * @author Vaadin Ltd
+ * @since
+ */
+public final class JsonStreamReader {
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private static final int END = -1;
+
+    private final Reader reader;
+
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+
+    /*
+     * One entry for each object or array being traversed, telling whether a
+     * comma is expected before the next member.
+     */
+    private final Deque<Boolean> expectComma = new ArrayDeque<>();
+
+    /**
+     * Creates a new JSON reader.
+     *
+     * @param reader
+     *            the reader to read JSON text from, not <code>null</code>
+     */
+    public JsonStreamReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Checks whether there is any JSON text left to read, ignoring
+     * whitespace.
+     *
+     * @return <code>true</code> if there is something else than whitespace
+     *         left, <code>false</code> otherwise
+     * @throws IOException
+     *             if reading fails
+     */
+    public boolean hasContent() throws IOException {
+        return skipWhitespace() != END;
+    }
+
+    /**
+     * Consumes the start of an object.
+     *
+     * @throws IOException
+     *             if reading fails
+     * @throws JsonException
+     *             if the next value is not an object
+     */
+    public void beginObject() throws IOException {
+        begin('{');
+    }
+
+    /**
+     * Consumes the end of the current object.
+     *
+     * @throws IOException
+     *             if reading fails
+     * @throws JsonException
+     *             if the current object has more members
+     */
+    public void endObject() throws IOException {
+        end('}');
+    }
+
+    /**
+     * Consumes the start of an array.
+     *
+     * @throws IOException
+     *             if reading fails
+     * @throws JsonException
+     *             if the next value is not an array
+     */
+    public void beginArray() throws IOException {
+        begin('[');
+    }
+
+    /**
+     * Consumes the end of the current array.
+     *
+     * @throws IOException
+     *             if reading fails
+     * @throws JsonException
+     *             if the current array has more elements
+     */
+    public void endArray() throws IOException {
+        end(']');
+    }
+
+    /**
+     * Checks whether the current object or array has more members, consuming
+     * the comma separating the members.
+     *
+     * @return <code>true</code> if there is another member,
+     *         <code>false</code> if the end of the object or array has been
+     *         reached
+     * @throws IOException
+     *             if reading fails
+     * @throws JsonException
+     *             if the members are not properly separated
+     */
+    public boolean hasNext() throws IOException {
+        if (expectComma.isEmpty()) {
+            throw new IllegalStateException(
+                    "Not reading an object or an array");
+        }
+        int c = skipWhitespace();
+        if (c == END) {
+            throw new JsonException("Unterminated object or array");
+        } else if (c == '}' || c == ']') {
+            return false;
+        }
+        if (expectComma.peek()) {
+            expect(',');
+            c = skipWhitespace();
+            if (c == '}' || c == ']' || c == END) {
+                throw new JsonException(
+                        "Expected a value after ',' but got " + describe(c));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the name of the next member of the current object, including the
+     * colon following it. The value of the member should be read next.
+     *
+     * @return the name of the member
+     * @throws IOException
+     *             if reading fails
+     * @throws JsonException
+     *             if the next token is not a member name
+     */
+    public String nextName() throws IOException {
+        if (skipWhitespace() != '"') {
+            throw new JsonException(
+                    "Expected a member name but got " + describe(peek()));
+        }
+        StringBuilder name = new StringBuilder();
+        readString(name);
+        skipWhitespace();
+        expect(':');
+        if (name.indexOf("\\") < 0) {
+            return name.substring(1, name.length() - 1);
+        }
+        return JsonUtil.<JsonString> parse(name.toString()).getString();
+    }
+
+    /**
+     * Reads and parses the next value.
+     *
+     * @param <T>
+     *            the expected type of the value
+     * @return the parsed value
+     * @throws IOException
+     *             if reading fails
+     * @throws JsonException
+     *             if the value is not valid JSON
+     */
+    public <T extends JsonValue> T nextValue() throws IOException {
+        int c = skipWhitespace();
+        StringBuilder value = new StringBuilder();
+        if (c == '"') {
+            readString(value);
+        } else if (c == '{' || c == '[') {
+            readContainer(value);
+        } else if (c == END) {
+            throw new JsonException("Expected a value but got end of input");
+        } else {
+            readLiteral(value);
+        }
+        valueRead();
+        return JsonUtil.parse(value.toString());
+    }
+
+    /**
+     * Checks that there is nothing else than whitespace left to read.
+     *
+     * @throws IOException
+     *             if reading fails
+     * @throws JsonException
+     *             if there is more content
+     */
+    public void endDocument() throws IOException {
+        int c = skipWhitespace();
+        if (c != END) {
+            throw new JsonException(
+                    "Expected end of input but got " + describe(c));
+        }
+    }
+
+    private void begin(char start) throws IOException {
+        skipWhitespace();
+        expect(start);
+        expectComma.push(Boolean.FALSE);
+    }
+
+    private void end(char end) throws IOException {
+        skipWhitespace();
+        expect(end);
+        expectComma.pop();
+        valueRead();
+    }
+
+    private void valueRead() {
+        if (!expectComma.isEmpty()) {
+            expectComma.pop();
+            expectComma.push(Boolean.TRUE);
+        }
+    }
+
+    private void readString(StringBuilder out) throws IOException {
+        out.append((char) read());
+        while (true) {
+            int c = read();
+            if (c == END) {
+                throw new JsonException("Unterminated string");
+            }
+            out.append((char) c);
+            if (c == '\\') {
+                int escaped = read();
+                if (escaped == END) {
+                    throw new JsonException("Unterminated string");
+                }
+                out.append((char) escaped);
+            } else if (c == '"') {
+                return;
+            }
+        }
+    }
+
+    private void readContainer(StringBuilder out) throws IOException {
+        int depth = 0;
+        do {
+            int c = peek();
+            if (c == END) {
+                throw new JsonException("Unterminated object or array");
+            } else if (c == '"') {
+                readString(out);
+                continue;
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                depth--;
+            }
+            out.append((char) read());
+        } while (depth > 0);
+    }
+
+    private void readLiteral(StringBuilder out) throws IOException {
+        int c = peek();
+        while (c != END && c != ',' && c != '}' && c != ']' && c != ':'
+                && !isWhitespace(c)) {
+            out.append((char) read());
+            c = peek();
+        }
+        if (out.length() == 0) {
+            throw new JsonException(
+                    "Expected a value but got " + describe(c));
+        }
+    }
+
+    private void expect(char expected) throws IOException {
+        int c = read();
+        if (c != expected) {
+            throw new JsonException(
+                    "Expected '" + expected + "' but got " + describe(c));
+        }
+    }
+
+    private int skipWhitespace() throws IOException {
+        int c = peek();
+        while (isWhitespace(c)) {
+            position++;
+            c = peek();
+        }
+        return c;
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+
+    private static String describe(int c) {
+        return c == END ? "end of input" : "'" + (char) c + "'";
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return END;
+        }
+        return buffer[position];
+    }
+
+    private int read() throws IOException {
+        int c = peek();
+        if (c != END) {
+            position++;
+        }
+        return c;
+    }
+
+    private boolean fill() throws IOException {
+        int read = reader.read(buffer);
+        while (read == 0) {
+            read = reader.read(buffer);
+        }
+        if (read == -1) {
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+}
@@ -181,6 +181,42 @@ public final class JsonUtils {
         return true;
     }
 
+    /**
+     * Creates a deep copy of a JSON value. Objects and arrays are copied
+     * recursively, while primitive values, which cannot be modified, are
+     * shared with the original.
+     *
+     * @param <T>
+     *            the value type
+     * @param value
+     *            the value to copy, not <code>null</code>
+     * @return a copy of the value that doesn't change when the original is
+     *         modified
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends JsonValue> T deepCopy(T value) {
+        assert value != null;
+
+        switch (value.getType()) {
+        case OBJECT:
+            JsonObject object = (JsonObject) value;
+            JsonObject objectCopy = Json.createObject();
+            for (String key : object.keys()) {
+                objectCopy.put(key, deepCopy(object.get(key)));
+            }
+            return (T) objectCopy;
+        case ARRAY:
+            JsonArray array = (JsonArray) value;
+            JsonArray arrayCopy = Json.createArray();
+            for (int i = 0; i < array.length(); i++) {
+                arrayCopy.set(i, deepCopy(array.get(i)));
+            }
+            return (T) arrayCopy;
+        default:
+            return value;
+        }
+    }
+
     /**
      * Creates a stream from a JSON array.
      *
@@ -15,6 +15,7 @@
  */
 package com.vaadin.flow.internal;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -27,6 +28,9 @@ import java.security.NoSuchAlgorithmException;
  */
 public class MessageDigestUtil {
 
+    private static final long MURMUR_C1 = 0x87c37b91114253d5L;
+    private static final long MURMUR_C2 = 0x4cf5ad432745937fL;
+
     private MessageDigestUtil() {
         // Static helpers only
     }
@@ -44,6 +48,97 @@ public class MessageDigestUtil {
         return getSha256().digest(string.getBytes(StandardCharsets.UTF_16));
     }
 
+    /**
+     * Calculates the SHA-256 hash of the given bytes.
+     *
+     * @param data
+     *            the bytes to hash
+     *
+     * @return 32 bytes making up the hash
+     */
+    public static byte[] sha256(byte[] data) {
+        return getSha256().digest(data);
+    }
+
+    /**
+     * Calculates the 128-bit MurmurHash3 (x64 variant, seed 0) of the UTF-16LE
+     * representation of the given string. The hash is not cryptographically
+     * secure, but it is much faster to calculate than
+     * {@link #sha256(String)} and does not need to encode the string to bytes.
+     *
+     * @param string
+     *            the string to hash
+     *
+     * @return 16 bytes making up the hash
+     */
+    public static byte[] murmurHash3(String string) {
+        int length = string.length();
+        long h1 = 0;
+        long h2 = 0;
+
+        // Eight chars, i.e. 16 bytes, per block
+        int blockEnd = length - length % 8;
+        for (int i = 0; i < blockEnd; i += 8) {
+            h1 ^= mixMurmurK1(getLittleEndianLong(string, i, 4));
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            h2 ^= mixMurmurK2(getLittleEndianLong(string, i + 4, 4));
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        int tailLength = length - blockEnd;
+        if (tailLength > 4) {
+            h2 ^= mixMurmurK2(getLittleEndianLong(string, blockEnd + 4,
+                    tailLength - 4));
+        }
+        if (tailLength > 0) {
+            h1 ^= mixMurmurK1(getLittleEndianLong(string, blockEnd,
+                    Math.min(tailLength, 4)));
+        }
+
+        long byteLength = length * 2L;
+        h1 ^= byteLength;
+        h2 ^= byteLength;
+        h1 += h2;
+        h2 += h1;
+        h1 = finalizeMurmur(h1);
+        h2 = finalizeMurmur(h2);
+        h1 += h2;
+        h2 += h1;
+
+        return ByteBuffer.allocate(16).putLong(h1).putLong(h2).array();
+    }
+
+    private static long getLittleEndianLong(String string, int offset,
+            int charCount) {
+        long value = 0;
+        for (int i = charCount - 1; i >= 0; i--) {
+            value = value << 16 | string.charAt(offset + i);
+        }
+        return value;
+    }
+
+    private static long mixMurmurK1(long k1) {
+        return Long.rotateLeft(k1 * MURMUR_C1, 31) * MURMUR_C2;
+    }
+
+    private static long mixMurmurK2(long k2) {
+        return Long.rotateLeft(k2 * MURMUR_C2, 33) * MURMUR_C1;
+    }
+
+    private static long finalizeMurmur(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
     private static MessageDigest getSha256() {
         try {
             MessageDigest digest = MessageDigest.getInstance("SHA-256");
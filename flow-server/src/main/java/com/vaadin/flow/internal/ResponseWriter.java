@@ -19,8 +19,15 @@ package com.vaadin.flow.internal;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.Objects;
 
 import javax.servlet.ServletOutputStream;
@@ -33,6 +40,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.vaadin.flow.function.DeploymentConfiguration;
+import com.vaadin.flow.internal.StaticResourceCache.CachedResource;
 
 /**
  * The class that handles writing the response data into the response.
@@ -146,11 +154,10 @@ public class ResponseWriter implements Serializable {
 
         if (dataStream == null) {
             // compressed resource not available, get non compressed
-            connection = resourceUrl.openConnection();
-            dataStream = connection.getInputStream();
-        } else {
-            response.setHeader("Vary", "Accept-Encoding");
+            writeUncompressedContents(resourceUrl, request, response);
+            return;
         }
+        response.setHeader("Vary", "Accept-Encoding");
 
         try {
             long length = connection.getContentLengthLong();
@@ -174,6 +181,109 @@ public class ResponseWriter implements Serializable {
         }
     }
 
+    /**
+     * Writes the contents and content type (if available) of the given cached
+     * resource to the response. A compressed variant of the resource is
+     * written if the browser accepts it.
+     *
+     * @param filenameWithPath
+     *            the name of the file being sent
+     * @param resource
+     *            the cached resource to write, not <code>null</code>
+     * @param request
+     *            the request object to read from
+     * @param response
+     *            the response object to write to
+     * @throws IOException
+     *             if writing to the response fails
+     */
+    public void writeResponseContents(String filenameWithPath,
+            CachedResource resource, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        writeContentType(filenameWithPath, request, response);
+
+        byte[] data = null;
+        String contentEncoding = null;
+        if (brotliEnabled && resource.getBrotliData() != null
+                && acceptsBrotliResource(request)) {
+            data = resource.getBrotliData();
+            contentEncoding = "br";
+        } else if (resource.getGzipData() != null
+                && acceptsGzippedResource(request)) {
+            data = resource.getGzipData();
+            contentEncoding = "gzip";
+        }
+
+        if (resource.getGzipData() != null
+                || resource.getBrotliData() != null) {
+            response.setHeader("Vary", "Accept-Encoding");
+        }
+        response.setHeader("ETag", resource.getETag(contentEncoding));
+
+        try {
+            if (data == null) {
+                ByteRangeWriter.write(request, response,
+                        ByteRangeSource.of(resource.getData()));
+            } else {
+                response.setHeader("Content-Encoding", contentEncoding);
+                response.setContentLengthLong(data.length);
+                response.getOutputStream().write(data);
+            }
+        } catch (IOException e) {
+            getLogger().debug("Error writing static file to user", e);
+        }
+    }
+
+    /**
+     * Writes the uncompressed resource, or the byte ranges of it requested
+     * using the <code>Range</code> header. A resource in the file system is
+     * transferred directly from its file channel.
+     */
+    private void writeUncompressedContents(URL resourceUrl,
+            HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        ByteRangeSource source = openUncompressedSource(resourceUrl);
+        try {
+            ByteRangeWriter.write(request, response, source);
+        } catch (IOException e) {
+            getLogger().debug("Error writing static file to user", e);
+        } finally {
+            try {
+                source.close();
+            } catch (IOException e) {
+                getLogger().debug("Error closing input stream for resource", e);
+            }
+        }
+    }
+
+    private ByteRangeSource openUncompressedSource(URL resourceUrl)
+            throws IOException {
+        if ("file".equals(resourceUrl.getProtocol())) {
+            try {
+                Path path = Paths.get(resourceUrl.toURI());
+                if (Files.isRegularFile(path)) {
+                    return ByteRangeSource
+                            .of(FileChannel.open(path, StandardOpenOption.READ));
+                }
+            } catch (URISyntaxException | IllegalArgumentException
+                    | FileSystemNotFoundException e) {
+                getLogger().trace("Unable to open {} as a file", resourceUrl,
+                        e);
+            }
+        }
+
+        URLConnection connection = resourceUrl.openConnection();
+        InputStream dataStream = connection.getInputStream();
+        long length = -1L;
+        try {
+            length = connection.getContentLengthLong();
+        } catch (Exception e) {
+            getLogger().debug("Error reading the content length", e);
+        }
+        return ByteRangeSource.of(length, dataStream,
+                () -> resourceUrl.openConnection().getInputStream());
+    }
+
     private void writeStream(ServletOutputStream outputStream,
             InputStream inputStream) throws IOException {
         final byte[] buffer = new byte[bufferSize];
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.vaadin.flow.internal;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Maps positive node ids to state nodes without boxing the ids.
+ * <p>
+ * Node ids are handed out sequentially by {@link StateTree}, so the nodes are
+ * stored in fixed size pages of an array indexed by the id. A page is only
+ * allocated once a node with an id in its range is registered and it is
+ * released again when the last node in it has been removed, so that the memory
+ * used by a tree whose nodes are continuously replaced stays bounded by the
+ * number of registered nodes rather than by the highest id handed out.
+ * <p>
+ * For internal use only. May be renamed or removed in a future release.
+ *
+ * @author Vaadin Ltd
+ * @since
+ */
+final class StateNodeRegistry implements Serializable {
+
+    private static final int PAGE_SHIFT = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private StateNode[][] pages = new StateNode[1][];
+
+    private int[] pageSizes = new int[1];
+
+    private int size;
+
+    /**
+     * Gets the node registered for the given id.
+     *
+     * @param id
+     *            the id to look up
+     * @return the registered node, or <code>null</code> if there is no node
+     *         for the id
+     */
+    StateNode get(int id) {
+        if (id < 0) {
+            return null;
+        }
+        int pageIndex = id >>> PAGE_SHIFT;
+        if (pageIndex >= pages.length) {
+            return null;
+        }
+        StateNode[] page = pages[pageIndex];
+        return page == null ? null : page[id & PAGE_MASK];
+    }
+
+    /**
+     * Checks whether a node is registered for the given id.
+     *
+     * @param id
+     *            the id to check
+     * @return <code>true</code> if there is a node for the id,
+     *         <code>false</code> otherwise
+     */
+    boolean containsKey(int id) {
+        return get(id) != null;
+    }
+
+    /**
+     * Registers a node for the given id, replacing any previously registered
+     * node.
+     *
+     * @param id
+     *            the non-negative id to register the node for
+     * @param node
+     *            the node to register, not <code>null</code>
+     * @return the previously registered node, or <code>null</code> if there
+     *         was no node for the id
+     */
+    StateNode put(int id, StateNode node) {
+        assert node != null;
+        if (id < 0) {
+            throw new IllegalArgumentException(
+                    "Node id cannot be negative: " + id);
+        }
+        int pageIndex = id >>> PAGE_SHIFT;
+        if (pageIndex >= pages.length) {
+            int newLength = Math.max(pageIndex + 1, pages.length * 2);
+            pages = Arrays.copyOf(pages, newLength);
+            pageSizes = Arrays.copyOf(pageSizes, newLength);
+        }
+        StateNode[] page = pages[pageIndex];
+        if (page == null) {
+            page = new StateNode[PAGE_SIZE];
+            pages[pageIndex] = page;
+        }
+
+        int offset = id & PAGE_MASK;
+        StateNode previous = page[offset];
+        page[offset] = node;
+        if (previous == null) {
+            pageSizes[pageIndex]++;
+            size++;
+        }
+        return previous;
+    }
+
+    /**
+     * Removes the node registered for the given id.
+     *
+     * @param id
+     *            the id to remove
+     * @return the removed node, or <code>null</code> if there was no node for
+     *         the id
+     */
+    StateNode remove(int id) {
+        StateNode previous = get(id);
+        if (previous == null) {
+            return null;
+        }
+
+        int pageIndex = id >>> PAGE_SHIFT;
+        pages[pageIndex][id & PAGE_MASK] = null;
+        size--;
+        if (--pageSizes[pageIndex] == 0) {
+            pages[pageIndex] = null;
+        }
+        return previous;
+    }
+
+    /**
+     * Gets the number of registered nodes.
+     *
+     * @return the number of registered nodes
+     */
+    int size() {
+        return size;
+    }
+}
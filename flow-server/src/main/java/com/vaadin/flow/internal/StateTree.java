@@ -19,11 +19,9 @@ package com.vaadin.flow.internal;
 import java.io.Serializable;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
@@ -123,7 +121,7 @@ public class StateTree implements NodeOwner {
 
     private Set<StateNode> dirtyNodes = new LinkedHashSet<>();
 
-    private final Map<Integer, StateNode> idToNode = new HashMap<>();
+    private final StateNodeRegistry idToNode = new StateNodeRegistry();
 
     private int nextId = 1;
 
@@ -192,7 +190,7 @@ public class StateTree implements NodeOwner {
     public void unregister(StateNode node) {
         assert node.getOwner() == this;
 
-        Integer id = node.getId();
+        int id = node.getId();
 
         StateNode removedNode = idToNode.remove(id);
 
@@ -0,0 +1,346 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.internal;
+
+import javax.servlet.ServletContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A size bounded in-memory cache for static resources.
+ * <p>
+ * Each cached resource holds the contents of the resource, a strong ETag, the
+ * last modification time and the compressed variants of the resource. A
+ * precompressed <code>.br</code> or <code>.gz</code> file is used as the
+ * compressed variant if available, otherwise a gzip variant is computed when
+ * the resource is loaded. The least recently used resources are evicted when
+ * the total size of the cached data exceeds the maximum size.
+ * <p>
+ * Resources are expected to not change while they are cached, which is why the
+ * cache should only be used in production mode.
+ * <p>
+ * For internal use only. May be renamed or removed in a future release.
+ *
+ * @author Vaadin Ltd
+ * @since
+ */
+public class StaticResourceCache implements Serializable {
+
+    private static final int BUFFER_SIZE = 32 * 1024;
+
+    private final long maxSize;
+    private final boolean brotliEnabled;
+
+    // Guarded by this
+    private final LinkedHashMap<String, CachedResource> resources = new LinkedHashMap<>(
+            16, 0.75f, true);
+    private long size;
+
+    /**
+     * The cached data of a static resource.
+     */
+    public static class CachedResource implements Serializable {
+        private final byte[] data;
+        private final byte[] gzipData;
+        private final byte[] brotliData;
+        private final String eTag;
+        private final long lastModified;
+
+        private CachedResource(byte[] data, byte[] gzipData,
+                byte[] brotliData, long lastModified) {
+            this.data = data;
+            this.gzipData = gzipData;
+            this.brotliData = brotliData;
+            this.lastModified = lastModified;
+            eTag = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(MessageDigestUtil.sha256(data));
+        }
+
+        /**
+         * Gets the uncompressed contents of the resource.
+         *
+         * @return the resource contents, not <code>null</code>
+         */
+        public byte[] getData() {
+            return data;
+        }
+
+        /**
+         * Gets the gzip compressed contents of the resource.
+         *
+         * @return the gzip compressed contents, or <code>null</code> if there
+         *         is no gzip variant
+         */
+        public byte[] getGzipData() {
+            return gzipData;
+        }
+
+        /**
+         * Gets the Brotli compressed contents of the resource.
+         *
+         * @return the Brotli compressed contents, or <code>null</code> if
+         *         there is no Brotli variant
+         */
+        public byte[] getBrotliData() {
+            return brotliData;
+        }
+
+        /**
+         * Gets the last modification time of the resource, without
+         * milliseconds.
+         *
+         * @return the last modification time, or <code>-1</code> if it's not
+         *         known
+         */
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * Gets the strong ETag of the resource with the given content coding.
+         * Each variant has its own ETag since the variants are not byte for
+         * byte identical.
+         *
+         * @param contentEncoding
+         *            the content coding of the variant, or <code>null</code>
+         *            for the uncompressed resource
+         * @return the quoted ETag, not <code>null</code>
+         */
+        public String getETag(String contentEncoding) {
+            if (contentEncoding == null) {
+                return '"' + eTag + '"';
+            }
+            return '"' + eTag + '-' + contentEncoding + '"';
+        }
+
+        /**
+         * Finds the ETag of any variant of this resource that is listed in the
+         * given <code>If-None-Match</code> header value.
+         *
+         * @param ifNoneMatch
+         *            the value of the <code>If-None-Match</code> header, or
+         *            <code>null</code> if the header is not present
+         * @return the matching ETag, or an empty optional if no variant
+         *         matches
+         */
+        public Optional<String> findMatchingETag(String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return Optional.empty();
+            }
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                if (tag.startsWith("W/")) {
+                    // Weak comparison is allowed for If-None-Match
+                    tag = tag.substring(2);
+                }
+                if ("*".equals(tag)) {
+                    return Optional.of(getETag(null));
+                }
+                if (tag.length() > eTag.length() + 1 && tag.charAt(0) == '"'
+                        && tag.startsWith(eTag, 1)
+                        && isVariantSuffix(tag.substring(eTag.length() + 1))) {
+                    return Optional.of(tag);
+                }
+            }
+            return Optional.empty();
+        }
+
+        private boolean isVariantSuffix(String suffix) {
+            return "\"".equals(suffix)
+                    || (gzipData != null && "-gzip\"".equals(suffix))
+                    || (brotliData != null && "-br\"".equals(suffix));
+        }
+
+        private long getSize() {
+            return data.length + (gzipData == null ? 0 : gzipData.length)
+                    + (brotliData == null ? 0 : brotliData.length);
+        }
+    }
+
+    /**
+     * Creates a new cache.
+     *
+     * @param maxSize
+     *            the maximum total size in bytes of the cached resources
+     * @param brotliEnabled
+     *            <code>true</code> to look for precompressed Brotli files,
+     *            <code>false</code> to not cache Brotli variants
+     */
+    public StaticResourceCache(long maxSize, boolean brotliEnabled) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException(
+                    "The maximum cache size must be positive");
+        }
+        this.maxSize = maxSize;
+        this.brotliEnabled = brotliEnabled;
+    }
+
+    /**
+     * Gets a cached resource.
+     *
+     * @param filenameWithPath
+     *            the name and path of the resource
+     * @return the cached resource, or <code>null</code> if the resource is not
+     *         cached
+     */
+    public synchronized CachedResource get(String filenameWithPath) {
+        return resources.get(filenameWithPath);
+    }
+
+    /**
+     * Reads a resource and its compressed variants and adds it to the cache.
+     * Resources that don't fit in the cache are not cached.
+     *
+     * @param filenameWithPath
+     *            the name and path of the resource
+     * @param resourceUrl
+     *            the URL of the resource, not <code>null</code>
+     * @param servletContext
+     *            the servlet context used for finding precompressed variants
+     *            of the resource, not <code>null</code>
+     * @return the cached resource, or <code>null</code> if the resource is too
+     *         large to be cached
+     * @throws IOException
+     *             if the resource cannot be read
+     */
+    public CachedResource load(String filenameWithPath, URL resourceUrl,
+            ServletContext servletContext) throws IOException {
+        URLConnection connection = resourceUrl.openConnection();
+        long lastModified = getLastModified(connection);
+        long length = connection.getContentLengthLong();
+        if (length > maxSize) {
+            connection.getInputStream().close();
+            return null;
+        }
+        byte[] data;
+        try (InputStream stream = connection.getInputStream()) {
+            data = readFully(stream);
+        }
+
+        byte[] brotliData = null;
+        if (brotliEnabled) {
+            brotliData = readVariant(filenameWithPath + ".br", servletContext);
+        }
+        byte[] gzipData = readVariant(filenameWithPath + ".gz",
+                servletContext);
+        if (gzipData == null) {
+            gzipData = gzip(data);
+        }
+
+        CachedResource resource = new CachedResource(data, gzipData,
+                brotliData, lastModified);
+        long resourceSize = resource.getSize();
+        if (resourceSize > maxSize) {
+            return null;
+        }
+
+        synchronized (this) {
+            CachedResource previous = resources.put(filenameWithPath,
+                    resource);
+            if (previous != null) {
+                size -= previous.getSize();
+            }
+            size += resourceSize;
+            Iterator<CachedResource> iterator = resources.values().iterator();
+            while (size > maxSize) {
+                size -= iterator.next().getSize();
+                iterator.remove();
+            }
+        }
+        return resource;
+    }
+
+    /**
+     * Removes all resources from the cache.
+     */
+    public synchronized void clear() {
+        resources.clear();
+        size = 0;
+    }
+
+    private static long getLastModified(URLConnection connection) {
+        try {
+            long lastModified = connection.getLastModified();
+            if (lastModified > 0) {
+                // Browsers don't send milliseconds in If-Modified-Since
+                return lastModified - lastModified % 1000;
+            }
+        } catch (Exception e) {
+            getLogger().trace(
+                    "Failed to find out last modified timestamp. Continuing without it.",
+                    e);
+        }
+        return -1L;
+    }
+
+    private static byte[] readVariant(String filenameWithPath,
+            ServletContext servletContext) {
+        try {
+            URL url = servletContext.getResource(filenameWithPath);
+            if (url != null) {
+                try (InputStream stream = url.openStream()) {
+                    return readFully(stream);
+                }
+            }
+        } catch (Exception e) {
+            getLogger().debug(
+                    "Unexpected exception looking for compressed resource {}",
+                    filenameWithPath, e);
+        }
+        return null;
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(
+                data.length / 2 + 32);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out, BUFFER_SIZE)) {
+            gzip.write(data);
+        }
+        // Already compressed formats such as images only grow when gzipped
+        if (out.size() >= data.length) {
+            return null;
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] readFully(InputStream stream) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int bytes;
+        while ((bytes = stream.read(buffer)) >= 0) {
+            out.write(buffer, 0, bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private static Logger getLogger() {
+        return LoggerFactory.getLogger(StaticResourceCache.class.getName());
+    }
+}
@@ -0,0 +1,383 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.internal.nodefeature;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.vaadin.flow.internal.change.AbstractListChange;
+import com.vaadin.flow.internal.change.ListAddChange;
+import com.vaadin.flow.internal.change.ListRemoveChange;
+
+/**
+ * Removes items that are both added and removed within the same set of list
+ * changes, so that they are never sent to the client.
+ * <p>
+ * All other changes are kept in their original order, but their indices are
+ * adjusted to not count the discarded items. The list is tracked as a sequence
+ * of segments in an implicit treap, where a segment is either a range of items
+ * that were in the list before the changes or a range of the items added by
+ * one change. This makes every change cost <code>O(log n)</code> regardless of
+ * the size of the list and the distance between an add and its corresponding
+ * remove.
+ * <p>
+ * For internal use only. May be renamed or removed in a future release.
+ *
+ * @author Vaadin Ltd
+ * @since
+ *
+ * @param <T>
+ *            the type of the items in the list
+ */
+final class ListChangeCompactor<T extends Serializable> {
+
+    private static final int ORIGINAL_ITEMS = -1;
+
+    /**
+     * A treap node representing a contiguous range of items in the list.
+     */
+    private static final class Segment {
+        private final int changeIndex;
+        private final int offset;
+        private final boolean discarded;
+        private final int priority;
+
+        private int length;
+
+        private Segment left;
+        private Segment right;
+        private int size;
+        private int discardedSize;
+
+        private Segment(int changeIndex, int offset, int length,
+                boolean discarded, int priority) {
+            this.changeIndex = changeIndex;
+            this.offset = offset;
+            this.length = length;
+            this.discarded = discarded;
+            this.priority = priority;
+            update();
+        }
+
+        private void update() {
+            size = length + sizeOf(left) + sizeOf(right);
+            discardedSize = (discarded ? length : 0) + discardedSizeOf(left)
+                    + discardedSizeOf(right);
+        }
+    }
+
+    private final List<AbstractListChange<T>> changes;
+
+    private final int finalSize;
+
+    /**
+     * For each add change, marks the items that are removed by a later change.
+     * The array for a change is <code>null</code> if none of its items are
+     * removed.
+     */
+    private final boolean[][] discardedItems;
+
+    private Segment root;
+
+    private Segment splitLeft;
+    private Segment splitRight;
+
+    private int discardedBeforeRemoved;
+
+    private int seed = 0x2545F491;
+
+    private ListChangeCompactor(List<AbstractListChange<T>> changes,
+            int finalSize) {
+        this.changes = changes;
+        this.finalSize = finalSize;
+        discardedItems = new boolean[changes.size()][];
+    }
+
+    /**
+     * Compacts the given add and remove changes by dropping items that are
+     * added and then removed again. The other changes are returned in the same
+     * order, with their indices adjusted to not take the dropped items into
+     * account.
+     *
+     * @param changes
+     *            the add and remove changes to compact, in the order they were
+     *            made, not <code>null</code>
+     * @param finalSize
+     *            the size of the list after all changes have been applied
+     * @return a list of compacted changes, not <code>null</code>
+     */
+    static <T extends Serializable> List<AbstractListChange<T>> compact(
+            List<AbstractListChange<T>> changes, int finalSize) {
+        if (changes.stream()
+                .noneMatch(change -> change instanceof ListRemoveChange<?>)) {
+            // Nothing can be discarded without any removes
+            return new ArrayList<>(changes);
+        }
+        return new ListChangeCompactor<>(changes, finalSize).compact();
+    }
+
+    private List<AbstractListChange<T>> compact() {
+        if (!findDiscardedItems()) {
+            return new ArrayList<>(changes);
+        }
+
+        resetList();
+
+        List<AbstractListChange<T>> compacted = new ArrayList<>();
+        for (int i = 0; i < changes.size(); i++) {
+            AbstractListChange<T> change = changes.get(i);
+            if (change instanceof ListAddChange<?>) {
+                ListAddChange<T> add = (ListAddChange<T>) change;
+                int discardedBefore = insert(i, add);
+                ListAddChange<T> remainingAdd = getRemainingAdd(i, add);
+                if (remainingAdd != null) {
+                    compacted.add(withIndex(remainingAdd,
+                            add.getIndex() - discardedBefore));
+                }
+            } else {
+                Segment removed = removeAt(change.getIndex());
+                if (!removed.discarded) {
+                    compacted.add(withIndex(change,
+                            change.getIndex() - discardedBeforeRemoved));
+                }
+            }
+        }
+        return compacted;
+    }
+
+    /**
+     * Replays the changes to find which added items are removed by a later
+     * change.
+     *
+     * @return <code>true</code> if any items should be discarded,
+     *         <code>false</code> otherwise
+     */
+    private boolean findDiscardedItems() {
+        resetList();
+
+        boolean found = false;
+        for (int i = 0; i < changes.size(); i++) {
+            AbstractListChange<T> change = changes.get(i);
+            if (change instanceof ListAddChange<?>) {
+                int count = ((ListAddChange<T>) change).getNewItems().size();
+                insertSegment(change.getIndex(),
+                        new Segment(i, 0, count, false, nextPriority()));
+            } else {
+                Segment removed = removeAt(change.getIndex());
+                if (removed.changeIndex != ORIGINAL_ITEMS) {
+                    boolean[] discarded = discardedItems[removed.changeIndex];
+                    if (discarded == null) {
+                        discarded = new boolean[((ListAddChange<T>) changes
+                                .get(removed.changeIndex)).getNewItems()
+                                        .size()];
+                        discardedItems[removed.changeIndex] = discarded;
+                    }
+                    discarded[removed.offset] = true;
+                    found = true;
+                }
+            }
+        }
+        return found;
+    }
+
+    private void resetList() {
+        int originalSize = finalSize;
+        for (AbstractListChange<T> change : changes) {
+            if (change instanceof ListAddChange<?>) {
+                originalSize -= ((ListAddChange<T>) change).getNewItems()
+                        .size();
+            } else {
+                originalSize++;
+            }
+        }
+        if (originalSize < 0) {
+            throw new IllegalStateException(
+                    "The list changes don't match the list size. The change tracker is most likely corrupted.");
+        }
+
+        root = originalSize == 0 ? null
+                : new Segment(ORIGINAL_ITEMS, 0, originalSize, false,
+                        nextPriority());
+    }
+
+    /**
+     * Inserts the items of the add change at the given change index as
+     * segments of discarded and kept items.
+     *
+     * @return the number of discarded items before the insertion point
+     */
+    private int insert(int changeIndex, ListAddChange<T> add) {
+        int count = add.getNewItems().size();
+        boolean[] discarded = discardedItems[changeIndex];
+
+        Segment inserted;
+        if (discarded == null) {
+            inserted = new Segment(changeIndex, 0, count, false,
+                    nextPriority());
+        } else {
+            // One segment for each run of discarded or kept items
+            inserted = null;
+            int start = 0;
+            while (start < count) {
+                int end = start + 1;
+                while (end < count && discarded[end] == discarded[start]) {
+                    end++;
+                }
+                inserted = merge(inserted, new Segment(changeIndex, start,
+                        end - start, discarded[start], nextPriority()));
+                start = end;
+            }
+        }
+
+        Segment before = splitAt(add.getIndex());
+        int discardedBefore = discardedSizeOf(before);
+        root = merge(merge(before, inserted), splitRight);
+        return discardedBefore;
+    }
+
+    private ListAddChange<T> getRemainingAdd(int changeIndex,
+            ListAddChange<T> add) {
+        boolean[] discarded = discardedItems[changeIndex];
+        if (discarded == null) {
+            return add;
+        }
+        List<T> items = add.getNewItems();
+        List<T> remaining = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            if (!discarded[i]) {
+                remaining.add(items.get(i));
+            }
+        }
+        return remaining.isEmpty() ? null : add.copy(remaining);
+    }
+
+    private static <T extends Serializable> AbstractListChange<T> withIndex(
+            AbstractListChange<T> change, int index) {
+        return change.getIndex() == index ? change : change.copy(index);
+    }
+
+    private void insertSegment(int index, Segment segment) {
+        Segment before = splitAt(index);
+        root = merge(merge(before, segment), splitRight);
+    }
+
+    /**
+     * Splits the list at the given index. The list is left split: the items
+     * before the index are returned and the items after it are available in
+     * {@link #splitRight}.
+     */
+    private Segment splitAt(int index) {
+        if (index < 0 || index > sizeOf(root)) {
+            throw new IllegalStateException("List change index " + index
+                    + " is out of bounds for list size " + sizeOf(root)
+                    + ". The change tracker is most likely corrupted.");
+        }
+        split(root, index);
+        root = null;
+        return splitLeft;
+    }
+
+    /**
+     * Removes the single item at the given index, returning the segment that
+     * contained it. The number of discarded items before the index is stored
+     * in {@link #discardedBeforeRemoved}.
+     */
+    private Segment removeAt(int index) {
+        if (index < 0 || index >= sizeOf(root)) {
+            throw new IllegalStateException("List change index " + index
+                    + " is out of bounds for list size " + sizeOf(root)
+                    + ". The change tracker is most likely corrupted.");
+        }
+        split(root, index);
+        Segment before = splitLeft;
+        discardedBeforeRemoved = discardedSizeOf(before);
+        split(splitRight, 1);
+        Segment removed = splitLeft;
+        root = merge(before, splitRight);
+        return removed;
+    }
+
+    /**
+     * Splits the given tree so that {@link #splitLeft} contains the first
+     * {@code count} items and {@link #splitRight} contains the rest.
+     */
+    private void split(Segment node, int count) {
+        if (node == null) {
+            splitLeft = null;
+            splitRight = null;
+            return;
+        }
+        int leftSize = sizeOf(node.left);
+        if (count <= leftSize) {
+            split(node.left, count);
+            node.left = splitRight;
+            node.update();
+            splitRight = node;
+        } else if (count >= leftSize + node.length) {
+            split(node.right, count - leftSize - node.length);
+            node.right = splitLeft;
+            node.update();
+            splitLeft = node;
+        } else {
+            int head = count - leftSize;
+            Segment tail = new Segment(node.changeIndex, node.offset + head,
+                    node.length - head, node.discarded, nextPriority());
+            Segment right = node.right;
+
+            node.length = head;
+            node.right = null;
+            node.update();
+
+            splitLeft = node;
+            splitRight = merge(tail, right);
+        }
+    }
+
+    private static Segment merge(Segment first, Segment second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        if (first.priority > second.priority) {
+            first.right = merge(first.right, second);
+            first.update();
+            return first;
+        } else {
+            second.left = merge(first, second.left);
+            second.update();
+            return second;
+        }
+    }
+
+    private int nextPriority() {
+        // xorshift, deterministic to make the tree shape reproducible
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return seed;
+    }
+
+    private static int sizeOf(Segment segment) {
+        return segment == null ? 0 : segment.size;
+    }
+
+    private static int discardedSizeOf(Segment segment) {
+        return segment == null ? 0 : segment.discardedSize;
+    }
+}
@@ -21,14 +21,10 @@ import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import com.vaadin.flow.internal.StateNode;
 import com.vaadin.flow.internal.change.AbstractListChange;
@@ -288,55 +284,32 @@ public abstract class NodeList<T extends Serializable> extends NodeFeature {
 
     @Override
     public void collectChanges(Consumer<NodeChange> collector) {
-        boolean hasRemoveAll = false;
-
-        // This map contains items wrapped by AbstractListChanges as keys and
-        // index in the following allChanges list as a value (it allows to get
-        // AbstractListChange by the index)
-        Map<Object, Integer> indices = new IdentityHashMap<>();
-
-        // This list contains all changes in the tracker. These changes will be
-        // modified: each "remove" change following by a corresponding "add"
-        // will be replaced by null and "add" will be adjusted. Indeces in
-        // changes in between will be adjusted
-        List<AbstractListChange<T>> allChanges = new ArrayList<>();
-        int index = 0;
-        for (AbstractListChange<T> change : getChangeTracker()) {
-            if (change instanceof ListRemoveChange<?>) {
-                // the remove change => find an appropriate "add" event, adjust
-                // it and adjust everything in between
-                adjustChanges(index, (ListRemoveChange<T>) change, indices,
-                        allChanges);
-            } else if (change instanceof ListAddChange<?>) {
-                allChanges.add(change);
-                int i = index;
-                // put all items into "indeces" as keys and "index" as a value
-                // so that the "change" can be retrieved from the "allChanges"
-                // by the index
-                ((ListAddChange<T>) change).getNewItems()
-                        .forEach(item -> indices.put(item, i));
-            } else if (change instanceof ListClearChange<?>) {
-                hasRemoveAll = true;
-                allChanges.clear();
-                allChanges.add(change);
-            } else {
-                assert false : "AbstractListChange has only three subtypes: add, remove and clear";
+        List<AbstractListChange<T>> trackedChanges = getChangeTracker();
+
+        // Changes before the last "clear" change are irrelevant since the
+        // client will remove all items anyway
+        int clearIndex = -1;
+        for (int i = trackedChanges.size() - 1; i >= 0; i--) {
+            if (trackedChanges.get(i) instanceof ListClearChange<?>) {
+                clearIndex = i;
+                break;
             }
-            index++;
         }
 
-        List<AbstractListChange<T>> changes;
-
-        if (isRemoveAllCalled && !hasRemoveAll) {
-            changes = Stream
-                    .concat(Stream.of(new ListClearChange<>(this)),
-                            allChanges.stream())
-                    .filter(this::acceptChange).collect(Collectors.toList());
-        } else {
-            changes = allChanges.stream().filter(this::acceptChange)
-                    .collect(Collectors.toList());
+        List<AbstractListChange<T>> changes = new ArrayList<>();
+        if (clearIndex != -1) {
+            changes.add(trackedChanges.get(clearIndex));
+        } else if (isRemoveAllCalled) {
+            changes.add(new ListClearChange<>(this));
         }
 
+        // Each "remove" of an item added after the last clear is discarded
+        // together with the item in the corresponding "add" and the changes in
+        // between are reindexed
+        changes.addAll(ListChangeCompactor.compact(
+                trackedChanges.subList(clearIndex + 1, trackedChanges.size()),
+                values == null ? 0 : values.size()));
+
         isRemoveAllCalled = false;
 
         if (isPopulated) {
@@ -351,16 +324,6 @@ public abstract class NodeList<T extends Serializable> extends NodeFeature {
         }
     }
 
-    private boolean acceptChange(AbstractListChange<T> change) {
-        if (change == null) {
-            return false;
-        }
-        if (change instanceof ListAddChange<?>) {
-            return !((ListAddChange<?>) change).isEmpty();
-        }
-        return true;
-    }
-
     @Override
     public void forEachChild(Consumer<StateNode> action) {
     }
@@ -428,58 +391,6 @@ public abstract class NodeList<T extends Serializable> extends NodeFeature {
         return new NodeListIterator();
     }
 
-    private void adjustChanges(int removeChangeIndex,
-            ListRemoveChange<T> change, Map<Object, Integer> indices,
-            List<AbstractListChange<T>> allChanges) {
-        T removedItem = change.getRemovedItem();
-        // retrieve index of the item (it's supposed to be the index of an Add
-        // change)
-        Integer addChangeIndex = indices.get(removedItem);
-        if (addChangeIndex == null) {
-            // if there is no suitable "add" change then just add "remove"
-            // change as is
-            allChanges.add(change);
-        } else {
-            // retrieve the "add" change by the index
-            AbstractListChange<T> addChange = allChanges.get(addChangeIndex);
-            assert addChange instanceof ListAddChange<?>;
-
-            ListAddChange<T> add = (ListAddChange<T>) addChange;
-            // "add" change has to be adjusted : we need to remove "removedItem"
-            // from it
-            int indexToCorrect = add.getNewItems().indexOf(removedItem);
-            assert indexToCorrect != -1;
-            indexToCorrect += add.getIndex();
-            // replace "add" change whose index is "addChangeIndex" with a new
-            // change which is the copy of the original one but has newItems
-            allChanges.set(addChangeIndex,
-                    add.copy(add.getNewItems().stream()
-                            .filter(item -> item != removedItem)
-                            .collect(Collectors.toList())));
-
-            // now go through all the changes in between "add" and "remove" and
-            // reindex them
-            for (int i = addChangeIndex + 1; i < removeChangeIndex; i++) {
-                AbstractListChange<T> listChange = allChanges.get(i);
-                // listChange can be null for handled "removed" changes ( see
-                // the code below the cycle)
-                if (listChange != null
-                        && listChange.getIndex() > indexToCorrect) {
-                    // make a copy with the adjusted index in case change has an
-                    // index which is greater than index of the discarded item
-                    allChanges.set(i,
-                            listChange.copy(listChange.getIndex() - 1));
-                    // listChange can't be ListRemoveChange actually here since
-                    // it has to have the index greater than "indexToCorrect".
-                    // But it means that there was a corresponding ListAddChange
-                    // which has been already adjusted previously and the
-                    // "remove" has been replaced with "null".
-                }
-            }
-            allChanges.add(null);
-        }
-    }
-
     @Override
     public void onDetach() {
         if (isPopulated && values == null) {
@@ -164,4 +164,16 @@ public class PushConfigurationMap extends NodeMap implements PushConfiguration {
     public void setPushConnectionFactory(PushConnectionFactory factory) {
         throw new UnsupportedOperationException("Setting push connection factory is not supported");
     }
+
+    @Override
+    public void setCoalescingInterval(int coalescingInterval) {
+        throw new UnsupportedOperationException(
+                "The coalescing interval is not stored in the state tree");
+    }
+
+    @Override
+    public int getCoalescingInterval() {
+        throw new UnsupportedOperationException(
+                "The coalescing interval is not stored in the state tree");
+    }
 }
@@ -27,6 +27,7 @@ import java.util.concurrent.locks.ReentrantLock;
 
 import com.vaadin.flow.component.Component;
 import com.vaadin.flow.internal.ReflectTools;
+import com.vaadin.flow.internal.ReflectionCache;
 import com.vaadin.flow.router.HasErrorParameter;
 import com.vaadin.flow.router.HasUrlParameter;
 import com.vaadin.flow.router.RouteAliasData;
@@ -47,6 +48,9 @@ import com.vaadin.flow.shared.Registration;
  */
 public abstract class AbstractRouteRegistry implements RouteRegistry {
 
+    private static final ReflectionCache<AbstractRouteRegistry, Boolean> MATCHING_PATH_LENGTH_SUPPORTED = new ReflectionCache<>(
+            AbstractRouteRegistry::isMatchingPathLengthSupported);
+
     /**
      * Configuration interface to use for updating the configuration entity.
      */
@@ -252,6 +256,96 @@ public abstract class AbstractRouteRegistry implements RouteRegistry {
         return Collections.emptyList();
     }
 
+    /**
+     * Get the number of leading path segments that form the route path with a
+     * navigation target for the given location path segments. The longest
+     * matching route path is used, and the remaining segments are the URL
+     * parameters of the navigation target.
+     * <p>
+     * The result is the same as checking
+     * {@link #getNavigationTarget(String, List)} for every prefix of the
+     * segments starting from the longest one, but the registered paths are
+     * matched with a single walk over the segments.
+     * <p>
+     * A subclass that overrides {@link #getNavigationTarget(String, List)}
+     * must also override this method to have it used for resolving routes.
+     * Otherwise the overridden navigation target lookup is checked for every
+     * prefix of the segments instead.
+     *
+     * @param pathSegments
+     *         segments of the location path
+     * @return the number of segments in the matching route path, or
+     * <code>-1</code> if no route is found
+     */
+    public int getMatchingPathLength(List<String> pathSegments) {
+        return getConfiguration().getMatchingPathLength(pathSegments);
+    }
+
+    /**
+     * Get the number of leading path segments that form the route path with a
+     * navigation target in the given registry for the given location path
+     * segments.
+     * <p>
+     * Registries extending this class are queried using
+     * {@link #getMatchingPathLength(List)} unless they override
+     * {@link RouteRegistry#getNavigationTarget(String, List)} in a subclass of
+     * the class that declares {@link #getMatchingPathLength(List)}. Those and
+     * other registries are queried by checking
+     * {@link RouteRegistry#getNavigationTarget(String, List)} for every
+     * prefix of the segments.
+     *
+     * @param registry
+     *         registry to find the route from
+     * @param pathSegments
+     *         segments of the location path
+     * @return the number of segments in the matching route path, or
+     * <code>-1</code> if no route is found
+     */
+    public static int getMatchingPathLength(RouteRegistry registry,
+            List<String> pathSegments) {
+        if (registry instanceof AbstractRouteRegistry
+                && MATCHING_PATH_LENGTH_SUPPORTED
+                        .get(((AbstractRouteRegistry) registry).getClass())
+                        .booleanValue()) {
+            return ((AbstractRouteRegistry) registry)
+                    .getMatchingPathLength(pathSegments);
+        }
+
+        int size = pathSegments.size();
+        int shortest = size == 0 || pathSegments.get(0).isEmpty() ? 1 : 0;
+        for (int length = size; length >= shortest; length--) {
+            String path = String.join("/", pathSegments.subList(0, length));
+            if (registry.getNavigationTarget(path,
+                    pathSegments.subList(length, size)).isPresent()) {
+                return length;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks whether {@link #getMatchingPathLength(List)} of the given
+     * registry type gives the same result as its
+     * {@link #getNavigationTarget(String, List)}, i.e. whether it is declared
+     * in the same class or a subclass of the navigation target lookup.
+     */
+    private static boolean isMatchingPathLengthSupported(
+            Class<? extends AbstractRouteRegistry> type) {
+        try {
+            Class<?> navigationTargetDeclarer = type
+                    .getMethod("getNavigationTarget", String.class,
+                            List.class)
+                    .getDeclaringClass();
+            Class<?> matchingPathLengthDeclarer = type
+                    .getMethod("getMatchingPathLength", List.class)
+                    .getDeclaringClass();
+            return navigationTargetDeclarer
+                    .isAssignableFrom(matchingPathLengthDeclarer);
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
     private List<Class<?>> getRouteParameters(
             Class<? extends Component> target) {
         List<Class<?>> parameters = new ArrayList<>();
@@ -39,6 +39,9 @@ public class ConfigureRoutes extends ConfiguredRoutes implements Serializable {
     private final Map<Class<? extends Component>, String> targetRouteMap;
     private final Map<Class<? extends Exception>, Class<? extends Component>> exceptionTargetMap;
 
+    // Built lazily and discarded whenever a route path is added or removed
+    private transient RouteSegmentTrie routeSegmentTrie;
+
     /**
      * Create an immutable RouteConfiguration.
      */
@@ -82,6 +85,22 @@ public class ConfigureRoutes extends ConfiguredRoutes implements Serializable {
         return routeMap;
     }
 
+    /**
+     * Override so that the trie is built from the current state of the
+     * editable routes map. The trie is rebuilt only after route paths have
+     * been added or removed, since it refers to the route targets of the
+     * paths that are still present.
+     *
+     * @return segment trie of the current routes
+     */
+    @Override
+    RouteSegmentTrie getRouteSegmentTrie() {
+        if (routeSegmentTrie == null) {
+            routeSegmentTrie = new RouteSegmentTrie(getRoutesMap());
+        }
+        return routeSegmentTrie;
+    }
+
     /**
      * Override so that the getters use the correct target routes map for data.
      *
@@ -113,6 +132,7 @@ public class ConfigureRoutes extends ConfiguredRoutes implements Serializable {
     public void clear() {
         getRoutesMap().clear();
         getTargetRoutes().clear();
+        routeSegmentTrie = null;
     }
 
     /**
@@ -132,6 +152,7 @@ public class ConfigureRoutes extends ConfiguredRoutes implements Serializable {
         } else {
             getRoutesMap().computeIfAbsent(path,
                     key -> new RouteTarget(navigationTarget, true));
+            routeSegmentTrie = null;
         }
     }
 
@@ -191,7 +212,10 @@ public class ConfigureRoutes extends ConfiguredRoutes implements Serializable {
                 emptyRoutes.add(route);
             }
         });
-        emptyRoutes.forEach(getRoutesMap()::remove);
+        if (!emptyRoutes.isEmpty()) {
+            emptyRoutes.forEach(getRoutesMap()::remove);
+            routeSegmentTrie = null;
+        }
     }
 
     /**
@@ -211,6 +235,7 @@ public class ConfigureRoutes extends ConfiguredRoutes implements Serializable {
         }
 
         RouteTarget removedRoute = getRoutesMap().remove(path);
+        routeSegmentTrie = null;
         for (Class<? extends Component> targetRoute : removedRoute
                 .getRoutes()) {
             updateMainRouteTarget(targetRoute);
@@ -243,6 +268,7 @@ public class ConfigureRoutes extends ConfiguredRoutes implements Serializable {
 
         if (routeTarget.isEmpty()) {
             getRoutesMap().remove(path);
+            routeSegmentTrie = null;
         }
 
         if (getTargetRoutes().containsKey(targetRoute) && getTargetRoutes()
@@ -40,6 +40,9 @@ public class ConfiguredRoutes implements Serializable {
     private final Map<Class<? extends Component>, String> targetRoutes;
     private final Map<Class<? extends Exception>, Class<? extends Component>> exceptionTargets;
 
+    // Built lazily from the immutable routes
+    private transient volatile RouteSegmentTrie routeSegmentTrie;
+
     /**
      * Create an immutable RouteConfiguration.
      */
@@ -132,6 +135,38 @@ public class ConfiguredRoutes implements Serializable {
         return false;
     }
 
+    /**
+     * Find the longest route path that is a prefix of the given path segments
+     * and has a navigation target for the rest of the segments.
+     * <p>
+     * The result is the same as calling {@link #hasRoute(String, List)} for
+     * every prefix of the segments from the longest to the shortest, but the
+     * registered paths are matched with a single walk over the segments.
+     *
+     * @param pathSegments
+     *         segments of the location path
+     * @return the number of segments in the matching route path, or
+     * <code>-1</code> if no route is found
+     */
+    public int getMatchingPathLength(List<String> pathSegments) {
+        return getRouteSegmentTrie().findMatchingPathLength(pathSegments);
+    }
+
+    /**
+     * Get the segment trie of the routes in this configuration.
+     *
+     * @return segment trie of the routes
+     */
+    RouteSegmentTrie getRouteSegmentTrie() {
+        RouteSegmentTrie trie = routeSegmentTrie;
+        if (trie == null) {
+            // Building concurrently is harmless as the routes never change
+            trie = new RouteSegmentTrie(getRoutesMap());
+            routeSegmentTrie = trie;
+        }
+        return trie;
+    }
+
     /**
      * Check it the given route target has been registered to the configuration.
      *
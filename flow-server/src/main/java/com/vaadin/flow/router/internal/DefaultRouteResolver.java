@@ -16,12 +16,9 @@
 package com.vaadin.flow.router.internal;
 
 import java.io.Serializable;
-import java.util.ArrayDeque;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Deque;
 import java.util.List;
-import java.util.Optional;
 
 import org.slf4j.LoggerFactory;
 
@@ -108,27 +105,14 @@ public class DefaultRouteResolver implements RouteResolver {
             return null;
         }
 
-        Deque<PathDetails> paths = new ArrayDeque<>();
-        StringBuilder pathBuilder = new StringBuilder(pathSegments.get(0));
-        if (!"".equals(pathSegments.get(0))) {
-            paths.push(new PathDetails("", pathSegments));
-        }
-        for (int i = 0; i < pathSegments.size(); i++) {
-            if (i != 0) {
-                pathBuilder.append("/").append(pathSegments.get(i));
-            }
-            paths.push(new PathDetails(pathBuilder.toString(),
-                    pathSegments.subList(i + 1, pathSegments.size())));
-        }
-        while (!paths.isEmpty()) {
-            PathDetails pathDetails = paths.pop();
-            Optional<?> target = registry.getNavigationTarget(pathDetails.path,
-                    pathDetails.segments);
-            if (target.isPresent()) {
-                return pathDetails;
-            }
+        int length = AbstractRouteRegistry.getMatchingPathLength(registry,
+                pathSegments);
+        if (length < 0) {
+            return null;
         }
-        return null;
+        return new PathDetails(
+                String.join("/", pathSegments.subList(0, length)),
+                pathSegments.subList(length, pathSegments.size()));
     }
 
     private Class<? extends Component> getNavigationTarget(
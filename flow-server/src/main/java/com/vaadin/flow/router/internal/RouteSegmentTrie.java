@@ -0,0 +1,124 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.router.internal;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.vaadin.flow.server.startup.RouteTarget;
+
+/**
+ * Route paths of a configuration arranged by their path segments, so that the
+ * route matching a location can be found with a single walk over the segments
+ * of the location.
+ * <p>
+ * The trie is never modified after it has been built. A new trie is built for
+ * every {@link ConfiguredRoutes} instance, i.e. whenever the routes of a
+ * registry change, and for a {@link ConfigureRoutes} whenever its route paths
+ * change.
+ * <p>
+ * For internal use only. May be renamed or removed in a future release.
+ *
+ * @author Vaadin Ltd
+ * @since
+ */
+final class RouteSegmentTrie {
+
+    private static final class Node {
+        private Map<String, Node> children = Collections.emptyMap();
+        private RouteTarget routeTarget;
+
+        private Node getOrCreateChild(String segment) {
+            if (children.isEmpty()) {
+                children = new HashMap<>();
+            }
+            return children.computeIfAbsent(segment, key -> new Node());
+        }
+    }
+
+    private final Node root = new Node();
+
+    /**
+     * Builds a trie of the given routes.
+     *
+     * @param routes
+     *            the route targets by their paths, not <code>null</code>
+     */
+    RouteSegmentTrie(Map<String, RouteTarget> routes) {
+        routes.forEach((path, routeTarget) -> {
+            Node node = root;
+            if (!path.isEmpty()) {
+                for (String segment : path.split("/", -1)) {
+                    node = node.getOrCreateChild(segment);
+                }
+            }
+            node.routeTarget = routeTarget;
+        });
+    }
+
+    /**
+     * Finds the longest route path that is a prefix of the given path segments
+     * and has a navigation target accepting the rest of the segments as
+     * parameters.
+     * <p>
+     * The route path for a prefix of <code>n</code> segments is the first
+     * <code>n</code> segments joined with <code>/</code>. The empty route path
+     * is matched as a prefix of no segments only if the first segment is not
+     * empty.
+     *
+     * @param pathSegments
+     *            the segments of the location path, not <code>null</code>
+     * @return the number of segments in the matching route path, or
+     *         <code>-1</code> if no route matches
+     */
+    int findMatchingPathLength(List<String> pathSegments) {
+        int size = pathSegments.size();
+        if (size == 0) {
+            return -1;
+        }
+
+        RouteTarget[] prefixTargets = new RouteTarget[size + 1];
+        String first = pathSegments.get(0);
+        if (first.isEmpty()) {
+            // The path of the first empty segment is the empty route path
+            prefixTargets[1] = root.routeTarget;
+        } else {
+            prefixTargets[0] = root.routeTarget;
+        }
+
+        Node node = root;
+        for (int i = 0; i < size; i++) {
+            node = node.children.get(pathSegments.get(i));
+            if (node == null) {
+                break;
+            }
+            if (i > 0 || !first.isEmpty()) {
+                prefixTargets[i + 1] = node.routeTarget;
+            }
+        }
+
+        for (int length = size; length >= 0; length--) {
+            RouteTarget routeTarget = prefixTargets[length];
+            if (routeTarget != null && routeTarget.getTarget(
+                    pathSegments.subList(length, size)) != null) {
+                return length;
+            }
+        }
+        return -1;
+    }
+}
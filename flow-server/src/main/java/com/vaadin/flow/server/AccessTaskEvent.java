@@ -0,0 +1,97 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.server;
+
+import java.util.EventObject;
+
+/**
+ * Event fired when a task submitted using {@link VaadinSession#access(Command)}
+ * has been run.
+ *
+ * @see SessionLockListener#accessTaskCompleted(AccessTaskEvent)
+ *
+ * @author Vaadin Ltd
+ * @since
+ */
+public class AccessTaskEvent extends EventObject {
+
+    private final VaadinSession session;
+    private final Class<?> originatingClass;
+    private final long durationNanos;
+
+    /**
+     * Creates a new event.
+     *
+     * @param service
+     *            the Vaadin service from which the event originates
+     * @param session
+     *            the session the task was run for
+     * @param originatingClass
+     *            the class of the command that was submitted
+     * @param durationNanos
+     *            the time in nanoseconds it took to run the task
+     */
+    public AccessTaskEvent(VaadinService service, VaadinSession session,
+            Class<?> originatingClass, long durationNanos) {
+        super(service);
+        this.session = session;
+        this.originatingClass = originatingClass;
+        this.durationNanos = durationNanos;
+    }
+
+    @Override
+    public VaadinService getSource() {
+        return (VaadinService) super.getSource();
+    }
+
+    /**
+     * Gets the Vaadin service from which the event originates.
+     *
+     * @return the Vaadin service
+     */
+    public VaadinService getService() {
+        return getSource();
+    }
+
+    /**
+     * Gets the session the task was run for.
+     *
+     * @return the session
+     */
+    public VaadinSession getSession() {
+        return session;
+    }
+
+    /**
+     * Gets the class of the command that was submitted. For tasks submitted
+     * using {@link com.vaadin.flow.component.UI#access(Command)}, this is the
+     * class of the command given to the UI.
+     *
+     * @return the class of the submitted command
+     */
+    public Class<?> getOriginatingClass() {
+        return originatingClass;
+    }
+
+    /**
+     * Gets the time it took to run the task.
+     *
+     * @return the duration in nanoseconds
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+}
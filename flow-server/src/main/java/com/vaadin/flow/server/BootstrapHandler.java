@@ -18,15 +18,18 @@ package com.vaadin.flow.server;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.lang.annotation.Annotation;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumMap;
 import java.util.Iterator;
@@ -46,6 +49,7 @@ import org.jsoup.nodes.DataNode;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.DocumentType;
 import org.jsoup.nodes.Element;
+import org.jsoup.nodes.TextNode;
 import org.jsoup.parser.Parser;
 import org.jsoup.parser.Tag;
 import org.jsoup.select.Elements;
@@ -117,6 +121,8 @@ public class BootstrapHandler extends SynchronizedRequestHandler {
 
     static Supplier<String> clientEngineFile = () -> LazyClientEngineInit.CLIENT_ENGINE_FILE;
 
+    private final BootstrapPageCache pageCache = new BootstrapPageCache();
+
     private static Logger getLogger() {
         return LoggerFactory.getLogger(BootstrapHandler.class.getName());
     }
@@ -399,13 +405,133 @@ public class BootstrapHandler extends SynchronizedRequestHandler {
         ServletHelper.setResponseNoCacheHeaders(response::setHeader,
                 response::setDateHeader);
 
-        Document document = getBootstrapPage(context);
-        writeBootstrapPage(response, document.outerHtml());
+        if (isBootstrapPageCacheable(context)) {
+            response.setContentType(
+                    ApplicationConstants.CONTENT_TYPE_TEXT_HTML_UTF_8);
+            try (OutputStream out = new BufferedOutputStream(
+                    response.getOutputStream())) {
+                writeCachedBootstrapPage(context, out);
+            }
+        } else {
+            Document document = getBootstrapPage(context);
+            writeBootstrapPage(response, document.outerHtml());
+        }
 
         return true;
     }
 
     static Document getBootstrapPage(BootstrapContext context) {
+        Optional<String> title = resolvePageTitle(context);
+        JsonObject initialUIDL = getInitialUidl(context.getUI());
+        Map<LoadMode, JsonArray> dependenciesToProcessOnServer = popDependenciesToProcessOnServer(
+                initialUIDL);
+
+        Document document = createBootstrapDocument(context, title,
+                dependenciesToProcessOnServer,
+                getBootstrapScript(initialUIDL, context));
+        modifyBootstrapPage(context, document);
+        return document;
+    }
+
+    /**
+     * Writes the bootstrap page using a cached template for the invariant
+     * parts of the page. Only the title and the bootstrap script, which
+     * contains the initial UIDL, are rendered for each request.
+     * <p>
+     * The page is only cached if {@link #isBootstrapPageCacheable} returns
+     * <code>true</code> for the context.
+     *
+     * @param context
+     *            the bootstrap context
+     * @param out
+     *            the stream to write the page to
+     * @throws IOException
+     *             if writing the page fails
+     */
+    void writeCachedBootstrapPage(BootstrapContext context, OutputStream out)
+            throws IOException {
+        Optional<String> title = resolvePageTitle(context)
+                .filter(value -> !value.isEmpty());
+        JsonObject initialUIDL = getInitialUidl(context.getUI());
+        Map<LoadMode, JsonArray> dependenciesToProcessOnServer = popDependenciesToProcessOnServer(
+                initialUIDL);
+
+        BootstrapPageCache.Template template = pageCache.getTemplate(
+                getPageCacheKey(context, title.isPresent(),
+                        dependenciesToProcessOnServer),
+                () -> {
+                    Document document = createBootstrapDocument(context,
+                            title.map(value -> pageCache.getMarker(
+                                    BootstrapPageCache.Slot.TITLE)),
+                            dependenciesToProcessOnServer,
+                            pageCache.getMarker(
+                                    BootstrapPageCache.Slot.BOOTSTRAP_SCRIPT));
+                    modifyBootstrapPage(context, document);
+                    return document.outerHtml();
+                });
+
+        Map<BootstrapPageCache.Slot, String> values = new EnumMap<>(
+                BootstrapPageCache.Slot.class);
+        title.ifPresent(value -> values.put(BootstrapPageCache.Slot.TITLE,
+                renderTitleText(value)));
+        values.put(BootstrapPageCache.Slot.BOOTSTRAP_SCRIPT,
+                getBootstrapScript(initialUIDL, context));
+        template.write(out, values);
+    }
+
+    /**
+     * Renders the title text the same way as it is rendered as a part of the
+     * whole document, including the escaping and the whitespace normalization
+     * done when pretty printing.
+     */
+    private static String renderTitleText(String title) {
+        TextNode text = new TextNode(title);
+        new Document("").appendElement("title").appendChild(text);
+        return text.outerHtml();
+    }
+
+    /**
+     * Checks whether the bootstrap page for the given context can be written
+     * from a cached template. This is the case in production mode when the
+     * cache is enabled, all bootstrap listeners are cacheable and the page is
+     * not configured through a {@link PageConfigurator}, since those may
+     * change the page for each request.
+     *
+     * @param context
+     *            the bootstrap context
+     * @return <code>true</code> if the page can be cached, <code>false</code>
+     *         otherwise
+     */
+    static boolean isBootstrapPageCacheable(BootstrapContext context) {
+        DeploymentConfiguration configuration = context.getSession()
+                .getConfiguration();
+        return configuration.isProductionMode()
+                && configuration.isBootstrapPageCacheEnabled()
+                && context.getSession().getService()
+                        .hasOnlyCacheableBootstrapListeners()
+                && context.getUI().getChildren()
+                        .noneMatch(PageConfigurator.class::isInstance);
+    }
+
+    private static List<Object> getPageCacheKey(BootstrapContext context,
+            boolean hasTitle,
+            Map<LoadMode, JsonArray> dependenciesToProcessOnServer) {
+        UI ui = context.getUI();
+        WebBrowser browser = context.getSession().getBrowser();
+        String dependencies = dependenciesToProcessOnServer.entrySet().stream()
+                .map(entry -> entry.getKey() + ":" + entry.getValue().toJson())
+                .collect(Collectors.joining(","));
+        return Arrays.asList(ui.getClass(), context.pageConfigurationHolder,
+                browser.isEs6Supported(), browser.isEs5AdapterNeeded(),
+                ui.getLocale().getLanguage(), getServiceUrl(context),
+                ui.getInternals().getContextRootRelativePath(),
+                context.getPushMode(), hasTitle, dependencies);
+    }
+
+    private static Document createBootstrapDocument(BootstrapContext context,
+            Optional<String> title,
+            Map<LoadMode, JsonArray> dependenciesToProcessOnServer,
+            String bootstrapScript) {
         Document document = new Document("");
         DocumentType doctype = new DocumentType("html", "", "",
                 document.baseUri());
@@ -415,8 +541,11 @@ public class BootstrapHandler extends SynchronizedRequestHandler {
         Element head = html.appendElement("head");
         html.appendElement("body");
 
-        List<Element> dependenciesToInlineInBody = setupDocumentHead(head,
-                context);
+        setupMetaAndTitle(head, context, title);
+        setupCss(head, context);
+        setupFrameworkLibraries(head, bootstrapScript, context);
+        List<Element> dependenciesToInlineInBody = applyUserDependencies(head,
+                context, dependenciesToProcessOnServer);
         dependenciesToInlineInBody
                 .forEach(dependency -> document.body().appendChild(dependency));
         setupDocumentBody(document);
@@ -440,13 +569,16 @@ public class BootstrapHandler extends SynchronizedRequestHandler {
 
         setupPwa(document, context);
 
+        return document;
+    }
+
+    private static void modifyBootstrapPage(BootstrapContext context,
+            Document document) {
         BootstrapPageResponse response = new BootstrapPageResponse(
                 context.getRequest(), context.getSession(),
                 context.getResponse(), document, context.getUI(),
                 context.getUriResolver());
         context.getSession().getService().modifyBootstrapPage(response);
-
-        return document;
     }
 
     private static void exportUsageStatistics(Document document) {
@@ -571,19 +703,6 @@ public class BootstrapHandler extends SynchronizedRequestHandler {
         }
     }
 
-    private static List<Element> setupDocumentHead(Element head,
-            BootstrapContext context) {
-        setupMetaAndTitle(head, context);
-        setupCss(head, context);
-
-        JsonObject initialUIDL = getInitialUidl(context.getUI());
-        Map<LoadMode, JsonArray> dependenciesToProcessOnServer = popDependenciesToProcessOnServer(
-                initialUIDL);
-        setupFrameworkLibraries(head, initialUIDL, context);
-        return applyUserDependencies(head, context,
-                dependenciesToProcessOnServer);
-    }
-
     private static List<Element> applyUserDependencies(Element head,
             BootstrapContext context,
             Map<LoadMode, JsonArray> dependenciesToProcessOnServer) {
@@ -632,7 +751,7 @@ public class BootstrapHandler extends SynchronizedRequestHandler {
     }
 
     private static void setupFrameworkLibraries(Element head,
-            JsonObject initialUIDL, BootstrapContext context) {
+            String bootstrapScript, BootstrapContext context) {
         inlineEs6Collections(head, context);
         appendWebComponentsPolyfills(head, context);
 
@@ -640,7 +759,7 @@ public class BootstrapHandler extends SynchronizedRequestHandler {
             head.appendChild(getPushScript(context));
         }
 
-        head.appendChild(getBootstrapScript(initialUIDL, context));
+        head.appendChild(createInlineJavaScriptElement(bootstrapScript));
         head.appendChild(createJavaScriptElement(getClientEngineUrl(context)));
     }
 
@@ -685,7 +804,7 @@ public class BootstrapHandler extends SynchronizedRequestHandler {
     }
 
     private static void setupMetaAndTitle(Element head,
-            BootstrapContext context) {
+            BootstrapContext context, Optional<String> title) {
         head.appendElement(META_TAG).attr("http-equiv", "Content-Type").attr(
                 CONTENT_ATTRIBUTE,
                 ApplicationConstants.CONTENT_TYPE_TEXT_HTML_UTF_8);
@@ -705,9 +824,9 @@ public class BootstrapHandler extends SynchronizedRequestHandler {
                             .attr("name", name)
                             .attr(CONTENT_ATTRIBUTE, content));
         }
-        resolvePageTitle(context).ifPresent(title -> {
-            if (!title.isEmpty()) {
-                head.appendElement("title").appendText(title);
+        title.ifPresent(value -> {
+            if (!value.isEmpty()) {
+                head.appendElement("title").appendText(value);
             }
         });
     }
@@ -913,10 +1032,10 @@ public class BootstrapHandler extends SynchronizedRequestHandler {
         return createJavaScriptElement(pushJSPath);
     }
 
-    private static Element getBootstrapScript(JsonValue initialUIDL,
+    private static String getBootstrapScript(JsonValue initialUIDL,
             BootstrapContext context) {
-        return createInlineJavaScriptElement("//<![CDATA[\n"
-                + getBootstrapJS(initialUIDL, context) + "//]]>");
+        return "//<![CDATA[\n" + getBootstrapJS(initialUIDL, context)
+                + "//]]>";
     }
 
     private static String getBootstrapJS(JsonValue initialUIDL,
@@ -1027,6 +1146,17 @@ appConfig.put(ApplicationConstants.UI_TAG, context.getUI().getElement().getTag()
             appConfig.put("requestTiming", true);
         }
 
+        if (deploymentConfiguration.isDomMutationBatchingEnabled()) {
+            appConfig.put("batchDomMutations", true);
+        }
+
+        double clientMetricsSampleRate = deploymentConfiguration
+                .getClientMetricsSampleRate();
+        if (clientMetricsSampleRate > 0) {
+            appConfig.put(ApplicationConstants.CLIENT_METRICS_SAMPLE_RATE,
+                    clientMetricsSampleRate);
+        }
+
         appConfig.put("heartbeatInterval",
                 deploymentConfiguration.getHeartbeatInterval());
 
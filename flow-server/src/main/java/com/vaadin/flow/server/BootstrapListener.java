@@ -47,4 +47,22 @@ public interface BootstrapListener extends EventListener, Serializable {
      */
     void modifyBootstrapPage(BootstrapPageResponse response);
 
+    /**
+     * Checks whether the modifications made by this listener are the same for
+     * all requests for a given UI class, navigation target, browser capability
+     * class and locale, and only concern the document. The bootstrap page is
+     * rendered from a cached template only if all listeners are cacheable, see
+     * {@link com.vaadin.flow.function.DeploymentConfiguration#isBootstrapPageCacheEnabled()}.
+     * A cacheable listener is only called when a template is rendered, so it
+     * must not modify the HTTP headers of the response.
+     * <p>
+     * The default implementation returns <code>false</code>.
+     *
+     * @return <code>true</code> if the modifications of this listener can be
+     *         cached, <code>false</code> otherwise
+     */
+    default boolean isCacheable() {
+        return false;
+    }
+
 }
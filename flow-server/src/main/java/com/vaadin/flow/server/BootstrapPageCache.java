@@ -0,0 +1,172 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Cache of bootstrap page templates. A template is the bootstrap page rendered
+ * with markers in place of the parts that differ between requests. It is
+ * stored as UTF-8 encoded segments so that writing a page only requires
+ * encoding the per-request parts.
+ * <p>
+ * For internal use only. May be renamed or removed in a future release.
+ *
+ * @author Vaadin Ltd
+ * @since
+ */
+final class BootstrapPageCache implements Serializable {
+
+    /**
+     * The maximum number of cached templates. Pages for further keys are
+     * rendered without caching.
+     */
+    static final int MAX_TEMPLATES = 128;
+
+    /**
+     * A part of the bootstrap page that is written separately for each
+     * request.
+     */
+    enum Slot {
+        TITLE, BOOTSTRAP_SCRIPT
+    }
+
+    private final String markerPrefix = "%%vaadin-bootstrap-"
+            + UUID.randomUUID() + "-";
+
+    private final Map<List<Object>, Template> templates = new ConcurrentHashMap<>();
+
+    /**
+     * A bootstrap page rendered with markers in place of the per-request
+     * parts.
+     */
+    static final class Template implements Serializable {
+        private final byte[][] segments;
+        private final Slot[] slots;
+
+        private Template(byte[][] segments, Slot[] slots) {
+            this.segments = segments;
+            this.slots = slots;
+        }
+
+        /**
+         * Writes the page with the given per-request parts.
+         *
+         * @param out
+         *            the stream to write to
+         * @param values
+         *            the content for each slot, already escaped as needed
+         * @throws IOException
+         *             if writing fails
+         */
+        void write(OutputStream out, Map<Slot, String> values)
+                throws IOException {
+            out.write(segments[0]);
+            for (int i = 0; i < slots.length; i++) {
+                out.write(values.get(slots[i])
+                        .getBytes(StandardCharsets.UTF_8));
+                out.write(segments[i + 1]);
+            }
+        }
+    }
+
+    /**
+     * Gets the marker that should be rendered in place of the content of the
+     * given slot.
+     *
+     * @param slot
+     *            the slot
+     * @return the marker string
+     */
+    String getMarker(Slot slot) {
+        return markerPrefix + slot.name() + "%%";
+    }
+
+    /**
+     * Gets the template for the given key, rendering and caching it if it is
+     * not cached yet.
+     *
+     * @param key
+     *            the values that the invariant parts of the page depend on
+     * @param renderer
+     *            renders the page with the marker of each slot, see
+     *            {@link #getMarker(Slot)}, in place of its content
+     * @return the template, not <code>null</code>
+     */
+    Template getTemplate(List<Object> key,
+            Supplier<String> renderer) {
+        Template template = templates.get(key);
+        if (template == null) {
+            template = createTemplate(renderer.get());
+            if (templates.size() < MAX_TEMPLATES) {
+                templates.putIfAbsent(key, template);
+            }
+        }
+        return template;
+    }
+
+    /**
+     * Gets the number of cached templates.
+     *
+     * @return the number of templates
+     */
+    int size() {
+        return templates.size();
+    }
+
+    private Template createTemplate(String page) {
+        List<byte[]> segments = new ArrayList<>();
+        List<Slot> slots = new ArrayList<>();
+        Map<Slot, String> markers = new EnumMap<>(Slot.class);
+        for (Slot slot : Slot.values()) {
+            markers.put(slot, getMarker(slot));
+        }
+
+        int start = 0;
+        while (true) {
+            int next = -1;
+            Slot nextSlot = null;
+            for (Map.Entry<Slot, String> marker : markers.entrySet()) {
+                int index = page.indexOf(marker.getValue(), start);
+                if (index >= 0 && (next < 0 || index < next)) {
+                    next = index;
+                    nextSlot = marker.getKey();
+                }
+            }
+            if (nextSlot == null) {
+                break;
+            }
+            segments.add(page.substring(start, next)
+                    .getBytes(StandardCharsets.UTF_8));
+            slots.add(nextSlot);
+            start = next + markers.get(nextSlot).length();
+        }
+        segments.add(page.substring(start).getBytes(StandardCharsets.UTF_8));
+
+        return new Template(segments.toArray(new byte[0][]),
+                slots.toArray(new Slot[0]));
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.server;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.vaadin.flow.server.SessionLockMetrics.Histogram;
+
+/**
+ * A {@link ClientMetricsListener} that aggregates the client engine metrics of
+ * a service for each route into message processing time and bootstrap time
+ * histograms and profiler block totals. The collected metrics can be read at
+ * any time, e.g. periodically by a monitoring system.
+ * <p>
+ * To keep the memory use bounded, metrics are aggregated separately for at
+ * most a given number of routes. Metrics for any further routes are
+ * aggregated together under {@link #OTHER_ROUTES}. In the same way, the
+ * totals of at most a given number of profiler blocks are kept separately for
+ * each route, and the totals of any further blocks are added together under
+ * {@link #OTHER_PROFILER_BLOCKS}.
+ * <p>
+ * Usage:
+ *
+ * <pre>
+ * ClientMetricsAggregator metrics = new ClientMetricsAggregator();
+ * service.addClientMetricsListener(metrics);
+ * ...
+ * long p95 = metrics.getRouteMetrics("orders").getProcessingTimes()
+ *         .getPercentileNanos(95);
+ * </pre>
+ *
+ * @author Vaadin Ltd
+ * @since
+ */
+public class ClientMetricsAggregator implements ClientMetricsListener {
+
+    /**
+     * The default maximum number of routes to aggregate separately.
+     */
+    public static final int DEFAULT_MAX_ROUTES = 100;
+
+    /**
+     * The route under which the metrics are aggregated when the maximum number
+     * of routes has been reached.
+     */
+    public static final String OTHER_ROUTES = "*";
+
+    /**
+     * The default maximum number of profiler blocks to aggregate separately
+     * for a route.
+     */
+    public static final int DEFAULT_MAX_PROFILER_BLOCKS = 100;
+
+    /**
+     * The profiler block under which the totals are aggregated when the
+     * maximum number of profiler blocks of a route has been reached.
+     */
+    public static final String OTHER_PROFILER_BLOCKS = "*";
+
+    /**
+     * The aggregated client engine metrics of a route.
+     */
+    public static class RouteMetrics implements Serializable {
+        private final Histogram processingTimes = new Histogram();
+        private final Histogram bootstrapTimes = new Histogram();
+        private final ConcurrentMap<String, AtomicLong> profilerTotals = new ConcurrentHashMap<>();
+        private final AtomicLong droppedCount = new AtomicLong();
+        private final int maxProfilerBlocks;
+
+        private RouteMetrics(int maxProfilerBlocks) {
+            this.maxProfilerBlocks = maxProfilerBlocks;
+        }
+
+        private void record(ClientMetricsEvent event) {
+            event.getProcessingTimes()
+                    .forEach(time -> processingTimes.record(toNanos(time)));
+            event.getBootstrapTime()
+                    .ifPresent(time -> bootstrapTimes.record(toNanos(time)));
+            event.getProfilerTotals().forEach((name, time) -> getProfilerTotal(
+                    name).addAndGet(toNanos(time)));
+            droppedCount.addAndGet(event.getDroppedCount());
+        }
+
+        private AtomicLong getProfilerTotal(String name) {
+            AtomicLong total = profilerTotals.get(name);
+            if (total != null) {
+                return total;
+            }
+            // The limit may be exceeded by a few blocks when totals for new
+            // blocks are received concurrently
+            String key = profilerTotals.size() >= maxProfilerBlocks
+                    ? OTHER_PROFILER_BLOCKS
+                    : name;
+            return profilerTotals.computeIfAbsent(key,
+                    ignore -> new AtomicLong());
+        }
+
+        private static long toNanos(double millis) {
+            return (long) (millis * TimeUnit.MILLISECONDS.toNanos(1));
+        }
+
+        /**
+         * Gets the histogram of the times it took the client engine to process
+         * a server message.
+         *
+         * @return the message processing time histogram
+         */
+        public Histogram getProcessingTimes() {
+            return processingTimes;
+        }
+
+        /**
+         * Gets the histogram of the times from the browser starting to receive
+         * the bootstrap page until the initial server message had been
+         * processed.
+         *
+         * @return the bootstrap time histogram
+         */
+        public Histogram getBootstrapTimes() {
+            return bootstrapTimes;
+        }
+
+        /**
+         * Gets the total time spent in each named block of the client engine
+         * profiler. Profiler data is only sent by client engines compiled with
+         * the profiler enabled.
+         *
+         * @return a map from block names to total times in nanoseconds,
+         *         including {@link #OTHER_PROFILER_BLOCKS} if the maximum
+         *         number of blocks has been reached
+         */
+        public Map<String, Long> getProfilerTotals() {
+            Map<String, Long> totals = new HashMap<>();
+            profilerTotals.forEach((name, time) -> totals.put(name, time.get()));
+            return totals;
+        }
+
+        /**
+         * Gets the number of message processing times that clients did not
+         * send because too many messages were processed between two requests.
+         *
+         * @return the number of dropped processing times
+         */
+        public long getDroppedCount() {
+            return droppedCount.get();
+        }
+    }
+
+    private final int maxRoutes;
+    private final int maxProfilerBlocks;
+    private final ConcurrentMap<String, RouteMetrics> routes = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new instance that aggregates the metrics of at most
+     * {@value #DEFAULT_MAX_ROUTES} routes and the totals of at most
+     * {@value #DEFAULT_MAX_PROFILER_BLOCKS} profiler blocks per route
+     * separately.
+     */
+    public ClientMetricsAggregator() {
+        this(DEFAULT_MAX_ROUTES);
+    }
+
+    /**
+     * Creates a new instance that aggregates the metrics of at most the given
+     * number of routes and the totals of at most
+     * {@value #DEFAULT_MAX_PROFILER_BLOCKS} profiler blocks per route
+     * separately.
+     *
+     * @param maxRoutes
+     *            the maximum number of routes to aggregate separately, not
+     *            negative
+     */
+    public ClientMetricsAggregator(int maxRoutes) {
+        this(maxRoutes, DEFAULT_MAX_PROFILER_BLOCKS);
+    }
+
+    /**
+     * Creates a new instance that aggregates the metrics of at most the given
+     * number of routes and the totals of at most the given number of profiler
+     * blocks per route separately.
+     *
+     * @param maxRoutes
+     *            the maximum number of routes to aggregate separately, not
+     *            negative
+     * @param maxProfilerBlocks
+     *            the maximum number of profiler blocks to aggregate separately
+     *            for a route, not negative
+     */
+    public ClientMetricsAggregator(int maxRoutes, int maxProfilerBlocks) {
+        if (maxRoutes < 0) {
+            throw new IllegalArgumentException(
+                    "The maximum number of routes cannot be negative");
+        }
+        if (maxProfilerBlocks < 0) {
+            throw new IllegalArgumentException(
+                    "The maximum number of profiler blocks cannot be negative");
+        }
+        this.maxRoutes = maxRoutes;
+        this.maxProfilerBlocks = maxProfilerBlocks;
+    }
+
+    @Override
+    public void clientMetricsReceived(ClientMetricsEvent event) {
+        String route = event.getRoute();
+        RouteMetrics metrics = routes.get(route);
+        if (metrics == null) {
+            // The limit may be exceeded by a few routes when metrics for new
+            // routes are received concurrently
+            if (routes.size() >= maxRoutes) {
+                route = OTHER_ROUTES;
+            }
+            metrics = routes.computeIfAbsent(route,
+                    key -> new RouteMetrics(maxProfilerBlocks));
+        }
+        metrics.record(event);
+    }
+
+    /**
+     * Gets the routes for which metrics have been aggregated.
+     *
+     * @return a sorted set of routes, including {@link #OTHER_ROUTES} if the
+     *         maximum number of routes has been reached
+     */
+    public Set<String> getRoutes() {
+        return Collections.unmodifiableSet(new TreeSet<>(routes.keySet()));
+    }
+
+    /**
+     * Gets the aggregated metrics of the given route.
+     *
+     * @param route
+     *            the route, as returned by {@link ClientMetricsEvent#getRoute()}
+     * @return the metrics of the route, or <code>null</code> if no metrics
+     *         have been received for the route
+     */
+    public RouteMetrics getRouteMetrics(String route) {
+        return routes.get(route);
+    }
+
+    /**
+     * Discards all aggregated metrics, e.g. after they have been reported to
+     * a monitoring system.
+     */
+    public void reset() {
+        routes.clear();
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.server;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EventObject;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import com.vaadin.flow.component.Component;
+import com.vaadin.flow.component.HasElement;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.router.Router;
+import com.vaadin.flow.shared.JsonConstants;
+
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+import elemental.json.JsonType;
+import elemental.json.JsonValue;
+
+/**
+ * Event fired when performance metrics collected by the client engine of a UI
+ * have been received. A client sends the metrics that it has collected since
+ * its previous request, so one event may describe the processing of several
+ * server messages.
+ *
+ * <p>
+ * Since the metrics are sent by the client, they are bounded when read: at
+ * most {@value JsonConstants#METRICS_MAX_PROCESSING_TIMES} processing times
+ * and at most {@value #MAX_PROFILER_BLOCKS} profiler blocks with names of at
+ * most {@value #MAX_PROFILER_BLOCK_NAME_LENGTH} characters are included. Any
+ * further processing times are counted as dropped, and any further profiler
+ * blocks are ignored.
+ *
+ * @see ClientMetricsListener#clientMetricsReceived(ClientMetricsEvent)
+ *
+ * @author Vaadin Ltd
+ * @since
+ */
+public class ClientMetricsEvent extends EventObject {
+
+    /**
+     * The maximum number of profiler blocks included in an event.
+     */
+    public static final int MAX_PROFILER_BLOCKS = 100;
+
+    /**
+     * The maximum length of a profiler block name included in an event.
+     */
+    public static final int MAX_PROFILER_BLOCK_NAME_LENGTH = 100;
+
+    private final UI ui;
+    private final String route;
+    private final List<Double> processingTimes;
+    private final Double bootstrapTime;
+    private final Map<String, Double> profilerTotals;
+    private final int droppedCount;
+
+    /**
+     * Creates a new event from the metrics sent by the client.
+     *
+     * @param service
+     *            the Vaadin service from which the event originates
+     * @param ui
+     *            the UI whose client engine sent the metrics, not
+     *            <code>null</code>
+     * @param metrics
+     *            the metrics as sent by the client, not <code>null</code>
+     */
+    public ClientMetricsEvent(VaadinService service, UI ui,
+            JsonObject metrics) {
+        super(service);
+        this.ui = ui;
+        route = getRoute(ui);
+
+        List<Double> times = new ArrayList<>();
+        long dropped = 0;
+        JsonValue timesValue = metrics
+                .get(JsonConstants.METRICS_PROCESSING_TIMES);
+        if (timesValue != null && timesValue.getType() == JsonType.ARRAY) {
+            JsonArray array = (JsonArray) timesValue;
+            for (int i = 0; i < array.length(); i++) {
+                Double time = toNonNegativeNumber(array.get(i));
+                if (time == null) {
+                    continue;
+                }
+                if (times.size() < JsonConstants.METRICS_MAX_PROCESSING_TIMES) {
+                    times.add(time);
+                } else {
+                    dropped++;
+                }
+            }
+        }
+        processingTimes = Collections.unmodifiableList(times);
+
+        bootstrapTime = toNonNegativeNumber(
+                metrics.get(JsonConstants.METRICS_BOOTSTRAP_TIME));
+
+        Map<String, Double> totals = new HashMap<>();
+        JsonValue totalsValue = metrics
+                .get(JsonConstants.METRICS_PROFILER_TOTALS);
+        if (totalsValue != null && totalsValue.getType() == JsonType.OBJECT) {
+            JsonObject object = (JsonObject) totalsValue;
+            for (String name : object.keys()) {
+                if (totals.size() >= MAX_PROFILER_BLOCKS) {
+                    break;
+                }
+                Double time = toNonNegativeNumber(object.get(name));
+                if (time != null
+                        && name.length() <= MAX_PROFILER_BLOCK_NAME_LENGTH) {
+                    totals.put(name, time);
+                }
+            }
+        }
+        profilerTotals = Collections.unmodifiableMap(totals);
+
+        Double droppedValue = toNonNegativeNumber(
+                metrics.get(JsonConstants.METRICS_DROPPED_COUNT));
+        if (droppedValue != null) {
+            dropped += Math.min(droppedValue.longValue(),
+                    Integer.MAX_VALUE);
+        }
+        droppedCount = (int) Math.min(dropped, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Gets the value as a number, ignoring anything that is not a finite
+     * non-negative number.
+     */
+    private static Double toNonNegativeNumber(JsonValue value) {
+        if (value == null || value.getType() != JsonType.NUMBER) {
+            return null;
+        }
+        double number = value.asNumber();
+        if (!(number >= 0) || Double.isInfinite(number)) {
+            return null;
+        }
+        return number;
+    }
+
+    private static String getRoute(UI ui) {
+        List<HasElement> chain = ui.getInternals()
+                .getActiveRouterTargetsChain();
+        Router router = ui.getRouter();
+        if (!chain.isEmpty() && router != null
+                && chain.get(0) instanceof Component) {
+            Class<? extends Component> target = ((Component) chain.get(0))
+                    .getClass();
+            Optional<String> url = router.getRegistry().getTargetUrl(target);
+            if (url.isPresent()) {
+                return url.get();
+            }
+        }
+        return ui.getInternals().getActiveViewLocation().getPath();
+    }
+
+    @Override
+    public VaadinService getSource() {
+        return (VaadinService) super.getSource();
+    }
+
+    /**
+     * Gets the Vaadin service from which the event originates.
+     *
+     * @return the Vaadin service
+     */
+    public VaadinService getService() {
+        return getSource();
+    }
+
+    /**
+     * Gets the UI whose client engine sent the metrics.
+     *
+     * @return the UI
+     */
+    public UI getUI() {
+        return ui;
+    }
+
+    /**
+     * Gets the route that was shown in the UI when the metrics were received.
+     * This is the route template of the active navigation target without any
+     * parameters, or the path of the active location if the navigation target
+     * has no registered route.
+     *
+     * @return the route, not <code>null</code>
+     */
+    public String getRoute() {
+        return route;
+    }
+
+    /**
+     * Gets the times it took the client engine to process each server
+     * message, from receiving the message to having applied all changes to
+     * the DOM, in the order the messages were processed.
+     *
+     * @return an unmodifiable list of processing times in milliseconds
+     */
+    public List<Double> getProcessingTimes() {
+        return processingTimes;
+    }
+
+    /**
+     * Gets the time from the browser starting to receive the bootstrap page
+     * until the initial server message had been processed, if it is included
+     * in these metrics. It is only sent with the first metrics of a page load,
+     * and only if the browser supports the navigation timing API.
+     *
+     * @return the bootstrap time in milliseconds, or an empty optional if not
+     *         included
+     */
+    public Optional<Double> getBootstrapTime() {
+        return Optional.ofNullable(bootstrapTime);
+    }
+
+    /**
+     * Gets the total time spent in each named block of the client engine
+     * profiler. The totals are only available if the client engine has been
+     * compiled with the profiler enabled.
+     *
+     * @return an unmodifiable map from block names to total times in
+     *         milliseconds, empty if there is no profiler data
+     */
+    public Map<String, Double> getProfilerTotals() {
+        return profilerTotals;
+    }
+
+    /**
+     * Gets the number of message processing times that the client did not send
+     * because too many messages were processed between two requests.
+     *
+     * @return the number of dropped processing times
+     */
+    public int getDroppedCount() {
+        return droppedCount;
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.server;
+
+import java.io.Serializable;
+
+/**
+ * A listener that gets notified when the client engine of a UI has sent
+ * performance metrics to the server, e.g. for monitoring the client render
+ * cost of each route in production. See {@link ClientMetricsAggregator} for a
+ * listener that aggregates the metrics for each route.
+ * <p>
+ * Metrics are only collected by the client engine for the fraction of page
+ * loads configured with
+ * {@link Constants#SERVLET_PARAMETER_CLIENT_METRICS_SAMPLE_RATE}. The metrics
+ * are sent along with regular requests, so the listener is called while the
+ * session lock is held and should return quickly.
+ *
+ * @see VaadinService#addClientMetricsListener(ClientMetricsListener)
+ *
+ * @author Vaadin Ltd
+ * @since
+ */
+@FunctionalInterface
+public interface ClientMetricsListener extends Serializable {
+
+    /**
+     * Called when performance metrics from the client engine of a UI have
+     * been received.
+     *
+     * @param event
+     *            the event with the received metrics
+     */
+    void clientMetricsReceived(ClientMetricsEvent event);
+}
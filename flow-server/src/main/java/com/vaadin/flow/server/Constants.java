@@ -48,6 +48,83 @@ public final class Constants implements Serializable {
      */
     public static final String SERVLET_PARAMETER_BROTLI = "brotli";
 
+    /**
+     * Configuration name for the parameter that determines whether UIDL
+     * responses and push messages should be written to the transport while
+     * the state tree changes are being collected instead of first building
+     * the whole response in memory. Disabled by default, since a streamed
+     * response is written to the network while holding the session lock.
+     */
+    public static final String SERVLET_PARAMETER_STREAMING_UIDL = "streamingUidl";
+
+    /**
+     * Configuration name for the parameter that sets the maximum size in
+     * megabytes of the in-memory cache for static resources served by the
+     * servlet. The cache is only used in production mode.
+     */
+    public static final String SERVLET_PARAMETER_STATIC_RESOURCE_CACHE_SIZE = "staticResourceCacheSize";
+
+    /**
+     * Configuration name for the parameter that determines whether stream
+     * resources should be written asynchronously, without keeping a request
+     * thread reserved while a client is downloading the data.
+     */
+    public static final String SERVLET_PARAMETER_ASYNC_STREAM_RESOURCES = "asyncStreamResources";
+
+    /**
+     * Configuration name for the parameter that determines whether UIDL
+     * responses and push messages should be encoded to text and written to
+     * the client after the session lock has been released.
+     */
+    public static final String SERVLET_PARAMETER_SERIALIZE_UIDL_OUTSIDE_LOCK = "serializeUidlOutsideLock";
+
+    /**
+     * Configuration name for the parameter that determines whether RPC
+     * messages from the client should be parsed incrementally while reading
+     * the request.
+     */
+    public static final String SERVLET_PARAMETER_STREAMING_RPC_PARSING = "streamingRpcParsing";
+
+    /**
+     * Configuration name for the parameter that determines how client-to-server
+     * messages are fingerprinted for detecting resent messages. The value is
+     * the name of a
+     * {@link com.vaadin.flow.server.communication.MessageFingerprint.Standard}
+     * constant, e.g. <code>sha_256</code>.
+     */
+    public static final String SERVLET_PARAMETER_MESSAGE_FINGERPRINT = "messageFingerprint";
+
+    /**
+     * Configuration name for the parameter that determines whether the
+     * invariant parts of the bootstrap page should be rendered once and cached
+     * in production mode.
+     */
+    public static final String SERVLET_PARAMETER_BOOTSTRAP_PAGE_CACHE = "bootstrapPageCache";
+
+    /**
+     * Configuration name for the servlet context parameter (or system property
+     * prefixed with <code>vaadin.</code>) that determines the directory where
+     * the generated PWA icons are cached between restarts. The cache is
+     * disabled by default. The directory should only be writable by the user
+     * running the application.
+     */
+    public static final String SERVLET_PARAMETER_PWA_ICON_CACHE_DIRECTORY = "pwaIconCacheDirectory";
+
+    /**
+     * Configuration name for the parameter that determines whether the client
+     * engine should collect the DOM mutations produced by a server message and
+     * apply them in one pass after all bindings have been updated.
+     */
+    public static final String SERVLET_PARAMETER_BATCH_DOM_MUTATIONS = "batchDomMutations";
+
+    /**
+     * Configuration name for the parameter that determines the fraction of
+     * page loads, between <code>0</code> and <code>1</code>, for which the
+     * client engine collects performance metrics and sends them to the server
+     * along with regular requests.
+     */
+    public static final String SERVLET_PARAMETER_CLIENT_METRICS_SAMPLE_RATE = "clientMetricsSampleRate";
+
     /**
      * Configuration name for loading the ES5 adapters.
      */
@@ -16,6 +16,7 @@
 
 package com.vaadin.flow.server;
 
+import java.util.Arrays;
 import java.util.Properties;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -23,6 +24,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.vaadin.flow.function.DeploymentConfiguration;
+import com.vaadin.flow.server.communication.MessageFingerprint;
 import com.vaadin.flow.shared.communication.PushMode;
 
 /**
@@ -87,6 +89,7 @@ public class DefaultDeploymentConfiguration
     private boolean syncIdCheck;
     private boolean sendUrlsAsParameters;
     private boolean requestTiming;
+    private MessageFingerprint.Standard messageFingerprint;
     private static AtomicBoolean loggWarning = new AtomicBoolean(true);
 
     /**
@@ -115,6 +118,7 @@ public class DefaultDeploymentConfiguration
         checkPushURL();
         checkSyncIdCheck();
         checkSendUrlsAsParameters();
+        checkMessageFingerprint();
     }
 
     /**
@@ -213,6 +217,16 @@ public class DefaultDeploymentConfiguration
         return pushURL;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The value is read and validated when the configuration is created.
+     */
+    @Override
+    public MessageFingerprint.Standard getMessageFingerprint() {
+        return messageFingerprint;
+    }
+
 
     /**
      * Log a warning if Vaadin is not running in production mode.
@@ -301,6 +315,18 @@ public class DefaultDeploymentConfiguration
                 DEFAULT_SEND_URLS_AS_PARAMETERS);
     }
 
+    private void checkMessageFingerprint() {
+        try {
+            messageFingerprint = super.getMessageFingerprint();
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format(
+                    "The '%s' parameter must be one of %s",
+                    Constants.SERVLET_PARAMETER_MESSAGE_FINGERPRINT,
+                    Arrays.toString(MessageFingerprint.Standard.values())),
+                    e);
+        }
+    }
+
     private Logger getLogger() {
         return LoggerFactory.getLogger(getClass().getName());
     }
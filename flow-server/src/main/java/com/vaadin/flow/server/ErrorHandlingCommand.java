@@ -32,4 +32,17 @@ public interface ErrorHandlingCommand extends Command {
      */
     void handleError(Exception exception);
 
+    /**
+     * Gets the class of the command on whose behalf this command is run, for
+     * reporting purposes. A command that wraps another command should return
+     * the class of the wrapped command.
+     * <p>
+     * The default implementation returns the class of this command.
+     *
+     * @return the class of the originating command
+     */
+    default Class<?> getOriginatingClass() {
+        return getClass();
+    }
+
 }
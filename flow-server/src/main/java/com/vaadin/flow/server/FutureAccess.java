@@ -62,6 +62,20 @@ public class FutureAccess extends FutureTask<Void> {
         return super.get();
     }
 
+    /**
+     * Gets the class of the command that was originally submitted, for
+     * reporting purposes.
+     *
+     * @return the class of the submitted command
+     * @see ErrorHandlingCommand#getOriginatingClass()
+     */
+    public Class<?> getOriginatingClass() {
+        if (command instanceof ErrorHandlingCommand) {
+            return ((ErrorHandlingCommand) command).getOriginatingClass();
+        }
+        return command.getClass();
+    }
+
     /**
      * Handles exceptions thrown during the execution of this task.
      *
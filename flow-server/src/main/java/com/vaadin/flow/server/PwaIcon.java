@@ -208,14 +208,34 @@ public class PwaIcon implements Serializable {
         try (ByteArrayOutputStream stream = new ByteArrayOutputStream()) {
             ImageIO.write(image, "png", stream);
             stream.flush();
-            data = stream.toByteArray();
-            fileHash = Arrays.hashCode(data);
-            setRelativeName();
+            setData(stream.toByteArray());
         } catch (IOException ioe) {
             throw new UncheckedIOException("Failed to write an image ", ioe);
         }
     }
 
+    /**
+     * Sets the already encoded image presenting the icon.
+     *
+     * @param data
+     *            the image in png format, not <code>null</code>
+     */
+    void setData(byte[] data) {
+        this.data = data;
+        fileHash = Arrays.hashCode(data);
+        setRelativeName();
+    }
+
+    /**
+     * Gets the encoded image presenting the icon.
+     *
+     * @return the image in png format, or <code>null</code> if no image has
+     *         been set
+     */
+    byte[] getData() {
+        return data;
+    }
+
     /**
      * Writes the icon image to output stream.
      *
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.server;
+
+import javax.servlet.ServletContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vaadin.flow.internal.MessageDigestUtil;
+
+/**
+ * On-disk cache for the icons generated by {@link PwaRegistry}. The encoded
+ * icons are stored in a directory named by a hash of the logo contents and the
+ * icon sizes, so that a restart with an unchanged logo can skip decoding and
+ * rescaling the logo.
+ * <p>
+ * The cache is disabled unless a directory is configured with
+ * {@link Constants#SERVLET_PARAMETER_PWA_ICON_CACHE_DIRECTORY}. The directory
+ * should only be writable by the user running the application, since the
+ * cached icons are served as is. Cached files are still checked to have the
+ * PNG header of an image of the expected size before they are used.
+ * <p>
+ * The cache is best effort: any failure to read or write it is logged and the
+ * icons are generated as if there was no cache.
+ * <p>
+ * For internal use only. May be renamed or removed in a future release.
+ *
+ * @author Vaadin Ltd
+ * @since
+ */
+final class PwaIconCache {
+
+    /**
+     * Version of the icon rendering, included in the cache key so that icons
+     * cached by an older implementation are not used.
+     */
+    private static final int RENDERING_VERSION = 1;
+
+    private static final byte[] PNG_SIGNATURE = { (byte) 0x89, 'P', 'N', 'G',
+            '\r', '\n', 0x1a, '\n' };
+
+    private static final int IHDR_LENGTH = 13;
+
+    // "IHDR" in ASCII
+    private static final int IHDR_TYPE = 0x49484452;
+
+    // Signature, chunk length and type, width and height
+    private static final int PNG_HEADER_LENGTH = PNG_SIGNATURE.length + 16;
+
+    private final File directory;
+
+    /**
+     * Creates a cache storing the icons in the given directory.
+     *
+     * @param directory
+     *            the root directory of the cache, or <code>null</code> to
+     *            disable caching
+     */
+    PwaIconCache(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Creates a cache for the given servlet context, using the directory
+     * configured with
+     * {@link Constants#SERVLET_PARAMETER_PWA_ICON_CACHE_DIRECTORY}. The
+     * cache is disabled if no directory is configured.
+     *
+     * @param servletContext
+     *            the servlet context, not <code>null</code>
+     * @return the cache, not <code>null</code>
+     */
+    static PwaIconCache create(ServletContext servletContext) {
+        String name = Constants.SERVLET_PARAMETER_PWA_ICON_CACHE_DIRECTORY;
+        String path = servletContext.getInitParameter(name);
+        if (path == null) {
+            path = System.getProperty("vaadin." + name);
+        }
+        if (path == null || path.trim().isEmpty()) {
+            return new PwaIconCache(null);
+        }
+        return new PwaIconCache(new File(path));
+    }
+
+    /**
+     * Gets the cache key for the icons generated from the given logo.
+     *
+     * @param logo
+     *            the contents of the logo file, not <code>null</code>
+     * @param icons
+     *            the icons to generate, not <code>null</code>
+     * @return the cache key, not <code>null</code>
+     */
+    static String getKey(byte[] logo, Collection<PwaIcon> icons) {
+        ByteBuffer buffer = ByteBuffer
+                .allocate(logo.length + 4 + icons.size() * 8);
+        buffer.put(logo).putInt(RENDERING_VERSION);
+        for (PwaIcon icon : icons) {
+            buffer.putInt(icon.getWidth()).putInt(icon.getHeight());
+        }
+        StringBuilder key = new StringBuilder();
+        for (byte b : MessageDigestUtil.sha256(buffer.array())) {
+            key.append(String.format("%02x", b));
+        }
+        return key.toString();
+    }
+
+    /**
+     * Sets the images of the given icons from the cache.
+     *
+     * @param key
+     *            the cache key, not <code>null</code>
+     * @param icons
+     *            the icons to set the images for, not <code>null</code>
+     * @return <code>true</code> if valid images of all icons were found in
+     *         the cache and set, <code>false</code> if no icon was changed
+     */
+    boolean load(String key, Collection<PwaIcon> icons) {
+        if (directory == null) {
+            return false;
+        }
+        Path entry = directory.toPath().resolve(key);
+        if (!Files.isDirectory(entry)) {
+            return false;
+        }
+        Map<PwaIcon, byte[]> images = new HashMap<>();
+        try {
+            for (PwaIcon icon : icons) {
+                Path file = entry.resolve(getFileName(icon));
+                if (!Files.isRegularFile(file)) {
+                    return false;
+                }
+                byte[] image = Files.readAllBytes(file);
+                if (!isImageOfSize(image, icon)) {
+                    getLogger().debug("Ignoring invalid cached PWA icon {}",
+                            file);
+                    return false;
+                }
+                images.put(icon, image);
+            }
+        } catch (IOException e) {
+            getLogger().debug("Failed to read cached PWA icons from {}",
+                    entry, e);
+            return false;
+        }
+        images.forEach(PwaIcon::setData);
+        return true;
+    }
+
+    /**
+     * Stores the images of the given icons in the cache.
+     *
+     * @param key
+     *            the cache key, not <code>null</code>
+     * @param icons
+     *            the icons with images to store, not <code>null</code>
+     */
+    void store(String key, Collection<PwaIcon> icons) {
+        if (directory == null) {
+            return;
+        }
+        Path entry = directory.toPath().resolve(key);
+        try {
+            Files.createDirectories(entry);
+            for (PwaIcon icon : icons) {
+                // Write to a temporary file first so that another instance
+                // sharing the directory never reads a partial image
+                Path temp = Files.createTempFile(entry, "icon", ".tmp");
+                Files.write(temp, icon.getData());
+                Files.move(temp, entry.resolve(getFileName(icon)),
+                        StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException e) {
+            getLogger().debug("Failed to cache PWA icons in {}", entry, e);
+        }
+    }
+
+    /**
+     * Checks that the data starts with a PNG signature and a header with the
+     * size of the icon, without decoding the image.
+     */
+    private static boolean isImageOfSize(byte[] data, PwaIcon icon) {
+        if (data.length < PNG_HEADER_LENGTH) {
+            return false;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        for (byte expected : PNG_SIGNATURE) {
+            if (buffer.get() != expected) {
+                return false;
+            }
+        }
+        // The IHDR chunk must come first: length, type, width and height
+        return buffer.getInt() == IHDR_LENGTH && buffer.getInt() == IHDR_TYPE
+                && buffer.getInt() == icon.getWidth()
+                && buffer.getInt() == icon.getHeight();
+    }
+
+    private static String getFileName(PwaIcon icon) {
+        return icon.getWidth() + "x" + icon.getHeight() + ".png";
+    }
+
+    private static Logger getLogger() {
+        return LoggerFactory.getLogger(PwaIconCache.class.getName());
+    }
+}
@@ -17,9 +17,10 @@ package com.vaadin.flow.server;
 
 import java.awt.Color;
 import java.awt.Graphics2D;
-import java.awt.Image;
+import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -30,11 +31,18 @@ import java.net.URLConnection;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import javax.imageio.ImageIO;
 import javax.servlet.ServletContext;
 
+import org.apache.commons.io.IOUtils;
+
 import com.vaadin.flow.server.startup.ApplicationRouteRegistry;
 
 import elemental.json.Json;
@@ -89,13 +97,11 @@ public class PwaRegistry implements Serializable {
                     .getResource(pwaConfiguration.relOfflinePath());
             // Load base logo from servlet context if available
             // fall back to local image if unavailable
-            BufferedImage baseImage = getBaseImage(logo);
-
-            // Pick top-left pixel as fill color if needed for image resizing
-            int bgColor = baseImage.getRGB(0, 0);
+            byte[] logoData = getBaseImageData(logo);
 
             // initialize icons
-            icons = initializeIcons(baseImage, bgColor);
+            icons = initializeIcons(logoData,
+                    PwaIconCache.create(servletContext));
 
             // Load offline page as string, from servlet context if
             // available, fall back to default page
@@ -113,15 +119,75 @@ public class PwaRegistry implements Serializable {
         }
     }
 
-    private List<PwaIcon> initializeIcons(BufferedImage baseImage,
-            int bgColor) {
-        for (PwaIcon icon : getIconTemplates(pwaConfiguration.getIconPath())) {
-            // New image with wanted size
-            icon.setImage(drawIconImage(baseImage, bgColor, icon));
-            // Store byte array and hashcode of image (GeneratedImage)
-            icons.add(icon);
+    private List<PwaIcon> initializeIcons(byte[] logoData,
+            PwaIconCache cache) throws IOException {
+        List<PwaIcon> iconList = getIconTemplates(
+                pwaConfiguration.getIconPath());
+        String cacheKey = PwaIconCache.getKey(logoData, iconList);
+        if (cache.load(cacheKey, iconList)) {
+            return iconList;
+        }
+
+        BufferedImage baseImage = ImageIO
+                .read(new ByteArrayInputStream(logoData));
+        if (baseImage == null) {
+            throw new IOException("The PWA logo is not a supported image");
+        }
+
+        // Pick top-left pixel as fill color if needed for image resizing
+        int bgColor = baseImage.getRGB(0, 0);
+
+        // The base image is only read, so the icons can be drawn and
+        // encoded independently of each other
+        drawIconImages(iconList, baseImage, bgColor);
+        cache.store(cacheKey, iconList);
+        return iconList;
+    }
+
+    /**
+     * Draws and encodes the icons in parallel, using a dedicated executor
+     * rather than the common pool, which may be needed by other tasks during
+     * startup.
+     */
+    private void drawIconImages(List<PwaIcon> iconList,
+            BufferedImage baseImage, int bgColor) throws IOException {
+        int threads = Math.min(iconList.size(),
+                Runtime.getRuntime().availableProcessors());
+        if (threads <= 1) {
+            iconList.forEach(icon -> icon
+                    .setImage(drawIconImage(baseImage, bgColor, icon)));
+            return;
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads,
+                runnable -> {
+                    Thread thread = new Thread(runnable,
+                            "Vaadin PWA icon renderer "
+                                    + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (PwaIcon icon : iconList) {
+                futures.add(executor.submit(() -> icon
+                        .setImage(drawIconImage(baseImage, bgColor, icon))));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while rendering PWA icons", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IllegalStateException("Failed to render PWA icons",
+                    e.getCause());
+        } finally {
+            executor.shutdownNow();
         }
-        return icons;
     }
 
     private BufferedImage drawIconImage(BufferedImage baseImage, int bgColor,
@@ -151,12 +217,16 @@ public class PwaRegistry implements Serializable {
         int newWidth = Math.round(baseImage.getHeight() / ratio);
         int newHeight = Math.round(baseImage.getWidth() / ratio);
 
-        // draw rescaled img in the center of created image
-        graphics.drawImage(
-                baseImage.getScaledInstance(newWidth, newHeight,
-                        Image.SCALE_SMOOTH),
-                (icon.getWidth() - newWidth) / 2,
-                (icon.getHeight() - newHeight) / 2, null);
+        // draw rescaled img in the center of created image. Scaling while
+        // drawing doesn't share any state between the icons, unlike
+        // Image.getScaledInstance
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        graphics.setRenderingHint(RenderingHints.KEY_RENDERING,
+                RenderingHints.VALUE_RENDER_QUALITY);
+        graphics.drawImage(baseImage, (icon.getWidth() - newWidth) / 2,
+                (icon.getHeight() - newHeight) / 2, newWidth, newHeight,
+                null);
         graphics.dispose();
         return bimage;
     }
@@ -354,11 +424,13 @@ public class PwaRegistry implements Serializable {
         }
     }
 
-    private BufferedImage getBaseImage(URL logo) throws IOException {
+    private byte[] getBaseImageData(URL logo) throws IOException {
         URLConnection logoResource = logo != null ? logo.openConnection()
                 : BootstrapHandler.class.getResource("default-logo.png")
                         .openConnection();
-        return ImageIO.read(logoResource.getInputStream());
+        try (InputStream stream = logoResource.getInputStream()) {
+            return IOUtils.toByteArray(stream);
+        }
     }
 
     /**
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.vaadin.flow.internal.ByteRangeSource;
+
+/**
+ * A {@link StreamResourceWriter} that can provide its data as a
+ * {@link ByteRangeSource}, so that only the byte ranges requested by the
+ * browser need to be written, e.g. when seeking in a video or resuming a
+ * download.
+ * <p>
+ * For internal use only. May be renamed or removed in a future release.
+ *
+ * @author Vaadin Ltd
+ * @since
+ */
+public interface RangeStreamResourceWriter extends StreamResourceWriter {
+
+    /**
+     * Opens the data of the resource for writing byte ranges of it. If the
+     * length of the data is not known, the returned source is only used for
+     * writing all of the data.
+     * <p>
+     * Note that the method is not called under the session lock, in the same
+     * way as {@link #accept(OutputStream, VaadinSession)}.
+     *
+     * @param session
+     *            vaadin session
+     * @return the data of the resource, not <code>null</code>
+     * @throws IOException
+     *             if an IO error occurred
+     */
+    ByteRangeSource openByteRangeSource(VaadinSession session)
+            throws IOException;
+
+    @Override
+    default void accept(OutputStream stream, VaadinSession session)
+            throws IOException {
+        try (ByteRangeSource source = openByteRangeSource(session)) {
+            source.transferTo(0, Long.MAX_VALUE, stream);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.server;
+
+import java.util.EventObject;
+
+/**
+ * Event fired when a thread releases the lock of a {@link VaadinSession},
+ * describing how long the thread waited for the lock and how long it held
+ * the lock.
+ *
+ * @see SessionLockListener#sessionLockReleased(SessionLockEvent)
+ *
+ * @author Vaadin Ltd
+ * @since
+ */
+public class SessionLockEvent extends EventObject {
+
+    /**
+     * The kind of work for which a session lock was held.
+     */
+    public enum LockType {
+        /**
+         * Handling a UIDL request.
+         */
+        UIDL,
+        /**
+         * Handling a heartbeat request.
+         */
+        HEARTBEAT,
+        /**
+         * Receiving an upload or firing its progress events.
+         */
+        UPLOAD,
+        /**
+         * Serving a stream resource.
+         */
+        STREAM,
+        /**
+         * Handling a push connection or a message received through it.
+         */
+        PUSH,
+        /**
+         * Running tasks submitted using {@link VaadinSession#access(Command)}
+         * or {@link com.vaadin.flow.component.UI#access(Command)} outside of a
+         * request.
+         */
+        ACCESS_TASK,
+        /**
+         * Any other use of the lock.
+         */
+        OTHER;
+    }
+
+    private final VaadinSession session;
+    private final LockType lockType;
+    private final long waitNanos;
+    private final long holdNanos;
+    private final int pendingAccessQueueSize;
+
+    /**
+     * Creates a new event.
+     *
+     * @param service
+     *            the Vaadin service from which the event originates
+     * @param session
+     *            the session whose lock was released
+     * @param lockType
+     *            the kind of work for which the lock was held
+     * @param waitNanos
+     *            the time in nanoseconds the thread waited for the lock
+     * @param holdNanos
+     *            the time in nanoseconds the thread held the lock
+     * @param pendingAccessQueueSize
+     *            the number of pending access tasks when the lock was acquired
+     */
+    public SessionLockEvent(VaadinService service, VaadinSession session,
+            LockType lockType, long waitNanos, long holdNanos,
+            int pendingAccessQueueSize) {
+        super(service);
+        this.session = session;
+        this.lockType = lockType;
+        this.waitNanos = waitNanos;
+        this.holdNanos = holdNanos;
+        this.pendingAccessQueueSize = pendingAccessQueueSize;
+    }
+
+    @Override
+    public VaadinService getSource() {
+        return (VaadinService) super.getSource();
+    }
+
+    /**
+     * Gets the Vaadin service from which the event originates.
+     *
+     * @return the Vaadin service
+     */
+    public VaadinService getService() {
+        return getSource();
+    }
+
+    /**
+     * Gets the session whose lock was released.
+     *
+     * @return the session
+     */
+    public VaadinSession getSession() {
+        return session;
+    }
+
+    /**
+     * Gets the kind of work for which the lock was held.
+     *
+     * @return the lock type, not <code>null</code>
+     */
+    public LockType getLockType() {
+        return lockType;
+    }
+
+    /**
+     * Gets the time the thread waited for the lock before acquiring it.
+     *
+     * @return the wait time in nanoseconds
+     */
+    public long getWaitNanos() {
+        return waitNanos;
+    }
+
+    /**
+     * Gets the time the thread held the lock, including running pending
+     * access tasks and pushing changes when releasing it.
+     *
+     * @return the hold time in nanoseconds
+     */
+    public long getHoldNanos() {
+        return holdNanos;
+    }
+
+    /**
+     * Gets the number of tasks that were waiting in the pending access queue
+     * of the session when the lock was acquired.
+     *
+     * @return the pending access queue size
+     */
+    public int getPendingAccessQueueSize() {
+        return pendingAccessQueueSize;
+    }
+}
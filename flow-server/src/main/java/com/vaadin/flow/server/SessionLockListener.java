@@ -0,0 +1,59 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.server;
+
+import java.io.Serializable;
+
+/**
+ * A listener that gets notified about the use of session locks, e.g. for
+ * collecting metrics about lock contention. See {@link SessionLockMetrics} for
+ * a listener that aggregates the events into histograms.
+ * <p>
+ * Session locks are only measured if there is at least one listener
+ * registered to the service. The listener methods are called by the thread
+ * that used the lock, so they should return quickly.
+ *
+ * @see VaadinService#addSessionLockListener(SessionLockListener)
+ *
+ * @author Vaadin Ltd
+ * @since
+ */
+public interface SessionLockListener extends Serializable {
+
+    /**
+     * Called after a thread has released the lock of a session, i.e. when the
+     * last of its nested {@link VaadinSession#lock()} calls has been
+     * unlocked. The lock is no longer held when this method is called.
+     *
+     * @param event
+     *            the event with details about the use of the lock
+     */
+    void sessionLockReleased(SessionLockEvent event);
+
+    /**
+     * Called after a task submitted using
+     * {@link VaadinSession#access(Command)} has been run. This method is
+     * called while the session lock is still held.
+     * <p>
+     * The default implementation does nothing.
+     *
+     * @param event
+     *            the event with details about the task
+     */
+    default void accessTaskCompleted(AccessTaskEvent event) {
+        // Not interested by default
+    }
+}
@@ -0,0 +1,328 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.server;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.vaadin.flow.server.SessionLockEvent.LockType;
+
+/**
+ * A {@link SessionLockListener} that aggregates the session lock events of a
+ * service into wait time and hold time histograms for each
+ * {@link LockType}, and keeps track of the largest pending access queue and
+ * the slowest access tasks. The collected metrics can be read at any time,
+ * e.g. periodically by a monitoring system.
+ * <p>
+ * Usage:
+ *
+ * <pre>
+ * SessionLockMetrics metrics = new SessionLockMetrics();
+ * service.addSessionLockListener(metrics);
+ * ...
+ * long p99 = metrics.getHoldTimes(LockType.UIDL).getPercentileNanos(99);
+ * </pre>
+ *
+ * @author Vaadin Ltd
+ * @since
+ */
+public class SessionLockMetrics implements SessionLockListener {
+
+    /**
+     * The default number of slowest access tasks to keep track of.
+     */
+    public static final int DEFAULT_SLOWEST_TASK_COUNT = 10;
+
+    /**
+     * A histogram of durations with exponentially growing buckets. Bucket
+     * <code>0</code> counts durations shorter than one microsecond, and each
+     * following bucket <code>i</code> counts durations from
+     * <code>2<sup>i-1</sup></code> up to <code>2<sup>i</sup></code>
+     * microseconds. The last bucket also counts all longer durations.
+     */
+    public static class Histogram implements Serializable {
+
+        /**
+         * The number of buckets in a histogram. The last bucket starts at
+         * about 18 minutes.
+         */
+        public static final int BUCKET_COUNT = 32;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(
+                BUCKET_COUNT);
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos) {
+            long micros = Math.max(0, nanos) / 1000;
+            int bucket = Math.min(BUCKET_COUNT - 1,
+                    64 - Long.numberOfLeadingZeros(micros));
+            buckets.incrementAndGet(bucket);
+            totalNanos.addAndGet(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        /**
+         * Gets the number of recorded durations.
+         *
+         * @return the number of recorded durations
+         */
+        public long getCount() {
+            long count = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                count += buckets.get(i);
+            }
+            return count;
+        }
+
+        /**
+         * Gets the sum of all recorded durations.
+         *
+         * @return the total duration in nanoseconds
+         */
+        public long getTotalNanos() {
+            return totalNanos.get();
+        }
+
+        /**
+         * Gets the longest recorded duration.
+         *
+         * @return the longest duration in nanoseconds, or <code>0</code> if
+         *         nothing has been recorded
+         */
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        /**
+         * Gets the number of recorded durations in each bucket.
+         *
+         * @return an array with the count of each bucket
+         */
+        public long[] getBucketCounts() {
+            long[] counts = new long[BUCKET_COUNT];
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                counts[i] = buckets.get(i);
+            }
+            return counts;
+        }
+
+        /**
+         * Gets an upper bound for the given percentile of the recorded
+         * durations, i.e. the upper limit of the bucket that contains the
+         * percentile. For the last bucket, the longest recorded duration is
+         * returned.
+         *
+         * @param percentile
+         *            the percentile to get, between <code>0</code> and
+         *            <code>100</code>
+         * @return the upper bound of the percentile in nanoseconds, or
+         *         <code>0</code> if nothing has been recorded
+         */
+        public long getPercentileNanos(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException(
+                        "Percentile must be between 0 and 100");
+            }
+            long[] counts = getBucketCounts();
+            long count = 0;
+            for (long bucketCount : counts) {
+                count += bucketCount;
+            }
+            if (count == 0) {
+                return 0;
+            }
+
+            long target = (long) Math.ceil(count * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT - 1; i++) {
+                seen += counts[i];
+                if (seen >= target && seen > 0) {
+                    return Math.min(getMaxNanos(), (1L << i) * 1000);
+                }
+            }
+            return getMaxNanos();
+        }
+    }
+
+    /**
+     * An access task that was among the slowest ones.
+     */
+    public static class SlowAccessTask implements Serializable {
+        private final Class<?> originatingClass;
+        private final long durationNanos;
+
+        private SlowAccessTask(Class<?> originatingClass,
+                long durationNanos) {
+            this.originatingClass = originatingClass;
+            this.durationNanos = durationNanos;
+        }
+
+        /**
+         * Gets the class of the command that was submitted.
+         *
+         * @return the class of the command
+         */
+        public Class<?> getOriginatingClass() {
+            return originatingClass;
+        }
+
+        /**
+         * Gets the time it took to run the task.
+         *
+         * @return the duration in nanoseconds
+         */
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+    }
+
+    private final Map<LockType, Histogram> waitTimes = new EnumMap<>(
+            LockType.class);
+    private final Map<LockType, Histogram> holdTimes = new EnumMap<>(
+            LockType.class);
+    private final Histogram accessTaskTimes = new Histogram();
+    private final AtomicInteger maxPendingAccessQueueSize = new AtomicInteger();
+
+    private final int slowestTaskCount;
+    // Min-heap, so that the fastest of the slowest tasks is dropped first
+    private final PriorityQueue<SlowAccessTask> slowestTasks = new PriorityQueue<>(
+            (Comparator<SlowAccessTask> & Serializable) (task1,
+                    task2) -> Long.compare(task1.durationNanos,
+                            task2.durationNanos));
+    private volatile long slowestTaskThreshold = -1;
+
+    /**
+     * Creates a new instance that keeps track of the
+     * {@value #DEFAULT_SLOWEST_TASK_COUNT} slowest access tasks.
+     */
+    public SessionLockMetrics() {
+        this(DEFAULT_SLOWEST_TASK_COUNT);
+    }
+
+    /**
+     * Creates a new instance that keeps track of the given number of slowest
+     * access tasks.
+     *
+     * @param slowestTaskCount
+     *            the number of slowest access tasks to keep track of, not
+     *            negative
+     */
+    public SessionLockMetrics(int slowestTaskCount) {
+        if (slowestTaskCount < 0) {
+            throw new IllegalArgumentException(
+                    "The number of slowest tasks cannot be negative");
+        }
+        this.slowestTaskCount = slowestTaskCount;
+        for (LockType type : LockType.values()) {
+            waitTimes.put(type, new Histogram());
+            holdTimes.put(type, new Histogram());
+        }
+    }
+
+    @Override
+    public void sessionLockReleased(SessionLockEvent event) {
+        waitTimes.get(event.getLockType()).record(event.getWaitNanos());
+        holdTimes.get(event.getLockType()).record(event.getHoldNanos());
+        maxPendingAccessQueueSize.accumulateAndGet(
+                event.getPendingAccessQueueSize(), Math::max);
+    }
+
+    @Override
+    public void accessTaskCompleted(AccessTaskEvent event) {
+        long duration = event.getDurationNanos();
+        accessTaskTimes.record(duration);
+        if (slowestTaskCount == 0 || duration <= slowestTaskThreshold) {
+            return;
+        }
+        synchronized (slowestTasks) {
+            slowestTasks.add(
+                    new SlowAccessTask(event.getOriginatingClass(), duration));
+            if (slowestTasks.size() > slowestTaskCount) {
+                slowestTasks.poll();
+            }
+            if (slowestTasks.size() == slowestTaskCount) {
+                slowestTaskThreshold = slowestTasks.peek().durationNanos;
+            }
+        }
+    }
+
+    /**
+     * Gets the histogram of the times threads waited for a session lock to do
+     * the given kind of work.
+     *
+     * @param lockType
+     *            the kind of work, not <code>null</code>
+     * @return the wait time histogram
+     */
+    public Histogram getWaitTimes(LockType lockType) {
+        return waitTimes.get(lockType);
+    }
+
+    /**
+     * Gets the histogram of the times threads held a session lock to do the
+     * given kind of work.
+     *
+     * @param lockType
+     *            the kind of work, not <code>null</code>
+     * @return the hold time histogram
+     */
+    public Histogram getHoldTimes(LockType lockType) {
+        return holdTimes.get(lockType);
+    }
+
+    /**
+     * Gets the histogram of the times it took to run access tasks.
+     *
+     * @return the access task time histogram
+     */
+    public Histogram getAccessTaskTimes() {
+        return accessTaskTimes;
+    }
+
+    /**
+     * Gets the largest number of pending access tasks that a session had when
+     * its lock was acquired.
+     *
+     * @return the largest pending access queue size
+     */
+    public int getMaxPendingAccessQueueSize() {
+        return maxPendingAccessQueueSize.get();
+    }
+
+    /**
+     * Gets the slowest access tasks that have been run, the slowest first.
+     *
+     * @return a list of the slowest access tasks
+     */
+    public List<SlowAccessTask> getSlowestAccessTasks() {
+        List<SlowAccessTask> tasks;
+        synchronized (slowestTasks) {
+            tasks = new ArrayList<>(slowestTasks);
+        }
+        tasks.sort(Collections.reverseOrder(slowestTasks.comparator()));
+        return tasks;
+    }
+}
@@ -174,6 +174,14 @@ public class SessionRouteRegistry extends AbstractRouteRegistry {
         return parentRegistry.getNavigationTarget(pathString, segments);
     }
 
+    @Override
+    public int getMatchingPathLength(List<String> pathSegments) {
+        // Session routes are checked before the parent routes for each path,
+        // so the longest path found from either of the registries is used
+        return Math.max(super.getMatchingPathLength(pathSegments),
+                getMatchingPathLength(parentRegistry, pathSegments));
+    }
+
     @Override
     public Optional<String> getTargetUrl(
             Class<? extends Component> navigationTarget) {
@@ -22,12 +22,15 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.net.URLConnection;
+import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.vaadin.flow.function.DeploymentConfiguration;
 import com.vaadin.flow.internal.ResponseWriter;
+import com.vaadin.flow.internal.StaticResourceCache;
+import com.vaadin.flow.internal.StaticResourceCache.CachedResource;
 import com.vaadin.flow.shared.ApplicationConstants;
 
 /**
@@ -38,7 +41,9 @@ import com.vaadin.flow.shared.ApplicationConstants;
  * This class is primarily meant to be used during developing time. For a
  * production mode site you should consider serving static resources directly
  * from the servlet (using a default servlet if such exists) or through a stand
- * alone static file server.
+ * alone static file server. If a static resource cache size is configured,
+ * resources are cached in memory in production mode, see
+ * {@link DeploymentConfiguration#getStaticResourceCacheSize()}.
  *
  * @author Vaadin Ltd
  * @since 1.0
@@ -47,6 +52,7 @@ public class StaticFileServer implements StaticFileHandler {
     private final ResponseWriter responseWriter;
     private final VaadinServletService servletService;
     private DeploymentConfiguration deploymentConfiguration;
+    private final StaticResourceCache resourceCache;
 
     /**
      * Constructs a file server.
@@ -58,6 +64,14 @@ public class StaticFileServer implements StaticFileHandler {
         this.servletService = servletService;
         deploymentConfiguration = servletService.getDeploymentConfiguration();
         responseWriter = new ResponseWriter(deploymentConfiguration);
+
+        int cacheSize = deploymentConfiguration.getStaticResourceCacheSize();
+        if (deploymentConfiguration.isProductionMode() && cacheSize > 0) {
+            resourceCache = new StaticResourceCache(cacheSize * 1024L * 1024L,
+                    deploymentConfiguration.isBrotli());
+        } else {
+            resourceCache = null;
+        }
     }
 
     @Override
@@ -86,6 +100,14 @@ public class StaticFileServer implements StaticFileHandler {
     public boolean serveStaticResource(HttpServletRequest request,
             HttpServletResponse response) throws IOException {
         String filenameWithPath = getRequestFilename(request);
+        if (resourceCache != null) {
+            CachedResource resource = resourceCache.get(filenameWithPath);
+            if (resource != null) {
+                serveCachedResource(filenameWithPath, resource, request,
+                        response);
+                return true;
+            }
+        }
         URL resourceUrl = servletService.getStaticResource(filenameWithPath);
 
         if (resourceUrl == null) {
@@ -96,6 +118,16 @@ public class StaticFileServer implements StaticFileHandler {
 
         // There is a resource!
 
+        if (resourceCache != null) {
+            CachedResource resource = resourceCache.load(filenameWithPath,
+                    resourceUrl, request.getServletContext());
+            if (resource != null) {
+                serveCachedResource(filenameWithPath, resource, request,
+                        response);
+                return true;
+            }
+        }
+
         // Intentionally writing cache headers also for 304 responses
         writeCacheHeaders(filenameWithPath, response);
 
@@ -112,6 +144,30 @@ public class StaticFileServer implements StaticFileHandler {
         return true;
     }
 
+    private void serveCachedResource(String filenameWithPath,
+            CachedResource resource, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        // Intentionally writing cache headers also for 304 responses
+        writeCacheHeaders(filenameWithPath, response);
+
+        long timestamp = resource.getLastModified();
+        if (timestamp != -1L) {
+            response.setDateHeader("Last-Modified", timestamp);
+        }
+
+        // If-None-Match takes precedence over If-Modified-Since
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        Optional<String> matchingETag = resource.findMatchingETag(ifNoneMatch);
+        if (matchingETag.isPresent() || (ifNoneMatch == null
+                && browserHasNewestVersion(request, timestamp))) {
+            matchingETag.ifPresent(tag -> response.setHeader("ETag", tag));
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        responseWriter.writeResponseContents(filenameWithPath, resource,
+                request, response);
+    }
+
     /**
      * Writes the modification timestamp info for the file into the response.
      *
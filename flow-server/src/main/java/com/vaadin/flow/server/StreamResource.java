@@ -15,6 +15,7 @@
  */
 package com.vaadin.flow.server;
 
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -24,6 +25,8 @@ import javax.servlet.ServletContext;
 
 import com.vaadin.flow.dom.Element;
 import com.vaadin.flow.function.ContentTypeResolver;
+import com.vaadin.flow.internal.ByteRangeSource;
+import com.vaadin.flow.server.SessionLockEvent.LockType;
 
 /**
  * Represents dynamically generated data.
@@ -60,7 +63,7 @@ public class StreamResource extends AbstractStreamResource {
 
     }
 
-    private static class Pipe implements StreamResourceWriter {
+    private static class Pipe implements RangeStreamResourceWriter {
 
         private static final int BUFFER_SIZE = 1024;
 
@@ -71,15 +74,41 @@ public class StreamResource extends AbstractStreamResource {
         }
 
         @Override
-        public void accept(OutputStream stream, VaadinSession session)
+        public ByteRangeSource openByteRangeSource(VaadinSession session)
                 throws IOException {
-            try (InputStream input = createInputStream(session)) {
-                copy(session, input, stream);
+            InputStream input = createInputStream(session);
+            if (!factory.requiresLock()
+                    && input.getClass() == FileInputStream.class) {
+                // Any range of a plain file can be transferred directly from
+                // the channel when it doesn't need to be read under the lock
+                return ByteRangeSource
+                        .of(((FileInputStream) input).getChannel());
             }
+            return new ByteRangeSource() {
+                private long currentPosition;
+
+                @Override
+                public long getLength() {
+                    return -1;
+                }
+
+                @Override
+                public void transferTo(long position, long count,
+                        OutputStream out) throws IOException {
+                    assert position == currentPosition
+                            : "The data can only be read sequentially";
+                    currentPosition += copy(session, input, out, count);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    input.close();
+                }
+            };
         }
 
         private InputStream createInputStream(VaadinSession session) {
-            session.lock();
+            session.lock(LockType.STREAM);
             try {
                 return factory.createInputStream();
             } finally {
@@ -87,26 +116,30 @@ public class StreamResource extends AbstractStreamResource {
             }
         }
 
-        private void copy(VaadinSession session, InputStream source,
-                OutputStream out) throws IOException {
+        private long copy(VaadinSession session, InputStream source,
+                OutputStream out, long count) throws IOException {
             byte[] buf = new byte[BUFFER_SIZE];
+            long copied = 0;
             int n;
-            while ((n = read(session, source, buf)) > 0) {
+            while (copied < count && (n = read(session, source, buf,
+                    (int) Math.min(buf.length, count - copied))) > 0) {
                 out.write(buf, 0, n);
+                copied += n;
             }
+            return copied;
         }
 
         private int read(VaadinSession session, InputStream source,
-                byte[] buffer) throws IOException {
+                byte[] buffer, int length) throws IOException {
             if (factory.requiresLock()) {
-                session.lock();
+                session.lock(LockType.STREAM);
                 try {
-                    return source.read(buffer);
+                    return source.read(buffer, 0, length);
                 } finally {
                     session.unlock();
                 }
             } else {
-                return source.read(buffer);
+                return source.read(buffer, 0, length);
             }
         }
     }
@@ -17,6 +17,9 @@ package com.vaadin.flow.server;
 
 import java.io.IOException;
 
+import com.vaadin.flow.server.ServletHelper.RequestType;
+import com.vaadin.flow.server.SessionLockEvent.LockType;
+
 /**
  * RequestHandler which takes care of locking and unlocking of the VaadinSession
  * automatically. The session is locked before
@@ -35,7 +38,7 @@ public abstract class SynchronizedRequestHandler implements RequestHandler {
             return false;
         }
 
-        session.lock();
+        session.lock(getLockType(request));
         try {
             return synchronizedHandleRequest(session, request, response);
         } finally {
@@ -43,6 +46,16 @@ public abstract class SynchronizedRequestHandler implements RequestHandler {
         }
     }
 
+    private static LockType getLockType(VaadinRequest request) {
+        if (ServletHelper.isRequestType(request, RequestType.UIDL)) {
+            return LockType.UIDL;
+        } else if (ServletHelper.isRequestType(request,
+                RequestType.HEARTBEAT)) {
+            return LockType.HEARTBEAT;
+        }
+        return LockType.OTHER;
+    }
+
     /**
      * Identical to
      * {@link #handleRequest(VaadinSession, VaadinRequest, VaadinResponse)}
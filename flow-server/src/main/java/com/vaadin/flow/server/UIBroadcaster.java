@@ -0,0 +1,361 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.server;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+import com.vaadin.flow.component.ComponentEventListener;
+import com.vaadin.flow.component.DetachEvent;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.internal.UIInternals.JavaScriptInvocation;
+import com.vaadin.flow.function.SerializableConsumer;
+import com.vaadin.flow.internal.CurrentInstance;
+import com.vaadin.flow.internal.JsonCodec;
+import com.vaadin.flow.shared.Registration;
+
+import elemental.json.JsonArray;
+
+/**
+ * Delivers updates published once to any number of registered UIs. This is
+ * meant for cases where many UIs show the same live data, e.g. a dashboard
+ * that is open in thousands of browsers.
+ * <p>
+ * A broadcast is delivered to the registered UIs using the executor given to
+ * the broadcaster, which should be bounded, e.g. a fixed size thread pool.
+ * The UIs are grouped by their session, and each executor task delivers the
+ * update to a batch of sessions one session at a time. The lock of a session
+ * is only held while the update is delivered to the UIs of that session, and
+ * a session that is locked by another thread gets the update once that thread
+ * releases the lock, without keeping the executor thread waiting. Changes made
+ * by the listeners are sent to the client in the same way as changes made in
+ * {@link UI#access(Command)}.
+ * <p>
+ * JavaScript broadcast using
+ * {@link #broadcastJavaScript(String, Serializable...)} is added to all
+ * registered UIs as the same invocation, which is encoded only once for all
+ * the UIs.
+ * <p>
+ * A UI is automatically unregistered when it is detached.
+ * <p>
+ * The broadcaster is meant to be shared by the whole application, e.g. kept
+ * in a static field. It is serializable so that components can refer to it,
+ * but its executor and registrations are not serialized. A deserialized
+ * broadcaster has no registered UIs and cannot broadcast updates, and
+ * registrations that are deserialized as part of a session are no longer
+ * registered to any broadcaster.
+ *
+ * @param <T>
+ *            the type of the broadcast updates
+ * @author Vaadin Ltd
+ * @since
+ */
+public class UIBroadcaster<T> implements Serializable {
+
+    /**
+     * The default number of sessions that the update is delivered to in one
+     * executor task.
+     */
+    public static final int DEFAULT_SESSION_BATCH_SIZE = 32;
+
+    private transient Executor executor;
+
+    private final int sessionBatchSize;
+
+    /*
+     * The registrations of each session. The lists are never modified, but
+     * replaced, so that a broadcast can use them without copying.
+     */
+    private transient Map<VaadinSession, List<UIRegistration<T>>> registrations = new ConcurrentHashMap<>();
+
+    /**
+     * A registration of a listener for a UI. The registration is also the
+     * detach listener of the UI and the handle returned to the caller, both of
+     * which may be serialized with the session, so it refers to the
+     * broadcaster only through a transient field.
+     */
+    private static class UIRegistration<T>
+            implements Registration, ComponentEventListener<DetachEvent> {
+        private final VaadinSession session;
+        private final UI ui;
+        private final SerializableConsumer<T> listener;
+        private transient UIBroadcaster<T> broadcaster;
+        private Registration detachRegistration;
+
+        private UIRegistration(UIBroadcaster<T> broadcaster,
+                VaadinSession session, UI ui,
+                SerializableConsumer<T> listener) {
+            this.broadcaster = broadcaster;
+            this.session = session;
+            this.ui = ui;
+            this.listener = listener;
+        }
+
+        @Override
+        public void onComponentEvent(DetachEvent event) {
+            remove();
+        }
+
+        @Override
+        public void remove() {
+            UIBroadcaster<T> owner = broadcaster;
+            if (owner != null) {
+                broadcaster = null;
+                owner.unregister(this);
+            }
+        }
+    }
+
+    /**
+     * A JavaScript invocation that is added to several UIs and only encoded
+     * once.
+     * <p>
+     * For internal use only. May be renamed or removed in a future release.
+     */
+    public static class SharedJavaScriptInvocation
+            extends JavaScriptInvocation {
+
+        private transient volatile JsonArray encoded;
+
+        private SharedJavaScriptInvocation(String expression,
+                Serializable... parameters) {
+            super(expression, parameters);
+        }
+
+        /**
+         * Gets the encoded invocation, encoding it using the given function
+         * the first time. The parameters of a shared invocation don't refer to
+         * any UI, so the encoded invocation can be used for all UIs.
+         *
+         * @param encoder
+         *            the function to encode the invocation with, not
+         *            <code>null</code>
+         * @return the encoded invocation
+         */
+        public JsonArray getEncoded(
+                Function<JavaScriptInvocation, JsonArray> encoder) {
+            JsonArray result = encoded;
+            if (result == null) {
+                // Concurrent callers may both encode, but the results are
+                // identical
+                result = encoder.apply(this);
+                encoded = result;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Creates a broadcaster that delivers updates using the given executor,
+     * with the default session batch size.
+     *
+     * @param executor
+     *            the executor to deliver the updates with, not
+     *            <code>null</code>
+     */
+    public UIBroadcaster(Executor executor) {
+        this(executor, DEFAULT_SESSION_BATCH_SIZE);
+    }
+
+    /**
+     * Creates a broadcaster that delivers updates using the given executor.
+     *
+     * @param executor
+     *            the executor to deliver the updates with, not
+     *            <code>null</code>
+     * @param sessionBatchSize
+     *            the maximum number of sessions that an update is delivered to
+     *            in one executor task, must be positive
+     */
+    public UIBroadcaster(Executor executor, int sessionBatchSize) {
+        if (sessionBatchSize <= 0) {
+            throw new IllegalArgumentException(
+                    "The session batch size must be positive");
+        }
+        this.executor = Objects.requireNonNull(executor,
+                "Executor cannot be null");
+        this.sessionBatchSize = sessionBatchSize;
+    }
+
+    /**
+     * Registers a listener that receives the updates broadcast to the given
+     * UI. The listener is run while holding the session lock of the UI, with
+     * the UI set as the current UI.
+     * <p>
+     * The registration is removed automatically when the UI is detached. Like
+     * other listeners of the UI, the listener should be registered and removed
+     * while holding the session lock.
+     *
+     * @param ui
+     *            the UI to register, not <code>null</code>
+     * @param listener
+     *            the listener receiving the updates, not <code>null</code>
+     * @return a handle that can be used for removing the registration
+     */
+    public Registration register(UI ui, SerializableConsumer<T> listener) {
+        Objects.requireNonNull(ui, "UI cannot be null");
+        Objects.requireNonNull(listener, "Listener cannot be null");
+        VaadinSession session = ui.getSession();
+        if (session == null) {
+            throw new IllegalStateException(
+                    "Cannot register a UI that is not attached to a session");
+        }
+
+        UIRegistration<T> registration = new UIRegistration<>(this, session,
+                ui, listener);
+        registrations.compute(session, (key, list) -> {
+            List<UIRegistration<T>> copy = list == null ? new ArrayList<>()
+                    : new ArrayList<>(list);
+            copy.add(registration);
+            return copy;
+        });
+
+        registration.detachRegistration = ui.addDetachListener(registration);
+        return registration;
+    }
+
+    private void unregister(UIRegistration<T> registration) {
+        registrations.computeIfPresent(registration.session, (key, list) -> {
+            List<UIRegistration<T>> copy = new ArrayList<>(list);
+            copy.remove(registration);
+            return copy.isEmpty() ? null : copy;
+        });
+        Registration detachRegistration = registration.detachRegistration;
+        if (detachRegistration != null) {
+            registration.detachRegistration = null;
+            detachRegistration.remove();
+        }
+    }
+
+    /**
+     * Broadcasts an update to all registered UIs. The update is delivered
+     * asynchronously, so this method returns without waiting for the
+     * listeners to be run.
+     *
+     * @param update
+     *            the update to broadcast
+     */
+    public void broadcast(T update) {
+        deliver(registration -> registration.listener.accept(update));
+    }
+
+    /**
+     * Broadcasts a JavaScript invocation to all registered UIs, in the same
+     * way as calling
+     * {@link com.vaadin.flow.component.page.Page#executeJavaScript(String, Serializable...)}
+     * for each of them. The invocation is encoded only once for all the UIs.
+     * <p>
+     * Since the invocation is shared, the parameters cannot refer to elements
+     * or components. Only the parameter types supported by
+     * {@link JsonCodec#encodeWithoutTypeInfo(Object)} can be used.
+     *
+     * @param expression
+     *            the JavaScript expression to invoke
+     * @param parameters
+     *            parameters to pass to the expression
+     */
+    public void broadcastJavaScript(String expression,
+            Serializable... parameters) {
+        Objects.requireNonNull(expression, "Expression cannot be null");
+        for (Serializable parameter : parameters) {
+            if (parameter != null && !JsonCodec
+                    .canEncodeWithoutTypeInfo(parameter.getClass())) {
+                throw new IllegalArgumentException("Parameter of type "
+                        + parameter.getClass().getName()
+                        + " cannot be shared between UIs");
+            }
+        }
+        SharedJavaScriptInvocation invocation = new SharedJavaScriptInvocation(
+                expression, parameters);
+        deliver(registration -> registration.ui.getInternals()
+                .addJavaScriptInvocation(invocation));
+    }
+
+    private void deliver(SerializableConsumer<UIRegistration<T>> action) {
+        if (executor == null) {
+            throw new IllegalStateException(
+                    "A deserialized broadcaster cannot broadcast updates");
+        }
+        List<Map.Entry<VaadinSession, List<UIRegistration<T>>>> batch = new ArrayList<>(
+                sessionBatchSize);
+        for (Map.Entry<VaadinSession, List<UIRegistration<T>>> entry : registrations
+                .entrySet()) {
+            batch.add(entry);
+            if (batch.size() == sessionBatchSize) {
+                submit(batch, action);
+                batch = new ArrayList<>(sessionBatchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            submit(batch, action);
+        }
+    }
+
+    private void submit(
+            List<Map.Entry<VaadinSession, List<UIRegistration<T>>>> batch,
+            SerializableConsumer<UIRegistration<T>> action) {
+        executor.execute(() -> batch.forEach(entry -> {
+            VaadinSession session = entry.getKey();
+            List<UIRegistration<T>> sessionRegistrations = entry.getValue();
+            session.access(
+                    () -> deliver(session, sessionRegistrations, action));
+        }));
+    }
+
+    private static <T> void deliver(VaadinSession session,
+            List<UIRegistration<T>> sessionRegistrations,
+            SerializableConsumer<UIRegistration<T>> action) {
+        for (UIRegistration<T> registration : sessionRegistrations) {
+            UI ui = registration.ui;
+            if (ui.getSession() != session) {
+                // Detached after the broadcast was started
+                continue;
+            }
+            Map<Class<?>, CurrentInstance> old = CurrentInstance
+                    .setCurrent(ui);
+            try {
+                action.accept(registration);
+            } catch (Exception e) {
+                session.getErrorHandler().error(new ErrorEvent(e));
+            } finally {
+                CurrentInstance.restoreInstances(old);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of registered UIs.
+     *
+     * @return the number of registered UIs
+     */
+    public int getRegisteredUICount() {
+        return registrations.values().stream().mapToInt(List::size).sum();
+    }
+
+    private void readObject(ObjectInputStream stream)
+            throws IOException, ClassNotFoundException {
+        stream.defaultReadObject();
+        registrations = new ConcurrentHashMap<>();
+    }
+}
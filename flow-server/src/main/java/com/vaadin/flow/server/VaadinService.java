@@ -40,8 +40,15 @@ import java.util.ServiceLoader;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
@@ -63,6 +70,7 @@ import com.vaadin.flow.internal.LocaleUtil;
 import com.vaadin.flow.internal.ReflectionCache;
 import com.vaadin.flow.router.Router;
 import com.vaadin.flow.server.ServletHelper.RequestType;
+import com.vaadin.flow.server.SessionLockEvent.LockType;
 import com.vaadin.flow.server.communication.AtmospherePushConnection;
 import com.vaadin.flow.server.communication.HeartbeatHandler;
 import com.vaadin.flow.server.communication.PwaHandler;
@@ -163,6 +171,8 @@ public abstract class VaadinService implements Serializable {
     private final List<SessionInitListener> sessionInitListeners = new CopyOnWriteArrayList<>();
     private final List<UIInitListener> uiInitListeners = new CopyOnWriteArrayList<>();
     private final List<SessionDestroyListener> sessionDestroyListeners = new CopyOnWriteArrayList<>();
+    private final List<SessionLockListener> sessionLockListeners = new CopyOnWriteArrayList<>();
+    private final List<ClientMetricsListener> clientMetricsListeners = new CopyOnWriteArrayList<>();
 
     private SystemMessagesProvider systemMessagesProvider = DefaultSystemMessagesProvider
             .get();
@@ -197,6 +207,16 @@ public abstract class VaadinService implements Serializable {
 
     private Registration htmlImportDependencyCacheClearRegistration;
 
+    private transient volatile ScheduledExecutorService pushScheduler;
+
+    /**
+     * The maximum number of threads running delayed pushes.
+     */
+    static final int MAX_PUSH_EXECUTOR_THREADS = Math.max(2,
+            Runtime.getRuntime().availableProcessors());
+
+    private transient volatile ExecutorService pushExecutor;
+
     /**
      * Creates a new vaadin service based on a deployment configuration.
      *
@@ -579,6 +599,116 @@ public abstract class VaadinService implements Serializable {
         return () -> sessionDestroyListeners.remove(listener);
     }
 
+    /**
+     * Adds a listener that gets notified whenever the lock of a session of
+     * this service has been released and whenever an access task has been
+     * run, e.g. for collecting metrics about lock contention.
+     * <p>
+     * The use of session locks is only measured while there is at least one
+     * listener, so there is practically no overhead if no listeners have been
+     * added.
+     *
+     * @param listener
+     *            the session lock listener
+     * @return a handle that can be used for removing the listener
+     * @see SessionLockMetrics
+     */
+    public Registration addSessionLockListener(SessionLockListener listener) {
+        sessionLockListeners.add(listener);
+        return () -> sessionLockListeners.remove(listener);
+    }
+
+    /**
+     * Checks whether there are any session lock listeners, i.e. whether the
+     * use of session locks should be measured.
+     *
+     * @return <code>true</code> if there are session lock listeners,
+     *         <code>false</code> otherwise
+     */
+    boolean hasSessionLockListeners() {
+        return !sessionLockListeners.isEmpty();
+    }
+
+    /**
+     * Notifies the session lock listeners that the lock of a session has been
+     * released.
+     *
+     * @param event
+     *            the event to fire
+     */
+    void fireSessionLockReleased(SessionLockEvent event) {
+        for (SessionLockListener listener : sessionLockListeners) {
+            try {
+                listener.sessionLockReleased(event);
+            } catch (Exception e) {
+                getLogger().warn("Error in session lock listener", e);
+            }
+        }
+    }
+
+    private void fireAccessTaskCompleted(AccessTaskEvent event) {
+        for (SessionLockListener listener : sessionLockListeners) {
+            try {
+                listener.accessTaskCompleted(event);
+            } catch (Exception e) {
+                getLogger().warn("Error in session lock listener", e);
+            }
+        }
+    }
+
+    /**
+     * Adds a listener that gets notified whenever a client engine of this
+     * service reports metrics about its own performance, e.g. for monitoring
+     * the rendering performance experienced by the users.
+     * <p>
+     * Only the client engines of a sample of the page loads report metrics,
+     * as configured by
+     * {@link DeploymentConfiguration#getClientMetricsSampleRate()}. The
+     * metrics are sent along with requests that are made anyway.
+     *
+     * @param listener
+     *            the client metrics listener
+     * @return a handle that can be used for removing the listener
+     * @see ClientMetricsAggregator
+     */
+    public Registration addClientMetricsListener(
+            ClientMetricsListener listener) {
+        clientMetricsListeners.add(listener);
+        return () -> clientMetricsListeners.remove(listener);
+    }
+
+    /**
+     * Checks whether there are any client metrics listeners, i.e. whether
+     * metrics received from the client engine should be processed.
+     * <p>
+     * For internal use only. May be renamed or removed in a future release.
+     *
+     * @return <code>true</code> if there are client metrics listeners,
+     *         <code>false</code> otherwise
+     */
+    public boolean hasClientMetricsListeners() {
+        return !clientMetricsListeners.isEmpty();
+    }
+
+    /**
+     * Notifies the client metrics listeners that metrics have been received
+     * from a client engine.
+     * <p>
+     * For internal use only. May be renamed or removed in a future release.
+     *
+     * @param event
+     *            the event to fire
+     */
+    public void fireClientMetricsReceived(ClientMetricsEvent event) {
+        for (ClientMetricsListener listener : clientMetricsListeners) {
+            try {
+                listener.clientMetricsReceived(event);
+            } catch (Exception e) {
+                getLogger().warn("Error in client metrics listener", e);
+            }
+        }
+    }
+
     /**
      * Fires the
      * {@link BootstrapListener#modifyBootstrapPage(BootstrapPageResponse)}
@@ -595,6 +725,22 @@ public abstract class VaadinService implements Serializable {
                 .forEach(listener -> listener.modifyBootstrapPage(response));
     }
 
+    /**
+     * Checks whether all registered {@link BootstrapListener}s declare their
+     * modifications cacheable.
+     *
+     * @return <code>true</code> if the bootstrap page can be rendered from a
+     *         cached template, <code>false</code> otherwise
+     */
+    boolean hasOnlyCacheableBootstrapListeners() {
+        for (BootstrapListener listener : bootstrapListeners) {
+            if (!listener.isCacheable()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Handles destruction of the given session. Internally ensures proper
      * locking is done.
@@ -1868,6 +2014,76 @@ public abstract class VaadinService implements Serializable {
         return true;
     }
 
+    /**
+     * Gets the executor used for scheduling delayed pushes of UIs that have a
+     * {@link com.vaadin.flow.component.PushConfiguration#getCoalescingInterval()
+     * push coalescing interval}. The executor is created when it is first
+     * needed and shut down when the service is destroyed.
+     * <p>
+     * For internal use only. May be renamed or removed in a future release.
+     *
+     * @return the executor for delayed pushes, not <code>null</code>
+     */
+    public ScheduledExecutorService getPushScheduler() {
+        ScheduledExecutorService scheduler = pushScheduler;
+        if (scheduler == null) {
+            synchronized (this) {
+                scheduler = pushScheduler;
+                if (scheduler == null) {
+                    scheduler = Executors
+                            .newSingleThreadScheduledExecutor(runnable -> {
+                                Thread thread = new Thread(runnable,
+                                        "Vaadin push scheduler");
+                                thread.setDaemon(true);
+                                return thread;
+                            });
+                    pushScheduler = scheduler;
+                }
+            }
+        }
+        return scheduler;
+    }
+
+    /**
+     * Gets the executor that runs the delayed pushes scheduled using
+     * {@link #getPushScheduler()}. The scheduler only hands the pushes over to
+     * this executor, so that a session with slow pending access tasks doesn't
+     * delay the pushes of other sessions. At most one thread per processor,
+     * but at least two, are created as needed and discarded when they have
+     * been idle for a while; further pushes wait in a queue. The executor is created when it is first needed and shut down
+     * when the service is destroyed.
+     * <p>
+     * For internal use only. May be renamed or removed in a future release.
+     *
+     * @return the executor for running delayed pushes, not <code>null</code>
+     */
+    public Executor getPushExecutor() {
+        ExecutorService executor = pushExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = pushExecutor;
+                if (executor == null) {
+                    AtomicInteger threadNumber = new AtomicInteger();
+                    ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                            MAX_PUSH_EXECUTOR_THREADS,
+                            MAX_PUSH_EXECUTOR_THREADS, 60, TimeUnit.SECONDS,
+                            new LinkedBlockingQueue<>(), runnable -> {
+                                Thread thread = new Thread(runnable,
+                                        "Vaadin push executor "
+                                                + threadNumber
+                                                        .incrementAndGet());
+                                thread.setDaemon(true);
+                                return thread;
+                            });
+                    pool.allowCoreThreadTimeOut(true);
+                    executor = pool;
+                    pushExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
     /**
      * Implementation for {@link VaadinSession#access(Command)}. This method is
      * implemented here instead of in {@link VaadinSession} to enable overriding
@@ -1917,6 +2133,7 @@ public abstract class VaadinService implements Serializable {
         try {
             // tryLock() would be shorter, but it does not guarantee fairness
             if (session.getLockInstance().tryLock(0, TimeUnit.SECONDS)) {
+                session.lockAcquired(LockType.ACCESS_TASK, 0);
                 // unlock triggers runPendingAccessTasks
                 session.unlock();
             }
@@ -1952,7 +2169,15 @@ public abstract class VaadinService implements Serializable {
             while ((pendingAccess = session.getPendingAccessQueue().poll())
                     != null) {
                 if (!pendingAccess.isCancelled()) {
-                    pendingAccess.run();
+                    if (hasSessionLockListeners()) {
+                        long start = System.nanoTime();
+                        pendingAccess.run();
+                        fireAccessTaskCompleted(new AccessTaskEvent(this,
+                                session, pendingAccess.getOriginatingClass(),
+                                System.nanoTime() - start));
+                    } else {
+                        pendingAccess.run();
+                    }
 
                     try {
                         pendingAccess.get();
@@ -1998,6 +2223,12 @@ public abstract class VaadinService implements Serializable {
      */
     public void destroy() {
         htmlImportDependencyCacheClearRegistration.remove();
+        if (pushScheduler != null) {
+            pushScheduler.shutdownNow();
+        }
+        if (pushExecutor != null) {
+            pushExecutor.shutdownNow();
+        }
 
         ServiceDestroyEvent event = new ServiceDestroyEvent(this);
         serviceDestroyListeners
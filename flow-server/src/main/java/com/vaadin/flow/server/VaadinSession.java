@@ -44,6 +44,8 @@ import org.slf4j.LoggerFactory;
 import com.vaadin.flow.component.UI;
 import com.vaadin.flow.function.DeploymentConfiguration;
 import com.vaadin.flow.internal.CurrentInstance;
+import com.vaadin.flow.server.SessionLockEvent.LockType;
+import com.vaadin.flow.server.communication.UidlMessageQueue;
 import com.vaadin.flow.shared.communication.PushMode;
 
 /**
@@ -79,6 +81,15 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      */
     private DeploymentConfiguration configuration;
 
+    /*
+     * Measurements of the current use of the lock, only accessed by the thread
+     * holding the lock. The start is 0 when the lock is not being measured.
+     */
+    private transient long lockMeasurementStart;
+    private transient long lockWaitNanos;
+    private transient int lockPendingAccessQueueSize;
+    private transient LockType lockType;
+
     /**
      * Default locale of the session.
      */
@@ -117,6 +128,8 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      */
     private transient ConcurrentLinkedQueue<FutureAccess> pendingAccessQueue = new ConcurrentLinkedQueue<>();
 
+    private transient UidlMessageQueue uidlMessageQueue = new UidlMessageQueue();
+
     /*
      * Despite section 6 of RFC 4122, this particular use of UUID *is* adequate
      * for security capabilities. Type 4 UUIDs contain 122 bits of random data,
@@ -615,7 +628,60 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      * @see #hasLock()
      */
     public void lock() {
-        getLockInstance().lock();
+        VaadinService vaadinService = getService();
+        if (vaadinService != null && vaadinService.hasSessionLockListeners()) {
+            long start = System.nanoTime();
+            getLockInstance().lock();
+            lockAcquired(LockType.OTHER, System.nanoTime() - start);
+        } else {
+            getLockInstance().lock();
+        }
+    }
+
+    /**
+     * Locks this session to do the given kind of work. The lock is acquired
+     * in the same way as by {@link #lock()}, but the kind of work is reported
+     * to any {@link SessionLockListener} when the lock is released.
+     *
+     * @param lockType
+     *            the kind of work the lock is needed for, not
+     *            <code>null</code>
+     * @see VaadinService#addSessionLockListener(SessionLockListener)
+     */
+    public void lock(LockType lockType) {
+        lock();
+        if (lockMeasurementStart != 0 && getLockHoldCount() == 1) {
+            this.lockType = lockType;
+        }
+    }
+
+    /**
+     * Starts measuring the use of the lock if it has just been acquired by the
+     * current thread and the service has session lock listeners.
+     *
+     * @param lockType
+     *            the kind of work the lock is needed for
+     * @param waitNanos
+     *            the time spent waiting for the lock
+     */
+    void lockAcquired(LockType lockType, long waitNanos) {
+        VaadinService vaadinService = getService();
+        if (vaadinService == null || !vaadinService.hasSessionLockListeners()
+                || getLockHoldCount() != 1) {
+            return;
+        }
+        this.lockType = lockType;
+        lockWaitNanos = waitNanos;
+        lockPendingAccessQueueSize = getPendingAccessQueue().size();
+        // Never 0, which means that the lock is not measured
+        lockMeasurementStart = System.nanoTime() | 1;
+    }
+
+    private int getLockHoldCount() {
+        Lock lockInstance = getLockInstance();
+        return lockInstance instanceof ReentrantLock
+                ? ((ReentrantLock) lockInstance).getHoldCount()
+                : 0;
     }
 
     /**
@@ -632,6 +698,8 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
     public void unlock() {
         checkHasLock();
         boolean ultimateRelease = false;
+        boolean flushUidlMessages = false;
+        long measurementStart = 0;
         try {
             /*
              * Run pending tasks and push if the reentrant lock will actually be
@@ -639,6 +707,8 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
              */
             if (((ReentrantLock) getLockInstance()).getHoldCount() == 1) {
                 ultimateRelease = true;
+                measurementStart = lockMeasurementStart;
+                lockMeasurementStart = 0;
                 getService().runPendingAccessTasks(this);
 
                 for (UI ui : getUIs()) {
@@ -647,15 +717,36 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
                         Map<Class<?>, CurrentInstance> oldCurrent = CurrentInstance
                                 .setCurrent(ui);
                         try {
-                            ui.push();
+                            ui.getInternals().pushCoalesced();
                         } finally {
                             CurrentInstance.restoreInstances(oldCurrent);
                         }
                     }
                 }
+
+                flushUidlMessages = configuration != null
+                        && configuration.isSerializeUidlOutsideLock();
             }
         } finally {
-            getLockInstance().unlock();
+            if (measurementStart != 0) {
+                // Read while still holding the lock
+                SessionLockEvent event = new SessionLockEvent(getService(),
+                        this, lockType, lockWaitNanos,
+                        System.nanoTime() - measurementStart,
+                        lockPendingAccessQueueSize);
+                getLockInstance().unlock();
+                getService().fireSessionLockReleased(event);
+            } else {
+                getLockInstance().unlock();
+            }
+        }
+
+        /*
+         * Messages collected while holding the lock are encoded and written
+         * only now so that other threads don't need to wait for it.
+         */
+        if (flushUidlMessages) {
+            uidlMessageQueue.flush();
         }
 
         /*
@@ -941,6 +1032,20 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
         return pendingAccessQueue;
     }
 
+    /**
+     * Gets the queue of UIDL messages that are encoded and written to the
+     * client after the session lock has been released, see
+     * {@link DeploymentConfiguration#isSerializeUidlOutsideLock()}. It is safe
+     * to call this method without holding the session lock.
+     * <p>
+     * For internal use only. May be renamed or removed in a future release.
+     *
+     * @return the queue of pending UIDL messages
+     */
+    public UidlMessageQueue getUidlMessageQueue() {
+        return uidlMessageQueue;
+    }
+
     /**
      * Gets the CSRF token (aka double submit cookie) that is used to protect
      * against Cross Site Request Forgery attacks.
@@ -980,6 +1085,7 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
         try {
             stream.defaultReadObject();
             pendingAccessQueue = new ConcurrentLinkedQueue<>();
+            uidlMessageQueue = new UidlMessageQueue();
         } finally {
             CurrentInstance.restoreInstances(old);
         }
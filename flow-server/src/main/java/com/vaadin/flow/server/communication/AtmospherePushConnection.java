@@ -25,6 +25,7 @@ import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
+import org.apache.commons.io.output.StringBuilderWriter;
 import org.atmosphere.cpr.AtmosphereResource;
 import org.atmosphere.cpr.AtmosphereResource.TRANSPORT;
 import org.atmosphere.util.Version;
@@ -32,7 +33,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.vaadin.flow.component.UI;
+import com.vaadin.flow.function.DeploymentConfiguration;
 import com.vaadin.flow.internal.UsageStatistics;
+import com.vaadin.flow.server.VaadinSession;
 import com.vaadin.flow.shared.communication.PushConstants;
 
 import elemental.json.JsonObject;
@@ -50,7 +53,7 @@ public class AtmospherePushConnection implements PushConnection {
     private transient State state = State.DISCONNECTED;
     private transient AtmosphereResource resource;
     private transient FragmentedMessage incomingMessage;
-    private transient Future<Object> outgoingMessage;
+    private transient volatile Future<Object> outgoingMessage;
 
     /**
      * Represents a message that can arrive as multiple fragments.
@@ -191,15 +194,47 @@ public class AtmospherePushConnection implements PushConnection {
             }
         } else {
             try {
-                JsonObject response = new UidlWriter().createUidl(getUI(),
-                        async);
-                sendMessage("for(;;);[" + response.toJson() + "]");
+                DeploymentConfiguration configuration = getUI().getSession()
+                        .getConfiguration();
+                if (configuration.isStreamingUidl()) {
+                    sendMessage(createStreamedMessage(async));
+                } else if (configuration.isSerializeUidlOutsideLock()) {
+                    // The message is encoded and sent after the session lock
+                    // has been released, in order with the responses to
+                    // client requests
+                    AtmosphereResource target = getResource();
+                    VaadinSession session = getUI().getSession();
+                    session.getUidlMessageQueue().add(session,
+                            new UidlWriter().createUidl(getUI(), async),
+                            message -> outgoingMessage = target
+                                    .getBroadcaster()
+                                    .broadcast(message, target));
+                } else {
+                    JsonObject response = new UidlWriter()
+                            .createUidl(getUI(), async);
+                    sendMessage("for(;;);[" + response.toJson() + "]");
+                }
             } catch (Exception e) {
                 throw new RuntimeException("Push failed", e);
             }
         }
     }
 
+    /**
+     * Encodes the pending changes directly into the message buffer. The
+     * message needs to be fully available for the broadcaster, but this avoids
+     * building the intermediate JSON tree and concatenating the encoded JSON
+     * into yet another string.
+     */
+    private String createStreamedMessage(boolean async) throws IOException {
+        StringBuilderWriter writer = new StringBuilderWriter(
+                PushConstants.WEBSOCKET_BUFFER_SIZE);
+        writer.write("for(;;);[");
+        new UidlWriter().writeUidl(getUI(), async, writer);
+        writer.write(']');
+        return writer.toString();
+    }
+
     /**
      * Sends the given message to the current client. Cannot be called if
      * {@link #isConnected()} returns false.
@@ -322,6 +357,12 @@ public class AtmospherePushConnection implements PushConnection {
             return;
         }
 
+        // Messages collected before disconnecting are still sent
+        VaadinSession session = getUI().getSession();
+        if (session != null) {
+            session.getUidlMessageQueue().flush();
+        }
+
         if (outgoingMessage != null) {
             // Wait for the last message to be sent before closing the
             // connection (assumes that futures are completed in order)
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.server.communication;
+
+import java.io.Serializable;
+
+import com.vaadin.flow.internal.MessageDigestUtil;
+
+/**
+ * Calculates fingerprints of client-to-server messages. The fingerprint of the
+ * last processed message of a UI is stored, so that a message the client sends
+ * again, e.g. after a timeout, can be recognized as a duplicate.
+ * <p>
+ * The fingerprint is calculated from at most the first 64k characters of each
+ * message. It only needs to tell a resent message apart from other messages
+ * with the same client-to-server id, so a fast non-cryptographic hash is
+ * sufficient.
+ *
+ * @author Vaadin Ltd
+ * @since
+ * @see ServerRpcHandler#getMessageFingerprint(com.vaadin.flow.server.VaadinRequest)
+ */
+@FunctionalInterface
+public interface MessageFingerprint extends Serializable {
+
+    /**
+     * The fingerprints provided by the framework.
+     */
+    enum Standard implements MessageFingerprint {
+        /**
+         * A 128-bit MurmurHash3 of the message. This is the default.
+         */
+        MURMUR3_128 {
+            @Override
+            public byte[] calculate(String message) {
+                return MessageDigestUtil.murmurHash3(message);
+            }
+        },
+
+        /**
+         * A SHA-256 digest of the message.
+         */
+        SHA_256 {
+            @Override
+            public byte[] calculate(String message) {
+                return MessageDigestUtil.sha256(message);
+            }
+        };
+    }
+
+    /**
+     * Calculates the fingerprint of a message.
+     *
+     * @param message
+     *            the start of the message, not <code>null</code>
+     * @return the fingerprint of the message, not <code>null</code>
+     */
+    byte[] calculate(String message);
+}
@@ -32,6 +32,7 @@ import com.vaadin.flow.component.UI;
 import com.vaadin.flow.server.ErrorEvent;
 import com.vaadin.flow.server.ServletHelper;
 import com.vaadin.flow.server.SessionExpiredException;
+import com.vaadin.flow.server.SessionLockEvent.LockType;
 import com.vaadin.flow.server.SystemMessages;
 import com.vaadin.flow.server.VaadinRequest;
 import com.vaadin.flow.server.VaadinService;
@@ -205,7 +206,7 @@ public class PushHandler {
             }
 
             UI ui = null;
-            session.lock();
+            session.lock(LockType.PUSH);
             try {
                 ui = service.findUI(vaadinRequest);
                 assert UI.getCurrent() == ui;
@@ -312,7 +313,7 @@ public class PushHandler {
         }
 
         UI ui;
-        session.lock();
+        session.lock(LockType.PUSH);
         try {
             VaadinSession.setCurrent(session);
             // Sets UI.currentInstance
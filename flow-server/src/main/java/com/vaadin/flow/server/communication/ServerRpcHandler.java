@@ -16,6 +16,7 @@
 
 package com.vaadin.flow.server.communication;
 
+import java.io.FilterReader;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.Serializable;
@@ -34,7 +35,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.vaadin.flow.component.UI;
-import com.vaadin.flow.internal.MessageDigestUtil;
+import com.vaadin.flow.internal.JsonStreamReader;
+import com.vaadin.flow.server.ClientMetricsEvent;
 import com.vaadin.flow.server.ErrorEvent;
 import com.vaadin.flow.server.VaadinRequest;
 import com.vaadin.flow.server.VaadinService;
@@ -198,6 +200,23 @@ public class ServerRpcHandler implements Serializable {
 
     private static final int MAX_BUFFER_SIZE = 64 * 1024;
 
+    /**
+     * The number of characters from the start of a message that are used for
+     * detecting duplicate messages.
+     */
+    private static final int MAX_HASHED_MESSAGE_LENGTH = 64 * 1024;
+
+    /**
+     * The minimum time between handling the client metrics of a UI, in
+     * milliseconds. The client engine itself sends metrics at most once per
+     * {@link JsonConstants#METRICS_MIN_SEND_INTERVAL} and keeps collecting in
+     * between, so this only guards against clients that don't. It is shorter
+     * than the client interval so that requests delayed by the network are
+     * not ignored.
+     */
+    static final long MIN_CLIENT_METRICS_INTERVAL_MILLIS = JsonConstants.METRICS_MIN_SEND_INTERVAL
+            / 2;
+
     /**
      * Exception thrown then the security key sent by the client does not match
      * the expected one.
@@ -236,6 +255,12 @@ public class ServerRpcHandler implements Serializable {
             throws IOException, InvalidUIDLSecurityKeyException {
         ui.getSession().setLastRequestTimestamp(System.currentTimeMillis());
 
+        if (request.getService().getDeploymentConfiguration()
+                .isStreamingRpcParsing()) {
+            handleRpcStreaming(ui, reader, request);
+            return;
+        }
+
         String changeMessage = getMessage(reader);
 
         if (changeMessage == null || changeMessage.equals("")) {
@@ -253,61 +278,27 @@ public class ServerRpcHandler implements Serializable {
         }
 
         String hashMessage = changeMessage;
-        if (hashMessage.length() > 64 * 1024) {
-            hashMessage = changeMessage.substring(0, 64 * 1024);
+        if (hashMessage.length() > MAX_HASHED_MESSAGE_LENGTH) {
+            hashMessage = changeMessage.substring(0,
+                    MAX_HASHED_MESSAGE_LENGTH);
         }
-        byte[] messageHash = MessageDigestUtil.sha256(hashMessage);
+        byte[] messageHash = getMessageFingerprint(request)
+                .calculate(hashMessage);
 
         int expectedId = ui.getInternals().getLastProcessedClientToServerId()
                 + 1;
         int requestId = rpcRequest.getClientToServerId();
 
         if (requestId != -1 && requestId != expectedId) {
-            // Invalid message id, skip RPC processing but force a full
-            // re-synchronization of the client as it might have not received
-            // the previous response (e.g. due to a bad connection)
-
-            // Must resync also for duplicate messages because the server might
-            // have generated a response for the first message but the response
-            // did not reach the client. When the client re-sends the message,
-            // it would only get an empty response (because the dirty flags have
-            // been cleared on the server) and would be out of sync
-
-            String message;
-            if (requestId == expectedId - 1 && Arrays.equals(messageHash,
-                    ui.getInternals().getLastProcessedMessageHash())) {
-                /*
-                 * Last message was received again. This indicates that this
-                 * situation is most likely triggered by a timeout or such
-                 * causing a message to be resent.
-                 */
-                message = "Confirmed duplicate message from the client.";
-            } else {
-                message = "Unexpected message id from the client.";
-            }
-
-            /*
-             * If the reason for ending up here is intermittent, then we should
-             * just issue a full resync since we cannot know the state of the
-             * client engine.
-             *
-             * There are reasons to believe that there are deterministic issues
-             * that trigger this condition, and we'd like to collect more data
-             * to uncover anything such before actually implementing the resync
-             * that would thus hide most symptoms of the actual root cause bugs.
-             */
-            String messageStart = changeMessage;
-            if (messageStart.length() > 1000) {
-                messageStart = messageStart.substring(0, 1000);
-            }
-            throw new UnsupportedOperationException(
-                    message + " Expected sync id: " + expectedId + ", got "
-                            + requestId + ". Message start: " + messageStart);
+            throwUnexpectedMessageId(ui, requestId, expectedId, messageHash,
+                    changeMessage);
         } else {
             // Message id ok, process RPCs
             ui.getInternals().setLastProcessedClientToServerId(expectedId,
                     messageHash);
             handleInvocations(ui, rpcRequest.getRpcInvocationsData());
+            handleClientMetrics(ui, rpcRequest.getRawJson()
+                    .get(ApplicationConstants.CLIENT_METRICS));
         }
 
         if (rpcRequest.isResynchronize()) {
@@ -317,6 +308,207 @@ public class ServerRpcHandler implements Serializable {
 
     }
 
+    /**
+     * Reads and executes the RPC calls of a message incrementally. The message
+     * is handled in the same way as by
+     * {@link #handleRpc(UI, Reader, VaadinRequest)}, but property changes are
+     * applied while reading the invocations, if the CSRF token and the client
+     * to server message id have already been validated at that point.
+     * Otherwise the invocations are kept until the whole message has been
+     * read.
+     */
+    private void handleRpcStreaming(UI ui, Reader reader,
+            VaadinRequest request)
+            throws IOException, InvalidUIDLSecurityKeyException {
+        MessageFingerprint fingerprint = getMessageFingerprint(request);
+        MessageStartReader messageReader = new MessageStartReader(reader,
+                MAX_HASHED_MESSAGE_LENGTH);
+        JsonStreamReader json = new JsonStreamReader(messageReader);
+
+        if (!json.hasContent()) {
+            // The client sometimes sends empty messages, this is probably a bug
+            return;
+        }
+
+        int expectedId = ui.getInternals().getLastProcessedClientToServerId()
+                + 1;
+        String csrfToken = ApplicationConstants.CSRF_TOKEN_DEFAULT_VALUE;
+        int requestId = -1;
+        boolean resynchronize = false;
+        JsonValue metrics = null;
+
+        PendingInvocations invocations = new PendingInvocations(ui);
+        boolean handledWhileReading = false;
+        try {
+            json.beginObject();
+            while (json.hasNext()) {
+                String name = json.nextName();
+                if (ApplicationConstants.CSRF_TOKEN.equals(name)) {
+                    csrfToken = json.<JsonValue> nextValue().asString();
+                    if (csrfToken.isEmpty()) {
+                        csrfToken = ApplicationConstants.CSRF_TOKEN_DEFAULT_VALUE;
+                    }
+                } else if (ApplicationConstants.CLIENT_TO_SERVER_ID
+                        .equals(name)) {
+                    requestId = (int) json.<JsonValue> nextValue().asNumber();
+                } else if (ApplicationConstants.RESYNCHRONIZE_ID.equals(name)) {
+                    resynchronize = json.<JsonValue> nextValue().asBoolean();
+                } else if (ApplicationConstants.RPC_INVOCATIONS.equals(name)) {
+                    // The client sends the token and the id before the
+                    // invocations
+                    handledWhileReading = requestId == expectedId
+                            && VaadinService.isCsrfTokenValid(ui.getSession(),
+                                    csrfToken);
+                    readInvocations(json, invocations, handledWhileReading);
+                } else if (ApplicationConstants.CLIENT_METRICS.equals(name)) {
+                    metrics = json.nextValue();
+                } else {
+                    json.nextValue();
+                }
+            }
+            json.endObject();
+            json.endDocument();
+        } catch (IOException | RuntimeException e) {
+            if (handledWhileReading) {
+                // Some changes may already have been applied
+                messageReader.skipRemaining();
+                ui.getInternals().setLastProcessedClientToServerId(
+                        expectedId, fingerprint
+                                .calculate(messageReader.getMessageStart()));
+            }
+            throw e;
+        }
+
+        byte[] messageHash = fingerprint
+                .calculate(messageReader.getMessageStart());
+        if (!handledWhileReading) {
+            if (!VaadinService.isCsrfTokenValid(ui.getSession(), csrfToken)) {
+                throw new InvalidUIDLSecurityKeyException();
+            }
+            if (requestId == -1) {
+                getLogger().warn("Server message without client id received");
+            } else if (requestId != expectedId) {
+                throwUnexpectedMessageId(ui, requestId, expectedId,
+                        messageHash, messageReader.getMessageStart());
+            }
+        }
+
+        // Message id ok, process RPCs
+        ui.getInternals().setLastProcessedClientToServerId(expectedId,
+                messageHash);
+        if (!handledWhileReading) {
+            invocations.handleMapSyncs();
+        }
+        invocations.handleRemaining();
+        handleClientMetrics(ui, metrics);
+
+        if (resynchronize) {
+            // FIXME Implement
+            throw new UnsupportedOperationException("FIXME: Implement resync");
+        }
+    }
+
+    /**
+     * Notifies the client metrics listeners of the service about the metrics
+     * sent along with a message, if any. Metrics of messages that are not
+     * processed, e.g. resent messages, are ignored so that they are not
+     * counted twice. Metrics are also ignored if collecting them is disabled,
+     * and if a UI sends them much more often than the client engine does, so
+     * that a client cannot flood the listeners.
+     */
+    private static void handleClientMetrics(UI ui, JsonValue metrics) {
+        if (!(metrics instanceof JsonObject)) {
+            return;
+        }
+        VaadinService service = ui.getSession().getService();
+        if (service.hasClientMetricsListeners()
+                && service.getDeploymentConfiguration()
+                        .getClientMetricsSampleRate() > 0
+                && ui.getInternals().acceptClientMetrics(
+                        MIN_CLIENT_METRICS_INTERVAL_MILLIS)) {
+            service.fireClientMetricsReceived(
+                    new ClientMetricsEvent(service, ui, (JsonObject) metrics));
+        }
+    }
+
+    private static void readInvocations(JsonStreamReader json,
+            PendingInvocations invocations, boolean handleMapSyncs)
+            throws IOException {
+        json.beginArray();
+        while (json.hasNext()) {
+            invocations.add(json.nextValue());
+            if (handleMapSyncs) {
+                invocations.handleMapSyncs();
+            }
+        }
+        json.endArray();
+    }
+
+    /**
+     * Fails the handling of a message with an unexpected client to server
+     * message id.
+     */
+    private static void throwUnexpectedMessageId(UI ui, int requestId,
+            int expectedId, byte[] messageHash, String changeMessage) {
+        // Invalid message id, skip RPC processing but force a full
+        // re-synchronization of the client as it might have not received
+        // the previous response (e.g. due to a bad connection)
+
+        // Must resync also for duplicate messages because the server might
+        // have generated a response for the first message but the response
+        // did not reach the client. When the client re-sends the message,
+        // it would only get an empty response (because the dirty flags have
+        // been cleared on the server) and would be out of sync
+
+        String message;
+        if (requestId == expectedId - 1 && Arrays.equals(messageHash,
+                ui.getInternals().getLastProcessedMessageHash())) {
+            /*
+             * Last message was received again. This indicates that this
+             * situation is most likely triggered by a timeout or such
+             * causing a message to be resent.
+             */
+            message = "Confirmed duplicate message from the client.";
+        } else {
+            message = "Unexpected message id from the client.";
+        }
+
+        /*
+         * If the reason for ending up here is intermittent, then we should
+         * just issue a full resync since we cannot know the state of the
+         * client engine.
+         *
+         * There are reasons to believe that there are deterministic issues
+         * that trigger this condition, and we'd like to collect more data
+         * to uncover anything such before actually implementing the resync
+         * that would thus hide most symptoms of the actual root cause bugs.
+         */
+        String messageStart = changeMessage;
+        if (messageStart.length() > 1000) {
+            messageStart = messageStart.substring(0, 1000);
+        }
+        throw new UnsupportedOperationException(
+                message + " Expected sync id: " + expectedId + ", got "
+                        + requestId + ". Message start: " + messageStart);
+    }
+
+    /**
+     * Gets the fingerprint used for recognizing a message that the client has
+     * sent again as a duplicate of the previous message.
+     * <p>
+     * Subclasses can override this method to use a custom fingerprint. By
+     * default, the fingerprint is chosen by
+     * {@link com.vaadin.flow.function.DeploymentConfiguration#getMessageFingerprint()}.
+     *
+     * @param request
+     *            the request through which the message was received
+     * @return the message fingerprint to use, not <code>null</code>
+     */
+    protected MessageFingerprint getMessageFingerprint(VaadinRequest request) {
+        return request.getService().getDeploymentConfiguration()
+                .getMessageFingerprint();
+    }
+
     /**
      * Gets {@link RpcInvocationHandler}s map where the key is the type of the
      * handler gotten via {@link RpcInvocationHandler#getRpcType()}.
@@ -345,27 +537,12 @@ public class ServerRpcHandler implements Serializable {
      *            requested RPC calls.
      */
     private void handleInvocations(UI ui, JsonArray invocationsData) {
-        List<JsonObject> data = new ArrayList<>(invocationsData.length());
-        List<Runnable> pendingChangeEvents = new ArrayList<>();
-
-        RpcInvocationHandler mapSyncHandler = getInvocationHandlers()
-                .get(JsonConstants.RPC_TYPE_MAP_SYNC);
-
+        PendingInvocations invocations = new PendingInvocations(ui);
         for (int i = 0; i < invocationsData.length(); i++) {
-            JsonObject invocationJson = invocationsData.getObject(i);
-            String type = invocationJson.getString(JsonConstants.RPC_TYPE);
-            assert type != null;
-            if (JsonConstants.RPC_TYPE_MAP_SYNC.equals(type)) {
-                // Handle these before any RPC invocations.
-                mapSyncHandler.handle(ui, invocationJson)
-                        .ifPresent(pendingChangeEvents::add);
-            } else {
-                data.add(invocationJson);
-            }
+            invocations.add(invocationsData.getObject(i));
         }
-
-        pendingChangeEvents.forEach(Runnable::run);
-        data.forEach(json -> handleInvocationData(ui, json));
+        invocations.handleMapSyncs();
+        invocations.handleRemaining();
     }
 
     private void handleInvocationData(UI ui, JsonObject invocationJson) {
@@ -405,6 +582,95 @@ public class ServerRpcHandler implements Serializable {
         return LoggerFactory.getLogger(ServerRpcHandler.class.getName());
     }
 
+    /**
+     * Invocations received from the client that have not been handled yet.
+     * Property changes are handled before any other RPC invocations, and the
+     * change events caused by them are fired before the other invocations are
+     * handled.
+     */
+    private class PendingInvocations {
+        private final UI ui;
+        private final RpcInvocationHandler mapSyncHandler;
+        private final List<JsonObject> mapSyncs = new ArrayList<>();
+        private final List<Runnable> pendingChangeEvents = new ArrayList<>();
+        private final List<JsonObject> data = new ArrayList<>();
+
+        private PendingInvocations(UI ui) {
+            this.ui = ui;
+            mapSyncHandler = getInvocationHandlers()
+                    .get(JsonConstants.RPC_TYPE_MAP_SYNC);
+        }
+
+        private void add(JsonObject invocationJson) {
+            String type = invocationJson.getString(JsonConstants.RPC_TYPE);
+            assert type != null;
+            if (JsonConstants.RPC_TYPE_MAP_SYNC.equals(type)) {
+                mapSyncs.add(invocationJson);
+            } else {
+                data.add(invocationJson);
+            }
+        }
+
+        private void handleMapSyncs() {
+            for (JsonObject invocationJson : mapSyncs) {
+                mapSyncHandler.handle(ui, invocationJson)
+                        .ifPresent(pendingChangeEvents::add);
+            }
+            mapSyncs.clear();
+        }
+
+        private void handleRemaining() {
+            pendingChangeEvents.forEach(Runnable::run);
+            data.forEach(json -> handleInvocationData(ui, json));
+        }
+    }
+
+    /**
+     * Keeps a copy of the start of the message that is read, for detecting
+     * duplicate messages and for error messages.
+     */
+    private static class MessageStartReader extends FilterReader {
+        private final StringBuilder messageStart;
+        private final int maxLength;
+
+        private MessageStartReader(Reader reader, int maxLength) {
+            super(reader);
+            this.maxLength = maxLength;
+            messageStart = new StringBuilder(Math.min(maxLength, 1024));
+        }
+
+        @Override
+        public int read() throws IOException {
+            int c = super.read();
+            if (c != -1 && messageStart.length() < maxLength) {
+                messageStart.append((char) c);
+            }
+            return c;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length)
+                throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0 && messageStart.length() < maxLength) {
+                messageStart.append(buffer, offset,
+                        Math.min(read, maxLength - messageStart.length()));
+            }
+            return read;
+        }
+
+        private void skipRemaining() throws IOException {
+            char[] buffer = new char[MAX_BUFFER_SIZE];
+            while (read(buffer, 0, buffer.length) != -1) {
+                // Only the start of the message is kept
+            }
+        }
+
+        private String getMessageStart() {
+            return messageStart.toString();
+        }
+    }
+
     private static RpcInvocationHandler resolveHandlerConflicts(
             RpcInvocationHandler handler1, RpcInvocationHandler handler2) {
         String msg = String.format(
@@ -36,6 +36,7 @@ import com.vaadin.flow.internal.StateNode;
 import com.vaadin.flow.server.ErrorEvent;
 import com.vaadin.flow.server.NoInputStreamException;
 import com.vaadin.flow.server.NoOutputStreamException;
+import com.vaadin.flow.server.SessionLockEvent.LockType;
 import com.vaadin.flow.server.StreamReceiver;
 import com.vaadin.flow.server.StreamResource;
 import com.vaadin.flow.server.StreamVariable;
@@ -108,7 +109,7 @@ public class StreamReceiverHandler implements Serializable {
             String securityKey) throws IOException {
         StateNode source;
 
-        session.lock();
+        session.lock(LockType.UPLOAD);
         try {
             String secKey = streamReceiver.getId();
             if (secKey == null || !secKey.equals(securityKey)) {
@@ -248,7 +249,7 @@ public class StreamReceiverHandler implements Serializable {
             InputStream inputStream, StreamReceiver streamReceiver,
             String filename, String mimeType, long contentLength,
             StateNode node) throws UploadException {
-        session.lock();
+        session.lock(LockType.UPLOAD);
         try {
             if (node == null) {
                 throw new UploadException(
@@ -270,7 +271,7 @@ public class StreamReceiverHandler implements Serializable {
                 cleanStreamVariable(session, streamReceiver);
             }
         } catch (Exception e) {
-            session.lock();
+            session.lock(LockType.UPLOAD);
             try {
                 session.getErrorHandler().error(new ErrorEvent(e));
             } finally {
@@ -328,7 +329,7 @@ public class StreamReceiverHandler implements Serializable {
 
     private void cleanStreamVariable(VaadinSession session,
             StreamReceiver streamReceiver) {
-        session.lock();
+        session.lock(LockType.UPLOAD);
         try {
             session.getResourceRegistry().unregisterResource(streamReceiver);
         } finally {
@@ -352,7 +353,7 @@ public class StreamReceiverHandler implements Serializable {
                 filename, type, contentLength);
         try {
             boolean listenProgress;
-            session.lock();
+            session.lock(LockType.UPLOAD);
             try {
                 streamVariable.streamingStarted(startedEvent);
                 out = streamVariable.getOutputStream();
@@ -397,7 +398,7 @@ public class StreamReceiverHandler implements Serializable {
             out.close();
             StreamVariable.StreamingEndEvent event = new StreamingEndEventImpl(
                     filename, type, totalBytes);
-            session.lock();
+            session.lock(LockType.UPLOAD);
             try {
                 streamVariable.streamingFinished(event);
             } finally {
@@ -409,7 +410,7 @@ public class StreamReceiverHandler implements Serializable {
             tryToCloseStream(out);
             StreamVariable.StreamingErrorEvent event = new StreamingErrorEventImpl(
                     filename, type, contentLength, totalBytes, e);
-            session.lock();
+            session.lock(LockType.UPLOAD);
             try {
                 streamVariable.streamingFailed(event);
             } finally {
@@ -419,7 +420,7 @@ public class StreamReceiverHandler implements Serializable {
             // not a terminal level error like all other exception.
         } catch (final Exception e) {
             tryToCloseStream(out);
-            session.lock();
+            session.lock(LockType.UPLOAD);
             try {
                 StreamVariable.StreamingErrorEvent event = new StreamingErrorEventImpl(
                         filename, type, contentLength, totalBytes, e);
@@ -443,7 +444,7 @@ public class StreamReceiverHandler implements Serializable {
         // events are sent in intervals, or at the end of the file.
         if (lastStreamingEvent + getProgressEventInterval() <= now
                 || bytesReadToBuffer <= 0) {
-            session.lock();
+            session.lock(LockType.UPLOAD);
             try {
                 streamVariable.onProgress(progressEvent);
             } finally {
@@ -16,7 +16,13 @@
 package com.vaadin.flow.server.communication;
 
 import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
+import com.vaadin.flow.internal.ByteRangeSource;
+import com.vaadin.flow.internal.ByteRangeWriter;
+import com.vaadin.flow.server.RangeStreamResourceWriter;
+import com.vaadin.flow.server.SessionLockEvent.LockType;
 import com.vaadin.flow.server.StreamResource;
 import com.vaadin.flow.server.StreamResourceWriter;
 import com.vaadin.flow.server.VaadinRequest;
@@ -30,6 +36,14 @@ import java.io.Serializable;
 
 /**
  * Handles {@link StreamResource} instances registered in {@link VaadinSession}.
+ * <p>
+ * Byte range requests are supported for resources that use a
+ * {@link RangeStreamResourceWriter} and know the length of their data, such as
+ * resources created from an {@link com.vaadin.flow.server.InputStreamFactory}
+ * that returns a {@link java.io.FileInputStream}. Such resources are written
+ * asynchronously if enabled using
+ * {@link com.vaadin.flow.function.DeploymentConfiguration#isAsyncStreamResources()},
+ * so that slow clients don't keep request threads reserved.
  *
  * @author Vaadin Ltd
  * @since 1.0
@@ -57,7 +71,7 @@ public class StreamResourceHandler implements Serializable {
             throws IOException {
 
         StreamResourceWriter writer;
-        session.lock();
+        session.lock(LockType.STREAM);
         try {
             ServletContext context = ((VaadinServletRequest) request)
                     .getServletContext();
@@ -72,9 +86,52 @@ public class StreamResourceHandler implements Serializable {
         } finally {
             session.unlock();
         }
+        if (writer instanceof RangeStreamResourceWriter
+                && request instanceof HttpServletRequest
+                && response instanceof HttpServletResponse) {
+            HttpServletRequest httpRequest = (HttpServletRequest) request;
+            if (isAsync(request, httpRequest)) {
+                writeAsync(session, httpRequest,
+                        (HttpServletResponse) response,
+                        (RangeStreamResourceWriter) writer);
+                return;
+            }
+            try (ByteRangeSource source = ((RangeStreamResourceWriter) writer)
+                    .openByteRangeSource(session)) {
+                ByteRangeWriter.write(httpRequest,
+                        (HttpServletResponse) response, source);
+            } finally {
+                response.getOutputStream().close();
+            }
+            return;
+        }
         try (OutputStream outputStream = response.getOutputStream()) {
             writer.accept(outputStream, session);
         }
     }
 
+    private static boolean isAsync(VaadinRequest request,
+            HttpServletRequest httpRequest) {
+        return httpRequest.isAsyncSupported()
+                && request.getService().getDeploymentConfiguration()
+                        .isAsyncStreamResources();
+    }
+
+    /**
+     * Writes the data asynchronously so that the request thread is released
+     * as soon as the response has been prepared. The source is closed when
+     * the asynchronous write completes.
+     */
+    private static void writeAsync(VaadinSession session,
+            HttpServletRequest request, HttpServletResponse response,
+            RangeStreamResourceWriter writer) throws IOException {
+        ByteRangeSource source = writer.openByteRangeSource(session);
+        try {
+            ByteRangeWriter.writeAsync(request, response, source);
+        } catch (IOException | RuntimeException e) {
+            source.close();
+            throw e;
+        }
+    }
+
 }
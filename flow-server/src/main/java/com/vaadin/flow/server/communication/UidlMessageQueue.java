@@ -0,0 +1,127 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.server.communication;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vaadin.flow.internal.JsonUtils;
+import com.vaadin.flow.server.VaadinSession;
+
+import elemental.json.JsonObject;
+
+/**
+ * The UIDL messages of a session that are waiting to be encoded and written to
+ * the client after the session lock has been released. Both responses to
+ * client requests and push messages go through the same queue, so the client
+ * receives them in the order of their server sync ids.
+ * <p>
+ * Messages are added while holding the session lock, as snapshots that don't
+ * share any values with the state tree. They are encoded and written by
+ * {@link #flush()}, which one thread at a time runs without holding the lock.
+ * <p>
+ * For internal use only. May be renamed or removed in a future release.
+ *
+ * @author Vaadin Ltd
+ * @since
+ */
+public class UidlMessageQueue {
+
+    /**
+     * Writes an encoded UIDL message to the client.
+     */
+    @FunctionalInterface
+    public interface MessageWriter {
+        /**
+         * Writes the message.
+         *
+         * @param message
+         *            the encoded message, including the prefix that prevents
+         *            cross site scripting, not <code>null</code>
+         * @throws IOException
+         *             if writing the message fails
+         */
+        void write(String message) throws IOException;
+    }
+
+    private static class PendingMessage {
+        private final JsonObject uidl;
+        private final MessageWriter writer;
+
+        private PendingMessage(JsonObject uidl, MessageWriter writer) {
+            this.uidl = uidl;
+            this.writer = writer;
+        }
+    }
+
+    private final Queue<PendingMessage> messages = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Adds a message to be written by the next {@link #flush()}. A snapshot of
+     * the message is taken immediately, since the collected changes share
+     * values with the state tree.
+     * <p>
+     * This method must be called while holding the session lock, so that the
+     * messages are added in the order of their server sync ids.
+     *
+     * @param session
+     *            the session the message belongs to, not <code>null</code>
+     * @param uidl
+     *            the collected UIDL message, not <code>null</code>
+     * @param writer
+     *            writes the encoded message to the client, not
+     *            <code>null</code>
+     */
+    public void add(VaadinSession session, JsonObject uidl,
+            MessageWriter writer) {
+        assert session.hasLock();
+        messages.add(new PendingMessage(JsonUtils.deepCopy(uidl), writer));
+    }
+
+    /**
+     * Encodes and writes the added messages in the order they were added. If
+     * another thread is writing messages, this method returns only after the
+     * messages of that thread have been written, which means that all messages
+     * added before calling this method have been written when it returns.
+     * <p>
+     * Failures to write a message are logged, and don't prevent writing the
+     * following messages.
+     * <p>
+     * This method should not be called while holding the session lock.
+     */
+    public void flush() {
+        synchronized (messages) {
+            PendingMessage message;
+            while ((message = messages.poll()) != null) {
+                try {
+                    message.writer.write(
+                            "for(;;);[" + message.uidl.toJson() + "]");
+                } catch (IOException | RuntimeException e) {
+                    getLogger().debug(
+                            "Unable to write a UIDL message to the client", e);
+                }
+            }
+        }
+    }
+
+    private static Logger getLogger() {
+        return LoggerFactory.getLogger(UidlMessageQueue.class.getName());
+    }
+}
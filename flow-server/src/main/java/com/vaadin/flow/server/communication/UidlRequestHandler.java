@@ -18,8 +18,10 @@ package com.vaadin.flow.server.communication;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.StringWriter;
 import java.io.Writer;
 
@@ -27,9 +29,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.vaadin.flow.component.UI;
+import com.vaadin.flow.function.DeploymentConfiguration;
 import com.vaadin.flow.server.ServletHelper;
 import com.vaadin.flow.server.ServletHelper.RequestType;
 import com.vaadin.flow.server.SessionExpiredHandler;
+import com.vaadin.flow.server.SessionLockEvent.LockType;
 import com.vaadin.flow.server.SynchronizedRequestHandler;
 import com.vaadin.flow.server.VaadinRequest;
 import com.vaadin.flow.server.VaadinResponse;
@@ -56,6 +60,8 @@ public class UidlRequestHandler extends SynchronizedRequestHandler
 
     public static final String UIDL_PATH = "UIDL/";
 
+    private static final int STREAMING_BUFFER_SIZE = 32 * 1024;
+
     private ServerRpcHandler rpcHandler;
 
     @Override
@@ -72,6 +78,58 @@ public class UidlRequestHandler extends SynchronizedRequestHandler
         return new ServerRpcHandler();
     }
 
+    @Override
+    public boolean handleRequest(VaadinSession session, VaadinRequest request,
+            VaadinResponse response) throws IOException {
+        DeploymentConfiguration configuration = session.getService()
+                .getDeploymentConfiguration();
+        if (!canHandleRequest(request)
+                || !configuration.isSerializeUidlOutsideLock()
+                || configuration.isStreamingUidl()) {
+            return super.handleRequest(session, request, response);
+        }
+
+        session.lock(LockType.UIDL);
+        try {
+            collectUidl(session, request, response);
+        } finally {
+            // Encodes and writes the response, in order with push messages
+            session.unlock();
+        }
+        return true;
+    }
+
+    /**
+     * Handles the RPC invocations of the request and adds the resulting
+     * changes to the UI to the UIDL message queue of the session, to be
+     * encoded and written after the lock has been released. Errors are written
+     * to the response immediately.
+     */
+    private void collectUidl(VaadinSession session, VaadinRequest request,
+            VaadinResponse response) throws IOException {
+        UI uI = session.getService().findUI(request);
+        if (uI == null) {
+            commitJsonResponse(response, VaadinService.createUINotFoundJSON());
+            return;
+        }
+
+        try {
+            getRpcHandler(session).handleRpc(uI, request.getReader(), request);
+            session.getUidlMessageQueue().add(session,
+                    new UidlWriter().createUidl(uI, false),
+                    message -> commitJsonResponse(response, message));
+            return;
+        } catch (JsonException e) {
+            getLogger().error("Error writing JSON to response", e);
+        } catch (InvalidUIDLSecurityKeyException e) {
+            getLogger().warn(
+                    "Invalid security key received from {}",
+                    request.getRemoteHost());
+        }
+        // Refresh on client side
+        writeRefresh(response);
+    }
+
     @Override
     public boolean synchronizedHandleRequest(VaadinSession session,
             VaadinRequest request, VaadinResponse response) throws IOException {
@@ -83,6 +141,10 @@ public class UidlRequestHandler extends SynchronizedRequestHandler
             return true;
         }
 
+        if (session.getConfiguration().isStreamingUidl()) {
+            return handleStreamingRequest(session, uI, request, response);
+        }
+
         StringWriter stringWriter = new StringWriter();
 
         try {
@@ -109,6 +171,28 @@ public class UidlRequestHandler extends SynchronizedRequestHandler
         return true;
     }
 
+    private boolean handleStreamingRequest(VaadinSession session, UI uI,
+            VaadinRequest request, VaadinResponse response) throws IOException {
+        try {
+            getRpcHandler(session).handleRpc(uI, request.getReader(), request);
+        } catch (JsonException e) {
+            getLogger().error("Error reading JSON from request", e);
+            // Refresh on client side
+            writeRefresh(response);
+            return true;
+        } catch (InvalidUIDLSecurityKeyException e) {
+            getLogger().warn(
+                    "Invalid security key received from {}",
+                    request.getRemoteHost());
+            // Refresh on client side
+            writeRefresh(response);
+            return true;
+        }
+
+        commitStreamingUidlResponse(response, uI);
+        return true;
+    }
+
     private void writeRefresh(VaadinResponse response) throws IOException {
         String json = VaadinService.createCriticalNotificationJSON(null, null,
                 null, null);
@@ -117,10 +201,38 @@ public class UidlRequestHandler extends SynchronizedRequestHandler
 
     private static void writeUidl(UI ui, Writer writer) throws IOException {
         JsonObject uidl = new UidlWriter().createUidl(ui, false);
+        writer.write(toUidlString(uidl));
+    }
+
+    private static String toUidlString(JsonObject uidl) {
+        // some dirt to prevent cross site scripting
+        return "for(;;);[" + uidl.toJson() + "]";
+    }
 
+    /**
+     * Streams the UIDL response for the given UI directly to the response,
+     * prefixed and suffixed in the same way as by
+     * {@link #writeUidl(UI, Writer)}. Only a bounded buffer of the response is
+     * kept in memory, which means that the response is committed as soon as
+     * the buffer fills up.
+     * <p>
+     * This is run while holding the session lock, so the lock is held until
+     * the whole response has been written to the client.
+     */
+    private static void commitStreamingUidlResponse(VaadinResponse response,
+            UI ui) throws IOException {
+        setJsonResponseHeaders(response);
+
+        OutputStream outputStream = response.getOutputStream();
+        Writer writer = new BufferedWriter(
+                new OutputStreamWriter(outputStream, UTF_8),
+                STREAMING_BUFFER_SIZE);
         // some dirt to prevent cross site scripting
-        String responseString = "for(;;);[" + uidl.toJson() + "]";
-        writer.write(responseString);
+        writer.write("for(;;);[");
+        new UidlWriter().writeUidl(ui, false, writer);
+        writer.write(']');
+        // NOTE GateIn requires the buffers to be flushed to work
+        writer.flush();
     }
 
     private static final Logger getLogger() {
@@ -170,11 +282,7 @@ public class UidlRequestHandler extends SynchronizedRequestHandler
      */
     public static void commitJsonResponse(VaadinResponse response, String json)
             throws IOException {
-        response.setContentType(JsonConstants.JSON_CONTENT_TYPE);
-
-        // Ensure that the browser does not cache UIDL responses.
-        // iOS 6 Safari requires this (#9732)
-        response.setHeader("Cache-Control", "no-cache");
+        setJsonResponseHeaders(response);
 
         byte[] b = json.getBytes(UTF_8);
         response.setContentLength(b.length);
@@ -184,4 +292,12 @@ public class UidlRequestHandler extends SynchronizedRequestHandler
         // NOTE GateIn requires the buffers to be flushed to work
         outputStream.flush();
     }
+
+    private static void setJsonResponseHeaders(VaadinResponse response) {
+        response.setContentType(JsonConstants.JSON_CONTENT_TYPE);
+
+        // Ensure that the browser does not cache UIDL responses.
+        // iOS 6 Safari requires this (#9732)
+        response.setHeader("Cache-Control", "no-cache");
+    }
 }
@@ -19,6 +19,8 @@ package com.vaadin.flow.server.communication;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
@@ -30,6 +32,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 import org.apache.commons.io.IOUtils;
@@ -42,6 +45,7 @@ import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.internal.DependencyList;
 import com.vaadin.flow.component.internal.UIInternals;
 import com.vaadin.flow.component.internal.UIInternals.JavaScriptInvocation;
+import com.vaadin.flow.internal.ConstantPool;
 import com.vaadin.flow.internal.JsonCodec;
 import com.vaadin.flow.internal.JsonUtils;
 import com.vaadin.flow.internal.StateTree;
@@ -51,6 +55,7 @@ import com.vaadin.flow.internal.nodefeature.ComponentMapping;
 import com.vaadin.flow.server.DependencyFilter;
 import com.vaadin.flow.server.DependencyFilter.FilterContext;
 import com.vaadin.flow.server.SystemMessages;
+import com.vaadin.flow.server.UIBroadcaster.SharedJavaScriptInvocation;
 import com.vaadin.flow.server.VaadinService;
 import com.vaadin.flow.server.VaadinSession;
 import com.vaadin.flow.server.WebBrowser;
@@ -155,6 +160,112 @@ public class UidlWriter implements Serializable {
         // Paints components
         getLogger().debug("* Creating response to client");
 
+        populateHeader(response, ui, async);
+
+        JsonArray stateChanges = Json.createArray();
+
+        encodeChanges(ui, change -> stateChanges.set(stateChanges.length(),
+                change.toJson(uiInternals.getConstantPool())));
+
+        populateDependencies(response, uiInternals.getDependencyList(),
+                new ResolveContext(service, session.getBrowser(), null));
+
+        if (uiInternals.getConstantPool().hasNewConstants()) {
+            response.put("constants",
+                    uiInternals.getConstantPool().dumpConstants());
+        }
+        if (stateChanges.length() != 0) {
+            response.put("changes", stateChanges);
+        }
+
+        populateExecutionsAndTimings(response, ui);
+
+        uiInternals.incrementServerId();
+        return response;
+    }
+
+    /**
+     * Writes all pending changes to the given UI as a JSON object directly to
+     * the given writer.
+     * <p>
+     * The written JSON object is equivalent to the one returned by
+     * {@link #createUidl(UI, boolean)}, but each state tree change is encoded
+     * onto the writer as soon as it has been collected instead of first
+     * building the full JSON tree for the response in memory. The order of the
+     * keys in the written object may differ from the one produced by
+     * {@link #createUidl(UI, boolean)}.
+     * <p>
+     * Nothing is buffered by this method, so the caller should typically
+     * provide a buffered writer.
+     *
+     * @param ui
+     *            The {@link UI} whose changes to write
+     * @param async
+     *            True if this message is sent by the server asynchronously,
+     *            false if it is a response to a client message.
+     * @param writer
+     *            the writer to write the UIDL response to, not
+     *            <code>null</code>
+     * @throws IOException
+     *             if an exception occurred while writing to the writer
+     */
+    public void writeUidl(UI ui, boolean async, Writer writer)
+            throws IOException {
+        Objects.requireNonNull(writer, "Writer cannot be null");
+
+        UIInternals uiInternals = ui.getInternals();
+
+        VaadinSession session = ui.getSession();
+        VaadinService service = session.getService();
+
+        // Purge pending access calls as they might produce additional changes
+        // to write out
+        service.runPendingAccessTasks(session);
+
+        getLogger().debug("* Streaming response to client");
+
+        JsonObject header = Json.createObject();
+        populateHeader(header, ui, async);
+        // The header always contains at least the sync id, so the opening
+        // brace can be left open for the remaining properties
+        String headerJson = header.toJson();
+        writer.write(headerJson, 0, headerJson.length() - 1);
+
+        ChangeStreamWriter changeWriter = new ChangeStreamWriter(writer,
+                uiInternals.getConstantPool());
+        try {
+            encodeChanges(ui, changeWriter);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        changeWriter.close();
+
+        JsonObject trailer = Json.createObject();
+        populateDependencies(trailer, uiInternals.getDependencyList(),
+                new ResolveContext(service, session.getBrowser(), null));
+        if (uiInternals.getConstantPool().hasNewConstants()) {
+            trailer.put("constants",
+                    uiInternals.getConstantPool().dumpConstants());
+        }
+        populateExecutionsAndTimings(trailer, ui);
+
+        if (trailer.keys().length > 0) {
+            // Strip the braces of the trailer object and append its
+            // properties to the already written ones
+            String trailerJson = trailer.toJson();
+            writer.write(',');
+            writer.write(trailerJson, 1, trailerJson.length() - 2);
+        }
+        writer.write('}');
+
+        uiInternals.incrementServerId();
+    }
+
+    private static void populateHeader(JsonObject response, UI ui,
+            boolean async) {
+        UIInternals uiInternals = ui.getInternals();
+        VaadinService service = ui.getSession().getService();
+
         int syncId = service.getDeploymentConfiguration().isSyncIdCheckEnabled()
                 ? uiInternals.getServerSyncId()
                 : -1;
@@ -165,29 +276,18 @@ public class UidlWriter implements Serializable {
         response.put(ApplicationConstants.CLIENT_TO_SERVER_ID,
                 nextClientToServerMessageId);
 
-        SystemMessages messages = ui.getSession().getService()
-                .getSystemMessages(ui.getLocale(), null);
+        SystemMessages messages = service.getSystemMessages(ui.getLocale(),
+                null);
 
         JsonObject meta = new MetadataWriter().createMetadata(ui, false, async,
                 messages);
         if (meta.keys().length > 0) {
             response.put("meta", meta);
         }
+    }
 
-        JsonArray stateChanges = Json.createArray();
-
-        encodeChanges(ui, stateChanges);
-
-        populateDependencies(response, uiInternals.getDependencyList(),
-                new ResolveContext(service, session.getBrowser(), null));
-
-        if (uiInternals.getConstantPool().hasNewConstants()) {
-            response.put("constants",
-                    uiInternals.getConstantPool().dumpConstants());
-        }
-        if (stateChanges.length() != 0) {
-            response.put("changes", stateChanges);
-        }
+    private void populateExecutionsAndTimings(JsonObject response, UI ui) {
+        UIInternals uiInternals = ui.getInternals();
 
         List<JavaScriptInvocation> executeJavaScriptList = uiInternals
                 .dumpPendingJavaScriptInvocations();
@@ -199,8 +299,6 @@ public class UidlWriter implements Serializable {
                 .isRequestTiming()) {
             response.put("timings", createPerformanceData(ui));
         }
-        uiInternals.incrementServerId();
-        return response;
     }
 
     private static void populateDependencies(JsonObject response,
@@ -297,9 +395,14 @@ public class UidlWriter implements Serializable {
     // non-private for testing purposes
     static JsonArray encodeExecuteJavaScriptList(
             List<JavaScriptInvocation> executeJavaScriptList) {
-        return executeJavaScriptList.stream()
-                .map(UidlWriter::encodeExecuteJavaScript)
-                .collect(JsonUtils.asArray());
+        return executeJavaScriptList.stream().map(invocation -> {
+            if (invocation instanceof SharedJavaScriptInvocation) {
+                // Encoded once for all the UIs it has been broadcast to
+                return ((SharedJavaScriptInvocation) invocation)
+                        .getEncoded(UidlWriter::encodeExecuteJavaScript);
+            }
+            return encodeExecuteJavaScript(invocation);
+        }).collect(JsonUtils.asArray());
     }
 
     private static JsonArray encodeExecuteJavaScript(
@@ -323,11 +426,11 @@ public class UidlWriter implements Serializable {
      *
      * @param ui
      *            the UI
-     * @param stateChanges
-     *            a JSON array to put state changes into
+     * @param changeEncoder
+     *            a consumer encoding each collected change
      * @see StateTree#runExecutionsBeforeClientResponse()
      */
-    private void encodeChanges(UI ui, JsonArray stateChanges) {
+    private void encodeChanges(UI ui, Consumer<NodeChange> changeEncoder) {
         UIInternals uiInternals = ui.getInternals();
         StateTree stateTree = uiInternals.getStateTree();
 
@@ -342,8 +445,7 @@ public class UidlWriter implements Serializable {
             }
 
             // Encode the actual change
-            stateChanges.set(stateChanges.length(),
-                    change.toJson(uiInternals.getConstantPool()));
+            changeEncoder.accept(change);
         });
 
         componentsWithDependencies
@@ -376,6 +478,44 @@ public class UidlWriter implements Serializable {
         return timings;
     }
 
+    /**
+     * Writes encoded changes as the elements of the {@code changes} array of a
+     * UIDL response. The array is only opened once the first change is
+     * encoded, so that no {@code changes} property is written for a response
+     * without changes.
+     */
+    private static class ChangeStreamWriter implements Consumer<NodeChange> {
+        private final Writer writer;
+        private final ConstantPool constantPool;
+        private boolean arrayOpen;
+
+        private ChangeStreamWriter(Writer writer, ConstantPool constantPool) {
+            this.writer = writer;
+            this.constantPool = constantPool;
+        }
+
+        @Override
+        public void accept(NodeChange change) {
+            try {
+                if (arrayOpen) {
+                    writer.write(',');
+                } else {
+                    writer.write(",\"changes\":[");
+                    arrayOpen = true;
+                }
+                writer.write(change.toJson(constantPool).toJson());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void close() throws IOException {
+            if (arrayOpen) {
+                writer.write(']');
+            }
+        }
+    }
+
     private static final Logger getLogger() {
         return LoggerFactory.getLogger(UidlWriter.class.getName());
     }
@@ -0,0 +1,325 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.server.communication.rpc;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.LoggerFactory;
+
+import com.vaadin.flow.component.Component;
+import com.vaadin.flow.component.polymertemplate.PolymerTemplate;
+import com.vaadin.flow.internal.ReflectTools;
+import com.vaadin.flow.internal.StateNode;
+import com.vaadin.flow.templatemodel.ModelType;
+
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+import elemental.json.JsonType;
+import elemental.json.JsonValue;
+
+/**
+ * An {@link com.vaadin.flow.component.polymertemplate.EventHandler} or
+ * {@link com.vaadin.flow.component.ClientCallable} method prepared for being
+ * invoked with arguments received from the client.
+ * <p>
+ * The method is invoked through a {@link MethodHandle} and the decoders for
+ * its parameters are resolved when the instance is created, so that invoking
+ * the method doesn't need any reflection lookups.
+ * <p>
+ * For internal use only. May be renamed or removed in a future release.
+ *
+ * @author Vaadin Ltd
+ * @since
+ */
+final class EventHandlerMethod {
+
+    private static final List<RpcDecoder> DECODERS = loadDecoders();
+
+    /*
+     * The built-in decoders only depend on the JSON type of the value, so
+     * applicable decoders are resolved for each JSON type up front using these
+     * sample values.
+     */
+    private static final JsonValue[] SAMPLE_VALUES = createSampleValues();
+
+    private final Method method;
+
+    // (Object instance, Object[] arguments) -> Object
+    private final MethodHandle invoker;
+
+    private final ParameterDecoder[] parameters;
+
+    /**
+     * Decodes a JSON value received from the client for one method parameter.
+     */
+    private static class ParameterDecoder {
+        private final Method method;
+        private final int index;
+        private final Class<?> type;
+        private final Class<?> convertedType;
+        private final Type genericType;
+        private final ParameterDecoder componentDecoder;
+
+        // Indexed by JsonType ordinal, null if no decoder is applicable
+        private final RpcDecoder[] decoders;
+
+        private ParameterDecoder(Method method, int index, Class<?> type,
+                Type genericType) {
+            this.method = method;
+            this.index = index;
+            this.type = type;
+            this.genericType = genericType;
+            convertedType = ReflectTools.convertPrimitiveType(type);
+
+            if (type.isArray()) {
+                componentDecoder = new ParameterDecoder(method, index,
+                        type.getComponentType(), type.getComponentType());
+                decoders = null;
+            } else {
+                componentDecoder = null;
+                decoders = new RpcDecoder[SAMPLE_VALUES.length];
+                for (int i = 0; i < SAMPLE_VALUES.length; i++) {
+                    JsonValue sample = SAMPLE_VALUES[i];
+                    decoders[i] = DECODERS.stream().filter(
+                            decoder -> decoder.isApplicable(sample,
+                                    convertedType))
+                            .findFirst().orElse(null);
+                }
+            }
+        }
+
+        private Object decode(Component instance, JsonValue argValue) {
+            // come up with method to know that it's an id and should be gotten
+            // from the model
+            assert argValue != null;
+            if (type.isPrimitive() && argValue.getType() == JsonType.NULL) {
+                String msg = String.format(
+                        "Null values are not allowed for primitive types but "
+                                + "a 'null' value was received for parameter %d "
+                                + "which refers to primitive type '%s' "
+                                + "in the method '%s' defined in the class '%s'",
+                        index, type.getName(), method.getName(),
+                        method.getDeclaringClass().getName());
+                throw new IllegalArgumentException(msg);
+            } else if (componentDecoder != null) {
+                return decodeArray(argValue);
+            } else {
+                if (isTemplateModelValue(instance, argValue)) {
+                    return getTemplateItem((PolymerTemplate<?>) instance,
+                            (JsonObject) argValue);
+                }
+
+                RpcDecoder decoder = decoders[argValue.getType().ordinal()];
+                if (decoder != null) {
+                    try {
+                        return decoder.decode(argValue, convertedType);
+                    } catch (RpcDecodeException exception) {
+                        throw new IllegalArgumentException(exception);
+                    }
+                }
+                String msg = String.format("Class '%s' has the method '%s' "
+                        + "whose parameter %d refers to unsupported type '%s'",
+                        method.getDeclaringClass().getName(),
+                        method.getName(), index, type.getName());
+                throw new IllegalArgumentException(msg);
+            }
+        }
+
+        private boolean isTemplateModelValue(Component instance,
+                JsonValue argValue) {
+            return instance instanceof PolymerTemplate
+                    && argValue instanceof JsonObject
+                    && ((PolymerTemplate<?>) instance)
+                            .isSupportedClass(convertedType)
+                    && ((JsonObject) argValue).hasKey("nodeId");
+        }
+
+        private Object getTemplateItem(PolymerTemplate<?> template,
+                JsonObject argValue) {
+            StateNode node = template.getUI().get().getInternals()
+                    .getStateTree()
+                    .getNodeById((int) argValue.getNumber("nodeId"));
+
+            ModelType propertyType = template.getModelType(genericType);
+
+            return propertyType.modelToApplication(node);
+        }
+
+        private Object decodeArray(JsonValue argValue) {
+            if (argValue.getType() != JsonType.ARRAY) {
+                String msg = String.format("Class '%s' has the method '%s' "
+                        + "whose parameter %d refers to the array type '%s' "
+                        + "but received value is not an array, its type is '%s'",
+                        method.getDeclaringClass().getName(),
+                        method.getName(), index, type.getName(),
+                        argValue.getType().name());
+                throw new IllegalArgumentException(msg);
+            }
+            JsonArray array = (JsonArray) argValue;
+            Object result = Array.newInstance(componentDecoder.type,
+                    array.length());
+            for (int i = 0; i < array.length(); i++) {
+                Array.set(result, i, componentDecoder.decode(null, array.get(i)));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Creates a new invocable event handler method.
+     *
+     * @param method
+     *            the method to invoke, not <code>null</code>
+     */
+    EventHandlerMethod(Method method) {
+        this.method = method;
+
+        Class<?>[] types = method.getParameterTypes();
+        Type[] genericTypes = method.getGenericParameterTypes();
+        parameters = new ParameterDecoder[types.length];
+        for (int i = 0; i < types.length; i++) {
+            // Generic parameter types may omit synthetic parameters
+            Type genericType = genericTypes.length == types.length
+                    ? genericTypes[i]
+                    : types[i];
+            parameters[i] = new ParameterDecoder(method, i, types[i],
+                    genericType);
+        }
+
+        try {
+            method.setAccessible(true);
+            MethodHandle handle = MethodHandles.lookup().unreflect(method)
+                    .asFixedArity();
+            if (Modifier.isStatic(method.getModifiers())) {
+                handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            }
+            invoker = handle.asType(handle.type().generic())
+                    .asSpreader(Object[].class, types.length);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Decodes the arguments received from the client and invokes the method.
+     *
+     * @param instance
+     *            the component to invoke the method on, not <code>null</code>
+     * @param args
+     *            the arguments received from the client, not
+     *            <code>null</code>
+     */
+    void invoke(Component instance, JsonArray args) {
+        Object[] decodedArgs = decodeArgs(instance, args);
+        try {
+            Object result = (Object) invoker.invokeExact((Object) instance,
+                    decodedArgs);
+            assert result == null || method.getReturnType() != void.class;
+        } catch (Throwable e) {
+            LoggerFactory.getLogger(
+                    PublishedServerEventHandlerRpcHandler.class.getName())
+                    .debug(null, e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Object[] decodeArgs(Component instance, JsonArray argsFromClient) {
+        int methodArgs = parameters.length;
+        int clientValuesCount = argsFromClient.length();
+        JsonArray argValues;
+        if (method.isVarArgs()) {
+            if (clientValuesCount >= methodArgs - 1) {
+                argValues = unwrapVarArgs(argsFromClient);
+            } else {
+                String msg = String.format(
+                        "The number of received values (%d) is not enough "
+                                + "to call the method '%s' declared in '%s' which "
+                                + "has vararg parameter and the number of arguments %d",
+                        argsFromClient.length(), method.getName(),
+                        method.getDeclaringClass().getName(), methodArgs);
+                throw new IllegalArgumentException(msg);
+            }
+        } else {
+            if (methodArgs == clientValuesCount) {
+                argValues = argsFromClient;
+            } else {
+                String msg = String.format(
+                        "The number of received values (%d) is not equal "
+                                + "to the number of arguments (%d) in the method '%s' "
+                                + "declared in '%s'",
+                        argsFromClient.length(), methodArgs, method.getName(),
+                        method.getDeclaringClass().getName());
+                throw new IllegalArgumentException(msg);
+            }
+        }
+        Object[] decoded = new Object[methodArgs];
+        for (int i = 0; i < argValues.length(); i++) {
+            decoded[i] = parameters[i].decode(instance, argValues.get(i));
+        }
+        return decoded;
+    }
+
+    private JsonArray unwrapVarArgs(JsonArray argsFromClient) {
+        int paramCount = parameters.length;
+        if (argsFromClient.length() == paramCount) {
+            if (argsFromClient.get(paramCount - 1).getType()
+                    .equals(JsonType.ARRAY)) {
+                return argsFromClient;
+            }
+        }
+        JsonArray result = Json.createArray();
+        JsonArray rest = Json.createArray();
+        int newIndex = 0;
+        for (int i = 0; i < argsFromClient.length(); i++) {
+            JsonValue value = argsFromClient.get(i);
+            if (i < paramCount - 1) {
+                result.set(i, value);
+            } else {
+                rest.set(newIndex, value);
+                newIndex++;
+            }
+        }
+        result.set(paramCount - 1, rest);
+        return result;
+    }
+
+    private static JsonValue[] createSampleValues() {
+        JsonValue[] samples = new JsonValue[JsonType.values().length];
+        samples[JsonType.OBJECT.ordinal()] = Json.createObject();
+        samples[JsonType.ARRAY.ordinal()] = Json.createArray();
+        samples[JsonType.STRING.ordinal()] = Json.create("");
+        samples[JsonType.NUMBER.ordinal()] = Json.create(0);
+        samples[JsonType.BOOLEAN.ordinal()] = Json.create(false);
+        samples[JsonType.NULL.ordinal()] = Json.createNull();
+        return samples;
+    }
+
+    private static List<RpcDecoder> loadDecoders() {
+        List<RpcDecoder> decoders = new ArrayList<>();
+        decoders.add(new StringToNumberDecoder());
+        decoders.add(new StringToEnumDecoder());
+        decoders.add(new DefaultRpcDecoder());
+        return decoders;
+    }
+}
@@ -42,7 +42,8 @@ public class AnnotationValidator extends AbstractAnnotationValidator
     @Override
     public void onStartup(Set<Class<?>> classSet, ServletContext servletContext)
             throws ServletException {
-        validateClasses(classSet);
+        validateClasses(StartupIndex.getHandledClasses(classSet,
+                servletContext, AnnotationValidator.class));
     }
 
     @Override
@@ -302,6 +302,17 @@ public class ApplicationRouteRegistry extends AbstractRouteRegistry {
         return Optional.empty();
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Overridden together with {@link #getNavigationTarget(String, List)},
+     * since both look up the routes from the configuration of this registry.
+     */
+    @Override
+    public int getMatchingPathLength(List<String> pathSegments) {
+        return super.getMatchingPathLength(pathSegments);
+    }
+
     /**
      * Check if there are registered navigation targets in the registry.
      *
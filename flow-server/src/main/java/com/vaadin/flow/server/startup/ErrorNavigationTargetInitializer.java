@@ -39,6 +39,8 @@ public class ErrorNavigationTargetInitializer
     @Override
     public void onStartup(Set<Class<?>> classSet, ServletContext servletContext)
             throws ServletException {
+        classSet = StartupIndex.getHandledClasses(classSet, servletContext,
+                ErrorNavigationTargetInitializer.class);
         if (classSet == null) {
             classSet = new HashSet<>();
         }
@@ -37,6 +37,8 @@ public class RouteRegistryInitializer extends AbstractRouteRegistryInitializer
     @Override
     public void onStartup(Set<Class<?>> classSet, ServletContext servletContext)
             throws ServletException {
+        classSet = StartupIndex.getHandledClasses(classSet, servletContext,
+                RouteRegistryInitializer.class);
         try {
             if (classSet == null) {
                 ApplicationRouteRegistry routeRegistry = ApplicationRouteRegistry
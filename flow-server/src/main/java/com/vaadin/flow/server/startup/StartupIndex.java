@@ -0,0 +1,275 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.server.startup;
+
+import javax.servlet.ServletContainerInitializer;
+import javax.servlet.ServletContext;
+import javax.servlet.annotation.HandlesTypes;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.LoggerFactory;
+
+import com.vaadin.flow.server.osgi.OSGiAccess;
+
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+
+/**
+ * Index of the classes handled by the servlet container initializers of Flow,
+ * such as routes, route aliases, error navigation targets and web components.
+ * The index is generated at build time by the {@code generate-startup-index}
+ * goal of the Flow Maven plugin and stored in the {@link #RESOURCE_NAME}
+ * resource.
+ * <p>
+ * When the resource is available from the class loader of the web
+ * application, the initializers use the classes listed in the index instead
+ * of the classes found by the servlet container. The scanning of the
+ * application class path for the {@link HandlesTypes} of the initializers can
+ * then be disabled in the servlet container configuration. Layouts and the PWA
+ * configuration are resolved from the indexed route classes in the same way as
+ * from scanned classes.
+ * <p>
+ * The index is a JSON object with the fully qualified names of the handled
+ * types as keys and arrays of the fully qualified names of the matching
+ * classes as values.
+ * <p>
+ * For internal use only. May be renamed or removed in a future release.
+ *
+ * @author Vaadin Ltd
+ * @since
+ */
+public final class StartupIndex {
+
+    /**
+     * The name of the class path resource containing the index.
+     */
+    public static final String RESOURCE_NAME = "META-INF/VAADIN/flow-startup-index.json";
+
+    /**
+     * The initializers that use the index when it is available.
+     */
+    static final List<Class<? extends ServletContainerInitializer>> INDEXED_INITIALIZERS = Collections
+            .unmodifiableList(Arrays.asList(RouteRegistryInitializer.class,
+                    ErrorNavigationTargetInitializer.class,
+                    AnnotationValidator.class,
+                    WebComponentRegistryInitializer.class));
+
+    private static final String ATTRIBUTE_NAME = StartupIndex.class.getName();
+
+    private final Map<String, List<String>> classNames;
+    private final ClassLoader classLoader;
+
+    private StartupIndex(Map<String, List<String>> classNames,
+            ClassLoader classLoader) {
+        this.classNames = classNames;
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * Gets the names of the types that are handled by the initializers using
+     * the index. The index should contain an entry for each of the types.
+     *
+     * @return the fully qualified names of the indexed types, not
+     *         <code>null</code>
+     */
+    public static Set<String> getIndexedTypeNames() {
+        Set<String> typeNames = new LinkedHashSet<>();
+        for (Class<?> initializer : INDEXED_INITIALIZERS) {
+            Stream.of(initializer.getAnnotation(HandlesTypes.class).value())
+                    .map(Class::getName).forEach(typeNames::add);
+        }
+        return typeNames;
+    }
+
+    /**
+     * Creates the JSON representation of an index. The types and classes are
+     * sorted so that the same index always has the same representation.
+     *
+     * @param classNames
+     *            the names of the classes matching each indexed type, with the
+     *            type names as keys, not <code>null</code>
+     * @return the index as a JSON string
+     */
+    public static String toJson(
+            Map<String, ? extends Collection<String>> classNames) {
+        JsonObject json = Json.createObject();
+        new TreeMap<>(classNames).forEach((typeName, typeClassNames) -> {
+            JsonArray array = Json.createArray();
+            for (String className : new TreeSet<>(typeClassNames)) {
+                array.set(array.length(), className);
+            }
+            json.put(typeName, array);
+        });
+        return json.toJson();
+    }
+
+    /**
+     * Reads an index.
+     *
+     * @param inputStream
+     *            the stream to read the JSON representation of the index from,
+     *            not <code>null</code>
+     * @param classLoader
+     *            the class loader to load the indexed classes with, not
+     *            <code>null</code>
+     * @return the index, not <code>null</code>
+     * @throws IOException
+     *             if reading the stream fails
+     */
+    public static StartupIndex read(InputStream inputStream,
+            ClassLoader classLoader) throws IOException {
+        JsonObject json = Json
+                .parse(IOUtils.toString(inputStream, StandardCharsets.UTF_8));
+        Map<String, List<String>> classNames = new HashMap<>();
+        for (String typeName : json.keys()) {
+            JsonArray array = json.getArray(typeName);
+            String[] typeClassNames = new String[array.length()];
+            for (int i = 0; i < array.length(); i++) {
+                typeClassNames[i] = array.getString(i);
+            }
+            classNames.put(typeName, Arrays.asList(typeClassNames));
+        }
+        return new StartupIndex(classNames, classLoader);
+    }
+
+    /**
+     * Gets the index available for the given servlet context. The index is
+     * read only once for each context.
+     *
+     * @param servletContext
+     *            the servlet context, not <code>null</code>
+     * @return the index, or <code>null</code> if there is no index for the
+     *         context
+     */
+    static StartupIndex get(ServletContext servletContext) {
+        if (servletContext == OSGiAccess.getInstance()
+                .getOsgiServletContext()) {
+            // Classes are collected from the bundles in OSGi
+            return null;
+        }
+        Object attribute = servletContext.getAttribute(ATTRIBUTE_NAME);
+        if (attribute == null) {
+            StartupIndex index = load(getClassLoader(servletContext));
+            attribute = index == null ? Boolean.FALSE : index;
+            servletContext.setAttribute(ATTRIBUTE_NAME, attribute);
+        }
+        return attribute instanceof StartupIndex ? (StartupIndex) attribute
+                : null;
+    }
+
+    /**
+     * Gets the classes that the given initializer should handle. The classes
+     * are taken from the index if there is one for the servlet context,
+     * otherwise the classes found by the servlet container are used.
+     *
+     * @param classSet
+     *            the classes found by the servlet container, may be
+     *            <code>null</code>
+     * @param servletContext
+     *            the servlet context, not <code>null</code>
+     * @param initializer
+     *            the initializer class, annotated with {@link HandlesTypes}
+     * @return the classes to handle, may be <code>null</code> if the servlet
+     *         container found no classes and there is no index
+     */
+    static Set<Class<?>> getHandledClasses(Set<Class<?>> classSet,
+            ServletContext servletContext,
+            Class<? extends ServletContainerInitializer> initializer) {
+        StartupIndex index = get(servletContext);
+        if (index == null) {
+            return classSet;
+        }
+        return index.getClasses(
+                initializer.getAnnotation(HandlesTypes.class).value());
+    }
+
+    /**
+     * Gets the indexed classes matching any of the given types.
+     *
+     * @param types
+     *            the annotations or super types to get the classes for
+     * @return the matching classes, not <code>null</code>
+     * @throws IllegalStateException
+     *             if an indexed class cannot be loaded
+     */
+    public Set<Class<?>> getClasses(Class<?>... types) {
+        Set<Class<?>> classes = new HashSet<>();
+        for (Class<?> type : types) {
+            for (String className : classNames.getOrDefault(type.getName(),
+                    Collections.emptyList())) {
+                classes.add(loadClass(className));
+            }
+        }
+        return classes;
+    }
+
+    private Class<?> loadClass(String className) {
+        try {
+            return Class.forName(className, false, classLoader);
+        } catch (ClassNotFoundException | LinkageError e) {
+            throw new IllegalStateException(String.format(
+                    "Failed to load class '%s' listed in the startup index '%s'. "
+                            + "Rebuild the application to regenerate the index.",
+                    className, RESOURCE_NAME), e);
+        }
+    }
+
+    private static StartupIndex load(ClassLoader classLoader) {
+        URL resource = classLoader.getResource(RESOURCE_NAME);
+        if (resource == null) {
+            return null;
+        }
+        try (InputStream inputStream = resource.openStream()) {
+            StartupIndex index = read(inputStream, classLoader);
+            LoggerFactory.getLogger(StartupIndex.class).debug(
+                    "Using the startup index '{}' instead of the classes found by the servlet container",
+                    resource);
+            return index;
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format(
+                    "Failed to read the startup index '%s'", resource), e);
+        }
+    }
+
+    private static ClassLoader getClassLoader(ServletContext servletContext) {
+        ClassLoader classLoader = servletContext.getClassLoader();
+        if (classLoader == null) {
+            classLoader = Thread.currentThread().getContextClassLoader();
+        }
+        if (classLoader == null) {
+            classLoader = StartupIndex.class.getClassLoader();
+        }
+        return classLoader;
+    }
+}
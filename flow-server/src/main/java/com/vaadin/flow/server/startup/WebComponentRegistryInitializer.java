@@ -48,6 +48,8 @@ public class WebComponentRegistryInitializer
     @Override
     public void onStartup(Set<Class<?>> set, ServletContext servletContext)
             throws ServletException {
+        set = StartupIndex.getHandledClasses(set, servletContext,
+                WebComponentRegistryInitializer.class);
         WebComponentRegistry instance = WebComponentRegistry
                 .getInstance(servletContext);
         if (set == null || set.isEmpty()) {
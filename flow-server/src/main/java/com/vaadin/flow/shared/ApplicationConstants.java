@@ -185,4 +185,16 @@ public class ApplicationConstants implements Serializable {
      */
     public static final String FRONTEND_URL_ES5 = "frontendUrlEs5";
 
+    /**
+     * Configuration parameter for the fraction of page loads for which the
+     * client engine collects performance metrics.
+     */
+    public static final String CLIENT_METRICS_SAMPLE_RATE = "clientMetricsSampleRate";
+
+    /**
+     * The name of the parameter used to transmit client engine performance
+     * metrics along with the RPC invocations.
+     */
+    public static final String CLIENT_METRICS = "metrics";
+
 }
@@ -303,4 +303,39 @@ public class JsonConstants implements Serializable {
      * start of a valid JS expression.
      */
     public static final String SYNCHRONIZE_PROPERTY_TOKEN = "}";
+
+    /**
+     * Key holding the message processing times, in milliseconds, in the client
+     * metrics.
+     */
+    public static final String METRICS_PROCESSING_TIMES = "processing";
+
+    /**
+     * Key holding the bootstrap time, in milliseconds, in the client metrics.
+     */
+    public static final String METRICS_BOOTSTRAP_TIME = "bootstrap";
+
+    /**
+     * Key holding the total time spent in each profiler block, in
+     * milliseconds, in the client metrics.
+     */
+    public static final String METRICS_PROFILER_TOTALS = "profiler";
+
+    /**
+     * Key holding the number of message processing times that were not sent
+     * because there were too many of them, in the client metrics.
+     */
+    public static final String METRICS_DROPPED_COUNT = "dropped";
+
+    /**
+     * The maximum number of message processing times sent in the client
+     * metrics of one request.
+     */
+    public static final int METRICS_MAX_PROCESSING_TIMES = 20;
+
+    /**
+     * The minimum time, in milliseconds, between two requests that include
+     * client metrics. The client keeps collecting metrics in between.
+     */
+    public static final int METRICS_MIN_SEND_INTERVAL = 1000;
 }
@@ -3,17 +3,27 @@ package com.vaadin.flow.component.internal;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 
+import com.vaadin.flow.component.PushConfiguration;
 import com.vaadin.flow.component.UI;
 import com.vaadin.flow.dom.Element;
+import com.vaadin.flow.server.Command;
 import com.vaadin.flow.server.VaadinService;
+import com.vaadin.flow.server.VaadinSession;
 import com.vaadin.flow.shared.Registration;
 import com.vaadin.tests.util.AlwaysLockedVaadinSession;
 
@@ -57,4 +67,136 @@ public class UIInternalsTest {
                 "Heartbeat listener should been removed and no new event recorded",
                 1, heartbeats.size());
     }
+
+    @Test
+    public void noCoalescingInterval_pushedEveryTime() {
+        PushConfiguration pushConfiguration = Mockito
+                .mock(PushConfiguration.class);
+        Mockito.when(ui.getPushConfiguration()).thenReturn(pushConfiguration);
+
+        internals.pushCoalesced();
+        internals.pushCoalesced();
+
+        Mockito.verify(ui, Mockito.times(2)).push();
+        Assert.assertEquals(0, internals.getMergedPushCount());
+    }
+
+    @Test
+    public void coalescingInterval_pushesWithinIntervalMerged()
+            throws InterruptedException {
+        PushConfiguration pushConfiguration = Mockito
+                .mock(PushConfiguration.class);
+        Mockito.when(pushConfiguration.getCoalescingInterval())
+                .thenReturn(50);
+        Mockito.when(ui.getPushConfiguration()).thenReturn(pushConfiguration);
+        ScheduledExecutorService scheduler = Mockito
+                .mock(ScheduledExecutorService.class);
+        Mockito.when(vaadinService.getPushScheduler()).thenReturn(scheduler);
+        Executor directExecutor = Runnable::run;
+        Mockito.when(vaadinService.getPushExecutor())
+                .thenReturn(directExecutor);
+        internals.getStateTree().getRootNode().markAsDirty();
+
+        internals.pushCoalesced();
+        internals.pushCoalesced();
+        internals.pushCoalesced();
+
+        Mockito.verify(ui, Mockito.times(1)).push();
+        Assert.assertEquals(2, internals.getMergedPushCount());
+
+        ArgumentCaptor<Runnable> scheduledPush = ArgumentCaptor
+                .forClass(Runnable.class);
+        ArgumentCaptor<Long> delay = ArgumentCaptor.forClass(Long.class);
+        Mockito.verify(scheduler).schedule(scheduledPush.capture(),
+                delay.capture(), Mockito.eq(TimeUnit.NANOSECONDS));
+        Assert.assertTrue("Push should be delayed at most by the interval",
+                delay.getValue() > 0
+                        && delay.getValue() <= TimeUnit.MILLISECONDS
+                                .toNanos(50));
+
+        Thread.sleep(TimeUnit.NANOSECONDS.toMillis(delay.getValue()) + 1);
+        scheduledPush.getValue().run();
+        ArgumentCaptor<Command> access = ArgumentCaptor
+                .forClass(Command.class);
+        Mockito.verify(vaadinService).accessSession(
+                Mockito.any(VaadinSession.class), access.capture());
+        access.getValue().execute();
+        // Called when the session is unlocked after the access task
+        internals.pushCoalesced();
+
+        Mockito.verify(ui, Mockito.times(2)).push();
+        Assert.assertEquals(2, internals.getMergedPushCount());
+    }
+
+    @Test
+    public void coalescingInterval_slowSessionAccess_otherSessionPushedOnTime()
+            throws InterruptedException {
+        ScheduledExecutorService scheduler = Executors
+                .newSingleThreadScheduledExecutor();
+        ExecutorService executor = Executors.newCachedThreadPool();
+        Mockito.when(vaadinService.getPushScheduler()).thenReturn(scheduler);
+        Mockito.when(vaadinService.getPushExecutor()).thenReturn(executor);
+
+        UIInternals otherInternals = new UIInternals(createCoalescingUI());
+        otherInternals
+                .setSession(new AlwaysLockedVaadinSession(vaadinService));
+        Mockito.when(ui.getPushConfiguration())
+                .thenReturn(createCoalescingConfiguration());
+
+        CountDownLatch slowAccessStarted = new CountDownLatch(1);
+        CountDownLatch releaseSlowAccess = new CountDownLatch(1);
+        CountDownLatch otherAccessed = new CountDownLatch(1);
+        // Accessing an unlocked session runs its pending tasks in the calling
+        // thread, one of which blocks
+        Mockito.doAnswer(invocation -> {
+            slowAccessStarted.countDown();
+            releaseSlowAccess.await();
+            return null;
+        }).when(vaadinService).accessSession(
+                Mockito.same(internals.getSession()),
+                Mockito.any(Command.class));
+        Mockito.doAnswer(invocation -> {
+            otherAccessed.countDown();
+            return null;
+        }).when(vaadinService).accessSession(
+                Mockito.same(otherInternals.getSession()),
+                Mockito.any(Command.class));
+
+        try {
+            // The first push is made right away and the second one delayed
+            internals.getStateTree().getRootNode().markAsDirty();
+            internals.pushCoalesced();
+            internals.pushCoalesced();
+            otherInternals.getStateTree().getRootNode().markAsDirty();
+            otherInternals.pushCoalesced();
+            otherInternals.pushCoalesced();
+
+            Assert.assertTrue("Delayed push of the slow session should start",
+                    slowAccessStarted.await(5, TimeUnit.SECONDS));
+            Assert.assertTrue(
+                    "Delayed push of the other session should not wait for the slow session",
+                    otherAccessed.await(5, TimeUnit.SECONDS));
+        } finally {
+            releaseSlowAccess.countDown();
+            scheduler.shutdownNow();
+            executor.shutdownNow();
+        }
+    }
+
+    private UI createCoalescingUI() {
+        UI otherUI = Mockito.mock(UI.class);
+        Mockito.when(otherUI.getUI()).thenReturn(Optional.of(otherUI));
+        Mockito.when(otherUI.getElement()).thenReturn(new Element("body"));
+        Mockito.when(otherUI.getPushConfiguration())
+                .thenReturn(createCoalescingConfiguration());
+        return otherUI;
+    }
+
+    private static PushConfiguration createCoalescingConfiguration() {
+        PushConfiguration pushConfiguration = Mockito
+                .mock(PushConfiguration.class);
+        Mockito.when(pushConfiguration.getCoalescingInterval())
+                .thenReturn(50);
+        return pushConfiguration;
+    }
 }
@@ -0,0 +1,474 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.internal;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+
+import com.vaadin.flow.internal.ByteRangeWriter.ByteRange;
+import com.vaadin.flow.internal.ResponseWriterTest.CapturingServletOutputStream;
+
+public class ByteRangeWriterTest {
+
+    private static final byte[] DATA = "0123456789abcdefghij"
+            .getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+    private CapturingServletOutputStream out;
+    private Map<String, String> headers;
+    private AtomicInteger status;
+    private AtomicLong contentLength;
+
+    @Before
+    public void setUp() throws IOException {
+        request = Mockito.mock(HttpServletRequest.class);
+        Mockito.when(request.getMethod()).thenReturn("GET");
+
+        response = Mockito.mock(HttpServletResponse.class);
+        out = new CapturingServletOutputStream();
+        Mockito.when(response.getOutputStream()).thenReturn(out);
+        Mockito.when(response.getContentType()).thenReturn("text/plain");
+
+        headers = new HashMap<>();
+        Mockito.doAnswer(invocation -> {
+            headers.put((String) invocation.getArguments()[0],
+                    (String) invocation.getArguments()[1]);
+            return null;
+        }).when(response).setHeader(Matchers.anyString(), Matchers.anyString());
+        Mockito.doAnswer(invocation -> {
+            headers.put("Content-Type", (String) invocation.getArguments()[0]);
+            return null;
+        }).when(response).setContentType(Matchers.anyString());
+
+        status = new AtomicInteger(HttpServletResponse.SC_OK);
+        Mockito.doAnswer(invocation -> {
+            status.set((int) invocation.getArguments()[0]);
+            return null;
+        }).when(response).setStatus(Matchers.anyInt());
+
+        contentLength = new AtomicLong(-1);
+        Mockito.doAnswer(invocation -> {
+            contentLength.set((long) invocation.getArguments()[0]);
+            return null;
+        }).when(response).setContentLengthLong(Matchers.anyLong());
+    }
+
+    @Test
+    public void parseRanges_validSpecs() {
+        assertRanges(ByteRangeWriter.parseRanges("bytes=0-4", 20), 0, 4);
+        assertRanges(ByteRangeWriter.parseRanges("bytes=15-", 20), 15, 19);
+        assertRanges(ByteRangeWriter.parseRanges("bytes=-5", 20), 15, 19);
+        assertRanges(ByteRangeWriter.parseRanges("bytes=-50", 20), 0, 19);
+        assertRanges(ByteRangeWriter.parseRanges("bytes=10-100", 20), 10,
+                19);
+        assertRanges(ByteRangeWriter.parseRanges("Bytes= 0-1, 5-6 ", 20), 0,
+                1, 5, 6);
+        // Unsatisfiable ranges are dropped
+        assertRanges(ByteRangeWriter.parseRanges("bytes=30-40,2-3", 20), 2,
+                3);
+    }
+
+    @Test
+    public void parseRanges_invalidSpecs_ignored() {
+        Assert.assertNull(ByteRangeWriter.parseRanges(null, 20));
+        Assert.assertNull(ByteRangeWriter.parseRanges("items=0-1", 20));
+        Assert.assertNull(ByteRangeWriter.parseRanges("bytes=5-1", 20));
+        Assert.assertNull(ByteRangeWriter.parseRanges("bytes=a-b", 20));
+        Assert.assertNull(ByteRangeWriter.parseRanges("bytes=1", 20));
+        Assert.assertNull(ByteRangeWriter.parseRanges("bytes=-", 20));
+    }
+
+    @Test
+    public void parseRanges_overlappingRanges_merged() {
+        assertRanges(ByteRangeWriter.parseRanges("bytes=10-15,0-3,2-5", 20),
+                0, 5, 10, 15);
+    }
+
+    @Test
+    public void parseRanges_tooManyRanges_merged() {
+        StringBuilder header = new StringBuilder("bytes=");
+        for (int i = 0; i <= ByteRangeWriter.MAX_RANGES; i++) {
+            header.append(i * 2).append('-').append(i * 2).append(',');
+        }
+        assertRanges(ByteRangeWriter.parseRanges(header.toString(), 100), 0,
+                ByteRangeWriter.MAX_RANGES * 2);
+    }
+
+    @Test
+    public void write_noRange_allDataWritten() throws IOException {
+        ByteRangeWriter.write(request, response, ByteRangeSource.of(DATA));
+
+        Assert.assertEquals(HttpServletResponse.SC_OK, status.get());
+        Assert.assertEquals("bytes", headers.get("Accept-Ranges"));
+        Assert.assertEquals(DATA.length, contentLength.get());
+        Assert.assertArrayEquals(DATA, out.getOutput());
+    }
+
+    @Test
+    public void write_singleRange_partialContent() throws IOException {
+        Mockito.when(request.getHeader("Range")).thenReturn("bytes=5-9");
+
+        ByteRangeWriter.write(request, response, ByteRangeSource.of(DATA));
+
+        Assert.assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT,
+                status.get());
+        Assert.assertEquals("bytes 5-9/20", headers.get("Content-Range"));
+        Assert.assertEquals(5, contentLength.get());
+        Assert.assertEquals("56789", getOutput());
+    }
+
+    @Test
+    public void write_multipleRanges_multipartContent() throws IOException {
+        Mockito.when(request.getHeader("Range"))
+                .thenReturn("bytes=0-1,-2");
+
+        ByteRangeWriter.write(request, response, ByteRangeSource.of(DATA));
+
+        Assert.assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT,
+                status.get());
+        String contentType = headers.get("Content-Type");
+        Assert.assertTrue(
+                contentType.startsWith("multipart/byteranges; boundary="));
+        String boundary = contentType.substring(contentType.indexOf('=') + 1);
+
+        String expected = "\r\n--" + boundary + "\r\n"
+                + "Content-Type: text/plain\r\n"
+                + "Content-Range: bytes 0-1/20\r\n\r\n01" + "\r\n--"
+                + boundary + "\r\n" + "Content-Type: text/plain\r\n"
+                + "Content-Range: bytes 18-19/20\r\n\r\nij" + "\r\n--"
+                + boundary + "--\r\n";
+        Assert.assertEquals(expected, getOutput());
+        Assert.assertEquals(out.getOutput().length, contentLength.get());
+    }
+
+    @Test
+    public void write_unsatisfiableRange_rangeNotSatisfiable()
+            throws IOException {
+        Mockito.when(request.getHeader("Range")).thenReturn("bytes=20-");
+
+        ByteRangeWriter.write(request, response, ByteRangeSource.of(DATA));
+
+        Assert.assertEquals(
+                HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE,
+                status.get());
+        Assert.assertEquals("bytes */20", headers.get("Content-Range"));
+        Assert.assertEquals(0, out.getOutput().length);
+    }
+
+    @Test
+    public void write_ifRangeNotMatchingOrNotGet_allDataWritten()
+            throws IOException {
+        Mockito.when(request.getHeader("Range")).thenReturn("bytes=5-9");
+        Mockito.when(request.getHeader("If-Range")).thenReturn("\"etag\"");
+        Mockito.when(response.getHeader("ETag")).thenReturn("\"other\"");
+
+        ByteRangeWriter.write(request, response, ByteRangeSource.of(DATA));
+        Assert.assertEquals(HttpServletResponse.SC_OK, status.get());
+        Assert.assertArrayEquals(DATA, out.getOutput());
+
+        Mockito.when(request.getHeader("If-Range")).thenReturn(null);
+        Mockito.when(request.getMethod()).thenReturn("POST");
+        out = new CapturingServletOutputStream();
+        Mockito.when(response.getOutputStream()).thenReturn(out);
+
+        ByteRangeWriter.write(request, response, ByteRangeSource.of(DATA));
+        Assert.assertEquals(HttpServletResponse.SC_OK, status.get());
+        Assert.assertArrayEquals(DATA, out.getOutput());
+    }
+
+    @Test
+    public void write_ifRangeMatchingETag_partialContent() throws IOException {
+        Mockito.when(request.getHeader("Range")).thenReturn("bytes=5-9");
+        Mockito.when(request.getHeader("If-Range")).thenReturn("\"etag\"");
+        Mockito.when(response.getHeader("ETag")).thenReturn("\"etag\"");
+
+        ByteRangeWriter.write(request, response, ByteRangeSource.of(DATA));
+
+        Assert.assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT,
+                status.get());
+        Assert.assertEquals("56789", getOutput());
+    }
+
+    @Test
+    public void isIfRangeMatching_strongComparison() {
+        String date = "Sun, 18 Oct 2026 13:53:07 GMT";
+        String etag = "\"a\"";
+
+        Assert.assertTrue(ByteRangeWriter.isIfRangeMatching(null, null, null));
+        Assert.assertTrue(ByteRangeWriter.isIfRangeMatching(etag, etag, date));
+        Assert.assertTrue(ByteRangeWriter.isIfRangeMatching(date, null, date));
+
+        // Weak entity tags never match
+        Assert.assertFalse(ByteRangeWriter.isIfRangeMatching("W/" + etag,
+                "W/" + etag, date));
+        Assert.assertFalse(
+                ByteRangeWriter.isIfRangeMatching(etag, "W/" + etag, date));
+
+        Assert.assertFalse(
+                ByteRangeWriter.isIfRangeMatching(etag, "\"b\"", date));
+        Assert.assertFalse(ByteRangeWriter.isIfRangeMatching(etag, null, date));
+        Assert.assertFalse(ByteRangeWriter.isIfRangeMatching(
+                "Sun, 18 Oct 2026 13:53:08 GMT", etag, date));
+        Assert.assertFalse(ByteRangeWriter.isIfRangeMatching(date, etag, null));
+        Assert.assertFalse(
+                ByteRangeWriter.isIfRangeMatching("yesterday", null, date));
+    }
+
+    @Test
+    public void write_unknownLength_allDataWrittenWithoutRanges()
+            throws IOException {
+        Mockito.when(request.getHeader("Range")).thenReturn("bytes=5-9");
+
+        ByteRangeWriter.write(request, response, ByteRangeSource.of(-1,
+                new ByteArrayInputStream(DATA), () -> {
+                    throw new IOException("Should not reopen");
+                }));
+
+        Assert.assertEquals(HttpServletResponse.SC_OK, status.get());
+        Assert.assertNull(headers.get("Accept-Ranges"));
+        Assert.assertArrayEquals(DATA, out.getOutput());
+    }
+
+    @Test
+    public void write_streamSource_rangesInReverseOrder_streamReopened()
+            throws IOException {
+        Mockito.when(request.getHeader("Range"))
+                .thenReturn("bytes=10-11,2-3");
+        AtomicInteger opened = new AtomicInteger();
+
+        ByteRangeWriter.write(request, response,
+                ByteRangeSource.of(DATA.length, null, () -> {
+                    opened.incrementAndGet();
+                    return new ByteArrayInputStream(DATA);
+                }));
+
+        Assert.assertEquals(2, opened.get());
+        String output = getOutput();
+        Assert.assertTrue(output.contains("bytes 10-11/20\r\n\r\nab\r\n"));
+        Assert.assertTrue(output.contains("bytes 2-3/20\r\n\r\n23\r\n"));
+        Assert.assertTrue(output.indexOf("ab") < output.indexOf("23"));
+    }
+
+    @Test
+    public void write_fileSource_rangeTransferred() throws IOException {
+        File file = temporaryFolder.newFile();
+        Files.write(file.toPath(), DATA);
+        Mockito.when(request.getHeader("Range")).thenReturn("bytes=-3");
+
+        try (ByteRangeSource source = ByteRangeSource.of(
+                FileChannel.open(file.toPath(), StandardOpenOption.READ))) {
+            ByteRangeWriter.write(request, response, source);
+        }
+
+        Assert.assertEquals("bytes 17-19/20", headers.get("Content-Range"));
+        Assert.assertEquals("hij", getOutput());
+    }
+
+    @Test
+    public void writeAsync_multipleRanges_writtenWhenClientIsReady()
+            throws IOException {
+        Mockito.when(request.getHeader("Range")).thenReturn("bytes=0-1,-2");
+        AsyncContext asyncContext = Mockito.mock(AsyncContext.class);
+        Mockito.when(request.startAsync()).thenReturn(asyncContext);
+        AtomicBoolean completed = new AtomicBoolean();
+        Mockito.doAnswer(invocation -> {
+            completed.set(true);
+            return null;
+        }).when(asyncContext).complete();
+        SlowClientOutputStream slowOut = new SlowClientOutputStream();
+        Mockito.when(response.getOutputStream()).thenReturn(slowOut);
+
+        ByteRangeWriter.writeAsync(request, response,
+                ByteRangeSource.of(DATA));
+
+        Assert.assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT,
+                status.get());
+        Assert.assertEquals(0, slowOut.getOutput().length);
+
+        int receives = 0;
+        while (!completed.get()) {
+            Assert.assertTrue("The response should have been completed",
+                    receives++ < 10);
+            slowOut.receive();
+        }
+
+        Assert.assertEquals(contentLength.get(), slowOut.getOutput().length);
+        Mockito.verify(asyncContext).complete();
+        // Data in memory is read in the write callbacks
+        Mockito.verify(asyncContext, Mockito.never())
+                .start(Matchers.any(Runnable.class));
+        String output = new String(slowOut.getOutput(),
+                StandardCharsets.UTF_8);
+        Assert.assertTrue(output.contains("bytes 0-1/20\r\n\r\n01\r\n"));
+        Assert.assertTrue(output.contains("bytes 18-19/20\r\n\r\nij\r\n"));
+    }
+
+    @Test
+    public void writeAsync_largeStreamData_readAheadOutsideWriteCallbacks()
+            throws IOException {
+        byte[] data = new byte[AsyncPartWriter.CHUNK_SIZE * 3 + 5];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        AsyncContext asyncContext = Mockito.mock(AsyncContext.class);
+        Mockito.when(request.startAsync()).thenReturn(asyncContext);
+        List<Runnable> reads = new ArrayList<>();
+        Mockito.doAnswer(invocation -> {
+            reads.add((Runnable) invocation.getArguments()[0]);
+            return null;
+        }).when(asyncContext).start(Matchers.any(Runnable.class));
+        SlowClientOutputStream slowOut = new SlowClientOutputStream();
+        Mockito.when(response.getOutputStream()).thenReturn(slowOut);
+        AtomicBoolean callback = new AtomicBoolean();
+        InputStream stream = new ByteArrayInputStream(data) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                Assert.assertFalse("Read in a write callback",
+                        callback.get());
+                return super.read(b, off, len);
+            }
+        };
+
+        ByteRangeWriter.writeAsync(request, response,
+                ByteRangeSource.of(-1, stream, () -> {
+                    throw new IOException("Should not reopen");
+                }));
+
+        int writes = 0;
+        while (slowOut.getOutput().length < data.length) {
+            callback.set(true);
+            slowOut.receive();
+            callback.set(false);
+            Assert.assertEquals(1, reads.size());
+            reads.remove(0).run();
+            writes++;
+        }
+        Mockito.verify(asyncContext, Mockito.never()).complete();
+        slowOut.receive();
+        reads.remove(0).run();
+
+        Assert.assertEquals(4, writes);
+        Assert.assertTrue(reads.isEmpty());
+        Mockito.verify(asyncContext).complete();
+        Assert.assertArrayEquals(data, slowOut.getOutput());
+    }
+
+    /**
+     * A servlet output stream for a client that receives the data slowly: the
+     * stream accepts a single write each time the client has received the
+     * previous data using {@link #receive()}.
+     */
+    public static class SlowClientOutputStream extends ServletOutputStream {
+        private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+        private WriteListener listener;
+        private boolean ready;
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len)
+                throws IOException {
+            if (!ready) {
+                throw new IllegalStateException(
+                        "Written to the stream when it is not ready");
+            }
+            data.write(b, off, len);
+            ready = false;
+        }
+
+        @Override
+        public synchronized void setWriteListener(
+                WriteListener writeListener) {
+            listener = writeListener;
+        }
+
+        @Override
+        public synchronized boolean isReady() {
+            return ready;
+        }
+
+        /**
+         * Simulates the client receiving the previously written data, which
+         * makes the stream ready for the next write.
+         *
+         * @throws IOException
+         *             if the write listener fails
+         */
+        public void receive() throws IOException {
+            WriteListener writeListener;
+            synchronized (this) {
+                ready = true;
+                writeListener = listener;
+            }
+            if (writeListener != null) {
+                writeListener.onWritePossible();
+            }
+        }
+
+        public synchronized byte[] getOutput() {
+            return data.toByteArray();
+        }
+    }
+
+    private String getOutput() {
+        return new String(out.getOutput(), StandardCharsets.UTF_8);
+    }
+
+    private static void assertRanges(List<ByteRange> ranges,
+            long... expected) {
+        Assert.assertNotNull(ranges);
+        Assert.assertEquals(expected.length / 2, ranges.size());
+        for (int i = 0; i < ranges.size(); i++) {
+            Assert.assertEquals(expected[i * 2], ranges.get(i).getFirst());
+            Assert.assertEquals(expected[i * 2 + 1], ranges.get(i).getLast());
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.internal;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import elemental.json.JsonArray;
+import elemental.json.JsonException;
+import elemental.json.JsonObject;
+import elemental.json.JsonType;
+import elemental.json.JsonValue;
+
+public class JsonStreamReaderTest {
+
+    @Test
+    public void readObject_membersAndValues() throws IOException {
+        JsonStreamReader reader = reader(
+                " { \"a\" : 1, \"b\\\"c\": \"x,}]\\\"\", \"d\":[1, {\"e\": [2]}],"
+                        + "\"f\": null, \"g\": true } ");
+
+        reader.beginObject();
+        Assert.assertTrue(reader.hasNext());
+        Assert.assertEquals("a", reader.nextName());
+        Assert.assertEquals(1, reader.<JsonValue> nextValue().asNumber(), 0);
+        Assert.assertTrue(reader.hasNext());
+        Assert.assertEquals("b\"c", reader.nextName());
+        Assert.assertEquals("x,}]\"",
+                reader.<JsonValue> nextValue().asString());
+        Assert.assertTrue(reader.hasNext());
+        Assert.assertEquals("d", reader.nextName());
+        JsonArray array = reader.nextValue();
+        Assert.assertEquals(2, array.length());
+        Assert.assertEquals(2,
+                array.getObject(1).getArray("e").getNumber(0), 0);
+        Assert.assertTrue(reader.hasNext());
+        Assert.assertEquals("f", reader.nextName());
+        Assert.assertEquals(JsonType.NULL,
+                reader.<JsonValue> nextValue().getType());
+        Assert.assertTrue(reader.hasNext());
+        Assert.assertEquals("g", reader.nextName());
+        Assert.assertTrue(reader.<JsonValue> nextValue().asBoolean());
+        Assert.assertFalse(reader.hasNext());
+        reader.endObject();
+        reader.endDocument();
+    }
+
+    @Test
+    public void readArray_elementsOneByOne() throws IOException {
+        JsonStreamReader reader = reader(
+                "{\"rpc\":[{\"a\":1},{\"a\":2}],\"b\":3}");
+
+        reader.beginObject();
+        Assert.assertTrue(reader.hasNext());
+        Assert.assertEquals("rpc", reader.nextName());
+        reader.beginArray();
+        int count = 0;
+        while (reader.hasNext()) {
+            JsonObject element = reader.nextValue();
+            Assert.assertEquals(++count, element.getNumber("a"), 0);
+        }
+        reader.endArray();
+        Assert.assertEquals(2, count);
+        Assert.assertTrue(reader.hasNext());
+        Assert.assertEquals("b", reader.nextName());
+        Assert.assertEquals(3, reader.<JsonValue> nextValue().asNumber(), 0);
+        Assert.assertFalse(reader.hasNext());
+        reader.endObject();
+        reader.endDocument();
+    }
+
+    @Test
+    public void emptyInput_noContent() throws IOException {
+        Assert.assertFalse(reader("").hasContent());
+        Assert.assertFalse(reader(" \n").hasContent());
+        Assert.assertTrue(reader(" {}").hasContent());
+    }
+
+    @Test
+    public void emptyObjectAndArray() throws IOException {
+        JsonStreamReader reader = reader("{\"a\":[]}");
+        reader.beginObject();
+        Assert.assertTrue(reader.hasNext());
+        reader.nextName();
+        reader.beginArray();
+        Assert.assertFalse(reader.hasNext());
+        reader.endArray();
+        Assert.assertFalse(reader.hasNext());
+        reader.endObject();
+        reader.endDocument();
+    }
+
+    @Test(expected = JsonException.class)
+    public void missingComma_throws() throws IOException {
+        JsonStreamReader reader = reader("{\"a\":1 \"b\":2}");
+        reader.beginObject();
+        reader.hasNext();
+        reader.nextName();
+        reader.nextValue();
+        reader.hasNext();
+    }
+
+    @Test(expected = JsonException.class)
+    public void trailingComma_throws() throws IOException {
+        JsonStreamReader reader = reader("[1,]");
+        reader.beginArray();
+        reader.hasNext();
+        reader.nextValue();
+        reader.hasNext();
+    }
+
+    @Test(expected = JsonException.class)
+    public void unterminatedArray_throws() throws IOException {
+        JsonStreamReader reader = reader("[1");
+        reader.beginArray();
+        reader.hasNext();
+        reader.nextValue();
+        reader.hasNext();
+    }
+
+    @Test(expected = JsonException.class)
+    public void contentAfterDocument_throws() throws IOException {
+        JsonStreamReader reader = reader("{} {}");
+        reader.beginObject();
+        reader.endObject();
+        reader.endDocument();
+    }
+
+    @Test(expected = JsonException.class)
+    public void invalidValue_throws() throws IOException {
+        JsonStreamReader reader = reader("[{\"a\":}]");
+        reader.beginArray();
+        reader.hasNext();
+        reader.nextValue();
+    }
+
+    private static JsonStreamReader reader(String json) {
+        return new JsonStreamReader(new StringReader(json));
+    }
+}
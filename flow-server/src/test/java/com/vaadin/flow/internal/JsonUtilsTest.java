@@ -115,6 +115,24 @@ public class JsonUtilsTest {
                 .collect(JsonUtils.asArray());
     }
 
+    @Test
+    public void deepCopy_modifyOriginal_copyNotChanged() {
+        JsonObject original = createTestObject1();
+        JsonArray nested = createTestArray1();
+        original.put("nested", nested);
+
+        JsonObject copy = JsonUtils.deepCopy(original);
+        Assert.assertTrue(JsonUtils.jsonEquals(original, copy));
+
+        original.put("foo", "changed");
+        nested.set(0, "changed");
+
+        Assert.assertFalse(JsonUtils.jsonEquals(original, copy));
+        Assert.assertTrue(JsonUtils.jsonEquals(createTestArray1(),
+                copy.getArray("nested")));
+        Assert.assertEquals("foo", copy.getString("foo"));
+    }
+
     @Test
     public void collectEmptyStream() {
         Stream<JsonValue> jsonValueStream = Stream.empty();
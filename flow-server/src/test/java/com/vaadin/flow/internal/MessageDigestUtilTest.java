@@ -0,0 +1,74 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.internal;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MessageDigestUtilTest {
+
+    @Test
+    public void murmurHash3_knownValues() {
+        // MurmurHash3_x64_128 with seed 0 of the UTF-16LE bytes
+        Assert.assertEquals("00000000000000000000000000000000",
+                toHex(MessageDigestUtil.murmurHash3("")));
+        Assert.assertEquals("96a698500b4e98bdb278c9bfc754677d",
+                toHex(MessageDigestUtil.murmurHash3("a")));
+        Assert.assertEquals("ee2ee18fe1bfd3877b927262d8c336c4",
+                toHex(MessageDigestUtil.murmurHash3("hello")));
+        Assert.assertEquals("518a40aa045d1c68d69804ebdfc4cac8",
+                toHex(MessageDigestUtil.murmurHash3("0123456789abcdef")));
+        Assert.assertEquals("e85e162fe2f8186a977a7bf0f084d04a",
+                toHex(MessageDigestUtil.murmurHash3(
+                        "{\"csrfToken\":\"x\",\"clientId\":0,\"rpc\":[]}")));
+        Assert.assertEquals("c321c5733283e49c777d57bf73312ed4",
+                toHex(MessageDigestUtil.murmurHash3("\u00e4\u20ac\ud83d\ude00")));
+    }
+
+    @Test
+    public void murmurHash3_similarMessages_differentHashes() {
+        String message = "{\"rpc\":[{\"type\":\"mSync\",\"value\":\"a\"}],"
+                + "\"clientId\":1}";
+        byte[] hash = MessageDigestUtil.murmurHash3(message);
+
+        Assert.assertEquals(16, hash.length);
+        Assert.assertArrayEquals(hash,
+                MessageDigestUtil.murmurHash3(new String(message)));
+        for (int i = 0; i < message.length(); i++) {
+            char[] chars = message.toCharArray();
+            chars[i]++;
+            Assert.assertFalse(Arrays.equals(hash,
+                    MessageDigestUtil.murmurHash3(new String(chars))));
+        }
+        Assert.assertFalse(Arrays.equals(hash,
+                MessageDigestUtil.murmurHash3(message + " ")));
+    }
+
+    @Test
+    public void sha256_length() {
+        Assert.assertEquals(32, MessageDigestUtil.sha256("hello").length);
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
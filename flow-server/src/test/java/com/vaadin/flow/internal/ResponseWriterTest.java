@@ -310,6 +310,34 @@ public class ResponseWriterTest {
         assertResponse(fileJsContents);
     }
 
+    @Test
+    public void writeDataRangeRequested_partialContent() throws IOException {
+        responseWriter.overrideAcceptsGzippedResource = false;
+        Mockito.when(request.getMethod()).thenReturn("GET");
+        Mockito.when(request.getHeader("Range")).thenReturn("bytes=8-");
+
+        makePathsAvailable(PATH_JS);
+
+        assertResponse("contents".getBytes(StandardCharsets.UTF_8));
+        Mockito.verify(response)
+                .setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        Mockito.verify(response).setHeader("Content-Range", "bytes 8-15/16");
+    }
+
+    @Test
+    public void writeDataGzippedRangeRequested_allDataWritten()
+            throws IOException {
+        responseWriter.overrideAcceptsGzippedResource = true;
+        Mockito.when(request.getMethod()).thenReturn("GET");
+        Mockito.when(request.getHeader("Range")).thenReturn("bytes=8-");
+
+        makePathsAvailable(PATH_JS, PATH_GZ);
+
+        // Ranges of the encoded data are not supported
+        assertResponse(fileJsGzippedContents);
+        Mockito.verify(response, Mockito.never()).setStatus(Matchers.anyInt());
+    }
+
     private void assertResponse(byte[] expectedResponse) throws IOException {
         CapturingServletOutputStream out = new CapturingServletOutputStream();
         Mockito.when(response.getOutputStream()).thenReturn(out);
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.internal;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StateNodeRegistryTest {
+
+    private final StateNodeRegistry registry = new StateNodeRegistry();
+
+    @Test
+    public void emptyRegistry_nothingFound() {
+        Assert.assertNull(registry.get(0));
+        Assert.assertNull(registry.get(1));
+        Assert.assertNull(registry.get(Integer.MAX_VALUE));
+        Assert.assertNull(registry.get(-1));
+        Assert.assertFalse(registry.containsKey(1));
+        Assert.assertNull(registry.remove(1));
+        Assert.assertEquals(0, registry.size());
+    }
+
+    @Test
+    public void putGetRemove() {
+        StateNode node = new StateNode();
+
+        Assert.assertNull(registry.put(1, node));
+        Assert.assertSame(node, registry.get(1));
+        Assert.assertTrue(registry.containsKey(1));
+        Assert.assertEquals(1, registry.size());
+
+        Assert.assertSame(node, registry.remove(1));
+        Assert.assertNull(registry.get(1));
+        Assert.assertFalse(registry.containsKey(1));
+        Assert.assertEquals(0, registry.size());
+    }
+
+    @Test
+    public void putExisting_previousReturned_sizeNotChanged() {
+        StateNode node1 = new StateNode();
+        StateNode node2 = new StateNode();
+
+        registry.put(5, node1);
+        Assert.assertSame(node1, registry.put(5, node2));
+        Assert.assertSame(node2, registry.get(5));
+        Assert.assertEquals(1, registry.size());
+    }
+
+    @Test
+    public void idsInDifferentPages_independentlyRemoved() {
+        StateNode node1 = new StateNode();
+        StateNode node2 = new StateNode();
+
+        registry.put(3, node1);
+        registry.put(1_000_000, node2);
+
+        Assert.assertSame(node1, registry.get(3));
+        Assert.assertSame(node2, registry.get(1_000_000));
+        Assert.assertNull(registry.get(1_000_001));
+
+        registry.remove(1_000_000);
+        Assert.assertNull(registry.get(1_000_000));
+        Assert.assertSame(node1, registry.get(3));
+
+        // Page is allocated again after it has been released
+        registry.put(1_000_000, node2);
+        Assert.assertSame(node2, registry.get(1_000_000));
+        Assert.assertEquals(2, registry.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void putNegativeId_throws() {
+        registry.put(-1, new StateNode());
+    }
+
+    @Test
+    public void randomOperations_sameAsMap() {
+        Random random = new Random(42);
+        Map<Integer, StateNode> expected = new HashMap<>();
+        StateNode[] nodes = new StateNode[10];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new StateNode();
+        }
+
+        for (int i = 0; i < 100_000; i++) {
+            int id = random.nextInt(5000);
+            if (random.nextBoolean()) {
+                StateNode node = nodes[random.nextInt(nodes.length)];
+                Assert.assertSame(expected.put(id, node),
+                        registry.put(id, node));
+            } else {
+                Assert.assertSame(expected.remove(id), registry.remove(id));
+            }
+            Assert.assertEquals(expected.size(), registry.size());
+        }
+
+        for (int id = 0; id < 5000; id++) {
+            Assert.assertSame(expected.get(id), registry.get(id));
+        }
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.internal.nodefeature;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vaadin.flow.internal.StateNode;
+import com.vaadin.flow.internal.change.AbstractListChange;
+import com.vaadin.flow.internal.change.ListAddChange;
+import com.vaadin.flow.internal.change.ListClearChange;
+import com.vaadin.flow.internal.change.ListRemoveChange;
+import com.vaadin.flow.internal.change.NodeChange;
+
+public class ListChangeCompactorTest
+        extends AbstractNodeFeatureTest<ElementClassList> {
+
+    private static final int RESORT_SIZE = 500;
+
+    private ElementClassList nodeList = createFeature();
+
+    private int nextItem;
+
+    @Test
+    public void addBeforeDiscardedItem_laterAddBetween_orderPreserved() {
+        List<String> original = addOriginalItems(2);
+
+        nodeList.add(2, "x");
+        // y is inserted before x
+        nodeList.add(2, "y");
+        // z is inserted between y and x
+        nodeList.add(3, "z");
+        nodeList.remove(4);
+
+        List<NodeChange> changes = collectChanges(nodeList);
+
+        Assert.assertEquals(2, changes.size());
+        assertAdd(changes.get(0), 2, "y");
+        assertAdd(changes.get(1), 3, "z");
+        assertAppliedChanges(original, changes);
+    }
+
+    @Test
+    public void removeBeforeDiscardedItem_laterRemoveAfter_indexAdjusted() {
+        List<String> original = addOriginalItems(7);
+
+        nodeList.add(5, "x");
+        // x moves to index 4
+        nodeList.remove(2);
+        // o-5 is right after x
+        nodeList.remove(5);
+        nodeList.remove(4);
+
+        List<NodeChange> changes = collectChanges(nodeList);
+
+        Assert.assertEquals(2, changes.size());
+        assertRemove(changes.get(0), 2, "o-2");
+        assertRemove(changes.get(1), 4, "o-5");
+        assertAppliedChanges(original, changes);
+    }
+
+    @Test
+    public void addAll_removeAllAddedOneByOne_noChanges() {
+        addOriginalItems(3);
+
+        nodeList.addAll(Arrays.asList("a", "b", "c", "d"));
+        nodeList.remove(4);
+        nodeList.remove(5);
+        nodeList.remove(3);
+        nodeList.remove(3);
+
+        Assert.assertEquals(0, collectChanges(nodeList).size());
+    }
+
+    @Test
+    public void duplicateValues_onlyRemovedOccurrenceDiscarded() {
+        List<String> original = addOriginalItems(2);
+
+        String value = "dup";
+        nodeList.add(value);
+        nodeList.add(value);
+        nodeList.remove(2);
+
+        List<NodeChange> changes = collectChanges(nodeList);
+
+        Assert.assertEquals(1, changes.size());
+        assertAdd(changes.get(0), 2, value);
+        assertAppliedChanges(original, changes);
+    }
+
+    @Test
+    public void randomChanges_compactedChangesProduceSameList() {
+        Random random = new Random(42);
+        for (int round = 0; round < 500; round++) {
+            nodeList = createFeature();
+            List<String> original = addOriginalItems(random.nextInt(10));
+
+            makeRandomChanges(random, 1 + random.nextInt(30));
+
+            List<String> expected = getContent();
+
+            List<NodeChange> changes = collectChanges(nodeList);
+
+            Assert.assertEquals("Round " + round, expected,
+                    apply(original, changes));
+            assertMinimal(original, expected, changes);
+        }
+    }
+
+    @Test
+    public void resortChildren_compactedToChildrenInNewOrder() {
+        ElementChildrenList children = createFeature(
+                ElementChildrenList.class);
+
+        List<StateNode> nodes = new ArrayList<>();
+        for (int i = 0; i < RESORT_SIZE; i++) {
+            StateNode child = new StateNode();
+            nodes.add(child);
+            children.add(i, child);
+        }
+
+        // Move each child to its place in reverse order
+        List<StateNode> current = new ArrayList<>(nodes);
+        for (int i = 0; i < RESORT_SIZE; i++) {
+            StateNode child = nodes.get(RESORT_SIZE - 1 - i);
+            int index = current.indexOf(child);
+            current.remove(index);
+            children.remove(index);
+            current.add(i, child);
+            children.add(i, child);
+        }
+
+        List<AbstractListChange<StateNode>> tracked = new ArrayList<>(
+                children.getChangeTracker());
+
+        List<AbstractListChange<StateNode>> compacted = ListChangeCompactor
+                .compact(tracked, RESORT_SIZE);
+
+        Assert.assertEquals(current,
+                apply(Collections.<StateNode> emptyList(), compacted));
+    }
+
+    private List<String> addOriginalItems(int count) {
+        List<String> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String item = "o-" + i;
+            nodeList.add(i, item);
+            items.add(item);
+        }
+        collectChanges(nodeList);
+        return items;
+    }
+
+    private void makeRandomChanges(Random random, int count) {
+        for (int i = 0; i < count; i++) {
+            int operation = random.nextInt(20);
+            int size = nodeList.size();
+            if (operation == 0) {
+                nodeList.clear();
+            } else if (operation < 4) {
+                List<String> items = new ArrayList<>();
+                for (int j = random.nextInt(4); j >= 0; j--) {
+                    items.add("n-" + nextItem++);
+                }
+                nodeList.addAll(items);
+            } else if (operation < 12 || size == 0) {
+                nodeList.add(random.nextInt(size + 1), "n-" + nextItem++);
+            } else {
+                nodeList.remove(random.nextInt(size));
+            }
+        }
+    }
+
+    private List<String> getContent() {
+        List<String> content = new ArrayList<>();
+        for (int i = 0; i < nodeList.size(); i++) {
+            content.add(nodeList.get(i));
+        }
+        return content;
+    }
+
+    private void assertMinimal(List<String> original, List<String> expected,
+            List<NodeChange> changes) {
+        for (NodeChange change : changes) {
+            if (change instanceof ListAddChange<?>) {
+                ((ListAddChange<?>) change).getNewItems()
+                        .forEach(item -> Assert.assertTrue(
+                                "Discarded item was added: " + item,
+                                expected.contains(item)));
+            } else if (change instanceof ListRemoveChange<?>) {
+                Object item = ((ListRemoveChange<?>) change).getRemovedItem();
+                Assert.assertTrue("Discarded item was removed: " + item,
+                        original.contains(item));
+            }
+        }
+    }
+
+    private void assertAppliedChanges(List<String> original,
+            List<NodeChange> changes) {
+        Assert.assertEquals(getContent(), apply(original, changes));
+    }
+
+    private static void assertAdd(NodeChange change, int index,
+            String... items) {
+        Assert.assertTrue(change instanceof ListAddChange<?>);
+        ListAddChange<?> add = (ListAddChange<?>) change;
+        Assert.assertEquals(index, add.getIndex());
+        Assert.assertEquals(Arrays.asList(items), add.getNewItems());
+    }
+
+    private static void assertRemove(NodeChange change, int index,
+            String item) {
+        Assert.assertTrue(change instanceof ListRemoveChange<?>);
+        ListRemoveChange<?> remove = (ListRemoveChange<?>) change;
+        Assert.assertEquals(index, remove.getIndex());
+        Assert.assertEquals(item, remove.getRemovedItem());
+    }
+
+    private static <T> List<T> apply(List<T> original,
+            List<? extends NodeChange> changes) {
+        List<T> list = new ArrayList<>(original);
+        for (NodeChange change : changes) {
+            if (change instanceof ListClearChange<?>) {
+                list.clear();
+            } else if (change instanceof ListAddChange<?>) {
+                ListAddChange<?> add = (ListAddChange<?>) change;
+                if (add.getIndex() > list.size()) {
+                    return null;
+                }
+                @SuppressWarnings("unchecked")
+                List<T> items = (List<T>) add.getNewItems();
+                list.addAll(add.getIndex(), items);
+            } else if (change instanceof ListRemoveChange<?>) {
+                ListRemoveChange<?> remove = (ListRemoveChange<?>) change;
+                if (remove.getIndex() >= list.size() || list
+                        .get(remove.getIndex()) != remove.getRemovedItem()) {
+                    // Removes a different item than the one on the server
+                    return null;
+                }
+                list.remove(remove.getIndex());
+            }
+        }
+        return list;
+    }
+}
@@ -151,6 +151,30 @@ public class SessionRouteRegistryTest {
                 sessionRegistry.getNavigationTarget("MyRoute").isPresent());
     }
 
+    @Test
+    public void matchingPathLength_longestPathFromSessionOrParentRegistry() {
+        registry.setRoute("foo/bar", MyRoute.class, Collections.emptyList());
+        registry.setRoute("baz", MyRoute.class, Collections.emptyList());
+        SessionRouteRegistry sessionRegistry = getRegistry(session);
+        sessionRegistry.setRoute("foo", Secondary.class,
+                Collections.emptyList());
+        sessionRegistry.setRoute("baz/qux", Secondary.class,
+                Collections.emptyList());
+
+        Assert.assertEquals("Global route 'foo/bar' should be matched", 2,
+                sessionRegistry.getMatchingPathLength(
+                        Arrays.asList("foo", "bar")));
+        Assert.assertEquals("Session route 'foo' should be matched", 1,
+                sessionRegistry.getMatchingPathLength(
+                        Collections.singletonList("foo")));
+        Assert.assertEquals("Session route 'baz/qux' should be matched", 2,
+                sessionRegistry.getMatchingPathLength(
+                        Arrays.asList("baz", "qux")));
+        Assert.assertEquals("No route should be matched", -1,
+                sessionRegistry.getMatchingPathLength(
+                        Arrays.asList("foo", "qux")));
+    }
+
     @Test
     public void sessionRegistryOverridesParentRegistryWithOwnClass_globalRouteReturnedAfterClassRemoval() {
         registry.setRoute("MyRoute", MyRoute.class, Collections.emptyList());
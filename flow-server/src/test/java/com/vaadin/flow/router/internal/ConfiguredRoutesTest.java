@@ -2,13 +2,17 @@ package com.vaadin.flow.router.internal;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 import org.junit.Assert;
 import org.junit.Test;
 
 import com.vaadin.flow.component.Component;
 import com.vaadin.flow.component.Tag;
+import com.vaadin.flow.router.BeforeEvent;
+import com.vaadin.flow.router.HasUrlParameter;
 import com.vaadin.flow.router.RouterLayout;
+import com.vaadin.flow.router.WildcardParameter;
 import com.vaadin.flow.server.startup.RouteTarget;
 
 public class ConfiguredRoutesTest {
@@ -70,6 +74,119 @@ public class ConfiguredRoutesTest {
                 immutable.getParentLayouts("", BaseTarget.class));
     }
 
+    @Test
+    public void matchingPathLength_sameAsCheckingEveryPrefix() {
+        ConfigureRoutes mutable = new ConfigureRoutes();
+        mutable.setRoute("", BaseTarget.class);
+        mutable.setRoute("foo", BaseTarget.class);
+        mutable.setRoute("foo/bar", ParameterTarget.class);
+        mutable.setRoute("foo/bar/baz", BaseTarget.class);
+        mutable.setRoute("wild", WildcardTarget.class);
+        mutable.setRoute("a/", BaseTarget.class);
+        mutable.setRoute("/b", BaseTarget.class);
+
+        ConfiguredRoutes immutable = new ConfiguredRoutes(mutable);
+
+        for (String path : Arrays.asList("", "foo", "foo/", "foo/bar",
+                "foo/bar/1", "foo/bar/1/2", "foo/bar/baz", "foo/bar/baz/1",
+                "wild", "wild/1/2/3", "a", "a/", "a/b", "/b", "b", "x",
+                "x/y")) {
+            List<String> segments = getSegments(path);
+            int expected = getMatchingPathLengthByPrefixes(immutable,
+                    segments);
+            Assert.assertEquals("Unexpected match for '" + path + "'",
+                    expected, immutable.getMatchingPathLength(segments));
+            Assert.assertEquals(
+                    "Mutable configuration should match the same path for '"
+                            + path + "'",
+                    expected, mutable.getMatchingPathLength(segments));
+        }
+
+        Assert.assertEquals(3, immutable.getMatchingPathLength(
+                getSegments("foo/bar/baz")));
+        Assert.assertEquals(2, immutable.getMatchingPathLength(
+                getSegments("foo/bar/1")));
+        Assert.assertEquals(0, immutable
+                .getMatchingPathLength(getSegments("x")));
+    }
+
+    @Test
+    public void matchingPathLength_noRootRoute_notFound() {
+        ConfigureRoutes mutable = new ConfigureRoutes();
+        mutable.setRoute("foo", BaseTarget.class);
+
+        ConfiguredRoutes immutable = new ConfiguredRoutes(mutable);
+
+        Assert.assertEquals(-1, immutable
+                .getMatchingPathLength(getSegments("bar")));
+        Assert.assertEquals(-1, immutable
+                .getMatchingPathLength(getSegments("foo/1")));
+        Assert.assertEquals(-1,
+                immutable.getMatchingPathLength(Collections.emptyList()));
+    }
+
+    @Test
+    public void matchingPathLength_mutableRoutesChanged_trieRebuiltOnlyWhenPathsChange() {
+        ConfigureRoutes mutable = new ConfigureRoutes();
+        mutable.setRoute("foo", BaseTarget.class);
+
+        RouteSegmentTrie trie = mutable.getRouteSegmentTrie();
+        Assert.assertSame(trie, mutable.getRouteSegmentTrie());
+        Assert.assertEquals(-1,
+                mutable.getMatchingPathLength(getSegments("foo/bar")));
+
+        // Adding a target to an existing path keeps the trie
+        mutable.setRoute("foo", ParameterTarget.class);
+        Assert.assertSame(trie, mutable.getRouteSegmentTrie());
+        Assert.assertEquals(1,
+                mutable.getMatchingPathLength(getSegments("foo/bar")));
+
+        mutable.setRoute("foo/bar", BaseTarget.class);
+        Assert.assertNotSame(trie, mutable.getRouteSegmentTrie());
+        Assert.assertEquals(2,
+                mutable.getMatchingPathLength(getSegments("foo/bar")));
+
+        mutable.removeRoute("foo");
+        Assert.assertEquals(-1,
+                mutable.getMatchingPathLength(getSegments("foo")));
+        Assert.assertEquals(2,
+                mutable.getMatchingPathLength(getSegments("foo/bar")));
+    }
+
+    private static List<String> getSegments(String path) {
+        return Arrays.asList(path.split("/", -1));
+    }
+
+    private static int getMatchingPathLengthByPrefixes(
+            ConfiguredRoutes configuration, List<String> segments) {
+        int shortest = segments.get(0).isEmpty() ? 1 : 0;
+        for (int length = segments.size(); length >= shortest; length--) {
+            if (configuration.hasRoute(
+                    String.join("/", segments.subList(0, length)),
+                    segments.subList(length, segments.size()))) {
+                return length;
+            }
+        }
+        return -1;
+    }
+
+    @Tag("div")
+    public static class ParameterTarget extends Component
+            implements HasUrlParameter<String> {
+        @Override
+        public void setParameter(BeforeEvent event, String parameter) {
+        }
+    }
+
+    @Tag("div")
+    public static class WildcardTarget extends Component
+            implements HasUrlParameter<String> {
+        @Override
+        public void setParameter(BeforeEvent event,
+                @WildcardParameter String parameter) {
+        }
+    }
+
     @Tag("div")
     public static class BaseTarget extends Component {
     }
@@ -6,6 +6,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
@@ -16,6 +17,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import javax.servlet.http.HttpServletRequest;
@@ -1186,6 +1188,119 @@ public class BootstrapHandlerTest {
         Assert.assertEquals(bootstrapContext.getUriResolver(), resolver.get());
     }
 
+    @Test
+    public void writeCachedBootstrapPage_sameAsRenderedPage()
+            throws IOException {
+        enableBootstrapPageCache();
+        BootstrapHandler handler = new BootstrapHandler();
+
+        String title = "A <b>&amp;</b> title";
+        String rendered = BootstrapHandler
+                .getBootstrapPage(initNewUI(title)).outerHtml();
+        assertEquals(rendered, writeCachedPage(handler, initNewUI(title)));
+
+        // Written from the cached template
+        String otherTitle = "Other title";
+        rendered = BootstrapHandler.getBootstrapPage(initNewUI(otherTitle))
+                .outerHtml();
+        assertEquals(rendered,
+                writeCachedPage(handler, initNewUI(otherTitle)));
+    }
+
+    @Test
+    public void writeCachedBootstrapPage_whitespaceInTitle_sameAsRenderedPage()
+            throws IOException {
+        enableBootstrapPageCache();
+        BootstrapHandler handler = new BootstrapHandler();
+
+        String title = "  A\n\t title  with \u00a0 whitespace ";
+        String rendered = BootstrapHandler
+                .getBootstrapPage(initNewUI(title)).outerHtml();
+        assertEquals(rendered, writeCachedPage(handler, initNewUI(title)));
+        // Written from the cached template
+        assertEquals(rendered, writeCachedPage(handler, initNewUI(title)));
+    }
+
+    @Test
+    public void writeCachedBootstrapPage_cacheableListener_calledOnceForSameKey()
+            throws IOException {
+        enableBootstrapPageCache();
+        AtomicInteger calls = new AtomicInteger();
+        service.addBootstrapListener(new BootstrapListener() {
+            @Override
+            public void modifyBootstrapPage(BootstrapPageResponse response) {
+                calls.incrementAndGet();
+                response.getDocument().head().appendElement("meta")
+                        .attr("name", "cached");
+            }
+
+            @Override
+            public boolean isCacheable() {
+                return true;
+            }
+        });
+        BootstrapHandler handler = new BootstrapHandler();
+
+        String first = writeCachedPage(handler, initNewUI("title"));
+        String second = writeCachedPage(handler, initNewUI("title"));
+
+        assertEquals(1, calls.get());
+        assertEquals(first, second);
+        assertTrue(second.contains("<meta name=\"cached\">"));
+    }
+
+    @Test
+    public void isBootstrapPageCacheable_nonCacheableListener_notCacheable() {
+        enableBootstrapPageCache();
+        initUI(testUI);
+        assertTrue(BootstrapHandler.isBootstrapPageCacheable(context));
+
+        service.addBootstrapListener(evt -> evt.getDocument().head()
+                .appendElement("meta").attr("name", "per-request"));
+
+        assertFalse(BootstrapHandler.isBootstrapPageCacheable(context));
+    }
+
+    @Test
+    public void isBootstrapPageCacheable_developmentMode_notCacheable() {
+        enableBootstrapPageCache();
+        mocks.setProductionMode(false);
+        initUI(testUI);
+
+        assertFalse(BootstrapHandler.isBootstrapPageCacheable(context));
+    }
+
+    @Test
+    public void isBootstrapPageCacheable_pageConfigurator_notCacheable()
+            throws InvalidRouteConfigurationException {
+        enableBootstrapPageCache();
+        initUI(testUI, createVaadinRequest(), Collections
+                .singleton(InitialPageConfiguratorViewportOverride.class));
+
+        assertFalse(BootstrapHandler.isBootstrapPageCacheable(context));
+    }
+
+    private void enableBootstrapPageCache() {
+        mocks.setProductionMode(true);
+        deploymentConfiguration.setApplicationOrSystemProperty(
+                Constants.SERVLET_PARAMETER_BOOTSTRAP_PAGE_CACHE, "true");
+    }
+
+    private BootstrapContext initNewUI(String title) {
+        TestUI ui = new TestUI();
+        ui.getInternals().setSession(session);
+        initUI(ui);
+        ui.getPage().setTitle(title);
+        return context;
+    }
+
+    private static String writeCachedPage(BootstrapHandler handler,
+            BootstrapContext context) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        handler.writeCachedBootstrapPage(context, out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
     @Test
     public void useDependencyFilters_removeDependenciesAndAddNewOnes()
             throws ServiceException {
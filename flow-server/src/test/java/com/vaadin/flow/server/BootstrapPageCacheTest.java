@@ -0,0 +1,102 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vaadin.flow.server.BootstrapPageCache.Slot;
+import com.vaadin.flow.server.BootstrapPageCache.Template;
+
+public class BootstrapPageCacheTest {
+
+    private final BootstrapPageCache cache = new BootstrapPageCache();
+
+    @Test
+    public void write_slotsReplacedInOrder() throws IOException {
+        Template template = cache.getTemplate(Collections.singletonList("key"),
+                () -> "<title>" + cache.getMarker(Slot.TITLE)
+                        + "</title><script>"
+                        + cache.getMarker(Slot.BOOTSTRAP_SCRIPT)
+                        + "</script><p>\u00e4</p>");
+
+        Map<Slot, String> values = new EnumMap<>(Slot.class);
+        values.put(Slot.TITLE, "Title \u00f6");
+        values.put(Slot.BOOTSTRAP_SCRIPT, "init();");
+
+        Assert.assertEquals(
+                "<title>Title \u00f6</title><script>init();</script><p>\u00e4</p>",
+                write(template, values));
+    }
+
+    @Test
+    public void write_slotMissingFromPage_notWritten() throws IOException {
+        Template template = cache.getTemplate(Collections.singletonList("key"),
+                () -> "<script>" + cache.getMarker(Slot.BOOTSTRAP_SCRIPT)
+                        + "</script>");
+
+        Map<Slot, String> values = new EnumMap<>(Slot.class);
+        values.put(Slot.BOOTSTRAP_SCRIPT, "init();");
+
+        Assert.assertEquals("<script>init();</script>",
+                write(template, values));
+    }
+
+    @Test
+    public void getTemplate_sameKey_renderedOnce() {
+        AtomicInteger renders = new AtomicInteger();
+        List<Object> key = Arrays.asList(String.class, "en", null);
+
+        Template first = cache.getTemplate(key, () -> {
+            renders.incrementAndGet();
+            return "page";
+        });
+        Template second = cache.getTemplate(Arrays.asList(String.class, "en",
+                null), () -> {
+                    renders.incrementAndGet();
+                    return "page";
+                });
+
+        Assert.assertSame(first, second);
+        Assert.assertEquals(1, renders.get());
+    }
+
+    @Test
+    public void getTemplate_tooManyKeys_notCached() {
+        for (int i = 0; i < BootstrapPageCache.MAX_TEMPLATES + 10; i++) {
+            cache.getTemplate(Collections.singletonList(i), () -> "page");
+        }
+
+        Assert.assertEquals(BootstrapPageCache.MAX_TEMPLATES, cache.size());
+    }
+
+    private static String write(Template template, Map<Slot, String> values)
+            throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        template.write(out, values);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
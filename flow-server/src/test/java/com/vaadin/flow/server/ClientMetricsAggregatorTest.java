@@ -0,0 +1,228 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.server;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.internal.UIInternals;
+import com.vaadin.flow.router.Location;
+import com.vaadin.flow.server.ClientMetricsAggregator.RouteMetrics;
+import com.vaadin.flow.shared.JsonConstants;
+
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+
+public class ClientMetricsAggregatorTest {
+
+    private final VaadinService service = new MockVaadinServletService();
+
+    private final ClientMetricsAggregator metrics = new ClientMetricsAggregator(
+            2);
+
+    @Test
+    public void event_parsesMetrics() {
+        JsonObject json = Json.parse("{\"processing\":[1.5,\"x\",3],"
+                + "\"bootstrap\":250,\"profiler\":{\"a\":2,\"b\":null},"
+                + "\"dropped\":4}");
+
+        ClientMetricsEvent event = event("orders", json);
+
+        Assert.assertEquals("orders", event.getRoute());
+        Assert.assertEquals(Arrays.asList(1.5, 3.0),
+                event.getProcessingTimes());
+        Assert.assertEquals(Double.valueOf(250),
+                event.getBootstrapTime().get());
+        Assert.assertEquals(Collections.singletonMap("a", 2.0),
+                event.getProfilerTotals());
+        Assert.assertEquals(4, event.getDroppedCount());
+        Assert.assertSame(service, event.getService());
+    }
+
+    @Test
+    public void event_invalidNumbers_ignored() {
+        JsonObject json = Json.parse("{\"processing\":[-1,2],"
+                + "\"bootstrap\":-5,\"profiler\":{\"a\":-2},"
+                + "\"dropped\":-4}");
+
+        ClientMetricsEvent event = event("orders", json);
+
+        Assert.assertEquals(Collections.singletonList(2.0),
+                event.getProcessingTimes());
+        Assert.assertFalse(event.getBootstrapTime().isPresent());
+        Assert.assertTrue(event.getProfilerTotals().isEmpty());
+        Assert.assertEquals(0, event.getDroppedCount());
+    }
+
+    @Test
+    public void event_tooManyProcessingTimes_restCountedAsDropped() {
+        JsonObject json = Json.parse("{\"dropped\":1}");
+        JsonArray times = Json.createArray();
+        for (int i = 0; i < JsonConstants.METRICS_MAX_PROCESSING_TIMES
+                + 5; i++) {
+            times.set(i, i);
+        }
+        json.put(JsonConstants.METRICS_PROCESSING_TIMES, times);
+
+        ClientMetricsEvent event = event("orders", json);
+
+        Assert.assertEquals(JsonConstants.METRICS_MAX_PROCESSING_TIMES,
+                event.getProcessingTimes().size());
+        Assert.assertEquals(6, event.getDroppedCount());
+    }
+
+    @Test
+    public void event_tooManyOrLongProfilerBlocks_ignored() {
+        JsonObject totals = Json.createObject();
+        String longName = new String(
+                new char[ClientMetricsEvent.MAX_PROFILER_BLOCK_NAME_LENGTH + 1])
+                        .replace('\0', 'x');
+        totals.put(longName, 1);
+        for (int i = 0; i < ClientMetricsEvent.MAX_PROFILER_BLOCKS * 2; i++) {
+            totals.put("block" + i, 1);
+        }
+        JsonObject json = Json.createObject();
+        json.put(JsonConstants.METRICS_PROFILER_TOTALS, totals);
+
+        ClientMetricsEvent event = event("orders", json);
+
+        Assert.assertEquals(ClientMetricsEvent.MAX_PROFILER_BLOCKS,
+                event.getProfilerTotals().size());
+        Assert.assertFalse(event.getProfilerTotals()
+                .containsKey(longName));
+    }
+
+    @Test
+    public void event_missingMetrics_empty() {
+        ClientMetricsEvent event = event("orders", Json.createObject());
+
+        Assert.assertTrue(event.getProcessingTimes().isEmpty());
+        Assert.assertFalse(event.getBootstrapTime().isPresent());
+        Assert.assertTrue(event.getProfilerTotals().isEmpty());
+        Assert.assertEquals(0, event.getDroppedCount());
+    }
+
+    @Test
+    public void metrics_aggregatedByRoute() {
+        metrics.clientMetricsReceived(event("orders",
+                Json.parse("{\"processing\":[2,4],\"bootstrap\":100,"
+                        + "\"profiler\":{\"a\":1.5}}")));
+        metrics.clientMetricsReceived(event("orders",
+                Json.parse("{\"processing\":[6],\"profiler\":{\"a\":0.5},"
+                        + "\"dropped\":3}")));
+        metrics.clientMetricsReceived(
+                event("customers", Json.parse("{\"processing\":[1]}")));
+
+        RouteMetrics orders = metrics.getRouteMetrics("orders");
+        Assert.assertEquals(3, orders.getProcessingTimes().getCount());
+        Assert.assertEquals(TimeUnit.MILLISECONDS.toNanos(12),
+                orders.getProcessingTimes().getTotalNanos());
+        Assert.assertEquals(TimeUnit.MILLISECONDS.toNanos(6),
+                orders.getProcessingTimes().getMaxNanos());
+        Assert.assertEquals(1, orders.getBootstrapTimes().getCount());
+        Map<String, Long> totals = orders.getProfilerTotals();
+        Assert.assertEquals(Long.valueOf(TimeUnit.MILLISECONDS.toNanos(2)),
+                totals.get("a"));
+        Assert.assertEquals(3, orders.getDroppedCount());
+
+        Assert.assertEquals(1, metrics.getRouteMetrics("customers")
+                .getProcessingTimes().getCount());
+    }
+
+    @Test
+    public void tooManyRoutes_aggregatedAsOther() {
+        JsonObject json = Json.parse("{\"processing\":[1]}");
+        metrics.clientMetricsReceived(event("a", json));
+        metrics.clientMetricsReceived(event("b", json));
+        metrics.clientMetricsReceived(event("c", json));
+        metrics.clientMetricsReceived(event("d", json));
+        metrics.clientMetricsReceived(event("a", json));
+
+        Assert.assertEquals(
+                new HashSet<>(Arrays.asList("a", "b",
+                        ClientMetricsAggregator.OTHER_ROUTES)),
+                metrics.getRoutes());
+        Assert.assertEquals(2, metrics.getRouteMetrics("a")
+                .getProcessingTimes().getCount());
+        Assert.assertEquals(2,
+                metrics.getRouteMetrics(ClientMetricsAggregator.OTHER_ROUTES)
+                        .getProcessingTimes().getCount());
+    }
+
+    @Test
+    public void tooManyProfilerBlocks_aggregatedAsOther() {
+        ClientMetricsAggregator aggregator = new ClientMetricsAggregator(2,
+                2);
+        aggregator.clientMetricsReceived(event("orders",
+                Json.parse("{\"profiler\":{\"a\":1,\"b\":1}}")));
+        aggregator.clientMetricsReceived(event("orders",
+                Json.parse("{\"profiler\":{\"a\":1,\"c\":2,\"d\":3}}")));
+
+        Map<String, Long> totals = aggregator.getRouteMetrics("orders")
+                .getProfilerTotals();
+        Assert.assertEquals(
+                new HashSet<>(Arrays.asList("a", "b",
+                        ClientMetricsAggregator.OTHER_PROFILER_BLOCKS)),
+                totals.keySet());
+        Assert.assertEquals(Long.valueOf(TimeUnit.MILLISECONDS.toNanos(2)),
+                totals.get("a"));
+        Assert.assertEquals(Long.valueOf(TimeUnit.MILLISECONDS.toNanos(5)),
+                totals.get(ClientMetricsAggregator.OTHER_PROFILER_BLOCKS));
+    }
+
+    @Test
+    public void reset_metricsDiscarded() {
+        metrics.clientMetricsReceived(
+                event("orders", Json.parse("{\"processing\":[1]}")));
+
+        metrics.reset();
+
+        Assert.assertTrue(metrics.getRoutes().isEmpty());
+        Assert.assertNull(metrics.getRouteMetrics("orders"));
+    }
+
+    @Test
+    public void listener_notifiedByService() {
+        service.addClientMetricsListener(metrics);
+        Assert.assertTrue(service.hasClientMetricsListeners());
+
+        service.fireClientMetricsReceived(
+                event("orders", Json.parse("{\"processing\":[1]}")));
+
+        Assert.assertEquals(Collections.singleton("orders"),
+                metrics.getRoutes());
+    }
+
+    private ClientMetricsEvent event(String path, JsonObject json) {
+        UI ui = Mockito.mock(UI.class);
+        UIInternals internals = Mockito.mock(UIInternals.class);
+        Mockito.when(ui.getInternals()).thenReturn(internals);
+        Mockito.when(internals.getActiveRouterTargetsChain())
+                .thenReturn(Collections.emptyList());
+        Mockito.when(internals.getActiveViewLocation())
+                .thenReturn(new Location(path));
+        return new ClientMetricsEvent(service, ui, json);
+    }
+}
@@ -26,6 +26,8 @@ import java.util.Properties;
 import org.junit.Assert;
 import org.junit.Test;
 
+import com.vaadin.flow.server.communication.MessageFingerprint;
+
 /**
  * Tests for {@link DefaultDeploymentConfiguration}
  *
@@ -169,6 +171,27 @@ public class DefaultDeploymentConfigurationTest {
         assertThat(config.getPushURL(), is(""));
     }
 
+    @Test
+    public void messageFingerprint_readIgnoringCase() {
+        Properties initParameters = new Properties();
+        initParameters.setProperty(
+                Constants.SERVLET_PARAMETER_MESSAGE_FINGERPRINT, "sha_256");
+
+        DefaultDeploymentConfiguration config = createDeploymentConfig(
+                initParameters);
+        assertEquals(MessageFingerprint.Standard.SHA_256,
+                config.getMessageFingerprint());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void messageFingerprint_exceptionOnUnknownValue() {
+        Properties initParameters = new Properties();
+        initParameters.setProperty(
+                Constants.SERVLET_PARAMETER_MESSAGE_FINGERPRINT, "sha-256");
+
+        createDeploymentConfig(initParameters);
+    }
+
     @Test
     public void pushUrl() {
         Properties initParameters = new Properties();
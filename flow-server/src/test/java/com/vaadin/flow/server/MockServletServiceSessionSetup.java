@@ -93,6 +93,13 @@ public class MockServletServiceSessionSetup {
             super.modifyBootstrapPage(response);
         }
 
+        @Override
+        boolean hasOnlyCacheableBootstrapListeners() {
+            return bootstrapListeners.stream()
+                    .allMatch(BootstrapListener::isCacheable)
+                    && super.hasOnlyCacheableBootstrapListeners();
+        }
+
     }
 
     public class TestVaadinServlet extends VaadinServlet {
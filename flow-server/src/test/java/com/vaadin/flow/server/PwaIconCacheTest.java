@@ -0,0 +1,195 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.server;
+
+import javax.imageio.ImageIO;
+import javax.servlet.ServletContext;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+public class PwaIconCacheTest {
+
+    private static final byte[] LOGO = { 1, 2, 3 };
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void storeAndLoad_imagesRestoredWithSameHref() throws IOException {
+        PwaIconCache cache = new PwaIconCache(temporaryFolder.getRoot());
+        List<PwaIcon> icons = createIcons();
+        setImages(icons);
+        String key = PwaIconCache.getKey(LOGO, icons);
+        cache.store(key, icons);
+
+        List<PwaIcon> loaded = createIcons();
+        Assert.assertTrue(cache.load(key, loaded));
+        for (int i = 0; i < icons.size(); i++) {
+            Assert.assertArrayEquals(icons.get(i).getData(),
+                    loaded.get(i).getData());
+            Assert.assertEquals(icons.get(i).getHref(),
+                    loaded.get(i).getHref());
+        }
+    }
+
+    @Test
+    public void load_unknownKey_iconsNotChanged() {
+        PwaIconCache cache = new PwaIconCache(temporaryFolder.getRoot());
+        List<PwaIcon> icons = createIcons();
+
+        Assert.assertFalse(
+                cache.load(PwaIconCache.getKey(LOGO, icons), icons));
+        Assert.assertNull(icons.get(0).getData());
+    }
+
+    @Test
+    public void load_imageMissing_iconsNotChanged() throws IOException {
+        PwaIconCache cache = new PwaIconCache(temporaryFolder.getRoot());
+        List<PwaIcon> icons = createIcons();
+        setImages(icons);
+        String key = PwaIconCache.getKey(LOGO, icons);
+        cache.store(key, icons);
+        Files.delete(new File(new File(temporaryFolder.getRoot(), key),
+                "32x32.png").toPath());
+
+        List<PwaIcon> loaded = createIcons();
+        Assert.assertFalse(cache.load(key, loaded));
+        Assert.assertNull(loaded.get(0).getData());
+    }
+
+    @Test
+    public void load_notAnImage_iconsNotChanged() throws IOException {
+        PwaIconCache cache = new PwaIconCache(temporaryFolder.getRoot());
+        List<PwaIcon> icons = createIcons();
+        setImages(icons);
+        String key = PwaIconCache.getKey(LOGO, icons);
+        cache.store(key, icons);
+        Files.write(new File(new File(temporaryFolder.getRoot(), key),
+                "32x32.png").toPath(), new byte[] { 10, 20 });
+
+        List<PwaIcon> loaded = createIcons();
+        Assert.assertFalse(cache.load(key, loaded));
+        Assert.assertNull(loaded.get(0).getData());
+    }
+
+    @Test
+    public void load_imageOfWrongSize_iconsNotChanged() throws IOException {
+        PwaIconCache cache = new PwaIconCache(temporaryFolder.getRoot());
+        List<PwaIcon> icons = createIcons();
+        setImages(icons);
+        String key = PwaIconCache.getKey(LOGO, icons);
+        cache.store(key, icons);
+        Files.write(new File(new File(temporaryFolder.getRoot(), key),
+                "16x16.png").toPath(), icons.get(1).getData());
+
+        List<PwaIcon> loaded = createIcons();
+        Assert.assertFalse(cache.load(key, loaded));
+        Assert.assertNull(loaded.get(1).getData());
+    }
+
+    @Test
+    public void getKey_dependsOnLogoAndSizes() {
+        List<PwaIcon> icons = createIcons();
+        String key = PwaIconCache.getKey(LOGO, icons);
+
+        Assert.assertEquals(key, PwaIconCache.getKey(LOGO.clone(), icons));
+        Assert.assertNotEquals(key,
+                PwaIconCache.getKey(new byte[] { 1, 2, 4 }, icons));
+        Assert.assertNotEquals(key,
+                PwaIconCache.getKey(LOGO, icons.subList(0, 1)));
+    }
+
+    @Test
+    public void disabledCache_nothingStored() {
+        PwaIconCache cache = new PwaIconCache(null);
+        List<PwaIcon> icons = createIcons();
+        setImages(icons);
+        String key = PwaIconCache.getKey(LOGO, icons);
+        cache.store(key, icons);
+
+        Assert.assertFalse(cache.load(key, createIcons()));
+    }
+
+    @Test
+    public void create_noParameter_cacheDisabled() {
+        ServletContext context = Mockito.mock(ServletContext.class);
+        PwaIconCache cache = PwaIconCache.create(context);
+        List<PwaIcon> icons = createIcons();
+        setImages(icons);
+        cache.store("key", icons);
+
+        Assert.assertFalse(cache.load("key", createIcons()));
+    }
+
+    @Test
+    public void create_emptyParameter_cacheDisabled() {
+        ServletContext context = Mockito.mock(ServletContext.class);
+        Mockito.when(context.getInitParameter(
+                Constants.SERVLET_PARAMETER_PWA_ICON_CACHE_DIRECTORY))
+                .thenReturn("");
+        PwaIconCache cache = PwaIconCache.create(context);
+        List<PwaIcon> icons = createIcons();
+        setImages(icons);
+        cache.store("key", icons);
+
+        Assert.assertFalse(cache.load("key", createIcons()));
+    }
+
+    @Test
+    public void create_directoryParameter_usedForCache() {
+        ServletContext context = Mockito.mock(ServletContext.class);
+        Mockito.when(context.getInitParameter(
+                Constants.SERVLET_PARAMETER_PWA_ICON_CACHE_DIRECTORY))
+                .thenReturn(temporaryFolder.getRoot().getAbsolutePath());
+        List<PwaIcon> icons = createIcons();
+        setImages(icons);
+        PwaIconCache.create(context).store("key", icons);
+
+        Assert.assertTrue(new File(new File(temporaryFolder.getRoot(), "key"),
+                "16x16.png").isFile());
+    }
+
+    private static void setImages(List<PwaIcon> icons) {
+        for (PwaIcon icon : icons) {
+            BufferedImage image = new BufferedImage(icon.getWidth(),
+                    icon.getHeight(), BufferedImage.TYPE_INT_ARGB);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try {
+                ImageIO.write(image, "png", out);
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+            icon.setData(out.toByteArray());
+        }
+    }
+
+    private static List<PwaIcon> createIcons() {
+        return Arrays.asList(new PwaIcon(16, 16, "icons/icon.png"),
+                new PwaIcon(32, 32, "icons/icon.png"));
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.server;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.internal.CurrentInstance;
+import com.vaadin.flow.server.SessionLockEvent.LockType;
+import com.vaadin.tests.util.MockUI;
+
+public class SessionLockListenerTest {
+
+    private MockVaadinServletService service;
+    private MockVaadinSession session;
+
+    private List<SessionLockEvent> lockEvents = Collections
+            .synchronizedList(new ArrayList<>());
+    private List<AccessTaskEvent> taskEvents = Collections
+            .synchronizedList(new ArrayList<>());
+
+    private SessionLockListener listener = new SessionLockListener() {
+        @Override
+        public void sessionLockReleased(SessionLockEvent event) {
+            Assert.assertFalse("Lock should be released before the event",
+                    event.getSession().hasLock());
+            lockEvents.add(event);
+        }
+
+        @Override
+        public void accessTaskCompleted(AccessTaskEvent event) {
+            taskEvents.add(event);
+        }
+    };
+
+    private static class TestCommand implements Command {
+        @Override
+        public void execute() {
+            // Nothing to do
+        }
+    }
+
+    @Before
+    public void setup() {
+        service = new MockVaadinServletService();
+        session = new MockVaadinSession(service);
+    }
+
+    @After
+    public void tearDown() {
+        CurrentInstance.clearAll();
+    }
+
+    @Test
+    public void noListener_lockNotMeasured() {
+        session.lock(LockType.UIDL);
+        session.unlock();
+
+        service.addSessionLockListener(listener);
+        Assert.assertTrue(lockEvents.isEmpty());
+    }
+
+    @Test
+    public void nestedLock_singleEventWithOuterType() {
+        service.addSessionLockListener(listener);
+
+        session.lock(LockType.UIDL);
+        session.lock(LockType.PUSH);
+        session.unlock();
+        Assert.assertTrue(lockEvents.isEmpty());
+        session.unlock();
+
+        Assert.assertEquals(1, lockEvents.size());
+        SessionLockEvent event = lockEvents.get(0);
+        Assert.assertSame(session, event.getSession());
+        Assert.assertSame(service, event.getService());
+        Assert.assertEquals(LockType.UIDL, event.getLockType());
+        Assert.assertTrue(event.getHoldNanos() >= 0);
+    }
+
+    @Test
+    public void plainLock_otherType() {
+        service.addSessionLockListener(listener);
+
+        session.lock();
+        session.unlock();
+
+        Assert.assertEquals(LockType.OTHER, lockEvents.get(0).getLockType());
+    }
+
+    @Test
+    public void contendedLock_waitAndHoldTimeReported() throws Exception {
+        service.addSessionLockListener(listener);
+        CountDownLatch locked = new CountDownLatch(1);
+
+        Thread holder = new Thread(() -> {
+            session.lock(LockType.HEARTBEAT);
+            try {
+                locked.countDown();
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                session.unlock();
+            }
+        });
+        holder.start();
+        Assert.assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+        session.lock(LockType.UIDL);
+        session.unlock();
+        holder.join();
+
+        Assert.assertEquals(2, lockEvents.size());
+        // The listeners are run after releasing the lock, in any order
+        SessionLockEvent holderEvent = getEvent(LockType.HEARTBEAT);
+        SessionLockEvent waiterEvent = getEvent(LockType.UIDL);
+        Assert.assertTrue(holderEvent.getHoldNanos() >= TimeUnit.MILLISECONDS
+                .toNanos(50));
+        Assert.assertTrue(waiterEvent.getWaitNanos() >= TimeUnit.MILLISECONDS
+                .toNanos(50));
+    }
+
+    @Test
+    public void pendingAccessTasks_queueSizeAndTasksReported() {
+        service.addSessionLockListener(listener);
+        for (int i = 0; i < 3; i++) {
+            session.getPendingAccessQueue()
+                    .add(new FutureAccess(session, new TestCommand()));
+        }
+
+        session.lock();
+        session.unlock();
+
+        Assert.assertEquals(3,
+                lockEvents.get(0).getPendingAccessQueueSize());
+        Assert.assertEquals(3, taskEvents.size());
+        Assert.assertEquals(TestCommand.class,
+                taskEvents.get(0).getOriginatingClass());
+    }
+
+    @Test
+    public void sessionAccess_accessTaskType() {
+        service.addSessionLockListener(listener);
+
+        session.access(new TestCommand());
+
+        Assert.assertEquals(1, lockEvents.size());
+        Assert.assertEquals(LockType.ACCESS_TASK,
+                lockEvents.get(0).getLockType());
+        Assert.assertEquals(1, taskEvents.size());
+        Assert.assertEquals(TestCommand.class,
+                taskEvents.get(0).getOriginatingClass());
+    }
+
+    @Test
+    public void uiAccess_originatingClassIsCommandClass() {
+        UI ui = new MockUI(session);
+        service.addSessionLockListener(listener);
+
+        ui.access(new TestCommand());
+
+        Assert.assertEquals(1, taskEvents.size());
+        Assert.assertEquals(TestCommand.class,
+                taskEvents.get(0).getOriginatingClass());
+    }
+
+    @Test
+    public void listenerRemoved_noEvents() {
+        service.addSessionLockListener(listener).remove();
+
+        session.lock(LockType.UIDL);
+        session.unlock();
+
+        Assert.assertTrue(lockEvents.isEmpty());
+    }
+
+    private SessionLockEvent getEvent(LockType lockType) {
+        synchronized (lockEvents) {
+            return lockEvents.stream()
+                    .filter(event -> event.getLockType() == lockType)
+                    .findFirst().orElseThrow(AssertionError::new);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.server;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vaadin.flow.server.SessionLockEvent.LockType;
+import com.vaadin.flow.server.SessionLockMetrics.Histogram;
+import com.vaadin.flow.server.SessionLockMetrics.SlowAccessTask;
+
+public class SessionLockMetricsTest {
+
+    private final VaadinService service = new MockVaadinServletService();
+
+    private final VaadinSession session = new MockVaadinSession(service);
+
+    private final SessionLockMetrics metrics = new SessionLockMetrics(2);
+
+    @Test
+    public void lockEvents_recordedByType() {
+        metrics.sessionLockReleased(lockEvent(LockType.UIDL, 10, 2000, 3));
+        metrics.sessionLockReleased(lockEvent(LockType.UIDL, 20, 4000, 1));
+        metrics.sessionLockReleased(lockEvent(LockType.PUSH, 30, 6000, 7));
+
+        Histogram uidlHoldTimes = metrics.getHoldTimes(LockType.UIDL);
+        Assert.assertEquals(2, uidlHoldTimes.getCount());
+        Assert.assertEquals(6000, uidlHoldTimes.getTotalNanos());
+        Assert.assertEquals(4000, uidlHoldTimes.getMaxNanos());
+        Assert.assertEquals(30, metrics.getWaitTimes(LockType.UIDL)
+                .getTotalNanos());
+        Assert.assertEquals(1, metrics.getWaitTimes(LockType.PUSH).getCount());
+        Assert.assertEquals(0,
+                metrics.getHoldTimes(LockType.HEARTBEAT).getCount());
+        Assert.assertEquals(7, metrics.getMaxPendingAccessQueueSize());
+    }
+
+    @Test
+    public void histogram_bucketsByMicroseconds() {
+        metrics.sessionLockReleased(lockEvent(LockType.UIDL, 0, 500, 0));
+        metrics.sessionLockReleased(lockEvent(LockType.UIDL, 0, 1000, 0));
+        metrics.sessionLockReleased(lockEvent(LockType.UIDL, 0, 3500, 0));
+        metrics.sessionLockReleased(lockEvent(LockType.UIDL, 0,
+                TimeUnit.HOURS.toNanos(1), 0));
+
+        long[] buckets = metrics.getHoldTimes(LockType.UIDL)
+                .getBucketCounts();
+        // < 1 us
+        Assert.assertEquals(1, buckets[0]);
+        // [1, 2) us
+        Assert.assertEquals(1, buckets[1]);
+        // [2, 4) us
+        Assert.assertEquals(1, buckets[2]);
+        // Longer durations end up in the last bucket
+        Assert.assertEquals(1, buckets[Histogram.BUCKET_COUNT - 1]);
+    }
+
+    @Test
+    public void histogram_percentiles() {
+        for (int i = 0; i < 99; i++) {
+            metrics.sessionLockReleased(lockEvent(LockType.UIDL, 0, 1500, 0));
+        }
+        metrics.sessionLockReleased(lockEvent(LockType.UIDL, 0,
+                TimeUnit.MILLISECONDS.toNanos(5), 0));
+
+        Histogram histogram = metrics.getHoldTimes(LockType.UIDL);
+        Assert.assertEquals(2000, histogram.getPercentileNanos(50));
+        Assert.assertEquals(2000, histogram.getPercentileNanos(99));
+        Assert.assertEquals(TimeUnit.MILLISECONDS.toNanos(5),
+                histogram.getPercentileNanos(100));
+        Assert.assertEquals(0, metrics.getHoldTimes(LockType.PUSH)
+                .getPercentileNanos(99));
+    }
+
+    @Test
+    public void slowestAccessTasks_keptInOrder() {
+        metrics.accessTaskCompleted(taskEvent(String.class, 100));
+        metrics.accessTaskCompleted(taskEvent(Integer.class, 300));
+        metrics.accessTaskCompleted(taskEvent(Long.class, 50));
+        metrics.accessTaskCompleted(taskEvent(Double.class, 200));
+
+        List<SlowAccessTask> slowest = metrics.getSlowestAccessTasks();
+        Assert.assertEquals(2, slowest.size());
+        Assert.assertEquals(Integer.class,
+                slowest.get(0).getOriginatingClass());
+        Assert.assertEquals(300, slowest.get(0).getDurationNanos());
+        Assert.assertEquals(Double.class,
+                slowest.get(1).getOriginatingClass());
+        Assert.assertEquals(4, metrics.getAccessTaskTimes().getCount());
+    }
+
+    @Test
+    public void registeredToService_collectsLockUse() {
+        service.addSessionLockListener(metrics);
+
+        session.lock(LockType.PUSH);
+        session.unlock();
+
+        Assert.assertEquals(1, metrics.getHoldTimes(LockType.PUSH).getCount());
+    }
+
+    private SessionLockEvent lockEvent(LockType type, long waitNanos,
+            long holdNanos, int queueSize) {
+        return new SessionLockEvent(service, session, type, waitNanos,
+                holdNanos, queueSize);
+    }
+
+    private AccessTaskEvent taskEvent(Class<?> type, long durationNanos) {
+        return new AccessTaskEvent(service, session, type, durationNanos);
+    }
+}
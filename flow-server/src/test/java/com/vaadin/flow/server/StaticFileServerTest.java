@@ -30,6 +30,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
 
 import javax.servlet.ServletContext;
 import javax.servlet.ServletOutputStream;
@@ -37,6 +38,7 @@ import javax.servlet.WriteListener;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.commons.io.IOUtils;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -472,4 +474,120 @@ public class StaticFileServerTest implements Serializable {
                 responseCode.get());
     }
 
+    @Test
+    public void resourceCacheEnabled_resourceServedTwice_resourceReadOnce()
+            throws IOException {
+        enableResourceCache();
+        setupRequestURI("", "/some", "/file.js");
+        byte[] fileData = "function() {eval('foo');};"
+                .getBytes(StandardCharsets.UTF_8);
+        Mockito.when(servletService.getStaticResource("/some/file.js"))
+                .thenReturn(createFileURLWithDataAndLength("/some/file.js",
+                        fileData));
+
+        for (int i = 0; i < 2; i++) {
+            CapturingServletOutputStream out = new CapturingServletOutputStream();
+            Mockito.when(response.getOutputStream()).thenReturn(out);
+
+            Assert.assertTrue(
+                    fileServer.serveStaticResource(request, response));
+            Assert.assertArrayEquals(fileData, out.getOutput());
+            Assert.assertEquals(fileData.length, responseContentLength.get());
+        }
+        Mockito.verify(servletService, Mockito.times(1))
+                .getStaticResource("/some/file.js");
+        Assert.assertNotNull(headers.get("ETag"));
+    }
+
+    @Test
+    public void resourceCacheEnabled_ifNoneMatch_notModified()
+            throws IOException {
+        enableResourceCache();
+        setupRequestURI("", "/some", "/file.js");
+        byte[] fileData = "function() {eval('foo');};"
+                .getBytes(StandardCharsets.UTF_8);
+        Mockito.when(servletService.getStaticResource("/some/file.js"))
+                .thenReturn(createFileURLWithDataAndLength("/some/file.js",
+                        fileData));
+        Mockito.when(response.getOutputStream())
+                .thenReturn(new CapturingServletOutputStream());
+
+        fileServer.serveStaticResource(request, response);
+        String eTag = headers.get("ETag");
+
+        CapturingServletOutputStream out = new CapturingServletOutputStream();
+        Mockito.when(response.getOutputStream()).thenReturn(out);
+        Mockito.when(request.getHeader("If-None-Match"))
+                .thenReturn("\"other\", " + eTag);
+
+        Assert.assertTrue(fileServer.serveStaticResource(request, response));
+        Assert.assertEquals(0, out.getOutput().length);
+        Assert.assertEquals(HttpServletResponse.SC_NOT_MODIFIED,
+                responseCode.get());
+
+        responseCode.set(-1);
+        Mockito.when(request.getHeader("If-None-Match"))
+                .thenReturn("\"other\"");
+
+        Assert.assertTrue(fileServer.serveStaticResource(request, response));
+        Assert.assertArrayEquals(fileData, out.getOutput());
+        Assert.assertEquals(-1, responseCode.get());
+    }
+
+    @Test
+    public void resourceCacheEnabled_acceptsGzip_gzipVariantServed()
+            throws IOException {
+        enableResourceCache();
+        setupRequestURI("", "/some", "/file.js");
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            content.append("function() {eval('foo');};");
+        }
+        byte[] fileData = content.toString().getBytes(StandardCharsets.UTF_8);
+        Mockito.when(servletService.getStaticResource("/some/file.js"))
+                .thenReturn(createFileURLWithDataAndLength("/some/file.js",
+                        fileData));
+        Mockito.when(request.getHeader("Accept-Encoding"))
+                .thenReturn("gzip, deflate");
+        CapturingServletOutputStream out = new CapturingServletOutputStream();
+        Mockito.when(response.getOutputStream()).thenReturn(out);
+
+        Assert.assertTrue(fileServer.serveStaticResource(request, response));
+
+        Assert.assertEquals("gzip", headers.get("Content-Encoding"));
+        Assert.assertEquals("Accept-Encoding", headers.get("Vary"));
+        Assert.assertTrue(headers.get("ETag").endsWith("-gzip\""));
+        Assert.assertTrue(out.getOutput().length < fileData.length);
+        try (GZIPInputStream gzip = new GZIPInputStream(
+                new ByteArrayInputStream(out.getOutput()))) {
+            Assert.assertArrayEquals(fileData, IOUtils.toByteArray(gzip));
+        }
+    }
+
+    @Test
+    public void resourceCacheEnabled_developmentMode_resourceNotCached()
+            throws IOException {
+        Mockito.when(configuration.isProductionMode()).thenReturn(false);
+        enableResourceCache();
+        setupRequestURI("", "/some", "/file.js");
+        byte[] fileData = "function() {eval('foo');};"
+                .getBytes(StandardCharsets.UTF_8);
+        Mockito.when(servletService.getStaticResource("/some/file.js"))
+                .thenReturn(createFileURLWithDataAndLength("/some/file.js",
+                        fileData));
+
+        for (int i = 0; i < 2; i++) {
+            Mockito.when(response.getOutputStream())
+                    .thenReturn(new CapturingServletOutputStream());
+            fileServer.serveStaticResource(request, response);
+        }
+        Mockito.verify(servletService, Mockito.times(2))
+                .getStaticResource("/some/file.js");
+        Assert.assertNull(headers.get("ETag"));
+    }
+
+    private void enableResourceCache() {
+        Mockito.when(configuration.getStaticResourceCacheSize()).thenReturn(1);
+        fileServer = new OverrideableStaticFileServer(servletService);
+    }
 }
@@ -16,19 +16,34 @@
 package com.vaadin.flow.server;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 
 import javax.servlet.ServletContext;
 
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.Mockito;
 
 import com.vaadin.flow.function.ContentTypeResolver;
+import com.vaadin.flow.internal.ByteRangeSource;
+import com.vaadin.flow.server.SessionLockEvent.LockType;
 import com.vaadin.flow.server.StreamResource;
 
 public class StreamResourceTest {
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Test
     public void getDefaultContentTypeResolver() {
         StreamResource resource = new StreamResource("foo",
@@ -62,6 +77,93 @@ public class StreamResourceTest {
         assertContentType(resource, resource.getContentTypeResolver());
     }
 
+    @Test
+    public void fileInputStream_byteRangeSourceHasFileLength()
+            throws IOException {
+        File file = temporaryFolder.newFile();
+        byte[] data = "file contents".getBytes(StandardCharsets.UTF_8);
+        Files.write(file.toPath(), data);
+        StreamResource resource = new StreamResource("foo",
+                new InputStreamFactory() {
+                    @Override
+                    public InputStream createInputStream() {
+                        return createFileStream(file);
+                    }
+
+                    @Override
+                    public boolean requiresLock() {
+                        return false;
+                    }
+                });
+
+        StreamResourceWriter writer = resource.getWriter();
+        Assert.assertTrue(writer instanceof RangeStreamResourceWriter);
+
+        VaadinSession session = Mockito.mock(VaadinSession.class);
+        try (ByteRangeSource source = ((RangeStreamResourceWriter) writer)
+                .openByteRangeSource(session)) {
+            Assert.assertEquals(data.length, source.getLength());
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            source.transferTo(5, 4, out);
+            Assert.assertEquals("cont",
+                    new String(out.toByteArray(), StandardCharsets.UTF_8));
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.accept(out, session);
+        Assert.assertArrayEquals(data, out.toByteArray());
+    }
+
+    @Test
+    public void fileInputStreamRequiringLock_readUnderLock()
+            throws IOException {
+        File file = temporaryFolder.newFile();
+        byte[] data = "file contents".getBytes(StandardCharsets.UTF_8);
+        Files.write(file.toPath(), data);
+        StreamResource resource = new StreamResource("foo",
+                () -> createFileStream(file));
+
+        VaadinSession session = Mockito.mock(VaadinSession.class);
+        try (ByteRangeSource source = ((RangeStreamResourceWriter) resource
+                .getWriter()).openByteRangeSource(session)) {
+            Assert.assertEquals(-1, source.getLength());
+            Mockito.verify(session).lock(LockType.STREAM);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            source.transferTo(0, data.length, out);
+            Assert.assertArrayEquals(data, out.toByteArray());
+            Mockito.verify(session, Mockito.atLeast(2))
+                    .lock(LockType.STREAM);
+        }
+    }
+
+    @Test
+    public void otherInputStream_byteRangeSourceHasUnknownLength()
+            throws IOException {
+        byte[] data = "contents".getBytes(StandardCharsets.UTF_8);
+        StreamResource resource = new StreamResource("foo",
+                () -> new ByteArrayInputStream(data));
+
+        VaadinSession session = Mockito.mock(VaadinSession.class);
+        try (ByteRangeSource source = ((RangeStreamResourceWriter) resource
+                .getWriter()).openByteRangeSource(session)) {
+            Assert.assertEquals(-1, source.getLength());
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        resource.getWriter().accept(out, session);
+        Assert.assertArrayEquals(data, out.toByteArray());
+    }
+
+    private static InputStream createFileStream(File file) {
+        try {
+            return new FileInputStream(file);
+        } catch (FileNotFoundException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     private void assertContentType(StreamResource resource,
             ContentTypeResolver resolver) {
         ServletContext context = Mockito.mock(ServletContext.class);
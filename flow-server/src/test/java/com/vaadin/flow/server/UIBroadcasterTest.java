@@ -0,0 +1,261 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.SerializationUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.internal.UIInternals.JavaScriptInvocation;
+import com.vaadin.flow.dom.ElementFactory;
+import com.vaadin.flow.internal.CurrentInstance;
+import com.vaadin.flow.server.UIBroadcaster.SharedJavaScriptInvocation;
+import com.vaadin.flow.shared.Registration;
+import com.vaadin.tests.util.MockUI;
+
+import elemental.json.Json;
+import elemental.json.JsonArray;
+
+public class UIBroadcasterTest {
+
+    private MockVaadinServletService service;
+
+    private List<Runnable> executedTasks = new ArrayList<>();
+
+    private UIBroadcaster<String> broadcaster = new UIBroadcaster<>(task -> {
+        executedTasks.add(task);
+        task.run();
+    }, 2);
+
+    private List<String> received = new ArrayList<>();
+
+    @Before
+    public void setup() {
+        service = new MockVaadinServletService();
+    }
+
+    @After
+    public void tearDown() {
+        CurrentInstance.clearAll();
+    }
+
+    @Test
+    public void broadcast_deliveredToAllUIs() {
+        MockVaadinSession session1 = new MockVaadinSession(service);
+        MockVaadinSession session2 = new MockVaadinSession(service);
+        register(createUI(session1), "a");
+        register(createUI(session1), "b");
+        register(createUI(session2), "c");
+
+        broadcaster.broadcast("update");
+
+        received.sort(null);
+        Assert.assertEquals(
+                "[a: update, b: update, c: update]", received.toString());
+    }
+
+    @Test
+    public void broadcast_listenerRunWithSessionLockAndCurrentUI() {
+        MockVaadinSession session = new MockVaadinSession(service);
+        UI ui = createUI(session);
+        AtomicInteger calls = new AtomicInteger();
+        broadcaster.register(ui, update -> {
+            Assert.assertTrue(session.hasLock());
+            Assert.assertSame(ui, UI.getCurrent());
+            calls.incrementAndGet();
+        });
+        UI.setCurrent(null);
+
+        broadcaster.broadcast("update");
+
+        Assert.assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void broadcast_sessionsDeliveredInBatches() {
+        for (int i = 0; i < 5; i++) {
+            register(createUI(new MockVaadinSession(service)), "ui" + i);
+        }
+
+        broadcaster.broadcast("update");
+
+        Assert.assertEquals(5, received.size());
+        Assert.assertEquals(3, executedTasks.size());
+    }
+
+    @Test
+    public void broadcast_sessionLocked_deliveredWhenUnlocked() {
+        MockVaadinSession session = new MockVaadinSession(service);
+        register(createUI(session), "a");
+
+        session.lock();
+        try {
+            broadcaster.broadcast("update");
+            Assert.assertTrue(received.isEmpty());
+        } finally {
+            session.unlock();
+        }
+
+        Assert.assertEquals("[a: update]", received.toString());
+    }
+
+    @Test
+    public void registrationRemoved_notDelivered() {
+        MockVaadinSession session = new MockVaadinSession(service);
+        Registration registration = register(createUI(session), "a");
+        register(createUI(session), "b");
+
+        registration.remove();
+        broadcaster.broadcast("update");
+
+        Assert.assertEquals("[b: update]", received.toString());
+        Assert.assertEquals(1, broadcaster.getRegisteredUICount());
+    }
+
+    @Test
+    public void uiDetached_unregistered() {
+        MockVaadinSession session = new MockVaadinSession(service);
+        UI ui = createUI(session);
+        register(ui, "a");
+
+        session.lock();
+        try {
+            ui.getInternals().setSession(null);
+        } finally {
+            session.unlock();
+        }
+        broadcaster.broadcast("update");
+
+        Assert.assertTrue(received.isEmpty());
+        Assert.assertEquals(0, broadcaster.getRegisteredUICount());
+    }
+
+    @Test
+    public void registeredUISerialized_deserializedRegistrationNotRegistered() {
+        MockVaadinSession session = new MockVaadinSession(service);
+        UI ui = createUI(session);
+        Registration registration = broadcaster.register(ui, update -> {
+        });
+
+        UI deserializedUI = SerializationUtils.roundtrip(ui);
+        Registration deserializedRegistration = SerializationUtils
+                .roundtrip(registration);
+
+        deserializedRegistration.remove();
+        VaadinSession deserializedSession = deserializedUI.getSession();
+        deserializedSession.lock();
+        try {
+            deserializedUI.getInternals().setSession(null);
+        } finally {
+            deserializedSession.unlock();
+        }
+        Assert.assertEquals(1, broadcaster.getRegisteredUICount());
+
+        registration.remove();
+        Assert.assertEquals(0, broadcaster.getRegisteredUICount());
+    }
+
+    @Test
+    public void broadcasterSerialized_noRegistrations() {
+        UIBroadcaster<String> serializable = new UIBroadcaster<>(
+                Runnable::run);
+        serializable.register(createUI(new MockVaadinSession(service)),
+                update -> {
+                });
+
+        UIBroadcaster<String> deserialized = SerializationUtils
+                .roundtrip(serializable);
+
+        Assert.assertEquals(0, deserialized.getRegisteredUICount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void broadcasterDeserialized_broadcast_throws() {
+        UIBroadcaster<String> deserialized = SerializationUtils
+                .roundtrip(new UIBroadcaster<String>(Runnable::run));
+
+        deserialized.broadcast("update");
+    }
+
+    @Test
+    public void broadcastJavaScript_sameInvocationAddedToAllUIs() {
+        MockVaadinSession session1 = new MockVaadinSession(service);
+        MockVaadinSession session2 = new MockVaadinSession(service);
+        UI ui1 = createUI(session1);
+        UI ui2 = createUI(session2);
+        register(ui1, "a");
+        register(ui2, "b");
+
+        broadcaster.broadcastJavaScript("window.update($0)", "value");
+
+        JavaScriptInvocation invocation1 = dumpSingleInvocation(ui1);
+        JavaScriptInvocation invocation2 = dumpSingleInvocation(ui2);
+        Assert.assertSame(invocation1, invocation2);
+        Assert.assertEquals("window.update($0)", invocation1.getExpression());
+        Assert.assertEquals("value", invocation1.getParameters().get(0));
+    }
+
+    @Test
+    public void sharedJavaScriptInvocation_encodedOnce() {
+        register(createUI(new MockVaadinSession(service)), "a");
+        UI ui = createUI(new MockVaadinSession(service));
+        register(ui, "b");
+        broadcaster.broadcastJavaScript("window.update()");
+        SharedJavaScriptInvocation invocation = (SharedJavaScriptInvocation) dumpSingleInvocation(
+                ui);
+
+        AtomicInteger encodeCount = new AtomicInteger();
+        JsonArray encoded = invocation.getEncoded(inv -> {
+            encodeCount.incrementAndGet();
+            return Json.createArray();
+        });
+
+        Assert.assertSame(encoded, invocation.getEncoded(inv -> {
+            encodeCount.incrementAndGet();
+            return Json.createArray();
+        }));
+        Assert.assertEquals(1, encodeCount.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void broadcastJavaScript_elementParameter_throws() {
+        broadcaster.broadcastJavaScript("$0.focus()",
+                ElementFactory.createDiv());
+    }
+
+    private Registration register(UI ui, String name) {
+        return broadcaster.register(ui,
+                update -> received.add(name + ": " + update));
+    }
+
+    private static UI createUI(VaadinSession session) {
+        return new MockUI(session);
+    }
+
+    private static JavaScriptInvocation dumpSingleInvocation(UI ui) {
+        List<JavaScriptInvocation> invocations = ui.getInternals()
+                .dumpPendingJavaScriptInvocations();
+        Assert.assertEquals(1, invocations.size());
+        return invocations.get(0);
+    }
+}
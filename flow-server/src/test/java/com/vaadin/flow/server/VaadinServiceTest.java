@@ -25,6 +25,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -200,6 +201,20 @@ public class VaadinServiceTest {
                 "Original value", CurrentInstance.get(String.class));
     }
 
+    @Test
+    public void pushExecutor_boundedAndShutDownOnDestroy() {
+        VaadinService service = createService();
+
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) service
+                .getPushExecutor();
+        Assert.assertSame(executor, service.getPushExecutor());
+        Assert.assertEquals(VaadinService.MAX_PUSH_EXECUTOR_THREADS,
+                executor.getMaximumPoolSize());
+
+        service.destroy();
+        Assert.assertTrue(executor.isShutdown());
+    }
+
     @Test
     public void testBootstrapListenersCreation() throws ServiceException {
         // in this test the actual behavior of the listeners is not evaluated.
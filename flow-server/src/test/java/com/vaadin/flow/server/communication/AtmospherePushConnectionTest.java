@@ -19,21 +19,57 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.atmosphere.cpr.AtmosphereResource;
+import org.atmosphere.cpr.Broadcaster;
 import org.easymock.EasyMock;
+import org.junit.After;
 import org.junit.Assert;
 import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
 
 import com.vaadin.flow.component.UI;
-import com.vaadin.flow.server.communication.AtmospherePushConnection;
+import com.vaadin.flow.dom.Element;
+import com.vaadin.flow.dom.ElementFactory;
+import com.vaadin.flow.server.Constants;
+import com.vaadin.flow.server.MockVaadinServletService;
+import com.vaadin.flow.server.MockVaadinSession;
 import com.vaadin.flow.server.communication.AtmospherePushConnection.State;
+import com.vaadin.flow.shared.communication.PushMode;
+import com.vaadin.tests.util.MockDeploymentConfiguration;
+
+import elemental.json.Json;
+import elemental.json.JsonObject;
 
 /**
  * @author Vaadin Ltd
  * @since 1.0
  */
 public class AtmospherePushConnectionTest {
+
+    private static final Pattern SYNC_ID = Pattern
+            .compile("^for\\(;;\\);\\[\\{\"syncId\":(\\d+),");
+
+    private final List<String> messages = Collections
+            .synchronizedList(new ArrayList<>());
+
+    private ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
     @Test
     public void testSerialization() throws Exception {
 
@@ -55,4 +91,125 @@ public class AtmospherePushConnectionTest {
 
         Assert.assertEquals(State.DISCONNECTED, connection.getState());
     }
+
+    @Test
+    public void serializeOutsideLock_valueChangedAfterPush_pushedMessageNotChanged() {
+        MockVaadinSession session = createSession();
+        UI ui = createUI(session, PushMode.MANUAL);
+
+        JsonObject value = Json.createObject();
+        value.put("text", "before");
+        session.lock();
+        try {
+            ui.getElement().setPropertyJson("data", value);
+            ui.push();
+            // The value is shared with the state tree
+            value.put("text", "after");
+        } finally {
+            // Sends the pushed message
+            session.unlock();
+        }
+
+        Assert.assertEquals(1, messages.size());
+        Assert.assertTrue(messages.get(0).contains("before"));
+        Assert.assertFalse(messages.get(0).contains("after"));
+    }
+
+    @Test
+    public void serializeOutsideLock_concurrentAccess_messagesSentInSyncIdOrder()
+            throws Exception {
+        MockVaadinSession session = createSession();
+        UI ui = createUI(session, PushMode.AUTOMATIC);
+
+        List<Future<?>> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            int thread = i;
+            threads.add(executor.submit(() -> {
+                List<Future<Void>> tasks = new ArrayList<>();
+                for (int j = 0; j < 20; j++) {
+                    String text = "Thread " + thread + " task " + j;
+                    tasks.add(session.access(() -> ui.getElement()
+                            .getChildren()
+                            .forEach(child -> child.setText(text))));
+                }
+                for (Future<Void> task : tasks) {
+                    task.get();
+                }
+                return null;
+            }));
+        }
+        for (Future<?> thread : threads) {
+            thread.get();
+        }
+        // Wait for the last message to be sent
+        session.lock();
+        session.unlock();
+
+        Assert.assertFalse("No messages were pushed", messages.isEmpty());
+        int expectedSyncId = -1;
+        for (String message : messages) {
+            Matcher matcher = SYNC_ID.matcher(message);
+            Assert.assertTrue("Unexpected message " + message,
+                    matcher.find());
+            int syncId = Integer.parseInt(matcher.group(1));
+            if (expectedSyncId != -1) {
+                Assert.assertEquals("Messages were pushed out of order",
+                        expectedSyncId, syncId);
+            }
+            expectedSyncId = syncId + 1;
+        }
+    }
+
+    private MockVaadinSession createSession() {
+        MockDeploymentConfiguration configuration = new MockDeploymentConfiguration();
+        configuration.setApplicationOrSystemProperty(
+                Constants.SERVLET_PARAMETER_SERIALIZE_UIDL_OUTSIDE_LOCK,
+                Boolean.TRUE.toString());
+        MockVaadinServletService service = new MockVaadinServletService(
+                configuration);
+        service.init();
+
+        MockVaadinSession session = new MockVaadinSession(service);
+        session.lock();
+        try {
+            session.setConfiguration(configuration);
+        } finally {
+            session.unlock();
+        }
+        return session;
+    }
+
+    private UI createUI(MockVaadinSession session, PushMode pushMode) {
+        Broadcaster broadcaster = Mockito.mock(Broadcaster.class);
+        Mockito.when(broadcaster.broadcast(Matchers.any(),
+                Matchers.any(AtmosphereResource.class)))
+                .thenAnswer(invocation -> {
+                    messages.add((String) invocation.getArguments()[0]);
+                    return CompletableFuture.completedFuture(null);
+                });
+        AtmosphereResource resource = Mockito.mock(AtmosphereResource.class);
+        Mockito.when(resource.getBroadcaster()).thenReturn(broadcaster);
+
+        UI ui = new UI() {
+            @Override
+            public int getUIId() {
+                return 0;
+            }
+        };
+        session.lock();
+        try {
+            ui.getInternals().setSession(session);
+            session.addUI(ui);
+            for (int i = 0; i < 10; i++) {
+                Element div = ElementFactory.createDiv("Row " + i);
+                ui.getElement().appendChild(div);
+            }
+            ui.getPushConfiguration().setPushMode(pushMode);
+            ((AtmospherePushConnection) ui.getInternals().getPushConnection())
+                    .connect(resource);
+        } finally {
+            session.unlock();
+        }
+        return ui;
+    }
 }
@@ -0,0 +1,422 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.server.communication;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.internal.CurrentInstance;
+import com.vaadin.flow.internal.MessageDigestUtil;
+import com.vaadin.flow.server.ClientMetricsEvent;
+import com.vaadin.flow.server.Constants;
+import com.vaadin.flow.server.MockVaadinServletService;
+import com.vaadin.flow.server.MockVaadinSession;
+import com.vaadin.flow.server.VaadinRequest;
+import com.vaadin.flow.server.communication.ServerRpcHandler.InvalidUIDLSecurityKeyException;
+import com.vaadin.flow.server.communication.rpc.RpcInvocationHandler;
+import com.vaadin.flow.shared.ApplicationConstants;
+import com.vaadin.flow.shared.JsonConstants;
+import com.vaadin.tests.util.MockDeploymentConfiguration;
+import com.vaadin.tests.util.MockUI;
+
+import elemental.json.JsonObject;
+
+public class ServerRpcHandlerTest {
+
+    private static final String PADDING = new String(new char[64])
+            .replace('\0', 'x');
+
+    private MockDeploymentConfiguration configuration = new MockDeploymentConfiguration();
+    private MockVaadinSession session;
+    private UI ui;
+    private VaadinRequest request;
+
+    private List<String> handled = new ArrayList<>();
+    private boolean messageFullyRead;
+
+    private ServerRpcHandler rpcHandler = new ServerRpcHandler() {
+        @Override
+        protected Map<String, RpcInvocationHandler> getInvocationHandlers() {
+            Map<String, RpcInvocationHandler> handlers = new HashMap<>();
+            handlers.put(JsonConstants.RPC_TYPE_MAP_SYNC,
+                    new RecordingHandler(JsonConstants.RPC_TYPE_MAP_SYNC,
+                            true));
+            handlers.put(JsonConstants.RPC_TYPE_EVENT,
+                    new RecordingHandler(JsonConstants.RPC_TYPE_EVENT,
+                            false));
+            return handlers;
+        }
+    };
+
+    private class RecordingHandler implements RpcInvocationHandler {
+        private final String type;
+        private final boolean changeEvent;
+
+        private RecordingHandler(String type, boolean changeEvent) {
+            this.type = type;
+            this.changeEvent = changeEvent;
+        }
+
+        @Override
+        public String getRpcType() {
+            return type;
+        }
+
+        @Override
+        public Optional<Runnable> handle(UI ui, JsonObject invocationJson) {
+            String id = invocationJson.getString("id");
+            handled.add(id + (messageFullyRead ? "" : " while reading"));
+            if (changeEvent) {
+                return Optional.of(() -> handled.add("change " + id));
+            }
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Hands out the message a few characters at a time, like a slow network.
+     */
+    private class SlowReader extends Reader {
+        private final Reader reader;
+
+        private SlowReader(String message) {
+            reader = new StringReader(message);
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length)
+                throws IOException {
+            int read = reader.read(buffer, offset, Math.min(length, 8));
+            if (read == -1) {
+                messageFullyRead = true;
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    @Before
+    public void setup() {
+        configuration.setXsrfProtectionEnabled(true);
+        configuration.setApplicationOrSystemProperty(
+                Constants.SERVLET_PARAMETER_STREAMING_RPC_PARSING, "true");
+        configuration.setApplicationOrSystemProperty(
+                Constants.SERVLET_PARAMETER_CLIENT_METRICS_SAMPLE_RATE, "1");
+        MockVaadinServletService service = new MockVaadinServletService(
+                configuration);
+        session = new MockVaadinSession(service);
+        session.lock();
+        ui = new MockUI(session);
+
+        request = Mockito.mock(VaadinRequest.class);
+        Mockito.when(request.getService()).thenReturn(service);
+    }
+
+    @After
+    public void tearDown() {
+        session.unlock();
+        CurrentInstance.clearAll();
+    }
+
+    @Test
+    public void streaming_mapSyncsHandledWhileReading() throws Exception {
+        handleRpc(message(0, session.getCsrfToken()));
+
+        Assert.assertEquals(expectedOrder(" while reading"), handled);
+        Assert.assertEquals(0,
+                ui.getInternals().getLastProcessedClientToServerId());
+    }
+
+    @Test
+    public void notStreaming_sameOrder() throws Exception {
+        configuration.setApplicationOrSystemProperty(
+                Constants.SERVLET_PARAMETER_STREAMING_RPC_PARSING, "false");
+
+        handleRpc(message(0, session.getCsrfToken()));
+
+        Assert.assertEquals(expectedOrder(""), handled);
+    }
+
+    @Test
+    public void streaming_invocationsBeforeClientId_handledAfterReading()
+            throws Exception {
+        handleRpc("{\"rpc\":" + invocations() + ",\"csrfToken\":\""
+                + session.getCsrfToken() + "\",\"clientId\":0}");
+
+        Assert.assertEquals(expectedOrder(""), handled);
+    }
+
+    @Test(expected = InvalidUIDLSecurityKeyException.class)
+    public void streaming_invalidCsrfToken_nothingHandled() throws Exception {
+        try {
+            handleRpc(message(0, "foo"));
+        } finally {
+            Assert.assertTrue(handled.isEmpty());
+        }
+    }
+
+    @Test
+    public void streaming_unexpectedId_nothingHandled() throws Exception {
+        try {
+            handleRpc(message(3, session.getCsrfToken()));
+            Assert.fail("Message should have been rejected");
+        } catch (UnsupportedOperationException e) {
+            Assert.assertTrue(e.getMessage()
+                    .startsWith("Unexpected message id from the client."));
+        }
+        Assert.assertTrue(handled.isEmpty());
+    }
+
+    @Test
+    public void streaming_duplicateMessage_detected() throws Exception {
+        assertDuplicateDetected();
+    }
+
+    @Test
+    public void notStreaming_duplicateMessage_detected() throws Exception {
+        configuration.setApplicationOrSystemProperty(
+                Constants.SERVLET_PARAMETER_STREAMING_RPC_PARSING, "false");
+
+        assertDuplicateDetected();
+    }
+
+    @Test
+    public void sha256Fingerprint_duplicateMessage_detected()
+            throws Exception {
+        configuration.setApplicationOrSystemProperty(
+                Constants.SERVLET_PARAMETER_MESSAGE_FINGERPRINT, "sha_256");
+
+        assertDuplicateDetected();
+        Assert.assertArrayEquals(
+                MessageDigestUtil.sha256(message(0, session.getCsrfToken())),
+                ui.getInternals().getLastProcessedMessageHash());
+    }
+
+    @Test
+    public void defaultFingerprint_murmurHashOfMessage() throws Exception {
+        String message = message(0, session.getCsrfToken());
+        handleRpc(message);
+
+        Assert.assertArrayEquals(MessageDigestUtil.murmurHash3(message),
+                ui.getInternals().getLastProcessedMessageHash());
+    }
+
+    @Test
+    public void streamingAndNotStreaming_sameFingerprint() throws Exception {
+        String message = message(0, session.getCsrfToken());
+        handleRpc(message);
+        byte[] streamingHash = ui.getInternals().getLastProcessedMessageHash();
+
+        configuration.setApplicationOrSystemProperty(
+                Constants.SERVLET_PARAMETER_STREAMING_RPC_PARSING, "false");
+        ui.getInternals().setLastProcessedClientToServerId(-1, null);
+        handleRpc(message);
+
+        Assert.assertArrayEquals(streamingHash,
+                ui.getInternals().getLastProcessedMessageHash());
+    }
+
+    @Test
+    public void resentMessageDifferentContent_notConfirmedDuplicate()
+            throws Exception {
+        handleRpc(message(0, session.getCsrfToken()));
+
+        try {
+            handleRpc(message(0, session.getCsrfToken()).replace("sync2",
+                    "sync3"));
+            Assert.fail("Message should have been rejected");
+        } catch (UnsupportedOperationException e) {
+            Assert.assertTrue(e.getMessage()
+                    .startsWith("Unexpected message id from the client."));
+        }
+    }
+
+    @Test
+    public void customFingerprint_used() throws Exception {
+        rpcHandler = new ServerRpcHandler() {
+            @Override
+            protected MessageFingerprint getMessageFingerprint(
+                    VaadinRequest request) {
+                return message -> new byte[] { (byte) message.length() };
+            }
+        };
+
+        String message = "{\"clientId\":0,\"csrfToken\":\""
+                + session.getCsrfToken() + "\",\"rpc\":[]}";
+        handleRpc(message);
+
+        Assert.assertArrayEquals(new byte[] { (byte) message.length() },
+                ui.getInternals().getLastProcessedMessageHash());
+    }
+
+    @Test
+    public void streaming_emptyMessage_ignored() throws Exception {
+        handleRpc("");
+
+        Assert.assertTrue(handled.isEmpty());
+        Assert.assertEquals(-1,
+                ui.getInternals().getLastProcessedClientToServerId());
+    }
+
+    @Test
+    public void streaming_clientMetrics_listenerNotified() throws Exception {
+        assertClientMetricsReceived();
+    }
+
+    @Test
+    public void notStreaming_clientMetrics_listenerNotified()
+            throws Exception {
+        configuration.setApplicationOrSystemProperty(
+                Constants.SERVLET_PARAMETER_STREAMING_RPC_PARSING, "false");
+
+        assertClientMetricsReceived();
+    }
+
+    @Test
+    public void duplicateMessage_clientMetricsIgnored() throws Exception {
+        List<ClientMetricsEvent> events = new ArrayList<>();
+        session.getService().addClientMetricsListener(events::add);
+        String message = messageWithMetrics();
+        handleRpc(message);
+
+        try {
+            handleRpc(message);
+            Assert.fail("Duplicate message should have been rejected");
+        } catch (UnsupportedOperationException e) {
+            // Expected
+        }
+        Assert.assertEquals(1, events.size());
+    }
+
+    @Test
+    public void metricsDisabled_clientMetricsIgnored() throws Exception {
+        configuration.setApplicationOrSystemProperty(
+                Constants.SERVLET_PARAMETER_CLIENT_METRICS_SAMPLE_RATE, "0");
+        List<ClientMetricsEvent> events = new ArrayList<>();
+        session.getService().addClientMetricsListener(events::add);
+
+        handleRpc(messageWithMetrics(0));
+
+        Assert.assertEquals(6, handled.size());
+        Assert.assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void clientMetricsSentTooOften_ignored() throws Exception {
+        List<ClientMetricsEvent> events = new ArrayList<>();
+        session.getService().addClientMetricsListener(events::add);
+
+        handleRpc(messageWithMetrics(0));
+        handleRpc(messageWithMetrics(1));
+
+        // Both messages are processed, but only the first metrics are used
+        Assert.assertEquals(1,
+                ui.getInternals().getLastProcessedClientToServerId());
+        Assert.assertEquals(1, events.size());
+    }
+
+    private void assertClientMetricsReceived() throws Exception {
+        List<ClientMetricsEvent> events = new ArrayList<>();
+        session.getService().addClientMetricsListener(events::add);
+
+        handleRpc(messageWithMetrics());
+
+        // The invocations are still handled
+        Assert.assertEquals(6, handled.size());
+        Assert.assertEquals(1, events.size());
+        Assert.assertSame(ui, events.get(0).getUI());
+        Assert.assertEquals(Arrays.asList(1.5, 2.0),
+                events.get(0).getProcessingTimes());
+    }
+
+    private String messageWithMetrics() {
+        return messageWithMetrics(0);
+    }
+
+    private String messageWithMetrics(int clientId) {
+        String message = message(clientId, session.getCsrfToken());
+        return message.substring(0, message.length() - 1) + ",\""
+                + ApplicationConstants.CLIENT_METRICS
+                + "\":{\"processing\":[1.5,2]}}";
+    }
+
+    private void assertDuplicateDetected() throws Exception {
+        String message = message(0, session.getCsrfToken());
+        handleRpc(message);
+        handled.clear();
+
+        try {
+            handleRpc(message);
+            Assert.fail("Duplicate message should have been rejected");
+        } catch (UnsupportedOperationException e) {
+            Assert.assertTrue(e.getMessage()
+                    .startsWith("Confirmed duplicate message from the client."));
+        }
+        Assert.assertTrue(handled.isEmpty());
+    }
+
+    private void handleRpc(String message) throws Exception {
+        messageFullyRead = false;
+        rpcHandler.handleRpc(ui, new SlowReader(message), request);
+    }
+
+    private static List<String> expectedOrder(String mapSyncSuffix) {
+        List<String> order = new ArrayList<>();
+        order.add("sync1" + mapSyncSuffix);
+        order.add("sync2" + mapSyncSuffix);
+        order.add("change sync1");
+        order.add("change sync2");
+        order.add("event1");
+        order.add("event2");
+        return order;
+    }
+
+    private static String message(int clientId, String csrfToken) {
+        return "{\"csrfToken\":\"" + csrfToken + "\",\"syncId\":0,"
+                + "\"clientId\":" + clientId + ",\"rpc\":" + invocations()
+                // Makes sure the end of the message is read separately
+                + ",\"padding\":\"" + PADDING + "\"}";
+    }
+
+    private static String invocations() {
+        return "[" + invocation(JsonConstants.RPC_TYPE_EVENT, "event1") + ","
+                + invocation(JsonConstants.RPC_TYPE_MAP_SYNC, "sync1") + ","
+                + invocation(JsonConstants.RPC_TYPE_EVENT, "event2") + ","
+                + invocation(JsonConstants.RPC_TYPE_MAP_SYNC, "sync2") + "]";
+    }
+
+    private static String invocation(String type, String id) {
+        return "{\"type\":\"" + type + "\",\"id\":\"" + id + "\"}";
+    }
+}
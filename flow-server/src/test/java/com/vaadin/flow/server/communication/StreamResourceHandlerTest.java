@@ -0,0 +1,166 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.server.communication;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletOutputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.vaadin.flow.function.DeploymentConfiguration;
+import com.vaadin.flow.internal.ByteRangeWriterTest.SlowClientOutputStream;
+import com.vaadin.flow.internal.ResponseWriterTest.CapturingServletOutputStream;
+import com.vaadin.flow.server.StreamResource;
+import com.vaadin.flow.server.VaadinService;
+import com.vaadin.flow.server.VaadinServletRequest;
+import com.vaadin.flow.server.VaadinServletResponse;
+import com.vaadin.flow.server.VaadinSession;
+
+public class StreamResourceHandlerTest {
+
+    private static final int REQUEST_THREADS = 2;
+    private static final int CLIENTS = 50;
+
+    private final StreamResourceHandler handler = new StreamResourceHandler();
+
+    private VaadinService service;
+    private DeploymentConfiguration configuration;
+    private VaadinSession session;
+    private ExecutorService requestThreads;
+    private AtomicInteger completed;
+
+    @Before
+    public void setUp() {
+        configuration = Mockito.mock(DeploymentConfiguration.class);
+        service = Mockito.mock(VaadinService.class);
+        Mockito.when(service.getDeploymentConfiguration())
+                .thenReturn(configuration);
+        session = Mockito.mock(VaadinSession.class);
+        requestThreads = Executors.newFixedThreadPool(REQUEST_THREADS);
+        completed = new AtomicInteger();
+    }
+
+    @After
+    public void tearDown() {
+        requestThreads.shutdownNow();
+    }
+
+    @Test
+    public void asyncStreamResources_manySlowClients_requestThreadsReleased()
+            throws Exception {
+        Mockito.when(configuration.isAsyncStreamResources()).thenReturn(true);
+        byte[] data = new byte[100 * 1024];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        StreamResource resource = new StreamResource("data.bin",
+                () -> new ByteArrayInputStream(data));
+        resource.setContentType("application/octet-stream");
+
+        List<SlowClientOutputStream> clients = new ArrayList<>();
+        List<Future<?>> requests = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            SlowClientOutputStream client = new SlowClientOutputStream();
+            clients.add(client);
+            VaadinServletRequest request = createRequest();
+            VaadinServletResponse response = createResponse(client);
+            requests.add(requestThreads.submit(() -> {
+                handler.handleRequest(session, request, response, resource);
+                return null;
+            }));
+        }
+
+        // All requests are handled by the few request threads even though
+        // none of the clients has received any data yet
+        for (Future<?> request : requests) {
+            request.get(5, TimeUnit.SECONDS);
+        }
+        for (SlowClientOutputStream client : clients) {
+            Assert.assertEquals(0, client.getOutput().length);
+        }
+
+        for (int i = 0; completed.get() < CLIENTS; i++) {
+            Assert.assertTrue("All responses should have been completed",
+                    i < 10);
+            for (SlowClientOutputStream client : clients) {
+                client.receive();
+            }
+        }
+        for (SlowClientOutputStream client : clients) {
+            Assert.assertArrayEquals(data, client.getOutput());
+        }
+    }
+
+    @Test
+    public void asyncStreamResourcesDisabled_writtenInRequestThread()
+            throws IOException {
+        byte[] data = { 1, 2, 3 };
+        StreamResource resource = new StreamResource("data.bin",
+                () -> new ByteArrayInputStream(data));
+        resource.setContentType("application/octet-stream");
+        CapturingServletOutputStream client = new CapturingServletOutputStream();
+        VaadinServletRequest request = createRequest();
+
+        handler.handleRequest(session, request, createResponse(client),
+                resource);
+
+        Mockito.verify(request, Mockito.never()).startAsync();
+        Assert.assertArrayEquals(data, client.getOutput());
+    }
+
+    private VaadinServletRequest createRequest() {
+        VaadinServletRequest request = Mockito
+                .mock(VaadinServletRequest.class);
+        Mockito.when(request.getService()).thenReturn(service);
+        Mockito.when(request.getMethod()).thenReturn("GET");
+        Mockito.when(request.isAsyncSupported()).thenReturn(true);
+        AsyncContext asyncContext = Mockito.mock(AsyncContext.class);
+        Mockito.doAnswer(invocation -> {
+            completed.incrementAndGet();
+            return null;
+        }).when(asyncContext).complete();
+        // The data of the stream is read ahead in tasks started by the
+        // container, which are run directly here
+        Mockito.doAnswer(invocation -> {
+            ((Runnable) invocation.getArguments()[0]).run();
+            return null;
+        }).when(asyncContext).start(Mockito.any(Runnable.class));
+        Mockito.when(request.startAsync()).thenReturn(asyncContext);
+        return request;
+    }
+
+    private static VaadinServletResponse createResponse(
+            ServletOutputStream client) throws IOException {
+        VaadinServletResponse response = Mockito
+                .mock(VaadinServletResponse.class);
+        Mockito.when(response.getOutputStream()).thenReturn(client);
+        return response;
+    }
+}
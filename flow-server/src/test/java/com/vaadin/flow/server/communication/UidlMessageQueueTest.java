@@ -0,0 +1,146 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.server.communication;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.flow.server.MockVaadinServletService;
+import com.vaadin.flow.server.MockVaadinSession;
+
+import elemental.json.Json;
+import elemental.json.JsonObject;
+
+public class UidlMessageQueueTest {
+
+    private final UidlMessageQueue queue = new UidlMessageQueue();
+    private final List<String> written = Collections
+            .synchronizedList(new ArrayList<>());
+    private final ExecutorService executor = Executors
+            .newSingleThreadExecutor();
+
+    private MockVaadinSession session;
+
+    @Before
+    public void setUp() {
+        MockVaadinServletService service = new MockVaadinServletService();
+        service.init();
+        session = new MockVaadinSession(service);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void flush_messagesWrittenInOrderAdded() {
+        add(createUidl(1), written::add);
+        add(createUidl(2), written::add);
+
+        Assert.assertTrue(written.isEmpty());
+        queue.flush();
+
+        Assert.assertEquals(Arrays.asList("for(;;);[{\"syncId\":1}]",
+                "for(;;);[{\"syncId\":2}]"), written);
+    }
+
+    @Test
+    public void add_uidlModifiedAfterAdding_snapshotWritten() {
+        JsonObject value = Json.createObject();
+        value.put("text", "before");
+        JsonObject uidl = createUidl(1);
+        uidl.put("value", value);
+
+        add(uidl, written::add);
+        // The collected changes share values with the state tree
+        value.put("text", "after");
+        queue.flush();
+
+        Assert.assertEquals(Collections.singletonList(
+                "for(;;);[{\"syncId\":1,\"value\":{\"text\":\"before\"}}]"),
+                written);
+    }
+
+    @Test
+    public void flush_writeFails_followingMessagesWritten() {
+        add(createUidl(1), message -> {
+            throw new IOException("Client disconnected");
+        });
+        add(createUidl(2), written::add);
+
+        queue.flush();
+
+        Assert.assertEquals(
+                Collections.singletonList("for(;;);[{\"syncId\":2}]"),
+                written);
+    }
+
+    @Test
+    public void flush_otherThreadWriting_returnsWhenOwnMessageWritten()
+            throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        add(createUidl(1), message -> {
+            writing.countDown();
+            try {
+                proceed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            written.add(message);
+        });
+        Future<?> otherThread = executor.submit(queue::flush);
+        Assert.assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+        add(createUidl(2), written::add);
+        // The other thread is still writing the first message
+        proceed.countDown();
+        queue.flush();
+
+        Assert.assertEquals(Arrays.asList("for(;;);[{\"syncId\":1}]",
+                "for(;;);[{\"syncId\":2}]"), written);
+        otherThread.get(5, TimeUnit.SECONDS);
+    }
+
+    private void add(JsonObject uidl, UidlMessageQueue.MessageWriter writer) {
+        session.lock();
+        try {
+            queue.add(session, uidl, writer);
+        } finally {
+            session.unlock();
+        }
+    }
+
+    private static JsonObject createUidl(int syncId) {
+        JsonObject uidl = Json.createObject();
+        uidl.put("syncId", syncId);
+        return uidl;
+    }
+}
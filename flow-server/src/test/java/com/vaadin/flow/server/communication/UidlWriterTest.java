@@ -16,6 +16,7 @@
 package com.vaadin.flow.server.communication;
 
 import javax.servlet.http.HttpServletRequest;
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -393,6 +394,46 @@ public class UidlWriterTest {
         }
     }
 
+    @Test
+    public void writeUidl_sameContentAsCreateUidl() throws Exception {
+        UI createdUI = initializeUIForDependenciesTest(new TestUI());
+        UI streamedUI = initializeUIForDependenciesTest(new TestUI());
+
+        for (UI ui : Arrays.asList(createdUI, streamedUI)) {
+            ui.add(new ComponentWithAllDependencyTypes(),
+                    new ChildComponent());
+            ui.getElement().setProperty("foo", "bar");
+            ui.getPage().executeJavaScript("window.foo = $0", "bar");
+        }
+
+        JsonObject expected = new UidlWriter().createUidl(createdUI, false);
+
+        StringWriter writer = new StringWriter();
+        new UidlWriter().writeUidl(streamedUI, false, writer);
+        JsonObject streamed = Json.parse(writer.toString());
+
+        assertTrue("Expected " + expected.toJson() + " but got "
+                + streamed.toJson(), JsonUtils.jsonEquals(expected, streamed));
+        assertEquals(createdUI.getInternals().getServerSyncId(),
+                streamedUI.getInternals().getServerSyncId());
+    }
+
+    @Test
+    public void writeUidl_noChanges_noChangesProperty() throws Exception {
+        UI ui = initializeUIForDependenciesTest(new TestUI());
+        UidlWriter uidlWriter = new UidlWriter();
+        addInitialComponentDependencies(ui, uidlWriter);
+
+        StringWriter writer = new StringWriter();
+        uidlWriter.writeUidl(ui, false, writer);
+        JsonObject response = Json.parse(writer.toString());
+
+        assertFalse(response.hasKey("changes"));
+        assertTrue(response.hasKey(ApplicationConstants.SERVER_SYNC_ID));
+        assertTrue(
+                response.hasKey(ApplicationConstants.CLIENT_TO_SERVER_ID));
+    }
+
     private void assertInlineDependencies(List<JsonObject> inlineDependencies,
             String expectedPrefix) {
         assertThat("Should have 3 inline dependencies", inlineDependencies,
@@ -423,7 +464,9 @@ public class UidlWriterTest {
     }
 
     private UI initializeUIForDependenciesTest(UI ui) throws Exception {
-        mocks = new MockServletServiceSessionSetup();
+        if (mocks == null) {
+            mocks = new MockServletServiceSessionSetup();
+        }
 
         VaadinSession session = mocks.getSession();
         session.lock();
@@ -226,6 +226,19 @@ public class PublishedServerEventHandlerRpcHandlerTest {
         Assert.assertTrue(component.isInvoked);
     }
 
+    @Test
+    public void methodDeclaredInSuperClass_methodIsInvokedRepeatedly() {
+        MethodWithVarArgParameter component = new MethodWithVarArgParameter();
+        PublishedServerEventHandlerRpcHandler.invokeMethod(component,
+                component.getClass(), "method", Json.createArray());
+        Assert.assertTrue(component.isInvoked);
+
+        component.isInvoked = false;
+        PublishedServerEventHandlerRpcHandler.invokeMethod(component,
+                component.getClass(), "method", Json.createArray());
+        Assert.assertTrue(component.isInvoked);
+    }
+
     @Test
     public void methodIsInvokedOnCompositeContent() {
         CompositeOfComponentWithMethod composite = new CompositeOfComponentWithMethod();
@@ -4,13 +4,16 @@ import javax.servlet.ServletContext;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
+import com.vaadin.flow.component.Component;
 import com.vaadin.flow.router.RouteBaseData;
+import com.vaadin.flow.router.internal.AbstractRouteRegistry;
 import com.vaadin.flow.server.RouteRegistry;
 import org.junit.Assert;
 import org.junit.Before;
@@ -293,6 +296,34 @@ public class ApplicationRouteRegistryTest extends RouteRegistryTestBase {
                 Collections.emptyList(), removed.get(0).getParentLayouts());
     }
 
+    @Test
+    public void navigationTargetLookupOverridden_overrideUsedForMatchingPath() {
+        ApplicationRouteRegistry overriding = new ApplicationRouteRegistry() {
+            @Override
+            public Optional<Class<? extends Component>> getNavigationTarget(
+                    String pathString, List<String> segments) {
+                if ("custom".equals(pathString) && segments.isEmpty()) {
+                    return Optional.of(MyRoute.class);
+                }
+                return super.getNavigationTarget(pathString, segments);
+            }
+        };
+        overriding.setRoute("home", MyRoute.class, Collections.emptyList());
+
+        Assert.assertEquals(1, AbstractRouteRegistry.getMatchingPathLength(
+                overriding, Collections.singletonList("custom")));
+        Assert.assertEquals(1, AbstractRouteRegistry.getMatchingPathLength(
+                overriding, Collections.singletonList("home")));
+        Assert.assertEquals(-1, AbstractRouteRegistry.getMatchingPathLength(
+                overriding, Collections.singletonList("other")));
+
+        registry.setRoute("home", MyRoute.class, Collections.emptyList());
+        Assert.assertEquals(-1, AbstractRouteRegistry.getMatchingPathLength(
+                registry, Collections.singletonList("custom")));
+        Assert.assertEquals(1, AbstractRouteRegistry.getMatchingPathLength(
+                registry, Collections.singletonList("home")));
+    }
+
     @Test
     public void routeWithAliases_eventShowsCorrectlyAsRemoved() {
         List<RouteBaseData> added = new ArrayList<>();
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.server.startup;
+
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import com.vaadin.flow.component.Component;
+import com.vaadin.flow.component.Tag;
+import com.vaadin.flow.component.WebComponent;
+import com.vaadin.flow.component.page.Viewport;
+import com.vaadin.flow.router.HasErrorParameter;
+import com.vaadin.flow.router.Route;
+import com.vaadin.flow.router.RouteAlias;
+import com.vaadin.flow.router.TestRouteRegistry;
+import com.vaadin.flow.server.RouteRegistry;
+
+public class StartupIndexTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private ServletContext servletContext;
+    private Map<String, Object> attributes = new HashMap<>();
+
+    @Route("indexed")
+    @Tag(Tag.DIV)
+    public static class IndexedRoute extends Component {
+    }
+
+    @Route("scanned")
+    @Tag(Tag.DIV)
+    public static class ScannedRoute extends Component {
+    }
+
+    @Before
+    public void init() {
+        servletContext = Mockito.mock(ServletContext.class);
+        Mockito.when(servletContext.getAttribute(Mockito.anyString()))
+                .then(invocation -> attributes
+                        .get(invocation.getArgumentAt(0, String.class)));
+        Mockito.doAnswer(invocation -> attributes.put(
+                invocation.getArgumentAt(0, String.class),
+                invocation.getArgumentAt(1, Object.class)))
+                .when(servletContext)
+                .setAttribute(Mockito.anyString(), Mockito.any());
+        attributes.put(RouteRegistry.class.getName(), new TestRouteRegistry());
+    }
+
+    @Test
+    public void getIndexedTypeNames_containsTypesOfInitializers() {
+        Set<String> typeNames = StartupIndex.getIndexedTypeNames();
+
+        for (Class<?> type : Arrays.asList(Route.class, RouteAlias.class,
+                HasErrorParameter.class, WebComponent.class,
+                Viewport.class)) {
+            Assert.assertTrue(type.getName() + " should be indexed",
+                    typeNames.contains(type.getName()));
+        }
+    }
+
+    @Test
+    public void toJson_sameIndexInDifferentOrder_sameJson() {
+        Map<String, List<String>> first = new LinkedHashMap<>();
+        first.put(Route.class.getName(), Arrays.asList("b.B", "a.A"));
+        first.put(RouteAlias.class.getName(), Collections.emptyList());
+        Map<String, List<String>> second = new LinkedHashMap<>();
+        second.put(RouteAlias.class.getName(), Collections.emptyList());
+        second.put(Route.class.getName(), Arrays.asList("a.A", "b.B"));
+
+        Assert.assertEquals(StartupIndex.toJson(first),
+                StartupIndex.toJson(second));
+    }
+
+    @Test
+    public void read_getClasses_classesOfRequestedTypes() throws IOException {
+        Map<String, List<String>> classNames = new HashMap<>();
+        classNames.put(Route.class.getName(),
+                Collections.singletonList(IndexedRoute.class.getName()));
+        classNames.put(HasErrorParameter.class.getName(),
+                Collections.singletonList(ScannedRoute.class.getName()));
+
+        StartupIndex index = StartupIndex.read(toStream(classNames),
+                getClass().getClassLoader());
+
+        Assert.assertEquals(Collections.singleton(IndexedRoute.class),
+                index.getClasses(Route.class, RouteAlias.class));
+        Assert.assertEquals(Collections.emptySet(),
+                index.getClasses(WebComponent.class));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void getClasses_missingClass_throws() throws IOException {
+        StartupIndex index = StartupIndex.read(
+                toStream(Collections.singletonMap(Route.class.getName(),
+                        Collections.singletonList("com.example.Missing"))),
+                getClass().getClassLoader());
+
+        index.getClasses(Route.class);
+    }
+
+    @Test
+    public void onStartup_indexAvailable_indexedClassesUsed()
+            throws IOException, ServletException {
+        useIndex(Collections.singletonMap(Route.class.getName(),
+                Collections.singletonList(IndexedRoute.class.getName())));
+
+        new RouteRegistryInitializer().onStartup(
+                Collections.singleton(ScannedRoute.class), servletContext);
+
+        RouteRegistry registry = ApplicationRouteRegistry
+                .getInstance(servletContext);
+        Assert.assertTrue(registry.getNavigationTarget("indexed").isPresent());
+        Assert.assertFalse(registry.getNavigationTarget("scanned").isPresent());
+    }
+
+    @Test
+    public void onStartup_noIndex_containerClassesUsed()
+            throws ServletException {
+        Mockito.when(servletContext.getClassLoader())
+                .thenReturn(getClass().getClassLoader());
+
+        new RouteRegistryInitializer().onStartup(
+                Collections.singleton(ScannedRoute.class), servletContext);
+
+        RouteRegistry registry = ApplicationRouteRegistry
+                .getInstance(servletContext);
+        Assert.assertTrue(registry.getNavigationTarget("scanned").isPresent());
+    }
+
+    @Test
+    public void get_indexReadOnceForContext() throws IOException {
+        useIndex(Collections.singletonMap(Route.class.getName(),
+                Collections.singletonList(IndexedRoute.class.getName())));
+
+        StartupIndex index = StartupIndex.get(servletContext);
+
+        Assert.assertNotNull(index);
+        Assert.assertSame(index, StartupIndex.get(servletContext));
+    }
+
+    private void useIndex(Map<String, List<String>> classNames)
+            throws IOException {
+        File file = temporaryFolder.newFile();
+        Files.write(file.toPath(), StartupIndex.toJson(classNames)
+                .getBytes(StandardCharsets.UTF_8));
+        URL url = file.toURI().toURL();
+        ClassLoader classLoader = new ClassLoader(
+                getClass().getClassLoader()) {
+            @Override
+            public URL getResource(String name) {
+                if (StartupIndex.RESOURCE_NAME.equals(name)) {
+                    return url;
+                }
+                return super.getResource(name);
+            }
+        };
+        Mockito.when(servletContext.getClassLoader()).thenReturn(classLoader);
+    }
+
+    private static InputStream toStream(
+            Map<String, List<String>> classNames) {
+        return new ByteArrayInputStream(StartupIndex.toJson(classNames)
+                .getBytes(StandardCharsets.UTF_8));
+    }
+}
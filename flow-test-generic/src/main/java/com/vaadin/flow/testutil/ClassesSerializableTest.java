@@ -117,6 +117,19 @@ public abstract class ClassesSerializableTest {
                 "com\\.vaadin\\.flow\\.server\\.osgi\\.VaadinBundleTracker",
                 "com\\.vaadin\\.flow\\.server\\.startup\\.ErrorNavigationTargetInitializer",
                 "com\\.vaadin\\.flow\\.server\\.startup\\.ServletVerifier",
+                "com\\.vaadin\\.flow\\.server\\.startup\\.StartupIndex",
+                "com\\.vaadin\\.flow\\.server\\.PwaIconCache",
+                "com\\.vaadin\\.flow\\.data\\.provider\\.PrefetchCache",
+                "com\\.vaadin\\.flow\\.server\\.communication\\.UidlWriter\\$ChangeStreamWriter",
+                "com\\.vaadin\\.flow\\.internal\\.nodefeature\\.ListChangeCompactor(\\$.*)?",
+                "com\\.vaadin\\.flow\\.server\\.communication\\.rpc\\.EventHandlerMethod(\\$.*)?",
+                "com\\.vaadin\\.flow\\.server\\.communication\\.rpc\\.PublishedServerEventHandlerRpcHandler\\$HandlerMethods",
+                "com\\.vaadin\\.flow\\.internal\\.ByteRangeSource(\\$.*)?",
+                "com\\.vaadin\\.flow\\.internal\\.ByteRangeWriter(\\$.*)?",
+                "com\\.vaadin\\.flow\\.server\\.StreamResource\\$Pipe\\$.*",
+                "com\\.vaadin\\.flow\\.router\\.internal\\.RouteSegmentTrie(\\$.*)?",
+                "com\\.vaadin\\.flow\\.internal\\.AsyncPartWriter(\\$.*)?",
+                "com\\.vaadin\\.flow\\.server\\.communication\\.UidlMessageQueue(\\$.*)?",
                 "com\\.vaadin\\.flow\\.server\\.startup\\.RouteRegistryInitializer",
                 "com\\.vaadin\\.flow\\.server\\.startup\\.WebComponentRegistryInitializer",
                 "com\\.vaadin\\.flow\\.server\\.VaadinResponse",
@@ -148,6 +161,9 @@ public abstract class ClassesSerializableTest {
                 "com\\.vaadin\\.flow\\.data\\.osgi\\..*",
                 "com\\.vaadin\\.flow\\.component\\.internal\\.HtmlImportParser",
                 "com\\.vaadin\\.flow\\.server\\.webcomponent\\.WebComponentGenerator",
+                "com\\.vaadin\\.flow\\.internal\\.JsonStreamReader",
+                "com\\.vaadin\\.flow\\.server\\.communication\\.ServerRpcHandler\\$PendingInvocations",
+                "com\\.vaadin\\.flow\\.server\\.communication\\.ServerRpcHandler\\$MessageStartReader",
 
                 //Various test classes
                 ".*\\.test(s)?\\..*",